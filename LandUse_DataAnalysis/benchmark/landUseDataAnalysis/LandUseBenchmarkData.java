@@ -0,0 +1,127 @@
+package landUseDataAnalysis;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Input files for the benchmarks: the shipped csv file, a scaled copy of it
+ * with the data lines repeated, or a file of synthetic data written by
+ * LandUseDataGenerator.
+ *
+ * The csv file is read from the landUse.csv system property, or from the
+ * same path the tests use when the property is not set.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+final class LandUseBenchmarkData {
+
+    static final String CSV_PATH = System.getProperty("landUse.csv",
+            "/Users/pulchrit/ada/C11_App_DataAnalysis/LandUse_DataAnalysis/src/USDA_MajorLandUse_1945-2012.csv");
+
+    // Seed for synthetic inputs, so every run measures the same file.
+    private static final long SEED = 1945;
+
+    private LandUseBenchmarkData() {
+    }
+
+    /**
+     * Gets the csv file for a benchmark input parameter.
+     *
+     * @param input, String, "shipped", "replicated" followed by a number of
+     * copies (such as "replicated100"), or "synthetic" followed by a number
+     * of rows (such as "synthetic1000000").
+     * @return Path, csv file to read, to be removed with delete().
+     * @throws IOException
+     */
+    static Path csv(String input) throws IOException {
+        if (input.equals("shipped")) {
+            return Paths.get(CSV_PATH);
+        } else if (input.startsWith("replicated")) {
+            return scaledCsv(Integer.parseInt(input.substring("replicated".length())));
+        } else if (input.startsWith("synthetic")) {
+            return syntheticCsv(Long.parseLong(input.substring("synthetic".length())));
+        }
+        throw new IllegalArgumentException("Unknown benchmark input " + input);
+    }
+
+    /**
+     * Writes a csv file of synthetic data with LandUseDataGenerator's
+     * default settings.
+     *
+     * @param rows, long, number of rows after the header.
+     * @return Path, temporary csv file, to be removed with delete().
+     * @throws IOException
+     */
+    static Path syntheticCsv(long rows) throws IOException {
+        Path synthetic = Files.createTempFile("landUseSynthetic" + rows, ".csv");
+        try (OutputStream out = Files.newOutputStream(synthetic)) {
+            new LandUseDataGenerator(SEED, 15, 5, 0.001).write(out, rows);
+        }
+        return synthetic;
+    }
+
+    /**
+     * Gets a csv file with the shipped data repeated a number of times.
+     *
+     * @param scale, int, number of copies of the data lines. 1 gives the
+     * shipped file itself.
+     * @return Path, csv file to read. Files other than the shipped one are
+     * temporary and should be removed with delete().
+     * @throws IOException
+     */
+    static Path scaledCsv(int scale) throws IOException {
+        Path shipped = Paths.get(CSV_PATH);
+        if (scale == 1) {
+            return shipped;
+        }
+
+        // The header is the first line. The file may end its lines with \r,
+        // \n or \r\n, so find the end of the header and the line ending used.
+        byte[] csv = Files.readAllBytes(shipped);
+        int headerEnd = 0;
+        boolean inQuotes = false;
+        while (headerEnd < csv.length && (inQuotes || (csv[headerEnd] != '\r' && csv[headerEnd] != '\n'))) {
+            if (csv[headerEnd] == '"') {
+                inQuotes = !inQuotes;
+            }
+            headerEnd++;
+        }
+        int dataStart = headerEnd;
+        while (dataStart < csv.length && (csv[dataStart] == '\r' || csv[dataStart] == '\n')) {
+            dataStart++;
+        }
+        byte[] lineEnd = new byte[dataStart - headerEnd];
+        System.arraycopy(csv, headerEnd, lineEnd, 0, lineEnd.length);
+
+        Path scaled = Files.createTempFile("landUseScaled" + scale + "x", ".csv");
+        try (OutputStream out = Files.newOutputStream(scaled)) {
+            out.write(csv, 0, dataStart);
+            for (int copy = 0; copy < scale; copy++) {
+                out.write(csv, dataStart, csv.length - dataStart);
+
+                // The shipped file has no line ending after its last line.
+                if (copy < scale - 1 && csv[csv.length - 1] != '\r' && csv[csv.length - 1] != '\n') {
+                    out.write(lineEnd);
+                }
+            }
+        }
+        return scaled;
+    }
+
+    /**
+     * Removes a file made by scaledCsv(), leaving the shipped file alone.
+     *
+     * @param csv, Path returned by scaledCsv().
+     * @throws IOException
+     */
+    static void delete(Path csv) throws IOException {
+        if (!csv.equals(Paths.get(CSV_PATH))) {
+            Files.deleteIfExists(csv);
+        }
+    }
+}
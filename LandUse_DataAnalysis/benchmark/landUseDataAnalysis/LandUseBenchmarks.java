@@ -0,0 +1,39 @@
+package landUseDataAnalysis;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the land use benchmarks with the GC profiler, which adds the
+ * allocation rate (gc.alloc.rate and gc.alloc.rate.norm, bytes per
+ * operation) to the throughput and average time of each benchmark.
+ *
+ * The benchmarks need jmh-core and jmh-generator-annprocess on the class
+ * path, with the annotation processor run when this folder is compiled. The
+ * csv file is read from the landUse.csv system property (see
+ * LandUseBenchmarkData). For example:
+ *
+ *     java -DlandUse.csv=src/USDA_MajorLandUse_1945-2012.csv \
+ *         -cp bin:benchmark-bin:jmh-core.jar:... landUseDataAnalysis.LandUseBenchmarks
+ *
+ * A regular expression can be given to run only some benchmarks, such as
+ * "LandUseQuestionBenchmark.question5".
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public class LandUseBenchmarks {
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : LandUseBenchmarks.class.getPackage().getName() + ".*Benchmark")
+                .addProfiler(GCProfiler.class)
+                .jvmArgsAppend("-DlandUse.csv=" + LandUseBenchmarkData.CSV_PATH)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,46 @@
+package landUseDataAnalysis;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks LandUseDataLineItem.convertStringToInt() for a valid number and
+ * for "N.A.", which used to be handled by catching a NumberFormatException.
+ *
+ * The inputs are fields rather than constants so the JIT compiler can't fold
+ * the conversion away.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LandUseConversionBenchmark {
+
+    public String validNumber = "54100";
+    public String notAvailable = "N.A.";
+
+    @Benchmark
+    public int convertValidNumber() {
+        return LandUseDataLineItem.convertStringToInt(validNumber);
+    }
+
+    @Benchmark
+    public int convertNotAvailable() {
+        return LandUseDataLineItem.convertStringToInt(notAvailable);
+    }
+}
@@ -0,0 +1,83 @@
+package landUseDataAnalysis;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks reading the csv file with LandUseDataProcessing, for the
+ * shipped file, a scaled copy of it and synthetic data (see
+ * LandUseBenchmarkData).
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LandUseIngestBenchmark {
+
+    // Input file, see LandUseBenchmarkData.csv().
+    @Param({"shipped", "replicated100", "synthetic1000000"})
+    public String input;
+
+    private Path csv;
+
+    @Setup(Level.Trial)
+    public void writeInput() throws IOException {
+        csv = LandUseBenchmarkData.csv(input);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteInput() throws IOException {
+        LandUseBenchmarkData.delete(csv);
+    }
+
+    @Benchmark
+    public List<LandUseDataLineItem> processData() throws IOException {
+        return LandUseDataProcessing.processData(csv.toString());
+    }
+
+    @Benchmark
+    public long processDataConsumer() throws IOException {
+        return LandUseDataProcessing.processData(csv.toString(), dataInstance -> { });
+    }
+
+    @Benchmark
+    public long streamData() throws IOException {
+        try (Stream<LandUseDataLineItem> data = LandUseDataProcessing.streamData(csv.toString())) {
+            return data.count();
+        }
+    }
+
+    @Benchmark
+    public LandUseDataset processDataset() throws IOException {
+        return LandUseDataProcessing.processDataset(csv.toString());
+    }
+
+    @Benchmark
+    public LandUseDataset processDatasetParallel() throws IOException {
+        return LandUseDataProcessing.processDatasetParallel(csv.toString(),
+                Runtime.getRuntime().availableProcessors());
+    }
+}
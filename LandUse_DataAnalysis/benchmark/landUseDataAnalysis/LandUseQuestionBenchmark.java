@@ -0,0 +1,177 @@
+package landUseDataAnalysis;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks each of the five questions in LandUseData5QuestionAnalysis,
+ * for the List of LandUseDataLineItem objects and for the column based
+ * LandUseDataset, plus answerAll(), sequential and parallel, and a top 10
+ * ranking of states, for the shipped file, a scaled copy of it and synthetic
+ * data (see LandUseBenchmarkData).
+ *
+ * The data is read once per trial, so only the analysis is measured.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LandUseQuestionBenchmark {
+
+    // Input file, see LandUseBenchmarkData.csv().
+    @Param({"shipped", "replicated100", "synthetic1000000"})
+    public String input;
+
+    private List<LandUseDataLineItem> processedData;
+    private LandUseDataset dataset;
+    private final LandUseQueryCache cache = new LandUseQueryCache();
+    private LandUseParallelQueryEngine parallelEngine;
+
+    @Setup(Level.Trial)
+    public void readInput() throws IOException {
+        Path csv = LandUseBenchmarkData.csv(input);
+        try {
+            processedData = LandUseDataProcessing.processData(csv.toString());
+            dataset = LandUseDataProcessing.processDataset(csv.toString());
+        } finally {
+            LandUseBenchmarkData.delete(csv);
+        }
+
+        // Build the indexes before measuring, as a long running service would have.
+        dataset.getIndex();
+        parallelEngine = new LandUseParallelQueryEngine(Runtime.getRuntime().availableProcessors());
+    }
+
+    // The 10 state rows with the most Forest-use land, in any year.
+    private static final LandUseQuery TOP_STATES_QUERY = new LandUseQuery(LandUseFilter.states(),
+            LandUseAggregate.top(LandUseCategory.FOREST_USE_LAND, 10));
+
+    @TearDown(Level.Trial)
+    public void closeEngine() {
+        parallelEngine.close();
+    }
+
+    @Benchmark
+    public String question1List() {
+        return LandUseData5QuestionAnalysis.findRegionMaxGrasslandPasture1974(processedData);
+    }
+
+    @Benchmark
+    public int question2List() {
+        return LandUseData5QuestionAnalysis.findRegionsUrbanLand2000Prior1987(processedData);
+    }
+
+    @Benchmark
+    public double question3List() {
+        return LandUseData5QuestionAnalysis.findAverageCroplandForPasturePacificMountain1964(processedData);
+    }
+
+    @Benchmark
+    public String question4List() {
+        return LandUseData5QuestionAnalysis.findMaxForestUseland13Colonies2012(processedData);
+    }
+
+    @Benchmark
+    public RegionMaxLandUseDelta question5List() {
+        return LandUseData5QuestionAnalysis.findRegionMaxShiftLandUse1945To2012(processedData);
+    }
+
+    @Benchmark
+    public String question1Dataset() {
+        return LandUseData5QuestionAnalysis.findRegionMaxGrasslandPasture1974(dataset);
+    }
+
+    @Benchmark
+    public int question2Dataset() {
+        return LandUseData5QuestionAnalysis.findRegionsUrbanLand2000Prior1987(dataset);
+    }
+
+    @Benchmark
+    public double question3Dataset() {
+        return LandUseData5QuestionAnalysis.findAverageCroplandForPasturePacificMountain1964(dataset);
+    }
+
+    @Benchmark
+    public String question4Dataset() {
+        return LandUseData5QuestionAnalysis.findMaxForestUseland13Colonies2012(dataset);
+    }
+
+    @Benchmark
+    public RegionMaxLandUseDelta question5Dataset() {
+        return LandUseData5QuestionAnalysis.findRegionMaxShiftLandUse1945To2012(dataset);
+    }
+
+    @Benchmark
+    public LandUseFiveAnswers answerAllDataset() {
+        return LandUseData5QuestionAnalysis.answerAll(dataset);
+    }
+
+    // Every call after the first is answered from the cache.
+    @Benchmark
+    public LandUseFiveAnswers answerAllCached() {
+        return LandUseData5QuestionAnalysis.answerAll(dataset, cache);
+    }
+
+    // Uses a thread for each processor.
+    @Benchmark
+    public LandUseFiveAnswers answerAllParallel() {
+        return LandUseData5QuestionAnalysis.answerAll(dataset, parallelEngine);
+    }
+
+    @Benchmark
+    public int[] topStates() {
+        return LandUseQueryEngine.execute(dataset, TOP_STATES_QUERY).getRows(0, 0);
+    }
+
+    @Benchmark
+    public int[] topStatesParallel() {
+        return parallelEngine.execute(dataset, TOP_STATES_QUERY).getRows(0, 0);
+    }
+
+    // The same ranking by sorting every state row, for comparison with the
+    // bounded heaps of topStates().
+    @Benchmark
+    public int[] topStatesSorted() {
+        int[] values = dataset.getLandUseColumn(LandUseCategory.FOREST_USE_LAND);
+        int[] missing = dataset.getMissingColumn();
+        int missingBit = 1 << LandUseCategory.FOREST_USE_LAND.getColumn();
+        int[] rows = dataset.getIndex().getStateRows();
+        long[] keys = new long[rows.length];
+        int keyCount = 0;
+        for (int row : rows) {
+            if ((missing[row] & missingBit) == 0) {
+                // Largest value first, then earlier row, as TOP_K ranks them.
+                keys[keyCount++] = ((long) -values[row] << 32) | row;
+            }
+        }
+        Arrays.sort(keys, 0, keyCount);
+        int[] top = new int[Math.min(10, keyCount)];
+        for (int rank = 0; rank < top.length; rank++) {
+            top[rank] = (int) keys[rank];
+        }
+        return top;
+    }
+}
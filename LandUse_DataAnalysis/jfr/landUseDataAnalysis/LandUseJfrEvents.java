@@ -0,0 +1,166 @@
+package landUseDataAnalysis;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The Java Flight Recorder event classes behind LandUseFlightEvents, which
+ * loads this class by name so that the rest of the project doesn't depend
+ * on the jdk.jfr module.
+ *
+ * This source folder needs a JDK with jdk.jfr (8u262 or later, or 11 and
+ * later). Leave it off the build path to build on an older JDK, and the
+ * events are left out.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+final class LandUseJfrEvents implements LandUseFlightEvents.Factory {
+
+    @Override
+    public LandUseFlightEvents.FileOpen fileOpen() {
+        return new FileOpen();
+    }
+
+    @Override
+    public LandUseFlightEvents.ChunkParse chunkParse() {
+        return new ChunkParse();
+    }
+
+    @Override
+    public LandUseFlightEvents.DatasetBuild datasetBuild() {
+        return new DatasetBuild();
+    }
+
+    @Override
+    public LandUseFlightEvents.QueryExecution queryExecution() {
+        return new QueryExecution();
+    }
+
+    @Name(LandUseFlightEvents.FILE_OPEN)
+    @Label("File Open")
+    @Category({"Land Use", "Ingest"})
+    @Description("A land use csv file opened for reading")
+    @StackTrace(false)
+    static final class FileOpen extends Event implements LandUseFlightEvents.FileOpen {
+
+        @Label("Path")
+        String path;
+
+        @Label("Size")
+        @DataAmount
+        long size;
+
+        @Override
+        public void set(String path, long size) {
+            this.path = path;
+            this.size = size;
+        }
+    }
+
+    @Name(LandUseFlightEvents.CHUNK_PARSE)
+    @Label("Chunk Parse")
+    @Category({"Land Use", "Ingest"})
+    @Description("A land use csv file, or chunk of one, read by a tokenizer")
+    @StackTrace(false)
+    static final class ChunkParse extends Event implements LandUseFlightEvents.ChunkParse {
+
+        @Label("Source")
+        String source;
+
+        @Label("Lines")
+        long lines;
+
+        @Label("Rows")
+        @Description("Rows kept")
+        long rows;
+
+        @Label("Excluded Lines")
+        long excludedLines;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Override
+        public void set(String source, long lines, long rows, long excludedLines, long bytes) {
+            this.source = source;
+            this.lines = lines;
+            this.rows = rows;
+            this.excludedLines = excludedLines;
+            this.bytes = bytes;
+        }
+    }
+
+    @Name(LandUseFlightEvents.DATASET_BUILD)
+    @Label("Dataset Build")
+    @Category({"Land Use", "Ingest"})
+    @Description("Land use csv files read into a column based dataset")
+    @StackTrace(false)
+    static final class DatasetBuild extends Event implements LandUseFlightEvents.DatasetBuild {
+
+        @Label("Source")
+        String source;
+
+        @Label("Parts")
+        @Description("Files or chunks parsed")
+        int parts;
+
+        @Label("Threads")
+        int threads;
+
+        @Label("Rows")
+        int rows;
+
+        @Override
+        public void set(String source, int parts, int threads, int rows) {
+            this.source = source;
+            this.parts = parts;
+            this.threads = threads;
+            this.rows = rows;
+        }
+    }
+
+    @Name(LandUseFlightEvents.QUERY_EXECUTION)
+    @Label("Query Execution")
+    @Category({"Land Use", "Query"})
+    @Description("A land use query, timed with the other queries of its batch")
+    @StackTrace(false)
+    static final class QueryExecution extends Event implements LandUseFlightEvents.QueryExecution {
+
+        @Label("Engine")
+        String engine;
+
+        @Label("Query")
+        String query;
+
+        @Label("Batch Size")
+        int batchSize;
+
+        @Label("Rows Scanned")
+        long rowsScanned;
+
+        @Label("Rows Matched")
+        int rowsMatched;
+
+        @Label("Result")
+        String result;
+
+        @Override
+        public void set(String engine, String query, int batchSize, long rowsScanned, int rowsMatched,
+                String result) {
+            this.engine = engine;
+            this.query = query;
+            this.batchSize = batchSize;
+            this.rowsScanned = rowsScanned;
+            this.rowsMatched = rowsMatched;
+            this.result = result;
+        }
+    }
+}
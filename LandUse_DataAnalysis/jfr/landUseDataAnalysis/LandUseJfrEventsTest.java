@@ -0,0 +1,103 @@
+package landUseDataAnalysis;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+
+/**
+ * Tests for LandUseJfrEvents.java, in the jfr source folder with the
+ * classes it tests.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public class LandUseJfrEventsTest {
+
+    private static final String FILE_PATH =
+            "/Users/pulchrit/ada/C11_App_DataAnalysis/LandUse_DataAnalysis/src/USDA_MajorLandUse_1945-2012.csv";
+
+    /**
+     * Tests the LandUseFlightEvents written to a JFR recording while reading
+     * the shipped file, on one thread and in chunks, and answering questions.
+     * @throws Exception
+     */
+    @Test
+    public void LandUseFlightEventsTest() throws Exception {
+
+        Path recordingFile = Files.createTempFile("landUseEvents", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(LandUseFlightEvents.FILE_OPEN);
+            recording.enable(LandUseFlightEvents.CHUNK_PARSE);
+            recording.enable(LandUseFlightEvents.DATASET_BUILD);
+            recording.enable(LandUseFlightEvents.QUERY_EXECUTION);
+            recording.start();
+            LandUseDataset dataset = LandUseDataProcessing.processDataset(FILE_PATH);
+            LandUseDataProcessing.processDatasetParallel(FILE_PATH, 2);
+            LandUseQuery query = new LandUseQuery(LandUseFilter.year("1974"),
+                    LandUseAggregate.sum(LandUseCategory.TOTAL_LAND));
+            LandUseQueryResult result = LandUseQueryEngine.execute(dataset, query);
+            LandUseData5QuestionAnalysis.answerAll(dataset);
+            recording.stop();
+            recording.dump(recordingFile);
+
+            long fileOpens = 0;
+            long chunkRows = 0;
+            long builds = 0;
+            long batchQueries = 0;
+            boolean singleQuery = false;
+            for (RecordedEvent event : RecordingFile.readAllEvents(recordingFile)) {
+                switch (event.getEventType().getName()) {
+                    case LandUseFlightEvents.FILE_OPEN:
+                        fileOpens++;
+                        assertEquals(FILE_PATH, event.getString("path"));
+                        assertEquals(Files.size(Paths.get(FILE_PATH)), event.getLong("size"));
+                        break;
+                    case LandUseFlightEvents.CHUNK_PARSE:
+                        if (event.getString("source").equals(FILE_PATH)) {
+                            assertEquals(dataset.getRowCount(), event.getLong("rows"));
+                            assertEquals(30 + 15 + 15 + 15 + 90, event.getLong("excludedLines"));
+                            assertEquals(Files.size(Paths.get(FILE_PATH)), event.getLong("bytes"));
+                        } else {
+                            assertTrue(event.getString("source").startsWith(FILE_PATH + " bytes "));
+                            chunkRows += event.getLong("rows");
+                        }
+                        break;
+                    case LandUseFlightEvents.DATASET_BUILD:
+                        builds++;
+                        assertEquals(dataset.getRowCount(), event.getInt("rows"));
+                        break;
+                    case LandUseFlightEvents.QUERY_EXECUTION:
+                        if (event.getString("engine").equals(LandUsePipelineMetrics.SINGLE_ENGINE)) {
+                            singleQuery = true;
+                            assertEquals(query.toString(), event.getString("query"));
+                            assertEquals(result.getMatchedRows(), event.getInt("rowsMatched"));
+                            assertEquals(LandUseFlightEvents.describe(result), event.getString("result"));
+                        } else {
+                            batchQueries++;
+                            assertEquals(6, event.getInt("batchSize"));
+                            assertTrue(event.getLong("rowsScanned") >= event.getInt("rowsMatched"));
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+            assertEquals(2, fileOpens);
+            assertEquals(dataset.getRowCount(), chunkRows);
+            assertEquals(2, builds);
+            assertTrue(singleQuery);
+            assertEquals(6, batchQueries);
+        } finally {
+            Files.deleteIfExists(recordingFile);
+        }
+    }
+}
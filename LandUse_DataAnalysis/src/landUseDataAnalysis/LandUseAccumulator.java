@@ -0,0 +1,342 @@
+package landUseDataAnalysis;
+
+import java.util.Arrays;
+
+/**
+ * Running state for one LandUseAggregate across every group of a query.
+ *
+ * The state is kept in primitive arrays indexed by group, so adding a row is
+ * a few array updates with no boxing. Rows are added a whole column at a time
+ * by add(), with one tight loop for each aggregate function.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+final class LandUseAccumulator {
+
+    private final LandUseAggregate aggregate;
+    private int groupCount;
+
+    // SUM and AVG: sum and number of values by group.
+    // MIN, MAX and ARGMAX: best row by group, -1 until a value is seen.
+    // TOP_K: a heap of the best k rows by group.
+    // COUNT_DISTINCT: the distinct (group, value id) pairs seen, and
+    // distinct count by group.
+    // The arrays are replaced by grow() when new groups appear.
+    private long[] sums;
+    private int[] counts;
+    private int[] bestRows;
+    private LandUseTopRows topRows;
+    private LandUseDistinctPairs distinctPairs;
+
+    /**
+     * Creates empty state for an aggregate.
+     *
+     * @param aggregate, LandUseAggregate to work out.
+     * @param groupCount, int, number of groups (dictionary size of the group
+     * by column, or 1).
+     */
+    LandUseAccumulator(LandUseAggregate aggregate, int groupCount) {
+        this.aggregate = aggregate;
+        this.groupCount = groupCount;
+        counts = new int[groupCount];
+        switch (aggregate.getFunction()) {
+            case SUM:
+            case AVG:
+                sums = new long[groupCount];
+                bestRows = null;
+                break;
+            case COUNT_DISTINCT:
+                sums = null;
+                bestRows = null;
+                distinctPairs = new LandUseDistinctPairs();
+                break;
+            case TOP_K:
+                sums = null;
+                bestRows = null;
+                topRows = new LandUseTopRows(groupCount, aggregate.getK());
+                break;
+            default:
+                sums = null;
+                bestRows = new int[groupCount];
+                Arrays.fill(bestRows, -1);
+                break;
+        }
+    }
+
+    /**
+     * Makes room for groups added to the dataset's dictionaries since the
+     * state was created, keeping what has been added so far. Used when rows
+     * are appended to a dataset whose results are kept up to date, such as
+     * by LandUseMaintainedQuery. New COUNT_DISTINCT values need no room.
+     *
+     * @param newGroupCount, int, number of groups, at least the current number.
+     */
+    void grow(int newGroupCount) {
+        if (newGroupCount == groupCount) {
+            return;
+        }
+        counts = Arrays.copyOf(counts, newGroupCount);
+        if (sums != null) {
+            sums = Arrays.copyOf(sums, newGroupCount);
+        }
+        if (bestRows != null) {
+            bestRows = Arrays.copyOf(bestRows, newGroupCount);
+            Arrays.fill(bestRows, groupCount, newGroupCount, -1);
+        }
+        if (topRows != null) {
+            topRows.grow(newGroupCount);
+        }
+        groupCount = newGroupCount;
+    }
+
+    /**
+     * Adds rows to the state.
+     *
+     * @param dataset, LandUseDataset the rows come from.
+     * @param rows, int[], row numbers in ascending order.
+     * @param groups, int[], group by row (a dictionary id column), or null
+     * when every row is in group 0.
+     */
+    void add(LandUseDataset dataset, int[] rows, int[] groups) {
+        add(dataset, rows, rows.length, groups);
+    }
+
+    /**
+     * Adds the first rowCount rows of an array to the state, so a scan can
+     * reuse one array for every block of rows.
+     *
+     * @param dataset, LandUseDataset the rows come from.
+     * @param rows, int[], row numbers in ascending order.
+     * @param rowCount, int, number of rows in the array to add.
+     * @param groups, int[], group by row (a dictionary id column), or null
+     * when every row is in group 0.
+     */
+    void add(LandUseDataset dataset, int[] rows, int rowCount, int[] groups) {
+        LandUseAggregate.Function function = aggregate.getFunction();
+        if (function == LandUseAggregate.Function.COUNT_DISTINCT) {
+            int[] values = aggregate.getDimension().getColumn(dataset);
+            for (int i = 0; i < rowCount; i++) {
+                int row = rows[i];
+                int group = groups == null ? 0 : groups[row];
+                if (distinctPairs.add(group, values[row])) {
+                    counts[group]++;
+                }
+            }
+            return;
+        }
+
+        int[] values = dataset.getLandUseColumn(aggregate.getColumn());
+        int[] missing = dataset.getMissingColumn();
+        int missingBit = 1 << aggregate.getColumn();
+        if (function == LandUseAggregate.Function.SUM || function == LandUseAggregate.Function.AVG) {
+            for (int i = 0; i < rowCount; i++) {
+                int row = rows[i];
+                if ((missing[row] & missingBit) == 0) {
+                    int group = groups == null ? 0 : groups[row];
+                    sums[group] += values[row];
+                    counts[group]++;
+                }
+            }
+        } else if (function == LandUseAggregate.Function.TOP_K) {
+            for (int i = 0; i < rowCount; i++) {
+                int row = rows[i];
+                if ((missing[row] & missingBit) == 0) {
+                    int group = groups == null ? 0 : groups[row];
+                    topRows.offer(group, row, values[row]);
+                    counts[group]++;
+                }
+            }
+        } else if (function == LandUseAggregate.Function.MIN) {
+            for (int i = 0; i < rowCount; i++) {
+                int row = rows[i];
+                if ((missing[row] & missingBit) == 0) {
+                    int group = groups == null ? 0 : groups[row];
+                    if (bestRows[group] == -1 || values[row] < values[bestRows[group]]) {
+                        bestRows[group] = row;
+                    }
+                    counts[group]++;
+                }
+            }
+        } else {
+            for (int i = 0; i < rowCount; i++) {
+                int row = rows[i];
+                if ((missing[row] & missingBit) == 0) {
+                    int group = groups == null ? 0 : groups[row];
+                    if (bestRows[group] == -1 || values[row] > values[bestRows[group]]) {
+                        bestRows[group] = row;
+                    }
+                    counts[group]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Tells whether addDense() can add rows to the state: SUM, AVG, MIN, MAX
+     * and ARGMAX of a query without a group by. COUNT_DISTINCT and TOP_K
+     * have no kernel.
+     * @return boolean
+     */
+    boolean hasKernel() {
+        LandUseAggregate.Function function = aggregate.getFunction();
+        return groupCount == 1 && function != LandUseAggregate.Function.COUNT_DISTINCT
+                && function != LandUseAggregate.Function.TOP_K;
+    }
+
+    /**
+     * Adds rows to the state of a query without a group by, using the
+     * LandUseColumnKernels over the whole column instead of reading the rows
+     * one by one. This is faster when the rows are a large part of the
+     * dataset. Only used when hasKernel() is true.
+     *
+     * The mask is built by the caller, so the aggregates of a query that
+     * read the same column share one.
+     *
+     * @param dataset, LandUseDataset the rows come from.
+     * @param mask, byte[], selection mask for the aggregate's column, one
+     * entry for each row of the dataset (see LandUseColumnKernels.mask()).
+     * @param count, int, number of rows selected by the mask.
+     */
+    void addDense(LandUseDataset dataset, byte[] mask, int count) {
+        if (count == 0) {
+            return;
+        }
+        LandUseAggregate.Function function = aggregate.getFunction();
+        int length = mask.length;
+        int[] values = dataset.getLandUseColumn(aggregate.getColumn());
+        if (function == LandUseAggregate.Function.SUM || function == LandUseAggregate.Function.AVG) {
+            sums[0] += LandUseColumnKernels.sum(values, mask, length);
+        } else {
+            boolean min = function == LandUseAggregate.Function.MIN;
+            int row = min ? LandUseColumnKernels.argmin(values, mask, length)
+                    : LandUseColumnKernels.argmax(values, mask, length);
+            int best = bestRows[0];
+            if (best == -1 || (min ? values[row] < values[best] : values[row] > values[best])) {
+                bestRows[0] = row;
+            }
+        }
+        counts[0] += count;
+    }
+
+    /**
+     * Adds the state of another accumulator for the same aggregate and
+     * groups, such as one filled from another part of the rows by
+     * LandUseParallelQueryEngine.
+     *
+     * The other state must come from rows after the rows of this state. A
+     * MIN, MAX or ARGMAX tie then keeps this state's row, the earlier one,
+     * so merging gives the same row as adding every row in order. TOP_K
+     * gives the same rows whatever order states are merged in.
+     *
+     * @param dataset, LandUseDataset the rows came from.
+     * @param other, LandUseAccumulator with state for later rows.
+     */
+    void merge(LandUseDataset dataset, LandUseAccumulator other) {
+        if (other.groupCount != groupCount || other.aggregate.getFunction() != aggregate.getFunction()) {
+            throw new IllegalArgumentException("Can't merge state for " + other.aggregate + " into " + aggregate);
+        }
+        LandUseAggregate.Function function = aggregate.getFunction();
+        if (function == LandUseAggregate.Function.COUNT_DISTINCT) {
+            distinctPairs.addAll(other.distinctPairs, counts);
+            return;
+        }
+
+        for (int group = 0; group < groupCount; group++) {
+            counts[group] += other.counts[group];
+        }
+        if (sums != null) {
+            for (int group = 0; group < groupCount; group++) {
+                sums[group] += other.sums[group];
+            }
+            return;
+        }
+        if (topRows != null) {
+            topRows.merge(other.topRows);
+            return;
+        }
+        int[] values = dataset.getLandUseColumn(aggregate.getColumn());
+        boolean min = function == LandUseAggregate.Function.MIN;
+        for (int group = 0; group < groupCount; group++) {
+            int best = bestRows[group];
+            int row = other.bestRows[group];
+            if (row != -1 && (best == -1 || (min ? values[row] < values[best] : values[row] > values[best]))) {
+                bestRows[group] = row;
+            }
+        }
+    }
+
+    /**
+     * Gets the aggregated value for a group: the sum, average, smallest or
+     * largest value, or the number of distinct values. MIN, MAX, ARGMAX and
+     * TOP_K give NaN when the group had no values.
+     *
+     * @param dataset, LandUseDataset the rows came from.
+     * @param group, int, group id.
+     * @return double, aggregated value.
+     */
+    double getValue(LandUseDataset dataset, int group) {
+        switch (aggregate.getFunction()) {
+            case SUM:
+                return sums[group];
+            case AVG:
+                return counts[group] == 0 ? 0 : (double) sums[group] / counts[group];
+            case COUNT_DISTINCT:
+                return counts[group];
+            default:
+                int row = getRow(group);
+                return row == -1 ? Double.NaN : dataset.getLandUseColumn(aggregate.getColumn())[row];
+        }
+    }
+
+    /**
+     * Gets the row holding the smallest or largest value for MIN, MAX,
+     * ARGMAX and TOP_K.
+     *
+     * @param group, int, group id.
+     * @return int, row number, or -1 if the group had no values or the
+     * aggregate does not pick a row.
+     */
+    int getRow(int group) {
+        if (topRows != null) {
+            return topRows.getBestRow(group);
+        }
+        return bestRows == null ? -1 : bestRows[group];
+    }
+
+    /**
+     * Gets the rows picked for a group, best first: the k best rows for
+     * TOP_K, or the row getRow() picks.
+     *
+     * @param group, int, group id.
+     * @return int[], row numbers, empty if the group had no values or the
+     * aggregate does not pick rows.
+     */
+    int[] getRows(int group) {
+        if (topRows != null) {
+            return topRows.getRows(group);
+        }
+        int row = getRow(group);
+        return row == -1 ? new int[0] : new int[] {row};
+    }
+
+    /**
+     * Gets the number of values added for a group, or the number of distinct
+     * values for COUNT_DISTINCT.
+     *
+     * @param group, int, group id.
+     * @return int, count.
+     */
+    int getCount(int group) {
+        return counts[group];
+    }
+
+    /**
+     * Gets the number of groups.
+     * @return int
+     */
+    int getGroupCount() {
+        return groupCount;
+    }
+}
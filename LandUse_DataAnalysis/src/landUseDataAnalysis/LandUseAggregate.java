@@ -0,0 +1,236 @@
+package landUseDataAnalysis;
+
+/**
+ * An aggregate for a LandUseQuery, such as the sum of a land use column or
+ * the number of distinct states.
+ *
+ * Aggregates of a land use column skip "N.A." values, and the factories
+ * for them throw IllegalArgumentException for a column that isn't one of
+ * the LandUseDataset land use columns. MIN, MAX and ARGMAX
+ * keep the first row on ties, as Stream.max() does, and TOP_K ranks rows
+ * with the same value in row order.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public final class LandUseAggregate {
+
+    public enum Function {
+        SUM,
+        AVG,
+        MIN,
+        MAX,
+        ARGMAX,
+        TOP_K,
+        COUNT_DISTINCT
+    }
+
+    private final Function function;
+    private final int column;
+    private final LandUseDimension dimension;
+    private final int k;
+
+    private LandUseAggregate(Function function, int column, LandUseDimension dimension) {
+        this(function, column, dimension, 1);
+    }
+
+    private LandUseAggregate(Function function, int column, LandUseDimension dimension, int k) {
+        if (dimension == null && (column < 0 || column >= LandUseDataset.LAND_USE_COLUMN_COUNT)) {
+            throw new IllegalArgumentException("Unknown land use column: " + column);
+        }
+        this.function = function;
+        this.column = column;
+        this.dimension = dimension;
+        this.k = k;
+    }
+
+    /**
+     * Sums a land use column.
+     * @param column, int, land use column, such as LandUseDataset.TOTAL_LAND.
+     * @return LandUseAggregate
+     */
+    public static LandUseAggregate sum(int column) {
+        return new LandUseAggregate(Function.SUM, column, null);
+    }
+
+    /**
+     * Sums a land use category.
+     * @param category, LandUseCategory, such as LandUseCategory.TOTAL_LAND.
+     * @return LandUseAggregate
+     */
+    public static LandUseAggregate sum(LandUseCategory category) {
+        return sum(category.getColumn());
+    }
+
+    /**
+     * Averages a land use column. The average of no values is 0, as it is
+     * for Collectors.averagingInt().
+     * @param column, int, land use column, such as LandUseDataset.TOTAL_LAND.
+     * @return LandUseAggregate
+     */
+    public static LandUseAggregate avg(int column) {
+        return new LandUseAggregate(Function.AVG, column, null);
+    }
+
+    /**
+     * Averages a land use category. The average of no values is 0.
+     * @param category, LandUseCategory, such as LandUseCategory.TOTAL_LAND.
+     * @return LandUseAggregate
+     */
+    public static LandUseAggregate avg(LandUseCategory category) {
+        return avg(category.getColumn());
+    }
+
+    /**
+     * Finds the smallest value of a land use column.
+     * @param column, int, land use column, such as LandUseDataset.TOTAL_LAND.
+     * @return LandUseAggregate
+     */
+    public static LandUseAggregate min(int column) {
+        return new LandUseAggregate(Function.MIN, column, null);
+    }
+
+    /**
+     * Finds the smallest value of a land use category.
+     * @param category, LandUseCategory, such as LandUseCategory.TOTAL_LAND.
+     * @return LandUseAggregate
+     */
+    public static LandUseAggregate min(LandUseCategory category) {
+        return min(category.getColumn());
+    }
+
+    /**
+     * Finds the largest value of a land use column.
+     * @param column, int, land use column, such as LandUseDataset.TOTAL_LAND.
+     * @return LandUseAggregate
+     */
+    public static LandUseAggregate max(int column) {
+        return new LandUseAggregate(Function.MAX, column, null);
+    }
+
+    /**
+     * Finds the largest value of a land use category.
+     * @param category, LandUseCategory, such as LandUseCategory.TOTAL_LAND.
+     * @return LandUseAggregate
+     */
+    public static LandUseAggregate max(LandUseCategory category) {
+        return max(category.getColumn());
+    }
+
+    /**
+     * Finds the row with the largest value of a land use column. The row is
+     * read with LandUseQueryResult.getRow().
+     * @param column, int, land use column, such as LandUseDataset.TOTAL_LAND.
+     * @return LandUseAggregate
+     */
+    public static LandUseAggregate argmax(int column) {
+        return new LandUseAggregate(Function.ARGMAX, column, null);
+    }
+
+    /**
+     * Finds the row with the largest value of a land use category.
+     * @param category, LandUseCategory, such as LandUseCategory.TOTAL_LAND.
+     * @return LandUseAggregate
+     */
+    public static LandUseAggregate argmax(LandUseCategory category) {
+        return argmax(category.getColumn());
+    }
+
+    /**
+     * Finds the k rows with the largest values of a land use column, such as
+     * the top 5 states by Forest-use land. The rows are read, best first,
+     * with LandUseQueryResult.getRows(), and the value is the largest, as
+     * for MAX.
+     * @param column, int, land use column, such as LandUseDataset.TOTAL_LAND.
+     * @param k, int, number of rows to keep for each group, at least 1.
+     * @return LandUseAggregate
+     */
+    public static LandUseAggregate top(int column, int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1: " + k);
+        }
+        return new LandUseAggregate(Function.TOP_K, column, null, k);
+    }
+
+    /**
+     * Finds the k rows with the largest values of a land use category.
+     * @param category, LandUseCategory, such as LandUseCategory.TOTAL_LAND.
+     * @param k, int, number of rows to keep for each group, at least 1.
+     * @return LandUseAggregate
+     */
+    public static LandUseAggregate top(LandUseCategory category, int k) {
+        return top(category.getColumn(), k);
+    }
+
+    /**
+     * Counts the distinct values of a text column.
+     * @param dimension, LandUseDimension to count.
+     * @return LandUseAggregate
+     */
+    public static LandUseAggregate countDistinct(LandUseDimension dimension) {
+        return new LandUseAggregate(Function.COUNT_DISTINCT, -1, dimension);
+    }
+
+    /**
+     * Gets the aggregate function.
+     * @return Function
+     */
+    public Function getFunction() {
+        return function;
+    }
+
+    /**
+     * Gets the land use column, or -1 for COUNT_DISTINCT.
+     * @return int, land use column
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * Gets the land use category, or null for COUNT_DISTINCT.
+     * @return LandUseCategory
+     */
+    public LandUseCategory getCategory() {
+        return column == -1 ? null : LandUseCategory.fromColumn(column);
+    }
+
+    /**
+     * Gets the number of rows kept for each group by TOP_K, or 1 for the
+     * other functions.
+     * @return int
+     */
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * Gets the counted text column, or null unless COUNT_DISTINCT.
+     * @return LandUseDimension
+     */
+    public LandUseDimension getDimension() {
+        return dimension;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof LandUseAggregate)) {
+            return false;
+        }
+        LandUseAggregate aggregate = (LandUseAggregate) other;
+        return function == aggregate.function && column == aggregate.column && dimension == aggregate.dimension
+                && k == aggregate.k;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((function.hashCode() * 31 + column) * 31 + (dimension == null ? 0 : dimension.hashCode())) * 31 + k;
+    }
+
+    @Override
+    public String toString() {
+        return function + "(" + (dimension == null ? Integer.toString(column) : dimension.toString())
+                + (function == Function.TOP_K ? ", " + k : "") + ")";
+    }
+}
@@ -0,0 +1,33 @@
+package landUseDataAnalysis;
+
+/**
+ * Told when rows are appended to a LandUseDataset by LandUseIncrementalIngest,
+ * so results over the dataset can be brought up to date from the new rows
+ * alone (see LandUseMaintainedQuery), and when rows are replaced by
+ * corrections, so results that included the old values can be rebuilt.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public interface LandUseAppendListener {
+
+    /**
+     * Called after rows have been appended, on the thread that appended them.
+     *
+     * @param dataset, LandUseDataset the rows were appended to.
+     * @param firstRow, int, first new row.
+     * @param endRow, int, row after the last new row (the new row count).
+     */
+    void rowsAppended(LandUseDataset dataset, int firstRow, int endRow);
+
+    /**
+     * Called after rows already passed to rowsAppended() have been replaced
+     * in place by corrected rows, on the thread that replaced them, and
+     * before rowsAppended() is called for any rows appended with them.
+     *
+     * @param dataset, LandUseDataset whose rows were replaced.
+     * @param rows, int[], row numbers replaced, in no particular order.
+     */
+    void rowsReplaced(LandUseDataset dataset, int[] rows);
+}
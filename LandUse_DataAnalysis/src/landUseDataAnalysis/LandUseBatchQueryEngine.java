@@ -0,0 +1,127 @@
+package landUseDataAnalysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Runs many LandUseQuery objects together in a single pass over a
+ * LandUseDataset.
+ *
+ * LandUseQueryEngine runs one query at a time, so N queries read the columns
+ * N times. Here the rows are read in blocks of BLOCK_SIZE rows. For each
+ * block, every query tests the rows with its filter and adds the rows that
+ * match to its own accumulators. A block is small enough to stay in the CPU
+ * cache while all of the queries read it, so the columns are read from main
+ * memory once however many queries there are.
+ *
+ * Before testing its rows, each query checks the block against the
+ * dataset's LandUseZoneMap, and skips blocks where no row can match.
+ *
+ * Each query keeps its own accumulators and gets its own LandUseQueryResult,
+ * the same as LandUseQueryEngine.execute() would give it.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public class LandUseBatchQueryEngine {
+
+    // Rows read per block, the same as the zone map's blocks. 1024 rows of
+    // the handful of int columns a query reads fits easily in the L1 or L2
+    // cache.
+    static final int BLOCK_SIZE = LandUseZoneMap.BLOCK_SIZE;
+
+    /**
+     * Runs queries in a single pass over the dataset.
+     *
+     * @param dataset, LandUseDataset to query.
+     * @param queries, LandUseQuery... queries to run.
+     * @return List<LandUseQueryResult>, one result for each query, in the same order.
+     */
+    public static List<LandUseQueryResult> executeAll(LandUseDataset dataset, LandUseQuery... queries) {
+        return executeAll(dataset, Arrays.asList(queries));
+    }
+
+    /**
+     * Runs queries in a single pass over the dataset.
+     *
+     * @param dataset, LandUseDataset to query.
+     * @param queries, List<LandUseQuery> of queries to run.
+     * @return List<LandUseQueryResult>, one result for each query, in the same order.
+     */
+    public static List<LandUseQueryResult> executeAll(LandUseDataset dataset, List<LandUseQuery> queries) {
+
+        LandUseFlightEvents.QueryExecution[] events = LandUseFlightEvents.beginQueries(queries.size());
+        long start = System.nanoTime();
+
+        // Set up each query's row test, groups and accumulators before the scan.
+        int queryCount = queries.size();
+        IntPredicate[] matchers = new IntPredicate[queryCount];
+        IntPredicate[] blockMatchers = new IntPredicate[queryCount];
+        int[][] groups = new int[queryCount][];
+        int[] groupCounts = new int[queryCount];
+        boolean[][] present = new boolean[queryCount][];
+        int[] matchedRows = new int[queryCount];
+        long[] scannedRows = new long[queryCount];
+        LandUseAccumulator[][] accumulators = new LandUseAccumulator[queryCount][];
+        for (int q = 0; q < queryCount; q++) {
+            LandUseQuery query = queries.get(q);
+            LandUseDimension groupBy = query.getGroupBy();
+            matchers[q] = query.getFilter().matcher(dataset);
+            blockMatchers[q] = query.getFilter().blockMatcher(dataset);
+            groups[q] = groupBy == null ? null : groupBy.getColumn(dataset);
+            groupCounts[q] = groupBy == null ? 1 : groupBy.getDictionary(dataset).size();
+            present[q] = LandUseQueryEngine.markGroups(groups[q], groupCounts[q], null, 0, null);
+            accumulators[q] = new LandUseAccumulator[query.getAggregateCount()];
+            for (int aggregate = 0; aggregate < accumulators[q].length; aggregate++) {
+                accumulators[q][aggregate] = new LandUseAccumulator(query.getAggregate(aggregate), groupCounts[q]);
+            }
+        }
+
+        // One pass over the rows, a block at a time. The selected array is
+        // reused for every query and every block.
+        int rowCount = dataset.getRowCount();
+        int[] selected = new int[BLOCK_SIZE];
+        for (int blockStart = 0; blockStart < rowCount; blockStart += BLOCK_SIZE) {
+            int blockEnd = Math.min(blockStart + BLOCK_SIZE, rowCount);
+            int block = blockStart / BLOCK_SIZE;
+            for (int q = 0; q < queryCount; q++) {
+                if (!blockMatchers[q].test(block)) {
+                    continue;
+                }
+                IntPredicate matcher = matchers[q];
+                scannedRows[q] += blockEnd - blockStart;
+                int selectedCount = 0;
+                for (int row = blockStart; row < blockEnd; row++) {
+                    if (matcher.test(row)) {
+                        selected[selectedCount++] = row;
+                    }
+                }
+                if (selectedCount == 0) {
+                    continue;
+                }
+                matchedRows[q] += selectedCount;
+                LandUseQueryEngine.markGroups(groups[q], groupCounts[q], selected, selectedCount, present[q]);
+                for (LandUseAccumulator accumulator : accumulators[q]) {
+                    accumulator.add(dataset, selected, selectedCount, groups[q]);
+                }
+            }
+        }
+
+        List<LandUseQueryResult> results = new ArrayList<>(queryCount);
+        long rowsScanned = 0;
+        long rowsMatched = 0;
+        for (int q = 0; q < queryCount; q++) {
+            results.add(LandUseQueryEngine.toResult(dataset, queries.get(q), matchedRows[q], present[q],
+                    accumulators[q]));
+            rowsScanned += scannedRows[q];
+            rowsMatched += matchedRows[q];
+        }
+        LandUsePipelineMetrics.getGlobal().getQueryMetrics(LandUsePipelineMetrics.BATCH_ENGINE)
+                .record(queryCount, rowsScanned, rowsMatched, System.nanoTime() - start);
+        LandUseFlightEvents.commitQueries(events, LandUsePipelineMetrics.BATCH_ENGINE, results, scannedRows);
+        return results;
+    }
+}
@@ -0,0 +1,113 @@
+package landUseDataAnalysis;
+
+/**
+ * The sixteen land use columns of the U.S. Department of Agriculture land
+ * use csv file, in file order.
+ *
+ * Each category knows its csv header, the name it is reported under, and its
+ * column index in LandUseDataset, which is also its ordinal. Code that works
+ * on every column can loop over values() and keep its state in arrays
+ * indexed by ordinal() (or an EnumMap), instead of naming each column.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public enum LandUseCategory {
+
+    TOTAL_LAND("Total land", "Total Land"),
+    TOTAL_CROPLAND("Total cropland", "Total Cropland"),
+    CROPLAND_USED_FOR_CROPS("Cropland used for crops", "Cropland Used For Crops"),
+    CROPLAND_USED_FOR_PASTURE("Cropland used for pasture", "Cropland Used For Pasture"),
+    CROPLAND_IDLED("Cropland idled", "Cropland Idled"),
+    GRASSLAND_PASTURE_AND_RANGE("Grassland pasture and range", "Grassland Pasture And Range"),
+    FOREST_USE_LAND("Forest-use land (all)", "Forest Use Land"),
+    FOREST_USE_LAND_GRAZED("Forest-use land grazed", "Forest Use Land Grazed"),
+    FOREST_USE_LAND_NOT_GRAZED("Forest-use land not grazed", "Forest Use Land Not Grazed"),
+    ALL_SPECIAL_USES_OF_LAND("All special uses of land", "All Special Uses Of Land"),
+    LAND_IN_RURAL_TRANSPORTATION_FACILITIES("Land in rural transportation facilities",
+            "Land In Rural Transportation Facilities"),
+    LAND_IN_RURAL_PARKS_AND_WILDLIFE_AREAS("Land in rural parks and wildlife areas",
+            "Land In Rural Parks And Wildlife Areas"),
+    LAND_IN_DEFENSE_AND_INDUSTRIAL_AREAS("Land in defense and industrial areas",
+            "Land In Defense And Industrial Areas"),
+    FARMSTEADS_ROADS_AND_MISCELLANEOUS_FARMLAND("Farmsteads, roads, and miscellaneous farmland",
+            "Farmsteads Roads And Miscellaneous Farmland"),
+    LAND_IN_URBAN_AREAS("Land in urban areas", "Land In Urban Areas"),
+    OTHER_LAND("Other land", "Other Land");
+
+    // values() makes a new array on every call, so keep one.
+    private static final LandUseCategory[] CATEGORIES = values();
+
+    private final String header;
+    private final String displayName;
+
+    LandUseCategory(String header, String displayName) {
+        this.header = header;
+        this.displayName = displayName;
+    }
+
+    /**
+     * Gets the column's header in the csv file, unquoted.
+     * @return String, such as "Forest-use land (all)".
+     */
+    public String getHeader() {
+        return header;
+    }
+
+    /**
+     * Gets the name the column is reported under.
+     * @return String, such as "Forest Use Land".
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Gets the column index in LandUseDataset.
+     * @return int, column such as LandUseDataset.FOREST_USE_LAND.
+     */
+    public int getColumn() {
+        return ordinal();
+    }
+
+    /**
+     * Gets the category of a LandUseDataset column index.
+     * @param column, int, column such as LandUseDataset.FOREST_USE_LAND.
+     * @return LandUseCategory
+     */
+    public static LandUseCategory fromColumn(int column) {
+        if (column < 0 || column >= CATEGORIES.length) {
+            throw new IllegalArgumentException("Unknown land use column: " + column);
+        }
+        return CATEGORIES[column];
+    }
+
+    /**
+     * Gets the category of a csv header.
+     * @param header, String, header such as "Land in urban areas".
+     * @return LandUseCategory
+     */
+    public static LandUseCategory fromHeader(String header) {
+        for (LandUseCategory category : CATEGORIES) {
+            if (category.header.equals(header)) {
+                return category;
+            }
+        }
+        throw new IllegalArgumentException("Unknown land use header: " + header);
+    }
+
+    /**
+     * Gets the column indexes of several categories, for the LandUseDataset
+     * methods that take columns.
+     * @param categories, LandUseCategory... categories.
+     * @return int[], their column indexes, in the same order.
+     */
+    public static int[] columns(LandUseCategory... categories) {
+        int[] columns = new int[categories.length];
+        for (int i = 0; i < categories.length; i++) {
+            columns[i] = categories[i].getColumn();
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,178 @@
+package landUseDataAnalysis;
+
+/**
+ * Reduction kernels over whole int columns: sum, count, argmin and argmax,
+ * each restricted to the rows picked by a selection mask. MIN and MAX
+ * aggregates read their value from the row argmin or argmax finds.
+ *
+ * There are also two kernels over the long sums that LandUseDeltaMatrix
+ * holds for each entity and column in two survey years: element-wise
+ * differences between the year slices, and the cell with the largest
+ * change, each restricted to the cells that have a value in both years.
+ *
+ * A selection mask is a byte[] with 1 for rows to include and 0 for rows to
+ * skip. The masks are built from the sorted row lists that LandUseFilter
+ * selects through the Year, Region and Region or State indexes, with rows
+ * that are "N.A." in the column already cleared (see mask()).
+ *
+ * The project targets Java 8, which has no Vector API, so the kernels are
+ * plain loops written to suit the JIT compiler's auto-vectorizer: counted
+ * loops over arrays with no early exits, no calls and no branches on the
+ * data. The mask is applied with arithmetic (value & -mask) or a select
+ * instead of an if, so the loop body is the same for every row.
+ *
+ * The public methods are the only entry points, so a Vector API version for
+ * a JDK with jdk.incubator.vector would go inside them, reducing whole
+ * vector lengths of each column and leaving these loops as the scalar
+ * fallback for the tail of the column and for Java 8. Callers, such as
+ * LandUseAccumulator.addDense(), would not change.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public final class LandUseColumnKernels {
+
+    private LandUseColumnKernels() {
+    }
+
+    /**
+     * Builds a selection mask from a list of rows, leaving out rows that are
+     * "N.A." in a land use column.
+     *
+     * @param rows, int[], selected row numbers.
+     * @param missing, int[], the dataset's missing value bitmask column.
+     * @param column, int, land use column whose "N.A." rows are left out.
+     * @param length, int, number of rows in the dataset.
+     * @return byte[], 1 for selected rows with a value, 0 for the rest.
+     */
+    public static byte[] mask(int[] rows, int[] missing, int column, int length) {
+        byte[] mask = new byte[length];
+        for (int row : rows) {
+            mask[row] = (byte) (~missing[row] >>> column & 1);
+        }
+        return mask;
+    }
+
+    /**
+     * Counts the selected rows.
+     *
+     * @param mask, byte[], selection mask.
+     * @param length, int, number of rows to check.
+     * @return int, number of rows with a 1 in the mask.
+     */
+    public static int count(byte[] mask, int length) {
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            count += mask[i];
+        }
+        return count;
+    }
+
+    /**
+     * Sums the selected values.
+     *
+     * @param values, int[], column to sum.
+     * @param mask, byte[], selection mask.
+     * @param length, int, number of rows to check.
+     * @return long, sum of the selected values.
+     */
+    public static long sum(int[] values, byte[] mask, int length) {
+
+        // Two int lanes keep the loop body in ints, the widening to long is
+        // done once per pair of rows.
+        long sum = 0;
+        int i = 0;
+        for (; i + 1 < length; i += 2) {
+            sum += (long) (values[i] & -mask[i]) + (values[i + 1] & -mask[i + 1]);
+        }
+        for (; i < length; i++) {
+            sum += values[i] & -mask[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Finds the first selected row holding the smallest selected value.
+     *
+     * @param values, int[], column to read.
+     * @param mask, byte[], selection mask.
+     * @param length, int, number of rows to check.
+     * @return int, row number, or -1 if no rows are selected.
+     */
+    public static int argmin(int[] values, byte[] mask, int length) {
+
+        // The best row and its value are kept in one pass, updated with
+        // selects rather than an if. Only a smaller value replaces them, so
+        // ties keep the first row.
+        int best = -1;
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < length; i++) {
+            boolean better = mask[i] != 0 & (values[i] < min | best == -1);
+            min = better ? values[i] : min;
+            best = better ? i : best;
+        }
+        return best;
+    }
+
+    /**
+     * Finds the first selected row holding the largest selected value, so
+     * ties keep the first row as Stream.max() does.
+     *
+     * @param values, int[], column to read.
+     * @param mask, byte[], selection mask.
+     * @param length, int, number of rows to check.
+     * @return int, row number, or -1 if no rows are selected.
+     */
+    public static int argmax(int[] values, byte[] mask, int length) {
+        int best = -1;
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < length; i++) {
+            boolean better = mask[i] != 0 & (values[i] > max | best == -1);
+            max = better ? values[i] : max;
+            best = better ? i : best;
+        }
+        return best;
+    }
+
+    /**
+     * Works out element-wise differences, minuend[i] - subtrahend[i], such
+     * as the change in each land use column between two survey years.
+     * Unselected differences are 0.
+     *
+     * @param minuend, long[], later values.
+     * @param subtrahend, long[], earlier values.
+     * @param mask, byte[], selection mask.
+     * @param differences, long[] to write the differences to.
+     * @param length, int, number of values.
+     */
+    public static void difference(long[] minuend, long[] subtrahend, byte[] mask, long[] differences,
+            int length) {
+        for (int i = 0; i < length; i++) {
+            differences[i] = (minuend[i] - subtrahend[i]) & -(long) mask[i];
+        }
+    }
+
+    /**
+     * Finds the selected value furthest from 0 in part of an array, such as
+     * the column in which one entity's land use changed most, keeping the
+     * first on ties.
+     *
+     * @param values, long[], values to read.
+     * @param mask, byte[], selection mask.
+     * @param offset, int, index of the first value to check.
+     * @param length, int, number of values to check.
+     * @return int, index of the value, or -1 if none are selected.
+     */
+    public static int argmaxAbs(long[] values, byte[] mask, int offset, int length) {
+        int best = -1;
+        long max = -1;
+        for (int i = offset; i < offset + length; i++) {
+            long size = Math.abs(values[i]);
+            boolean better = mask[i] != 0 & size > max;
+            max = better ? size : max;
+            best = better ? i : best;
+        }
+        return best;
+    }
+}
@@ -0,0 +1,673 @@
+package landUseDataAnalysis;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads rows of the U.S. Department of Agriculture land use csv file
+ * straight from bytes.
+ *
+ * The file is read into one reusable byte buffer. Each line is split into
+ * field ranges inside that buffer, numbers are parsed in place, and text
+ * fields are encoded through LandUseDictionary byte lookups. No String,
+ * String[] or exception is created for a row unless a new Region, Region or
+ * State or Year value turns up, so the cost per row is close to the cost of
+ * looking at each byte once.
+ *
+ * The tokenizer handles quoted fields (such as the "Farmsteads, roads, and
+ * miscellaneous farmland" header), and lines ending in \n, \r\n or a bare \r,
+ * which is what the shipped USDA csv file uses. "N.A." and any other value
+ * that is not a whole number is stored as 0 and flagged in the missing value
+ * bitmask.
+ *
+ * Lines are excluded with the same rules as LandUseDataProcessing.processData():
+ * 1. Region is "AK and HI", "48 States", and "U.S. Total"
+ * 2. State is "District of Columbia"
+ * 3. State includes the letter "y"
+ *
+ * Usage: call nextRow() until it returns false, reading the current row
+ * through the getters after each call. What was read, kept and excluded is
+ * added to LandUsePipelineMetrics when the tokenizer is closed, and written
+ * in a LandUseFlightEvents chunk parse event if JFR is recording.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public class LandUseCsvTokenizer implements Closeable {
+
+    // Number of columns in the csv file, and the position of the
+    // columns that are not land totals.
+    public static final int FIELD_COUNT = 20;
+    private static final int SORT_ORDER_FIELD = 0;
+    private static final int REGION_FIELD = 1;
+    private static final int REGION_OR_STATE_FIELD = 2;
+    private static final int YEAR_FIELD = 3;
+    private static final int FIRST_LAND_USE_FIELD = 4;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The rules that exclude a line, in the order they are checked.
+     */
+    public enum Exclusion {
+
+        // Text that excludes a line wherever it appears in a text field.
+        AK_AND_HI("AK and HI"),
+        FORTY_EIGHT_STATES("48 States"),
+        US_TOTAL("U.S. total"),
+        DISTRICT_OF_COLUMBIA("District of Columbia"),
+
+        // Only checked in the Region or State field, either case.
+        LETTER_Y("letter y");
+
+        private final String description;
+
+        Exclusion(String description) {
+            this.description = description;
+        }
+
+        /**
+         * Gets the text the rule looks for, or "letter y".
+         * @return String
+         */
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private static final Exclusion[] EXCLUDED_TEXT = {
+            Exclusion.AK_AND_HI, Exclusion.FORTY_EIGHT_STATES, Exclusion.US_TOTAL,
+            Exclusion.DISTRICT_OF_COLUMBIA};
+
+    // Returned by lookUp() for values that exclude the line, or that
+    // are not in the dictionary yet.
+    private static final int EXCLUDED = -2;
+    private static final int NEW_VALUE = -3;
+
+    // Returned by parseInt() for values that are not whole numbers.
+    private static final long NOT_A_NUMBER = Long.MIN_VALUE;
+
+    private final InputStream in;
+
+    // Dictionaries that text fields are encoded into, and values already
+    // known to exclude a line. Keeping excluded values out of the dictionaries
+    // means the dictionaries only hold values found in the processed data.
+    private final LandUseDictionary regions;
+    private final LandUseDictionary regionsOrStates;
+    private final LandUseDictionary years;
+    private final LandUseDictionary excludedRegions = new LandUseDictionary();
+    private final LandUseDictionary excludedRegionsOrStates = new LandUseDictionary();
+    private final LandUseDictionary excludedYears = new LandUseDictionary();
+
+    // The rule that excluded each value, indexed by id in the excluded
+    // dictionary of the field, and the rule found by the last lookUp().
+    private final List<Exclusion> excludedRegionRules = new ArrayList<>();
+    private final List<Exclusion> excludedRegionOrStateRules = new ArrayList<>();
+    private final List<Exclusion> excludedYearRules = new ArrayList<>();
+    private Exclusion exclusion;
+
+    // Counts for LandUsePipelineMetrics, added to the global metrics by
+    // close(). Stage times are only taken when timed is true.
+    private final LandUsePipelineMetrics.IngestCounts counts = new LandUsePipelineMetrics.IngestCounts();
+    private final boolean timed = LandUsePipelineMetrics.getGlobal().isTimingEnabled();
+    private boolean closed;
+
+    // Flight recorder event timing the tokenizer from creation to close,
+    // null without JFR.
+    private final LandUseFlightEvents.ChunkParse parseEvent = LandUseFlightEvents.beginChunkParse();
+    private String source = "stream";
+
+    // Read buffer. Bytes from position to limit have not been used yet.
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean endOfInput;
+    private boolean skipLineFeed;
+    private boolean headerPending;
+    private long lineNumber;
+
+    // Where each field of the current line is. Fields normally point into
+    // buffer; quoted fields containing "" are copied into unquoted.
+    private int fieldCount;
+    private final byte[][] fieldBytes = new byte[FIELD_COUNT][];
+    private final int[] fieldStart = new int[FIELD_COUNT];
+    private final int[] fieldLength = new int[FIELD_COUNT];
+    private final byte[][] unquoted = new byte[FIELD_COUNT][];
+    private final String[] newValues = new String[FIELD_COUNT];
+
+    // Values of the current row.
+    private int sortOrder;
+    private int regionId;
+    private int regionOrStateId;
+    private int yearId;
+    private int missingValues;
+    private final int[] landUse = new int[LandUseDataset.LAND_USE_COLUMN_COUNT];
+
+    /**
+     * Creates a tokenizer that encodes text fields into the given dictionaries.
+     *
+     * @param in, InputStream of csv bytes. Closed by close().
+     * @param regions, LandUseDictionary for the Region column.
+     * @param regionsOrStates, LandUseDictionary for the Region or State column.
+     * @param years, LandUseDictionary for the Year column.
+     * @param skipHeader, boolean, true if the first line is the header row.
+     */
+    public LandUseCsvTokenizer(InputStream in, LandUseDictionary regions,
+            LandUseDictionary regionsOrStates, LandUseDictionary years, boolean skipHeader) {
+        this.in = in;
+        this.regions = regions;
+        this.regionsOrStates = regionsOrStates;
+        this.years = years;
+        this.headerPending = skipHeader;
+    }
+
+    /**
+     * Opens a csv file with a header row, using new dictionaries.
+     *
+     * @param filePath, path to csv file of land use data
+     * @return LandUseCsvTokenizer, tokenizer positioned before the first row
+     * @throws IOException
+     */
+    public static LandUseCsvTokenizer open(String filePath) throws IOException {
+        Path path = Paths.get(filePath);
+        LandUseFlightEvents.FileOpen openEvent = LandUseFlightEvents.beginFileOpen();
+        InputStream in = Files.newInputStream(path);
+        LandUseFlightEvents.commitFileOpen(openEvent, path);
+        LandUseCsvTokenizer tokenizer = new LandUseCsvTokenizer(in, new LandUseDictionary(),
+                new LandUseDictionary(), new LandUseDictionary(), true);
+        tokenizer.setSource(filePath);
+        return tokenizer;
+    }
+
+    /**
+     * Names the input, such as a file path, in the tokenizer's flight
+     * recorder event. Inputs that aren't named are called "stream".
+     *
+     * @param source, String, name of the input.
+     */
+    void setSource(String source) {
+        this.source = source;
+    }
+
+    /**
+     * Moves to the next row that is not excluded.
+     *
+     * @return boolean, true if a row was read, false at the end of the input.
+     * @throws IOException if the input can't be read or a line has fewer
+     * than 20 fields.
+     */
+    public boolean nextRow() throws IOException {
+        while (true) {
+
+            // Time spent reading input while finding the end of the line is
+            // counted as read, not tokenize.
+            long start = timed ? System.nanoTime() : 0;
+            long readBefore = counts.readNanos;
+            boolean lineRead = readLine();
+            if (timed) {
+                counts.tokenizeNanos += System.nanoTime() - start - (counts.readNanos - readBefore);
+            }
+            if (!lineRead) {
+                return false;
+            }
+            counts.linesRead++;
+            if (headerPending) {
+                headerPending = false;
+                counts.headerLines++;
+                continue;
+            }
+
+            // Skip blank lines, such as a line feed at the end of the file.
+            if (fieldCount == 0) {
+                counts.blankLines++;
+                continue;
+            }
+            if (fieldCount < FIELD_COUNT) {
+                throw new IOException("Line " + lineNumber + " has " + fieldCount
+                        + " fields, expected " + FIELD_COUNT);
+            }
+
+            start = timed ? System.nanoTime() : 0;
+            boolean kept = encodeTextFields();
+            if (timed) {
+                counts.exclusionNanos += System.nanoTime() - start;
+            }
+            if (kept) {
+                start = timed ? System.nanoTime() : 0;
+                parseNumberFields();
+                if (timed) {
+                    counts.conversionNanos += System.nanoTime() - start;
+                }
+                counts.rowsKept++;
+                counts.notAvailableValues += Integer.bitCount(missingValues);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Reads the next line into buffer and splits it into fields.
+     *
+     * @return boolean, false if there are no more lines.
+     * @throws IOException
+     */
+    private boolean readLine() throws IOException {
+
+        // If \r ended the last line, a \n straight after it is part of
+        // that \r\n line ending, not a new blank line.
+        if (skipLineFeed) {
+            if (position == limit && !fill()) {
+                return false;
+            }
+            if (buffer[position] == '\n') {
+                position++;
+            }
+            skipLineFeed = false;
+        }
+
+        // Find the end of the line. Line breaks inside quotes don't count.
+        int scan = position;
+        boolean quoted = false;
+        while (true) {
+            if (scan == limit) {
+
+                // fill() moves the unused bytes to the front of buffer,
+                // so move scan with them.
+                int start = position;
+                boolean filled = fill();
+                scan -= start - position;
+                if (!filled) {
+                    if (position == limit) {
+                        return false;
+                    }
+                    break;
+                }
+                continue;
+            }
+            byte b = buffer[scan];
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (!quoted && (b == '\n' || b == '\r')) {
+                break;
+            }
+            scan++;
+        }
+
+        int lineStart = position;
+        if (scan < limit) {
+            skipLineFeed = buffer[scan] == '\r';
+            position = scan + 1;
+        } else {
+            position = limit;
+        }
+        lineNumber++;
+        splitFields(lineStart, scan);
+        return true;
+    }
+
+    /**
+     * Moves unused bytes to the front of buffer and reads more input after
+     * them, growing buffer if a single line fills it.
+     *
+     * @return boolean, false if no more bytes could be read.
+     * @throws IOException
+     */
+    private boolean fill() throws IOException {
+        if (endOfInput) {
+            return false;
+        }
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        long start = timed ? System.nanoTime() : 0;
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (timed) {
+            counts.readNanos += System.nanoTime() - start;
+        }
+        if (read < 0) {
+            endOfInput = true;
+            return false;
+        }
+        limit += read;
+        counts.bytesRead += read;
+        return true;
+    }
+
+    /**
+     * Records where each field of a line starts and ends. Fields after the
+     * twentieth are ignored, as they are by processData().
+     *
+     * @param start, int, index of the first byte of the line.
+     * @param end, int, index just after the last byte of the line.
+     */
+    private void splitFields(int start, int end) {
+        fieldCount = 0;
+        if (start == end) {
+            return;
+        }
+        int p = start;
+        while (fieldCount < FIELD_COUNT) {
+            int field = fieldCount++;
+            if (p < end && buffer[p] == '"') {
+
+                // Quoted field: the value is between the quotes, and "" inside
+                // the quotes stands for one quote character.
+                int contentStart = ++p;
+                boolean escaped = false;
+                while (p < end) {
+                    if (buffer[p] == '"') {
+                        if (p + 1 < end && buffer[p + 1] == '"') {
+                            escaped = true;
+                            p += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    p++;
+                }
+                setField(field, contentStart, p, escaped);
+                while (p < end && buffer[p] != ',') {
+                    p++;
+                }
+            } else {
+                int contentStart = p;
+                while (p < end && buffer[p] != ',') {
+                    p++;
+                }
+                setField(field, contentStart, p, false);
+            }
+            if (p >= end) {
+                break;
+            }
+
+            // Skip the comma.
+            p++;
+        }
+    }
+
+    // Points a field at its bytes, copying quoted fields with "" so that
+    // each pair becomes a single quote.
+    private void setField(int field, int start, int end, boolean escaped) {
+        if (!escaped) {
+            fieldBytes[field] = buffer;
+            fieldStart[field] = start;
+            fieldLength[field] = end - start;
+            return;
+        }
+        if (unquoted[field] == null || unquoted[field].length < end - start) {
+            unquoted[field] = new byte[end - start];
+        }
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            unquoted[field][length++] = buffer[i];
+            if (buffer[i] == '"') {
+                i++;
+            }
+        }
+        fieldBytes[field] = unquoted[field];
+        fieldStart[field] = 0;
+        fieldLength[field] = length;
+    }
+
+    /**
+     * Encodes Region, Region or State and Year, unless one of them excludes
+     * the line. Nothing is added to the dictionaries for excluded lines. An
+     * excluded line is counted for the rule that excluded its first field.
+     *
+     * @return boolean, true if the line is kept.
+     */
+    private boolean encodeTextFields() {
+        int region = lookUp(REGION_FIELD, regions, excludedRegions, excludedRegionRules);
+        if (region == EXCLUDED) {
+            counts.excludedLines[exclusion.ordinal()]++;
+            return false;
+        }
+        int regionOrState = lookUp(REGION_OR_STATE_FIELD, regionsOrStates, excludedRegionsOrStates,
+                excludedRegionOrStateRules);
+        if (regionOrState == EXCLUDED) {
+            counts.excludedLines[exclusion.ordinal()]++;
+            return false;
+        }
+        int year = lookUp(YEAR_FIELD, years, excludedYears, excludedYearRules);
+        if (year == EXCLUDED) {
+            counts.excludedLines[exclusion.ordinal()]++;
+            return false;
+        }
+        regionId = region == NEW_VALUE ? regions.add(newValues[REGION_FIELD]) : region;
+        regionOrStateId = regionOrState == NEW_VALUE
+                ? regionsOrStates.add(newValues[REGION_OR_STATE_FIELD]) : regionOrState;
+        yearId = year == NEW_VALUE ? years.add(newValues[YEAR_FIELD]) : year;
+        return true;
+    }
+
+    /**
+     * Looks a text field up by its bytes. A String is only created the first
+     * time a value is seen, to check it against the exclusion rules.
+     *
+     * @param field, int, field index.
+     * @param dictionary, LandUseDictionary of kept values for this field.
+     * @param excluded, LandUseDictionary of excluded values for this field.
+     * @param excludedRules, List of the rule that excluded each value, by id.
+     * @return int, the value's id, EXCLUDED with the rule saved in exclusion,
+     * or NEW_VALUE with the String saved in newValues.
+     */
+    private int lookUp(int field, LandUseDictionary dictionary, LandUseDictionary excluded,
+            List<Exclusion> excludedRules) {
+        byte[] bytes = fieldBytes[field];
+        int id = dictionary.idOf(bytes, fieldStart[field], fieldLength[field]);
+        if (id != LandUseDictionary.NOT_FOUND) {
+            return id;
+        }
+        int excludedId = excluded.idOf(bytes, fieldStart[field], fieldLength[field]);
+        if (excludedId != LandUseDictionary.NOT_FOUND) {
+            exclusion = excludedRules.get(excludedId);
+            return EXCLUDED;
+        }
+        String value = new String(bytes, fieldStart[field], fieldLength[field], StandardCharsets.UTF_8);
+        Exclusion rule = exclusionOf(value, field == REGION_OR_STATE_FIELD);
+        if (rule != null) {
+            excluded.add(value);
+            excludedRules.add(rule);
+            exclusion = rule;
+            return EXCLUDED;
+        }
+        newValues[field] = value;
+        return NEW_VALUE;
+    }
+
+    /**
+     * Checks a value against the exclusion rules.
+     *
+     * @param value, String, text of a field.
+     * @param regionOrState, boolean, true for the Region or State field,
+     * where the letter y also excludes the line.
+     * @return Exclusion, the first rule that excludes the line, or null if
+     * it is kept.
+     */
+    private static Exclusion exclusionOf(String value, boolean regionOrState) {
+        for (Exclusion excludedText : EXCLUDED_TEXT) {
+            if (value.contains(excludedText.getDescription())) {
+                return excludedText;
+            }
+        }
+        if (regionOrState && (value.indexOf('y') >= 0 || value.indexOf('Y') >= 0)) {
+            return Exclusion.LETTER_Y;
+        }
+        return null;
+    }
+
+    /**
+     * Parses Sort Order and the sixteen land totals of the current line.
+     */
+    private void parseNumberFields() {
+        long number = parseInt(fieldBytes[SORT_ORDER_FIELD], fieldStart[SORT_ORDER_FIELD],
+                fieldLength[SORT_ORDER_FIELD]);
+        sortOrder = number == NOT_A_NUMBER ? 0 : (int) number;
+        missingValues = 0;
+        for (int column = 0; column < LandUseDataset.LAND_USE_COLUMN_COUNT; column++) {
+            int field = FIRST_LAND_USE_FIELD + column;
+            number = parseInt(fieldBytes[field], fieldStart[field], fieldLength[field]);
+            if (number == NOT_A_NUMBER) {
+                landUse[column] = 0;
+                missingValues |= 1 << column;
+            } else {
+                landUse[column] = (int) number;
+            }
+        }
+    }
+
+    /**
+     * Parses a whole number from bytes. Accepts the same text as
+     * Integer.parseInt(), but returns NOT_A_NUMBER instead of throwing.
+     *
+     * @param bytes, byte[] holding the number.
+     * @param offset, int, index of the first byte.
+     * @param length, int, number of bytes.
+     * @return long, the number, or NOT_A_NUMBER.
+     */
+    static long parseInt(byte[] bytes, int offset, int length) {
+        if (length == 0) {
+            return NOT_A_NUMBER;
+        }
+        int i = offset;
+        int end = offset + length;
+        boolean negative = false;
+        if (bytes[i] == '-' || bytes[i] == '+') {
+            negative = bytes[i] == '-';
+            if (++i == end) {
+                return NOT_A_NUMBER;
+            }
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return NOT_A_NUMBER;
+            }
+            value = value * 10 + digit;
+            if (value > 1L + Integer.MAX_VALUE) {
+                return NOT_A_NUMBER;
+            }
+        }
+        if (negative) {
+            value = -value;
+        }
+        return value > Integer.MAX_VALUE ? NOT_A_NUMBER : value;
+    }
+
+    /**
+     * Creates a LandUseDataLineItem for the current row. The text fields use
+     * the dictionary Strings, so rows share one String per distinct value.
+     *
+     * @return LandUseDataLineItem, the current row as a line item object.
+     */
+    public LandUseDataLineItem toLineItem() {
+        long start = timed ? System.nanoTime() : 0;
+        LandUseDataLineItem lineItem = new LandUseDataLineItem(sortOrder, regions.valueOf(regionId),
+                regionsOrStates.valueOf(regionOrStateId), years.valueOf(yearId),
+                landUse, missingValues);
+        if (timed) {
+            counts.constructionNanos += System.nanoTime() - start;
+        }
+        return lineItem;
+    }
+
+    /**
+     * Appends the current row to a dataset. The dataset must own the
+     * dictionaries the tokenizer encodes text fields into, or share them.
+     *
+     * @param dataset, LandUseDataset to append to.
+     */
+    public void appendTo(LandUseDataset dataset) {
+        long start = timed ? System.nanoTime() : 0;
+        dataset.appendRow(sortOrder, regionId, regionOrStateId, yearId, landUse, missingValues);
+        if (timed) {
+            counts.constructionNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Gets Sort Order of the current row.
+     * @return int, Sort Order
+     */
+    public int getSortOrder() {
+        return sortOrder;
+    }
+
+    /**
+     * Gets the Region id of the current row.
+     * @return int, id in the regions dictionary
+     */
+    public int getRegionId() {
+        return regionId;
+    }
+
+    /**
+     * Gets the Region or State id of the current row.
+     * @return int, id in the regions or states dictionary
+     */
+    public int getRegionOrStateId() {
+        return regionOrStateId;
+    }
+
+    /**
+     * Gets the Year id of the current row.
+     * @return int, id in the years dictionary
+     */
+    public int getYearId() {
+        return yearId;
+    }
+
+    /**
+     * Gets the land totals of the current row. The array is reused for
+     * every row, so copy it if it needs to be kept.
+     * @return int[], land totals indexed by LandUseDataset column
+     */
+    public int[] getLandUse() {
+        return landUse;
+    }
+
+    /**
+     * Gets the missing value bitmask of the current row.
+     * @return int, bit n set when LandUseDataset column n was "N.A."
+     */
+    public int getMissingValues() {
+        return missingValues;
+    }
+
+    /**
+     * Gets the number of lines read so far, including the header.
+     * @return long, line number of the current row
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Closes the input stream, adds what the tokenizer counted to
+     * LandUsePipelineMetrics.getGlobal() and commits its chunk parse event.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            LandUsePipelineMetrics.getGlobal().add(counts);
+            LandUseFlightEvents.commitChunkParse(parseEvent, source, counts);
+        }
+        in.close();
+    }
+}
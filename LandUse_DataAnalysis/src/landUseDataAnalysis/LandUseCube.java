@@ -0,0 +1,417 @@
+package landUseDataAnalysis;
+
+import java.util.Arrays;
+
+/**
+ * A materialized aggregate cube over a LandUseDataset: the sum, count,
+ * smallest and largest value of every land use column for every
+ * (region, year) and (state, year) cell.
+ *
+ * The cube has two levels:
+ *
+ *   REGION cells are keyed by the Region column, so "Pacific" holds the
+ *   Pacific states and "Pacific total" holds the region total row.
+ *   STATE cells are keyed by the Region or State column of state rows, so
+ *   each (state, year) cell holds that state's row for the year.
+ *
+ * The cube is built in one pass over the rows, and as a LandUseAppendListener
+ * it can be kept up to date by LandUseIncrementalIngest from the new rows
+ * alone (corrections to rows already added rebuild it). A point query reads
+ * one cell, and a roll-up over several values or years reads one cell for
+ * each, so neither depends on the number of rows.
+ *
+ * "N.A." values are left out of every cell, as they are by LandUseQueryEngine.
+ *
+ * The cube keeps its own copy of the Region, Region or State and Year
+ * values, and every method is synchronized, so it can be read on one thread
+ * while another appends rows.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public class LandUseCube implements LandUseAppendListener {
+
+    /**
+     * The keys of a cube's cells.
+     */
+    public enum Level {
+        REGION,
+        STATE
+    }
+
+    private static final int COLUMNS = LandUseDataset.LAND_USE_COLUMN_COUNT;
+
+    // The cube's own copies of the dataset's dictionaries, with the same ids.
+    private final LandUseDictionary regions = new LandUseDictionary();
+    private final LandUseDictionary regionsOrStates = new LandUseDictionary();
+    private final LandUseDictionary years = new LandUseDictionary();
+    private boolean[] regionTotals = new boolean[0];
+    private boolean[] states = new boolean[0];
+
+    // Cells indexed [level][(id * yearCapacity + yearId) * COLUMNS + column].
+    // The capacities grow by doubling as new values turn up.
+    private final int[] idCapacities = new int[Level.values().length];
+    private int yearCapacity;
+    private final long[][] sums = new long[Level.values().length][0];
+    private final int[][] counts = new int[Level.values().length][0];
+    private final int[][] mins = new int[Level.values().length][0];
+    private final int[][] maxs = new int[Level.values().length][0];
+    private int rowCount;
+
+    /**
+     * Builds the cube from every row currently in the dataset.
+     *
+     * @param dataset, LandUseDataset to aggregate.
+     */
+    public LandUseCube(LandUseDataset dataset) {
+        rowsAppended(dataset, 0, dataset.getRowCount());
+    }
+
+    /**
+     * Adds appended rows to the cells.
+     *
+     * @param dataset, LandUseDataset the rows were appended to.
+     * @param firstRow, int, first new row.
+     * @param endRow, int, row after the last new row.
+     */
+    @Override
+    public synchronized void rowsAppended(LandUseDataset dataset, int firstRow, int endRow) {
+        if (firstRow != rowCount) {
+            throw new IllegalStateException("Expected rows from " + rowCount + " but got rows from " + firstRow);
+        }
+        copyNewValues(dataset.getRegions(), regions);
+        copyNewValues(dataset.getRegionsOrStates(), regionsOrStates);
+        copyNewValues(dataset.getYears(), years);
+
+        // Region totals are found once for each new Region value.
+        int oldRegionCount = regionTotals.length;
+        regionTotals = Arrays.copyOf(regionTotals, regions.size());
+        for (int regionId = oldRegionCount; regionId < regionTotals.length; regionId++) {
+            regionTotals[regionId] = LandUseDataset.isRegionTotal(regions.valueOf(regionId));
+        }
+        states = Arrays.copyOf(states, regionsOrStates.size());
+        ensureCapacity(regions.size(), regionsOrStates.size(), years.size());
+
+        int[] regionColumn = dataset.getRegionColumn();
+        int[] regionOrStateColumn = dataset.getRegionOrStateColumn();
+        int[] yearColumn = dataset.getYearColumn();
+        int[] missing = dataset.getMissingColumn();
+        for (int row = firstRow; row < endRow; row++) {
+            int regionId = regionColumn[row];
+            int yearId = yearColumn[row];
+            int regionCell = (regionId * yearCapacity + yearId) * COLUMNS;
+            int stateCell = -1;
+            if (!regionTotals[regionId]) {
+                states[regionOrStateColumn[row]] = true;
+                stateCell = (regionOrStateColumn[row] * yearCapacity + yearId) * COLUMNS;
+            }
+            for (int column = 0; column < COLUMNS; column++) {
+                if ((missing[row] >>> column & 1) != 0) {
+                    continue;
+                }
+                int value = dataset.getLandUseColumn(column)[row];
+                add(Level.REGION.ordinal(), regionCell + column, value);
+                if (stateCell != -1) {
+                    add(Level.STATE.ordinal(), stateCell + column, value);
+                }
+            }
+        }
+        rowCount = endRow;
+    }
+
+    /**
+     * Builds the cells again from the rows added so far, as a replaced
+     * value can't be taken back out of a smallest or largest value.
+     *
+     * @param dataset, LandUseDataset whose rows were replaced.
+     * @param rows, int[], row numbers replaced.
+     */
+    @Override
+    public synchronized void rowsReplaced(LandUseDataset dataset, int[] rows) {
+        int endRow = rowCount;
+        for (Level level : Level.values()) {
+            int index = level.ordinal();
+            Arrays.fill(sums[index], 0);
+            Arrays.fill(counts[index], 0);
+            Arrays.fill(mins[index], Integer.MAX_VALUE);
+            Arrays.fill(maxs[index], Integer.MIN_VALUE);
+        }
+        Arrays.fill(states, false);
+        rowCount = 0;
+        rowsAppended(dataset, 0, endRow);
+    }
+
+    /**
+     * Gets the values a level's cells are keyed by, in dictionary id order
+     * (the order they first appear in the csv file).
+     *
+     * @param level, Level, REGION or STATE.
+     * @return String[], Regions (including region totals) or States.
+     */
+    public synchronized String[] getValues(Level level) {
+        if (level == Level.REGION) {
+            String[] values = new String[regions.size()];
+            for (int id = 0; id < values.length; id++) {
+                values[id] = regions.valueOf(id);
+            }
+            return values;
+        }
+        int stateCount = 0;
+        for (boolean state : states) {
+            stateCount += state ? 1 : 0;
+        }
+        String[] values = new String[stateCount];
+        int position = 0;
+        for (int id = 0; id < states.length; id++) {
+            if (states[id]) {
+                values[position++] = regionsOrStates.valueOf(id);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Gets the survey years, in the order they first appear in the csv file.
+     * @return String[], Years
+     */
+    public synchronized String[] getYears() {
+        String[] values = new String[years.size()];
+        for (int id = 0; id < values.length; id++) {
+            values[id] = years.valueOf(id);
+        }
+        return values;
+    }
+
+    /**
+     * Checks if a Region is a regional total (contains "total").
+     * @param region, String, Region such as "Mountain total".
+     * @return boolean, true for region totals.
+     */
+    public synchronized boolean isRegionTotal(String region) {
+        int id = regions.idOf(region);
+        return id != LandUseDictionary.NOT_FOUND && regionTotals[id];
+    }
+
+    /**
+     * Gets one cell.
+     *
+     * @param level, Level, REGION or STATE.
+     * @param value, String, Region or State of the cell.
+     * @param year, String, survey year of the cell.
+     * @param column, int, land use column, such as LandUseDataset.FOREST_USE_LAND.
+     * @return LandUseCubeCell, the cell, empty if there were no rows for it.
+     */
+    public LandUseCubeCell getCell(Level level, String value, String year, int column) {
+        return rollUp(level, new String[] {value}, new String[] {year}, column);
+    }
+
+    /**
+     * Gets one cell.
+     *
+     * @param level, Level, REGION or STATE.
+     * @param value, String, Region or State of the cell.
+     * @param year, String, survey year of the cell.
+     * @param category, LandUseCategory, such as LandUseCategory.FOREST_USE_LAND.
+     * @return LandUseCubeCell, the cell, empty if there were no rows for it.
+     */
+    public LandUseCubeCell getCell(Level level, String value, String year, LandUseCategory category) {
+        return getCell(level, value, year, category.getColumn());
+    }
+
+    /**
+     * Combines the cells for several values and years, such as the Pacific
+     * and Mountain states over every year before 1987.
+     *
+     * @param level, Level, REGION or STATE.
+     * @param values, String[], Regions or States to combine, or null for all.
+     * @param yearValues, String[], survey years to combine, or null for all.
+     * @param category, LandUseCategory, such as LandUseCategory.FOREST_USE_LAND.
+     * @return LandUseCubeCell, the combined cell.
+     */
+    public LandUseCubeCell rollUp(Level level, String[] values, String[] yearValues, LandUseCategory category) {
+        return rollUp(level, values, yearValues, category.getColumn());
+    }
+
+    /**
+     * Combines the cells for several values and years, such as the Pacific
+     * and Mountain states over every year before 1987.
+     *
+     * @param level, Level, REGION or STATE.
+     * @param values, String[], Regions or States to combine, or null for all.
+     * @param yearValues, String[], survey years to combine, or null for all.
+     * @param column, int, land use column, such as LandUseDataset.FOREST_USE_LAND.
+     * @return LandUseCubeCell, the combined cell.
+     */
+    public synchronized LandUseCubeCell rollUp(Level level, String[] values, String[] yearValues, int column) {
+        int[] ids = values == null ? allIds(level) : lookUp(level == Level.REGION ? regions : regionsOrStates, values);
+        int[] yearIds = yearValues == null ? allIds(years.size()) : lookUp(years, yearValues);
+        int levelIndex = level.ordinal();
+        long sum = 0;
+        int count = 0;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int id : ids) {
+            for (int yearId : yearIds) {
+                int cell = (id * yearCapacity + yearId) * COLUMNS + column;
+                sum += sums[levelIndex][cell];
+                count += counts[levelIndex][cell];
+                min = Math.min(min, mins[levelIndex][cell]);
+                max = Math.max(max, maxs[levelIndex][cell]);
+            }
+        }
+        return new LandUseCubeCell(sum, count, min, max);
+    }
+
+    /**
+     * Gets the change between two years from the cells, the same as
+     * LandUseDeltaEngine gives for the rows the cells were built from.
+     *
+     * @param level, Level, REGION or STATE.
+     * @param values, String[], Regions or States to compare, or null for all.
+     * Values that aren't in the cube are left out.
+     * @param fromYear, String, earlier survey year.
+     * @param toYear, String, later survey year.
+     * @param columns, int..., land use columns to compare.
+     * @return LandUseDeltaMatrix, the change for each value.
+     */
+    public synchronized LandUseDeltaMatrix getDeltas(Level level, String[] values, String fromYear, String toYear,
+            int... columns) {
+        int[] ids = values == null ? allIds(level) : lookUp(level == Level.REGION ? regions : regionsOrStates, values);
+        if (level == Level.STATE) {
+            int stateCount = 0;
+            for (int id : ids) {
+                if (states[id]) {
+                    ids[stateCount++] = id;
+                }
+            }
+            ids = Arrays.copyOf(ids, stateCount);
+        }
+        int fromYearId = years.idOf(fromYear);
+        int toYearId = years.idOf(toYear);
+        int levelIndex = level.ordinal();
+
+        String[] entities = new String[ids.length];
+        int cells = ids.length * columns.length;
+        long[] fromValues = new long[cells];
+        long[] toValues = new long[cells];
+        byte[] hasDeltas = new byte[cells];
+        for (int entity = 0; entity < ids.length; entity++) {
+            entities[entity] = (level == Level.REGION ? regions : regionsOrStates).valueOf(ids[entity]);
+            for (int position = 0; position < columns.length; position++) {
+                int cell = entity * columns.length + position;
+                int fromCell = (ids[entity] * yearCapacity + fromYearId) * COLUMNS + columns[position];
+                int toCell = (ids[entity] * yearCapacity + toYearId) * COLUMNS + columns[position];
+                boolean hasFrom = fromYearId != LandUseDictionary.NOT_FOUND && counts[levelIndex][fromCell] > 0;
+                boolean hasTo = toYearId != LandUseDictionary.NOT_FOUND && counts[levelIndex][toCell] > 0;
+                fromValues[cell] = hasFrom ? sums[levelIndex][fromCell] : 0;
+                toValues[cell] = hasTo ? sums[levelIndex][toCell] : 0;
+                hasDeltas[cell] = (byte) (hasFrom && hasTo ? 1 : 0);
+            }
+        }
+        return new LandUseDeltaMatrix(fromYear, toYear, entities, columns.clone(), fromValues, toValues, hasDeltas);
+    }
+
+    // Adds one value to a cell. Empty cells have min Integer.MAX_VALUE and
+    // max Integer.MIN_VALUE, so the first value sets both.
+    private void add(int level, int cell, int value) {
+        sums[level][cell] += value;
+        counts[level][cell]++;
+        mins[level][cell] = Math.min(mins[level][cell], value);
+        maxs[level][cell] = Math.max(maxs[level][cell], value);
+    }
+
+    // Gets the ids of every value of a level. STATE only has the states.
+    private int[] allIds(Level level) {
+        if (level == Level.REGION) {
+            return allIds(regions.size());
+        }
+        int[] ids = new int[states.length];
+        int count = 0;
+        for (int id = 0; id < states.length; id++) {
+            if (states[id]) {
+                ids[count++] = id;
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    // Gets the ids 0 to size - 1.
+    private static int[] allIds(int size) {
+        int[] ids = new int[size];
+        for (int id = 0; id < size; id++) {
+            ids[id] = id;
+        }
+        return ids;
+    }
+
+    // Looks up the ids of values, dropping values that aren't in the
+    // dictionary and repeats.
+    private static int[] lookUp(LandUseDictionary dictionary, String[] values) {
+        boolean[] marked = new boolean[dictionary.size()];
+        int[] ids = new int[values.length];
+        int count = 0;
+        for (String value : values) {
+            int id = dictionary.idOf(value);
+            if (id != LandUseDictionary.NOT_FOUND && !marked[id]) {
+                marked[id] = true;
+                ids[count++] = id;
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    // Adds values that are new in the dataset's dictionary to the cube's
+    // copy, which gives them the same ids.
+    private static void copyNewValues(LandUseDictionary from, LandUseDictionary to) {
+        for (int id = to.size(); id < from.size(); id++) {
+            to.add(from.valueOf(id));
+        }
+    }
+
+    // Grows the cells, if needed, to hold the given numbers of regions,
+    // regions or states, and years, moving each cell to its new index.
+    private void ensureCapacity(int regionCount, int regionOrStateCount, int yearCount) {
+        int[] needed = {regionCount, regionOrStateCount};
+        int newYearCapacity = grownCapacity(yearCapacity, yearCount);
+        for (Level level : Level.values()) {
+            int index = level.ordinal();
+            int newIdCapacity = grownCapacity(idCapacities[index], needed[index]);
+            if (newIdCapacity == idCapacities[index] && newYearCapacity == yearCapacity) {
+                continue;
+            }
+            int length = newIdCapacity * newYearCapacity * COLUMNS;
+            long[] newSums = new long[length];
+            int[] newCounts = new int[length];
+            int[] newMins = new int[length];
+            int[] newMaxs = new int[length];
+            Arrays.fill(newMins, Integer.MAX_VALUE);
+            Arrays.fill(newMaxs, Integer.MIN_VALUE);
+            for (int id = 0; id < idCapacities[index]; id++) {
+                for (int yearId = 0; yearId < yearCapacity; yearId++) {
+                    int from = (id * yearCapacity + yearId) * COLUMNS;
+                    int to = (id * newYearCapacity + yearId) * COLUMNS;
+                    System.arraycopy(sums[index], from, newSums, to, COLUMNS);
+                    System.arraycopy(counts[index], from, newCounts, to, COLUMNS);
+                    System.arraycopy(mins[index], from, newMins, to, COLUMNS);
+                    System.arraycopy(maxs[index], from, newMaxs, to, COLUMNS);
+                }
+            }
+            sums[index] = newSums;
+            counts[index] = newCounts;
+            mins[index] = newMins;
+            maxs[index] = newMaxs;
+            idCapacities[index] = newIdCapacity;
+        }
+        yearCapacity = newYearCapacity;
+    }
+
+    // Doubles a capacity until it holds size values.
+    private static int grownCapacity(int capacity, int size) {
+        capacity = Math.max(capacity, 1);
+        while (capacity < size) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+}
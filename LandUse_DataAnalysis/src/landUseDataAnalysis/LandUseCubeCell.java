@@ -0,0 +1,79 @@
+package landUseDataAnalysis;
+
+/**
+ * One cell of a LandUseCube, or several cells rolled up together: the sum,
+ * count, smallest and largest value of a land use column, leaving out
+ * "N.A." values.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public class LandUseCubeCell {
+
+    private final long sum;
+    private final int count;
+    private final int min;
+    private final int max;
+
+    /**
+     * Creates a cell.
+     *
+     * @param sum, long, sum of the values.
+     * @param count, int, number of values.
+     * @param min, int, smallest value, or Integer.MAX_VALUE if there are none.
+     * @param max, int, largest value, or Integer.MIN_VALUE if there are none.
+     */
+    public LandUseCubeCell(long sum, int count, int min, int max) {
+        this.sum = sum;
+        this.count = count;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * Gets the sum of the values.
+     * @return long
+     */
+    public long getSum() {
+        return sum;
+    }
+
+    /**
+     * Gets the number of values.
+     * @return int, 0 if the cell is empty.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the smallest value.
+     * @return int, smallest value, or Integer.MAX_VALUE if the cell is empty.
+     */
+    public int getMin() {
+        return min;
+    }
+
+    /**
+     * Gets the largest value.
+     * @return int, largest value, or Integer.MIN_VALUE if the cell is empty.
+     */
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * Gets the average of the values.
+     * @return double, average, or 0 if the cell is empty, as for
+     * Collectors.averagingInt().
+     */
+    public double getAverage() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    @Override
+    public String toString() {
+        return "LandUseCubeCell [sum=" + sum + ", count=" + count + ", min=" + min + ", max=" + max + "]";
+    }
+}
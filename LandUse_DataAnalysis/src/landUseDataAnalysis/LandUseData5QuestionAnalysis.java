@@ -2,13 +2,13 @@ package landUseDataAnalysis;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Analyzes LandUseData from csv file after that data has been processed
@@ -32,11 +32,42 @@ import java.util.stream.Collectors;
  * used to reach that conclusion.
  * 
  * 
+ * Each question can be answered from a List of LandUseDataLineItem objects,
+ * from a Stream of them (such as LandUseDataProcessing.streamData(), which 
+ * reads the csv file as the Stream is used, so memory does not grow with 
+ * the size of the file), or from a column based LandUseDataset.
+ * 
  * @author M Lafranchise
  * @email pulchrit@gmail.com
  *
  */
 public class LandUseData5QuestionAnalysis {
+    
+    // Modern day state equivalents of the original 13 colonies that remain 
+    // in the processed data (see findMaxForestUseland13Colonies2012()).
+    private static final String[] THIRTEEN_COLONY_STATES = {
+            "Delaware", "Georgia", "Connecticut", "Massachusetts", "South Carolina",
+            "New Hampshire", "Virginia", "West Virginia", "North Carolina", "Rhode Island"};
+    private static final Set<String> THIRTEEN_COLONY_STATE_SET = 
+            new HashSet<>(Arrays.asList(THIRTEEN_COLONY_STATES));
+    
+    // Land use categories compared in question 5, reported by display name.
+    // Subtotal columns (Total Land, Total Cropland, Forest Use Land and All 
+    // Special Uses of Land) are left out, as they are in the List version.
+    private static final LandUseCategory[] DELTA_CATEGORIES = {
+            LandUseCategory.CROPLAND_USED_FOR_CROPS, 
+            LandUseCategory.CROPLAND_USED_FOR_PASTURE,
+            LandUseCategory.CROPLAND_IDLED, 
+            LandUseCategory.GRASSLAND_PASTURE_AND_RANGE,
+            LandUseCategory.FOREST_USE_LAND_GRAZED, 
+            LandUseCategory.FOREST_USE_LAND_NOT_GRAZED,
+            LandUseCategory.LAND_IN_RURAL_TRANSPORTATION_FACILITIES,
+            LandUseCategory.LAND_IN_RURAL_PARKS_AND_WILDLIFE_AREAS,
+            LandUseCategory.LAND_IN_DEFENSE_AND_INDUSTRIAL_AREAS,
+            LandUseCategory.FARMSTEADS_ROADS_AND_MISCELLANEOUS_FARMLAND,
+            LandUseCategory.LAND_IN_URBAN_AREAS, 
+            LandUseCategory.OTHER_LAND};
+    private static final int[] DELTA_COLUMNS = LandUseCategory.columns(DELTA_CATEGORIES);
         
     /** 
      * Answer question 1.
@@ -46,12 +77,26 @@ public class LandUseData5QuestionAnalysis {
      * @return String, region with most Grassland pasture and range in 1974. 
      */
     public static String findRegionMaxGrasslandPasture1974(List<LandUseDataLineItem> processedData) {
+        return findRegionMaxGrasslandPasture1974(processedData.stream());
+    }
+    
+    /** 
+     * Answer question 1 from a Stream, in a single pass.
+     * Which region had the most "Grassland pasture and range" in 1974?
+     * 
+     * @param Stream, processed LandUseDataLineItem objects, such as from
+     * LandUseDataProcessing.streamData(). The stream is used up but not closed.
+     * @return String, region with most Grassland pasture and range in 1974. 
+     */
+    public static String findRegionMaxGrasslandPasture1974(Stream<LandUseDataLineItem> landUseData) {
         
-        /* Make a Stream of processedData.
+        /* Use the Stream of processed data.
          * Filter for regions that contain the word "total" (this should 
          * ensure that we are only looking at regional, not state totals) 
          * and the year 1974.
+         * Skip rows where Grassland Pasture and Range was "N.A."
          * Find max using Comparator of Grassland Pasture and Range field.
+         * The comparator reads the primitive int, so nothing is boxed.
          * Attribution: https://docs.oracle.com/javase/8/docs/api/?java/util/stream/Stream.html
          * Attribution: http://www.technicalkeeda.com/java-8-tutorials/java-8-stream-min-and-max
          * Attribution: https://docs.oracle.com/javase/8/docs/api/java/util/Comparator.html#comparing-java.util.function.Function-
@@ -59,10 +104,11 @@ public class LandUseData5QuestionAnalysis {
          * acres.
          */
         LandUseDataLineItem regionMaxGrasslandObject = 
-                processedData.stream()
-                .filter(dataInstance -> dataInstance.getYear().equals("1974")
-                        && dataInstance.getRegion().contains("total"))
-                .max(Comparator.comparing(dataInstance -> dataInstance.getGrasslandPastureAndRange()))
+                landUseData
+                .filter(dataInstance -> dataInstance.getYearNumber() == 1974
+                        && dataInstance.isRegionTotal()
+                        && !dataInstance.isMissing(LandUseCategory.GRASSLAND_PASTURE_AND_RANGE))
+                .max(LandUseDataLineItem.BY_GRASSLAND_PASTURE_AND_RANGE)
                 .get();
         
         // Get and return the region from the LandUseDataLineItem object instance 
@@ -82,8 +128,23 @@ public class LandUseData5QuestionAnalysis {
      * 
      */
     public static int findRegionsUrbanLand2000Prior1987(List<LandUseDataLineItem> processedData) {
+        return findRegionsUrbanLand2000Prior1987(processedData.stream());
+    }
+    
+    /** 
+     * Answer question 2 from a Stream, in a single pass.
+     * How many states had at least 2,000 in the “Land in Urban areas” column for 
+     * any year prior to 1987?
+     * 
+     * @param  Stream, processed LandUseDataLineItem objects, such as from
+     * LandUseDataProcessing.streamData(). The stream is used up but not closed.
+     * @return int, number of states with more than 2000 in Land in Urban areas
+     * prior to 1987.
+     * 
+     */
+    public static int findRegionsUrbanLand2000Prior1987(Stream<LandUseDataLineItem> landUseData) {
         
-        /* Make a stream of processed data.
+        /* Use the stream of processed data.
          * Filter for LandUseDataLineItems that have greater than or equal to 
          * 2000 acres in Land in Urban Areas, and do not contain the word "total"
          * in the Region field (this will remove regional totals leaving us with only
@@ -96,10 +157,11 @@ public class LandUseData5QuestionAnalysis {
          * prior to 1987.
          */
         Set<String> regionsUrbanLand2000Prior1987 = 
-                processedData.stream()
+                landUseData
                 .filter(dataInstance -> dataInstance.getLandInUrbanAreas() >= 2000
-                        && !dataInstance.getRegion().contains("total") 
-                        && Integer.parseInt(dataInstance.getYear()) < 1987)
+                        && !dataInstance.isRegionTotal() 
+                        && dataInstance.getYearNumber() != LandUseDataset.NO_YEAR
+                        && dataInstance.getYearNumber() < 1987)
                 .map(dataInstance -> dataInstance.getRegionOrState())
                 .collect(Collectors.toSet());
 
@@ -116,20 +178,36 @@ public class LandUseData5QuestionAnalysis {
      * Pacific and Mountain regions in 1964.
      */
     public static double findAverageCroplandForPasturePacificMountain1964(List<LandUseDataLineItem> processedData) {
+        return findAverageCroplandForPasturePacificMountain1964(processedData.stream());
+    }
+    
+    /**
+     * Answer question 3 from a Stream, in a single pass.
+     * What is the average value of the “Cropland used for pasture” column 
+     * among all states within the Pacific and Mountain regions for 1964?
+     * 
+     * @param  Stream, processed LandUseDataLineItem objects, such as from
+     * LandUseDataProcessing.streamData(). The stream is used up but not closed.
+     * @return int, average acres of Cropland used for pasture in the 
+     * Pacific and Mountain regions in 1964.
+     */
+    public static double findAverageCroplandForPasturePacificMountain1964(Stream<LandUseDataLineItem> landUseData) {
         
-        /* Make a stream of processed data.
+        /* Use the stream of processed data.
          * Filter for LandUseDataLineItem instances where the year is 1964, 
          * and the region is "Pacific" or "Mountain".
+         * Leave out "N.A." values so they don't pull the average towards 0.
          * Use special collector averagingInt to find the average Cropland
          * Used for Pasture of these filtered LandUseDataLineItem instances.
          * Attribution: https://www.oracle.com/technetwork/articles/java/architect-streams-pt2-2227132.html 
          * Return that average.
          */
         double averageCroplandPasturePacificMountian1964 =
-                processedData.stream()
+                landUseData
                 .filter(dataInstance -> dataInstance.getRegion().equals("Pacific")
                         || dataInstance.getRegion().equals("Mountain"))
-                .filter(dataInstance -> dataInstance.getYear().equals("1964"))
+                .filter(dataInstance -> dataInstance.getYearNumber() == 1964)
+                .filter(dataInstance -> !dataInstance.isMissing(LandUseCategory.CROPLAND_USED_FOR_PASTURE))
                 .collect(Collectors.averagingInt(dataInstance -> dataInstance.getCroplandUsedForPasture()));
         return averageCroplandPasturePacificMountian1964;
     }
@@ -146,8 +224,24 @@ public class LandUseData5QuestionAnalysis {
      * Forest Use Land for its region.
      */
     public static String findMaxForestUseland13Colonies2012(List<LandUseDataLineItem> processedData) {
+        return findMaxForestUseland13Colonies2012(processedData.stream());
+    }
+    
+    /**
+     * Answer question 4 from a Stream, in a single pass.
+     * Consider the original 13 colonies of England which became what is now the 
+     * United States. Of the states that have land within the territory of those 
+     * 13 colonies, which state made the largest contribution to its region's total 
+     * “Forest-use land” in 2012?
+     * 
+     * @param  Stream, processed LandUseDataLineItem objects, such as from
+     * LandUseDataProcessing.streamData(). The stream is used up but not closed.
+     * @return String, name of state in territory of original 13 colonies with most 
+     * Forest Use Land for its region.
+     */
+    public static String findMaxForestUseland13Colonies2012(Stream<LandUseDataLineItem> landUseData) {
         
-        /* Make a stream of processed data.
+        /* Use the stream of processed data.
          * Filter for the year 2012.
          * Filter for the original 13 colonies with the following caveats: 
          *      - Modern day state equivalents are used in place of the 13 colonies.
@@ -166,23 +260,15 @@ public class LandUseData5QuestionAnalysis {
          * group by region and then look at individual state totals. We can just
          * look at state totals. The max Forest Use Land of these states will be 
          * the state that contributes the most to its region's total Forest Use Land. 
-         * So, we find the max using the Comparator of ForestUseLand and save 
-         * the LandUseDatLineItem instance to the variable.
+         * So, we find the max using the Comparator of ForestUseLand (skipping 
+         * "N.A." values) and save the LandUseDatLineItem instance to the variable.
          */
         LandUseDataLineItem stateMaxForestUseLand13Colonies2012 = 
-                processedData.stream()
-                .filter(dataInstance -> dataInstance.getYear().equals("2012"))
-                .filter(dataInstance -> dataInstance.getRegionOrState().equals("Delaware")
-                        || dataInstance.getRegionOrState().equals("Georgia")
-                        || dataInstance.getRegionOrState().equals("Connecticut")
-                        || dataInstance.getRegionOrState().equals("Massachusetts")
-                        || dataInstance.getRegionOrState().equals("South Carolina")
-                        || dataInstance.getRegionOrState().equals("New Hampshire")
-                        || dataInstance.getRegionOrState().equals("Virginia")
-                        || dataInstance.getRegionOrState().equals("West Virginia")
-                        || dataInstance.getRegionOrState().equals("North Carolina")
-                        || dataInstance.getRegionOrState().equals("Rhode Island"))
-                .max(Comparator.comparing(dataInstance -> dataInstance.getForestUseLand()))
+                landUseData
+                .filter(dataInstance -> dataInstance.getYearNumber() == 2012)
+                .filter(dataInstance -> THIRTEEN_COLONY_STATE_SET.contains(dataInstance.getRegionOrState()))
+                .filter(dataInstance -> !dataInstance.isMissing(LandUseCategory.FOREST_USE_LAND))
+                .max(LandUseDataLineItem.BY_FOREST_USE_LAND)
                 .get();
         
         // Get and return the state name of the LandUseDataLineItem.
@@ -196,187 +282,408 @@ public class LandUseData5QuestionAnalysis {
      * Please explain your reasoning, including the data that you used to reach 
      * that conclusion.
      * 
-     * Please note: There is a lot of room for improvement/refactoring in this code. 
-     * It seems like better use of Streams and the creation of intermediary objects 
-     * to stream instead of hashmaps of hashmaps would be a better solution. 
-     * 
      * @param  List, processed LandUseDataLineItem objects.
      * @return RegionMaxLandUseDelta object, object instance representing the 
      * region with largest shift in land use between 1945 and 2012.
      */
     public static RegionMaxLandUseDelta findRegionMaxShiftLandUse1945To2012(List<LandUseDataLineItem> processedData) {
+        return findRegionMaxShiftLandUse1945To2012(processedData.stream());
+    }
+    
+    /**
+     * Answer question 5 from a Stream, in a single pass. Only the region 
+     * totals for 1945 and 2012 are kept from the Stream.
+     * Which region has had the largest shift in its land use between 1945 and 2012? 
+     * Please explain your reasoning, including the data that you used to reach 
+     * that conclusion.
+     * 
+     * @param  Stream, processed LandUseDataLineItem objects, such as from
+     * LandUseDataProcessing.streamData(). The stream is used up but not closed.
+     * @return RegionMaxLandUseDelta object, object instance representing the 
+     * region with largest shift in land use between 1945 and 2012.
+     */
+    public static RegionMaxLandUseDelta findRegionMaxShiftLandUse1945To2012(Stream<LandUseDataLineItem> landUseData) {
         
-        /* Make a stream of processed data.
+        /* Use the stream of processed data.
          * Filter for Regions that DO contain the word "total" as this
          * will exclude individual state line item which we don't need 
          * to answer this question.
          * Filter for the years 1945 and 2012.
-         * Collect output to map with String/Region for keys and a list of
-         * LandUseDataLineItem instances for values, 
-         * (i.e.,  {Region = [instance, instance, etc.]}).
+         * The few rows left are stored by column, so the deltas are worked 
+         * out by LandUseDeltaEngine, the same as for a LandUseDataset.
          */
-        Map<String, List<LandUseDataLineItem>> regionTotal19452012 = 
-                processedData.stream()
-                .filter(dataInstance -> dataInstance.getRegion().contains("total"))
-                .filter(dataInstance -> dataInstance.getYear().equals("1945")
-                        || dataInstance.getYear().equals("2012"))
-                .collect(Collectors.groupingBy(dataInstance -> dataInstance.getRegion()));
-        
-        // Creating a hashmap with an inner hashmap. Inner hashmap will hold the delta 
-        // between the 2012 and 1945 land values. External hashmap will link these values
-        // to their appropriate region. 
-        // IMPORTANT: The inner HashMap is initialized within the forEach loop below, so that
-        // it's values are reset with each iteration of the loop. This ensures that the 
-        // deltas calculated for each region are saved correctly in the external hashmap. If 
-        // you don't initialize within the loop, each subsequent iteration will replace the 
-        // previous, and you'll have duplicate data. 
-        // Attribution: https://coderanch.com/t/570043/java/Populating-HashMaps-HashMap-Objects
-        HashMap<String, HashMap<String, Integer>> regionDeltas = new HashMap<String, HashMap<String, Integer>>();
-        
-        
-        // Iterate over each region of the hashmap.
-        regionTotal19452012.forEach((k, v) -> {
-           
-            // Initialize inner hashmap to hold landUseDeltas for each region. Initializing
-            // here so that the hashmap is reset for each iteration of the forEach loop.
-            HashMap<String, Integer> landUseDeltas = new HashMap<String, Integer>();
-                           
-            // Now, we want to find the delta between the 2012 and 1945 field values. 
-            // There are only two elements for each hashmap value (one for 1945 
-            // and one for 2012). So, I call each of these elements using their
-            // appropriate index (0 for 1945, 1 for 2012).
-            // I am subtracting 1945 values from 2012 values (i.e., 2012-1945) so that 
-            // a decrease is signed negative (-) and an increase is signed positive (+).
-            // Then, I am adding that delta to the inner hashmap with a key of the field
-            // name or type of land use. (i.e., "Cropland Used for Crops" : -150).
-            // I manually enter all land use types/field names below. 
-            // !!This is arduous and not re-usable code. I'm sure there is a cleaner
-            // way to manage it using Streams, but I was not finding the correct way to 
-            // write the Collector code!!
-            
-            Integer deltaCroplandForCrops = 
-                    v.get(1).getCroplandUsedForCrops() - v.get(0).getCroplandUsedForCrops();
-            landUseDeltas.put("Cropland Used For Crops", deltaCroplandForCrops);
-            
-            Integer deltaCroplandForPasture = 
-                    v.get(1).getCroplandUsedForPasture() - v.get(0).getCroplandUsedForPasture();
-            landUseDeltas.put("Cropland Used For Pasture", deltaCroplandForPasture);
-            
-            Integer deltaCroplandIdled = 
-                    v.get(1).getCroplandIdled() - v.get(0).getCroplandIdled();
-            landUseDeltas.put("Cropland Idled", deltaCroplandIdled);
-            
-            Integer deltaGrasslandPastureAndRange = 
-                    v.get(1).getGrasslandPastureAndRange() - v.get(0).getGrasslandPastureAndRange();
-            landUseDeltas.put("Grassland Pasture And Range", deltaGrasslandPastureAndRange);
-            
-            Integer deltaForestUseLandGrazed =
-                    v.get(1).getForestUseLandGrazed() - v.get(0).getForestUseLandGrazed();
-            landUseDeltas.put("Forest Use Land Grazed", deltaForestUseLandGrazed);
-            
-            Integer deltaForestUseLandNotGrazed =
-                    v.get(1).getForestUseLandNotGrazed() - v.get(0).getForestUseLandNotGrazed();
-            landUseDeltas.put("Forest Use Land Not Grazed", deltaForestUseLandNotGrazed);
-            
-            Integer deltaLandInRuralTransportationFacilities =
-                    v.get(1).getLandInRuralTransportationFacilities() - v.get(0).getLandInRuralTransportationFacilities();
-            landUseDeltas.put("Land In Rural Transportation Facilities", deltaLandInRuralTransportationFacilities);
-            
-            Integer deltaLandInRuralParksAndWildlifeAreas =
-                    v.get(1).getLandInRuralParksAndWildlifeAreas() - v.get(0).getLandInRuralParksAndWildlifeAreas();
-            landUseDeltas.put("Land In Rural Parks And Wildlife Areas", deltaLandInRuralParksAndWildlifeAreas);
-            
-            Integer deltaLandInDefenseAndIndustrialAreas =
-                    v.get(1).getLandInDefenseAndIndustrialAreas() - v.get(0).getLandInDefenseAndIndustrialAreas();
-            landUseDeltas.put("Land In Defense And Industrial Areas", deltaLandInDefenseAndIndustrialAreas);
-            
-            Integer deltaFarmsteadsRoadsAndMiscellaneousFarmland =
-                    v.get(1).getFarmsteadsRoadsAndMiscellaneousFarmland() - v.get(0).getFarmsteadsRoadsAndMiscellaneousFarmland();
-            landUseDeltas.put("Farmsteads Roads And Miscellaneous Farmland", deltaFarmsteadsRoadsAndMiscellaneousFarmland);
-            
-            Integer deltaLandInUrbanAreas =
-                    v.get(1).getLandInUrbanAreas() - v.get(0).getLandInUrbanAreas();
-            landUseDeltas.put("Land In Urban Areas", deltaLandInUrbanAreas);
-            
-            Integer deltaOtherLand =
-                    v.get(1).getOtherLand() - v.get(0).getOtherLand();
-            landUseDeltas.put("Other Land", deltaOtherLand);
-                      
-            // Each region's landUseDeltas hashmaps are then added to the regionDeltas
-            // hashmap.
-            regionDeltas.put(k, landUseDeltas);
-        });
+        List<LandUseDataLineItem> regionTotal19452012 = 
+                landUseData
+                .filter(dataInstance -> dataInstance.isRegionTotal())
+                .filter(dataInstance -> dataInstance.getYearNumber() == 1945
+                        || dataInstance.getYearNumber() == 2012)
+                .collect(Collectors.toList());
         
-        
-        
-        // Now, I need to find the max delta for each region, and then find the
-        // region that has the maximum delta in land use.
-        // Initialize hashmap to hold max land use changes by region (i.e., 
-        // {Pacific = {Forest Use Land Not Grazed = -28720}})
-        HashMap<String, HashMap<String, Integer>> maxByRegion = new HashMap<String, HashMap<String, Integer>>();
-
-        // Iterate over each key,value pair in the regionDeltas hashmap.
-        regionDeltas.forEach((k,v) -> {
-            
-            // Initialize inner hashmap to hold the maximum land use change for 
-            // this region, (i.e., {Cropland Used for Crops = 4082}).
-            HashMap<String, Integer> allMaxLandUseDeltas = new HashMap<String, Integer>();
-            
-            // Stream the entrySet from the value in regionDeltas. The value in regionDeltas
-            // is the sub-hashmap that contains the individual land use types and values (i.e., 
-            // {Other Land = -566}).
-            // Then find the max value by comparing the absolute of that value. We need to 
-            // compare absolute values because we are looking for the largest change and that 
-            // can be either an increase (+) or a decrease (-).
-            // Then get the entry that contains the maximum value and add the key and that value 
-            // to the allMaxLandUseDeltas hashmap.
-            // Finally, add the region name/key and the allMaxLandUseDeltas sub-hashmap to the 
-            // external hashmap. This external hashmap shows the maximum land use change type and 
-            // value for each region (i.e., {Pacific Northwest = {Forest Use Land Not Grazed = 12,419}}).
-            
-            Entry<String, Integer> maxLandUseDelta = 
-                    v.entrySet().stream()
-                    .max(Map.Entry.comparingByValue(Comparator.comparing(e1 -> Math.abs(e1))))
-                    .get();
-
-            allMaxLandUseDeltas.put(maxLandUseDelta.getKey(), maxLandUseDelta.getValue());
-
-            maxByRegion.put(k, allMaxLandUseDeltas);
-        });
-        
-        // Create a list to hold instances of the RegionMaxLandUseDelta objects.
-        // From the maxbyRegion hashmap, I am creating object instances that 
-        // contain the maximum land use delta and the land type for this maximum 
-        // delta for each region. Creating these objects allows me to easily find 
-        // the region with the maximum shift in land use between 1945 and 2012.
-        List<RegionMaxLandUseDelta> RegionMaxLandUseDeltaObjects = new ArrayList<>();
-        
-        // Iterate over the maxByRegion hashmap.
-        maxByRegion.forEach((k,v) -> {
-            
-            // Then, iterate over the sub-hashmap that contains the land type and the 
-            // land use delta.
-            v.forEach((key, value) -> {
-                
-                // Create new instances of RegionMaxLandUseDelta and add these to the 
-                // list.
-                RegionMaxLandUseDelta RegionMaxLandUseDeltaInstance = 
-                        new RegionMaxLandUseDelta(value, key, k);
-                RegionMaxLandUseDeltaObjects.add(RegionMaxLandUseDeltaInstance);
-            });
-        });
-        
-        // Now, we can stream the list of RegionMaxLandUseDelta objects, and 
-        // find the maximum land use delta by using a Comparator that looks at 
-        // the MaxLandValue() field.
-        // Then, get the object instance with the maximum shift and return it.
-        RegionMaxLandUseDelta regionMaxLandUseDelta19452012 = 
-                RegionMaxLandUseDeltaObjects.stream()
-                .max(Comparator.comparing(dataInstance -> dataInstance.getMaxLandValue()))
-                .get();
-       
-        return regionMaxLandUseDelta19452012;
-         
+        return findRegionMaxShiftLandUse1945To2012(LandUseDataset.fromLineItems(regionTotal19452012));
+    }
+    
+    /** 
+     * Answer question 1 from column based data.
+     * Which region had the most "Grassland pasture and range" in 1974?
+     * 
+     * @param dataset, LandUseDataset of processed data.
+     * @return String, region with most Grassland pasture and range in 1974. 
+     */
+    public static String findRegionMaxGrasslandPasture1974(LandUseDataset dataset) {
+        return regionMaxGrasslandPasture1974(dataset, 
+                LandUseQueryEngine.execute(dataset, regionMaxGrasslandPasture1974Query()));
+    }
+    
+    // Finds the region total row for 1974 with the most grassland.
+    private static LandUseQuery regionMaxGrasslandPasture1974Query() {
+        return new LandUseQuery(
+                LandUseFilter.and(LandUseFilter.year("1974"), LandUseFilter.regionTotals()),
+                LandUseAggregate.argmax(LandUseCategory.GRASSLAND_PASTURE_AND_RANGE));
+    }
+    
+    // Reads the answer to question 1 from its query result.
+    private static String regionMaxGrasslandPasture1974(LandUseDataset dataset, LandUseQueryResult result) {
+        int maxRow = result.getRow(0, 0);
+        if (maxRow == -1) {
+            throw new NoSuchElementException("No region totals for 1974");
+        }
+        return dataset.getRegion(maxRow);
+    }
+    
+    /** 
+     * Ranks the regions by "Grassland pasture and range" in 1974, giving the 
+     * top k instead of the one answer to question 1.
+     * 
+     * @param dataset, LandUseDataset of processed data.
+     * @param k, int, number of regions to rank, at least 1.
+     * @return List<String>, up to k regions, most Grassland pasture and range 
+     * first, and regions with the same value in csv order. Empty if there are 
+     * no region totals for 1974.
+     */
+    public static List<String> findTopRegionsGrasslandPasture1974(LandUseDataset dataset, int k) {
+        LandUseQueryResult result = LandUseQueryEngine.execute(dataset, new LandUseQuery(
+                LandUseFilter.and(LandUseFilter.year("1974"), LandUseFilter.regionTotals()),
+                LandUseAggregate.top(LandUseCategory.GRASSLAND_PASTURE_AND_RANGE, k)));
+        List<String> regions = new ArrayList<>();
+        if (result.getGroupCount() > 0) {
+            for (int row : result.getRows(0, 0)) {
+                regions.add(dataset.getRegion(row));
+            }
+        }
+        return regions;
+    }
+    
+    /** 
+     * Answer question 2 from column based data.
+     * How many states had at least 2,000 in the “Land in Urban areas” column for 
+     * any year prior to 1987?
+     * 
+     * @param dataset, LandUseDataset of processed data.
+     * @return int, number of states with more than 2000 in Land in Urban areas
+     * prior to 1987.
+     */
+    public static int findRegionsUrbanLand2000Prior1987(LandUseDataset dataset) {
+        return LandUseQueryEngine.execute(dataset, regionsUrbanLand2000Prior1987Query()).getCount(0, 0);
+    }
+    
+    // Counts the distinct states among the state rows that qualify.
+    private static LandUseQuery regionsUrbanLand2000Prior1987Query() {
+        return new LandUseQuery(
+                LandUseFilter.and(LandUseFilter.states(), LandUseFilter.yearBefore(1987),
+                        LandUseFilter.atLeast(LandUseCategory.LAND_IN_URBAN_AREAS, 2000)),
+                LandUseAggregate.countDistinct(LandUseDimension.REGION_OR_STATE));
+    }
+    
+    /**
+     * Answer question 3 from column based data.
+     * What is the average value of the “Cropland used for pasture” column 
+     * among all states within the Pacific and Mountain regions for 1964?
+     * 
+     * @param dataset, LandUseDataset of processed data.
+     * @return double, average acres of Cropland used for pasture in the 
+     * Pacific and Mountain regions in 1964.
+     */
+    public static double findAverageCroplandForPasturePacificMountain1964(LandUseDataset dataset) {
+        return LandUseQueryEngine.execute(dataset, averageCroplandForPasturePacificMountain1964Query())
+                .getValue(0, 0);
+    }
+    
+    // Averages pasture over the Pacific and Mountain states for 1964. The average
+    // of no values is 0, as it is for Collectors.averagingInt().
+    private static LandUseQuery averageCroplandForPasturePacificMountain1964Query() {
+        return new LandUseQuery(
+                LandUseFilter.and(LandUseFilter.year("1964"), LandUseFilter.region("Pacific", "Mountain")),
+                LandUseAggregate.avg(LandUseCategory.CROPLAND_USED_FOR_PASTURE));
+    }
+    
+    /**
+     * Answer question 4 from column based data.
+     * Of the states that have land within the territory of the original 13 
+     * colonies, which state made the largest contribution to its region's total 
+     * “Forest-use land” in 2012?
+     * 
+     * @param dataset, LandUseDataset of processed data.
+     * @return String, name of state in territory of original 13 colonies with most 
+     * Forest Use Land for its region.
+     */
+    public static String findMaxForestUseland13Colonies2012(LandUseDataset dataset) {
+        return maxForestUseland13Colonies2012(dataset, 
+                LandUseQueryEngine.execute(dataset, maxForestUseland13Colonies2012Query()));
+    }
+    
+    // Finds the 13 colony state row for 2012 with the most forest.
+    private static LandUseQuery maxForestUseland13Colonies2012Query() {
+        return new LandUseQuery(
+                LandUseFilter.and(LandUseFilter.year("2012"), LandUseFilter.regionOrState(THIRTEEN_COLONY_STATES)),
+                LandUseAggregate.argmax(LandUseCategory.FOREST_USE_LAND));
+    }
+    
+    // Reads the answer to question 4 from its query result.
+    private static String maxForestUseland13Colonies2012(LandUseDataset dataset, LandUseQueryResult result) {
+        int maxRow = result.getRow(0, 0);
+        if (maxRow == -1) {
+            throw new NoSuchElementException("No 13 colony states for 2012");
+        }
+        return dataset.getRegionOrState(maxRow);
+    }
+    
+    /** 
+     * Ranks the states in the territory of the original 13 colonies by 
+     * "Forest-use land" in 2012, giving the top k instead of the one answer 
+     * to question 4.
+     * 
+     * @param dataset, LandUseDataset of processed data.
+     * @param k, int, number of states to rank, at least 1.
+     * @return List<String>, up to k states, most Forest-use land first, and 
+     * states with the same value in csv order. Empty if there are no 13 
+     * colony states for 2012.
+     */
+    public static List<String> findTopForestUseland13Colonies2012(LandUseDataset dataset, int k) {
+        LandUseQueryResult result = LandUseQueryEngine.execute(dataset, new LandUseQuery(
+                LandUseFilter.and(LandUseFilter.year("2012"), LandUseFilter.regionOrState(THIRTEEN_COLONY_STATES)),
+                LandUseAggregate.top(LandUseCategory.FOREST_USE_LAND, k)));
+        List<String> states = new ArrayList<>();
+        if (result.getGroupCount() > 0) {
+            for (int row : result.getRows(0, 0)) {
+                states.add(dataset.getRegionOrState(row));
+            }
+        }
+        return states;
+    }
+    
+    /**
+     * Answer question 5 from column based data.
+     * Which region has had the largest shift in its land use between 1945 and 2012? 
+     * 
+     * The deltas are worked out the same way as the List version: 2012 minus 1945 
+     * for each land use type, the largest absolute delta is kept for each region, 
+     * and the region with the largest of those kept deltas is returned.
+     * 
+     * @param dataset, LandUseDataset of processed data.
+     * @return RegionMaxLandUseDelta object, object instance representing the 
+     * region with largest shift in land use between 1945 and 2012.
+     */
+    public static RegionMaxLandUseDelta findRegionMaxShiftLandUse1945To2012(LandUseDataset dataset) {
+        return findRegionMaxShiftLandUse(dataset, "1945", "2012");
+    }
+    
+    // Answers question 5 for any pair of survey years, for LandUseQueryServer.
+    static RegionMaxLandUseDelta findRegionMaxShiftLandUse(LandUseDataset dataset, String fromYear, 
+            String toYear) {
+        return regionMaxShift(LandUseDeltaEngine.compute(dataset, LandUseFilter.regionTotals(), 
+                LandUseDimension.REGION, fromYear, toYear, DELTA_COLUMNS));
+    }
+    
+    // Sums each land use type by region over the region total rows for a year. 
+    // Each region has one total row a year, so the sums are that row's values, 
+    // and a count of 0 means the value was "N.A.". Used by answerAll() so 
+    // question 5 is read in the same pass as the other questions.
+    private static LandUseQuery regionTotalsQuery(String year) {
+        LandUseAggregate[] sums = new LandUseAggregate[DELTA_CATEGORIES.length];
+        for (int i = 0; i < DELTA_CATEGORIES.length; i++) {
+            sums[i] = LandUseAggregate.sum(DELTA_CATEGORIES[i]);
+        }
+        return new LandUseQuery(LandUseFilter.and(LandUseFilter.year(year), LandUseFilter.regionTotals()),
+                LandUseDimension.REGION, sums);
+    }
+    
+    // Works out the answer to question 5 from the deltas of the region totals 
+    // between two years. For each region keep the land use type with the 
+    // largest absolute delta, then keep the region whose kept delta is 
+    // largest, the same way as the List version.
+    private static RegionMaxLandUseDelta regionMaxShift(LandUseDeltaMatrix deltas) {
+        String maxRegion = null;
+        int maxPosition = -1;
+        long maxDelta = 0;
+        for (int region = 0; region < deltas.getEntityCount(); region++) {
+            int position = deltas.largestShift(region, LandUseDeltaMatrix.Change.ABSOLUTE);
+            if (position != -1 && (maxRegion == null || deltas.getDelta(region, position) > maxDelta)) {
+                maxRegion = deltas.getEntity(region);
+                maxPosition = position;
+                maxDelta = deltas.getDelta(region, position);
+            }
+        }
+        if (maxRegion == null) {
+            throw new NoSuchElementException(
+                    "No region totals for " + deltas.getFromYear() + " and " + deltas.getToYear());
+        }
+        return new RegionMaxLandUseDelta((int) maxDelta, 
+                LandUseCategory.fromColumn(deltas.getColumn(maxPosition)).getDisplayName(), maxRegion);
+    }
+    
+    /**
+     * Answer all five questions from column based data.
+     * 
+     * The queries behind the five questions are run together by 
+     * LandUseBatchQueryEngine, so the dataset is read once instead of once 
+     * for each question.
+     * 
+     * @param dataset, LandUseDataset of processed data.
+     * @return LandUseFiveAnswers object, the answers to all five questions.
+     */
+    public static LandUseFiveAnswers answerAll(LandUseDataset dataset) {
+        return toFiveAnswers(dataset, LandUseBatchQueryEngine.executeAll(dataset, answerAllQueries()));
+    }
+    
+    /**
+     * Answer all five questions from column based data, reusing the results 
+     * in a LandUseQueryCache when the dataset hasn't changed since they were 
+     * cached. Queries that aren't cached are run together, as in answerAll().
+     * 
+     * @param dataset, LandUseDataset of processed data.
+     * @param cache, LandUseQueryCache holding earlier results.
+     * @return LandUseFiveAnswers object, the answers to all five questions.
+     */
+    public static LandUseFiveAnswers answerAll(LandUseDataset dataset, LandUseQueryCache cache) {
+        return toFiveAnswers(dataset, cache.executeAll(dataset, answerAllQueries()));
+    }
+    
+    /**
+     * Answer all five questions from column based data, with the queries 
+     * split across the threads of a LandUseParallelQueryEngine. The answers, 
+     * ties included, are the same as answerAll().
+     * 
+     * @param dataset, LandUseDataset of processed data.
+     * @param engine, LandUseParallelQueryEngine to run the queries on.
+     * @return LandUseFiveAnswers object, the answers to all five questions.
+     */
+    public static LandUseFiveAnswers answerAll(LandUseDataset dataset, LandUseParallelQueryEngine engine) {
+        return toFiveAnswers(dataset, engine.executeAll(dataset, answerAllQueries()));
+    }
+    
+    // The queries behind the five questions, in the order toFiveAnswers() 
+    // reads their results.
+    private static List<LandUseQuery> answerAllQueries() {
+        return Arrays.asList(
+                regionMaxGrasslandPasture1974Query(),
+                regionsUrbanLand2000Prior1987Query(),
+                averageCroplandForPasturePacificMountain1964Query(),
+                maxForestUseland13Colonies2012Query(),
+                regionTotalsQuery("1945"),
+                regionTotalsQuery("2012"));
+    }
+    
+    // Turns the results of the answerAllQueries() into the five answers.
+    private static LandUseFiveAnswers toFiveAnswers(LandUseDataset dataset, List<LandUseQueryResult> results) {
+        return new LandUseFiveAnswers(
+                regionMaxGrasslandPasture1974(dataset, results.get(0)),
+                results.get(1).getCount(0, 0),
+                results.get(2).getValue(0, 0),
+                maxForestUseland13Colonies2012(dataset, results.get(3)),
+                regionMaxShift(LandUseDeltaEngine.fromSums("1945", "2012", 
+                        results.get(4), results.get(5), DELTA_COLUMNS)));
+    }
+    
+    /**
+     * Answer all five questions from a LandUseCube.
+     * 
+     * Each answer reads a few cells of the cube instead of the rows, so the 
+     * time taken does not grow with the number of rows. The answers are the 
+     * same as answerAll() on the dataset the cube was built from.
+     * 
+     * @param cube, LandUseCube built from processed data.
+     * @return LandUseFiveAnswers object, the answers to all five questions.
+     */
+    public static LandUseFiveAnswers answerAll(LandUseCube cube) {
+        return new LandUseFiveAnswers(
+                regionMaxGrasslandPasture1974(cube),
+                regionsUrbanLand2000Prior1987(cube),
+                cube.rollUp(LandUseCube.Level.REGION, new String[] {"Pacific", "Mountain"}, 
+                        new String[] {"1964"}, LandUseCategory.CROPLAND_USED_FOR_PASTURE).getAverage(),
+                maxForestUseland13Colonies2012(cube),
+                regionMaxShiftLandUse1945To2012(cube));
+    }
+    
+    // Finds the region total cell for 1974 with the most grassland. The first 
+    // region wins a tie, as the first row does in the query.
+    private static String regionMaxGrasslandPasture1974(LandUseCube cube) {
+        String maxRegion = null;
+        int maxGrassland = 0;
+        for (String region : cube.getValues(LandUseCube.Level.REGION)) {
+            LandUseCubeCell cell = cube.getCell(LandUseCube.Level.REGION, region, "1974", 
+                    LandUseCategory.GRASSLAND_PASTURE_AND_RANGE);
+            if (cube.isRegionTotal(region) && cell.getCount() > 0 
+                    && (maxRegion == null || cell.getMax() > maxGrassland)) {
+                maxRegion = region;
+                maxGrassland = cell.getMax();
+            }
+        }
+        if (maxRegion == null) {
+            throw new NoSuchElementException("No region totals for 1974");
+        }
+        return maxRegion;
+    }
+    
+    // Counts the states with a cell before 1987 holding at least 2000 acres 
+    // of urban land. Each (state, year) cell holds one row.
+    private static int regionsUrbanLand2000Prior1987(LandUseCube cube) {
+        List<String> yearsBefore1987 = new ArrayList<>();
+        for (String year : cube.getYears()) {
+            short yearNumber = LandUseDataset.parseYear(year);
+            if (yearNumber != LandUseDataset.NO_YEAR && yearNumber < 1987) {
+                yearsBefore1987.add(year);
+            }
+        }
+        String[] years = yearsBefore1987.toArray(new String[0]);
+        int states = 0;
+        for (String state : cube.getValues(LandUseCube.Level.STATE)) {
+            if (cube.rollUp(LandUseCube.Level.STATE, new String[] {state}, years, 
+                    LandUseCategory.LAND_IN_URBAN_AREAS).getMax() >= 2000) {
+                states++;
+            }
+        }
+        return states;
+    }
+    
+    // Finds the 13 colony state cell for 2012 with the most forest.
+    private static String maxForestUseland13Colonies2012(LandUseCube cube) {
+        String maxState = null;
+        int maxForest = 0;
+        for (String state : cube.getValues(LandUseCube.Level.STATE)) {
+            LandUseCubeCell cell = cube.getCell(LandUseCube.Level.STATE, state, "2012", 
+                    LandUseCategory.FOREST_USE_LAND);
+            if (THIRTEEN_COLONY_STATE_SET.contains(state) && cell.getCount() > 0 
+                    && (maxState == null || cell.getMax() > maxForest)) {
+                maxState = state;
+                maxForest = cell.getMax();
+            }
+        }
+        if (maxState == null) {
+            throw new NoSuchElementException("No 13 colony states for 2012");
+        }
+        return maxState;
+    }
+    
+    // Works out the answer to question 5 from the 1945 and 2012 region total cells.
+    private static RegionMaxLandUseDelta regionMaxShiftLandUse1945To2012(LandUseCube cube) {
+        List<String> regionTotals = new ArrayList<>();
+        for (String region : cube.getValues(LandUseCube.Level.REGION)) {
+            if (cube.isRegionTotal(region)) {
+                regionTotals.add(region);
+            }
+        }
+        return regionMaxShift(cube.getDeltas(LandUseCube.Level.REGION, 
+                regionTotals.toArray(new String[0]), "1945", "2012", DELTA_COLUMNS));
     }
     
     /**
@@ -391,29 +698,42 @@ public class LandUseData5QuestionAnalysis {
         // Get processed data from csv file. 
         // Considered creating a new method in this class to get processed data, 
         // but it seemed redundant to the method that already exists in 
-        // LandUseDataProcessing.java. So, I'm calling the processData() method 
-        // from the LandUseDataProcessing here instead.
-        List<LandUseDataLineItem> processedData = LandUseDataProcessing.processData("/Users/pulchrit/ada/C11_App_DataAnalysis/LandUse_DataAnalysis/src/USDA_MajorLandUse_1945-2012.csv");
+        // LandUseDataProcessing.java. So, I'm calling the processDataset() method 
+        // from the LandUseDataProcessing here instead. The column based dataset 
+        // lets each question read only the columns it needs. The processed data 
+        // is saved to a snapshot file named after the csv file, so later runs 
+        // load it without parsing the csv file again, as long as the csv file 
+        // keeps the same size and modified time.
+        String csvPath = "/Users/pulchrit/ada/C11_App_DataAnalysis/LandUse_DataAnalysis/src/USDA_MajorLandUse_1945-2012.csv";
+        String snapshotPath = LandUseSnapshot.snapshotPath(csvPath, System.getProperty("java.io.tmpdir"));
+        LandUseDataset processedData = LandUseSnapshot.readOrProcess(csvPath, snapshotPath);
         
-        // Call findRegionMaxGrasslandPasture1974() to answer question 1.
-        // Output the result to the console.
-        System.out.println("Question 1: " + findRegionMaxGrasslandPasture1974(processedData) + "\n");
+        // Call answerAll() to answer all five questions in one pass over the data.
+        LandUseFiveAnswers answers = answerAll(processedData);
         
-        // Call findRegionsUrbanLand2000Prior1987() to answer question 2.
-        // Output the result to the console.
-        System.out.println("Question 2: " + findRegionsUrbanLand2000Prior1987(processedData)+ "\n");
+        // Output the result of question 1 to the console.
+        System.out.println("Question 1: " + answers.getRegionMaxGrasslandPasture1974() + "\n");
+        
+        // Output the result of question 2 to the console.
+        System.out.println("Question 2: " + answers.getRegionsUrbanLand2000Prior1987()+ "\n");
     
-        // Call findAverageCroplandForPasturePacificMountain1964() to answer question 3.
-        // Output result to the console.
-        System.out.println("Question 3: " + findAverageCroplandForPasturePacificMountain1964(processedData)+ "\n");
+        // Output the result of question 3 to the console.
+        System.out.println("Question 3: " + answers.getAverageCroplandForPasturePacificMountain1964()+ "\n");
    
-        // Call findMaxForestUseland13Colonies2012 to answer question 4. 
-        // Output result to console.
-        System.out.println("Question 4: " + findMaxForestUseland13Colonies2012(processedData)+ "\n");
+        // Output the result of question 4 to the console.
+        System.out.println("Question 4: " + answers.getMaxForestUseland13Colonies2012()+ "\n");
     
-        // Call findRegionMaxShiftLandUse1945To2012 to answer question 5. 
-        // Output result to console. 
-        System.out.println("Question 5: " + findRegionMaxShiftLandUse1945To2012(processedData) + "\n");
+        // Output the result of question 5 to the console.
+        System.out.println("Question 5: " + answers.getRegionMaxShiftLandUse1945To2012() + "\n");
+        
+        // Output what reading the file and answering the questions took to the 
+        // error stream, so the answers above are all that goes to stdout. This 
+        // is only done when asked for with the landUse.metrics.summary system 
+        // property, or landUse.metrics.timing, which times the stages.
+        if (Boolean.getBoolean("landUse.metrics.summary") 
+                || LandUsePipelineMetrics.getGlobal().isTimingEnabled()) {
+            System.err.print(LandUsePipelineMetrics.getGlobal().getSummary());
+        }
     }
 
 }
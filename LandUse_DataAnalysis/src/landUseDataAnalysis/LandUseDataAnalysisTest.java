@@ -3,11 +3,15 @@ package landUseDataAnalysis;
 import static org.junit.Assert.*;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.junit.BeforeClass;
 import org.junit.Test;
 
 /**
@@ -20,6 +24,20 @@ import org.junit.Test;
  */
 public class LandUseDataAnalysisTest {
 
+    // List of LandUseDataLineItem objects shared by the five question tests, 
+    // so the csv file is processed once instead of once for each test.
+    private static List<LandUseDataLineItem> processedData;
+
+    /**
+     * Processes the csv file once for the question tests.
+     * @throws IOException
+     */
+    @BeforeClass
+    public static void processDataOnce() throws IOException {
+        processedData = LandUseDataProcessing
+                .processData("/Users/pulchrit/ada/C11_App_DataAnalysis/LandUse_DataAnalysis/src/USDA_MajorLandUse_1945-2012.csv");
+    }
+
     /**
      * Tests that assertions are enabled.
      */
@@ -83,29 +101,36 @@ public class LandUseDataAnalysisTest {
      * Rural Park and Wildlife Areas, Land in Defense and Industrial Areas,
      * Farmsteads, Roads, and Miscellaneous Farmland, Land in Urban Areas, Other
      * land
+     * 
+     * The getters return primitive ints, so the converted values are checked
+     * directly, and the "N.A." Cropland Idled value should be flagged as missing.
      */
     @Test
     public void LandUseDataLineItemStringConversionTest() {
         LandUseDataLineItem testConversion = new LandUseDataLineItem("17", "Northeast", 
                 "Maine", "1949", "19866", "1407", "1186", "221", "N.A.", "273", "16685", 
                 "783", "15902", "482", "169", "209", "13", "91", "104", "915");
-        assertEquals(Integer.class, testConversion.getSortOrder().getClass());
-        assertEquals(Integer.class, testConversion.getTotalLand().getClass());
-        assertEquals(Integer.class, testConversion.getTotalCropland().getClass());
-        assertEquals(Integer.class, testConversion.getCroplandUsedForCrops().getClass());
-        assertEquals(Integer.class, testConversion.getCroplandUsedForPasture().getClass());
-        assertEquals(Integer.class, testConversion.getCroplandIdled().getClass());
-        assertEquals(Integer.class, testConversion.getGrasslandPastureAndRange().getClass());
-        assertEquals(Integer.class, testConversion.getForestUseLand().getClass());
-        assertEquals(Integer.class, testConversion.getForestUseLandGrazed().getClass());
-        assertEquals(Integer.class, testConversion.getForestUseLandNotGrazed().getClass());
-        assertEquals(Integer.class, testConversion.getAllSpecialUsesOfLand().getClass());
-        assertEquals(Integer.class, testConversion.getLandInRuralTransportationFacilities().getClass());
-        assertEquals(Integer.class, testConversion.getLandInRuralParksAndWildlifeAreas().getClass());
-        assertEquals(Integer.class, testConversion.getLandInDefenseAndIndustrialAreas().getClass());
-        assertEquals(Integer.class, testConversion.getFarmsteadsRoadsAndMiscellaneousFarmland().getClass());
-        assertEquals(Integer.class, testConversion.getLandInUrbanAreas().getClass());
-        assertEquals(Integer.class, testConversion.getOtherLand().getClass());
+        assertEquals(17, testConversion.getSortOrder());
+        assertEquals(19866, testConversion.getTotalLand());
+        assertEquals(1407, testConversion.getTotalCropland());
+        assertEquals(1186, testConversion.getCroplandUsedForCrops());
+        assertEquals(221, testConversion.getCroplandUsedForPasture());
+        assertEquals(0, testConversion.getCroplandIdled());
+        assertEquals(273, testConversion.getGrasslandPastureAndRange());
+        assertEquals(16685, testConversion.getForestUseLand());
+        assertEquals(783, testConversion.getForestUseLandGrazed());
+        assertEquals(15902, testConversion.getForestUseLandNotGrazed());
+        assertEquals(482, testConversion.getAllSpecialUsesOfLand());
+        assertEquals(169, testConversion.getLandInRuralTransportationFacilities());
+        assertEquals(209, testConversion.getLandInRuralParksAndWildlifeAreas());
+        assertEquals(13, testConversion.getLandInDefenseAndIndustrialAreas());
+        assertEquals(91, testConversion.getFarmsteadsRoadsAndMiscellaneousFarmland());
+        assertEquals(104, testConversion.getLandInUrbanAreas());
+        assertEquals(915, testConversion.getOtherLand());
+        
+        // "N.A." is stored as 0 but flagged as missing. Every other column is present.
+        assertTrue(testConversion.isMissing(LandUseDataset.CROPLAND_IDLED));
+        assertEquals(1 << LandUseDataset.CROPLAND_IDLED, testConversion.getMissingValues());
     }
 
     /**
@@ -258,11 +283,11 @@ public class LandUseDataAnalysisTest {
         
         List<Integer> noInstances = 
                 processedData.stream()
-                            .filter(dataInstance -> dataInstance.getSortOrder().equals(938)
-                                    || dataInstance.getSortOrder().equals(491)
-                                    || dataInstance.getSortOrder().equals(924)
-                                    || dataInstance.getSortOrder().equals(888)
-                                    || dataInstance.getSortOrder().equals(185))
+                            .filter(dataInstance -> dataInstance.getSortOrder() == 938
+                                    || dataInstance.getSortOrder() == 491
+                                    || dataInstance.getSortOrder() == 924
+                                    || dataInstance.getSortOrder() == 888
+                                    || dataInstance.getSortOrder() == 185)
                             .map(dataInstance -> dataInstance.getSortOrder())
                             .collect(Collectors.toList());
         
@@ -270,6 +295,46 @@ public class LandUseDataAnalysisTest {
         
     }
     
+    /**
+     * Tests LandUseCsvTokenizer.java with quoted fields, the three kinds of line
+     * ending (\r, \n and \r\n) and "N.A." values.
+     * 
+     * The header row should be skipped, the quoted Region should lose its quotes
+     * and keep its comma, and the Kentucky and U.S. total lines should be excluded.
+     * @throws IOException
+     */
+    @Test
+    public void LandUseCsvTokenizerTest() throws IOException {
+        
+        String csv = "SortOrder,Region,\"Farmsteads, roads\",a,b,c,d,e,f,g,h,i,j,k,l,m,n,o,p,q\r"
+                + "1,\"Northeast, total\",Northeast,1945,1,2,3,4,N.A.,6,7,8,9,10,11,12,13,14,15,16\n"
+                + "2,Appalachian,Kentucky,1945,1,2,3,4,5,6,7,8,9,10,11,12,13,14,15,16\r\n"
+                + "3,U.S. total,U.S. total,1945,1,2,3,4,5,6,7,8,9,10,11,12,13,14,15,16\r"
+                + "4,Pacific,California,2012,-1,2,3,4,5,6,7,8,9,10,11,12,13,14,15,16";
+        LandUseDictionary regions = new LandUseDictionary();
+        LandUseCsvTokenizer tokenizer = new LandUseCsvTokenizer(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), 
+                regions, new LandUseDictionary(), new LandUseDictionary(), true);
+        
+        assertTrue(tokenizer.nextRow());
+        LandUseDataLineItem first = tokenizer.toLineItem();
+        assertEquals(1, first.getSortOrder());
+        assertEquals("Northeast, total", first.getRegion());
+        assertEquals(0, first.getCroplandIdled());
+        assertTrue(first.isMissing(LandUseDataset.CROPLAND_IDLED));
+        assertEquals(16, first.getOtherLand());
+        
+        assertTrue(tokenizer.nextRow());
+        assertEquals(4, tokenizer.getSortOrder());
+        assertEquals(-1, tokenizer.getLandUse()[LandUseDataset.TOTAL_LAND]);
+        assertEquals(0, tokenizer.getMissingValues());
+        assertFalse(tokenizer.nextRow());
+        
+        // Excluded lines add nothing to the dictionaries.
+        assertEquals(LandUseDictionary.NOT_FOUND, regions.idOf("U.S. total"));
+        tokenizer.close();
+    }
+    
     /** 
      * Test LandUseDataProcessing.java to ensure that LandUseDataLineItem
      * object instances are created and stored correctly in the landUseInstances List.
@@ -364,9 +429,9 @@ public class LandUseDataAnalysisTest {
         // Oracle docs example: https://docs.oracle.com/javase/8/docs/api/java/util/stream/Collectors.html
         List<String> threeInstances = 
                 processedData.stream()
-                            .filter(dataInstance -> dataInstance.getSortOrder().equals(1)
-                                    || dataInstance.getSortOrder().equals(448)
-                                    || dataInstance.getSortOrder().equals(885))
+                            .filter(dataInstance -> dataInstance.getSortOrder() == 1
+                                    || dataInstance.getSortOrder() == 448
+                                    || dataInstance.getSortOrder() == 885)
                             .map(dataInstance -> dataInstance.toString())
                             .collect(Collectors.toList());
         
@@ -387,10 +452,6 @@ public class LandUseDataAnalysisTest {
     @Test
     public void findRegionMaxGrasslandPasture1974Test() throws IOException {
         
-        // Call processData method and get List of LandUseDataLineItem objects.
-        List<LandUseDataLineItem> processedData = LandUseDataProcessing
-                .processData("/Users/pulchrit/ada/C11_App_DataAnalysis/LandUse_DataAnalysis/src/USDA_MajorLandUse_1945-2012.csv");
-        
         // Assert the findRegionMaxGrasslandPasture1974 method returns "Mountain total".
         assertEquals("Mountain total", LandUseData5QuestionAnalysis
                 .findRegionMaxGrasslandPasture1974(processedData));
@@ -406,10 +467,6 @@ public class LandUseDataAnalysisTest {
     @Test
     public void findRegionsUrbanLand2000Prior1987Test() throws IOException {
         
-        // Call processData method and get List of LandUseDataLineItem objects.
-        List<LandUseDataLineItem> processedData = LandUseDataProcessing
-                .processData("/Users/pulchrit/ada/C11_App_DataAnalysis/LandUse_DataAnalysis/src/USDA_MajorLandUse_1945-2012.csv");
-        
         // Assert the findRegionsUrbanLand2000Prior1987 method returns 4.
         assertEquals(4, LandUseData5QuestionAnalysis
                 .findRegionsUrbanLand2000Prior1987(processedData));
@@ -425,10 +482,6 @@ public class LandUseDataAnalysisTest {
     @Test
     public void findAverageCroplandForPasturePacificMountain1964Test() throws IOException {
         
-        // Call processData method and get List of LandUseDataLineItem objects.
-        List<LandUseDataLineItem> processedData = LandUseDataProcessing
-                .processData("/Users/pulchrit/ada/C11_App_DataAnalysis/LandUse_DataAnalysis/src/USDA_MajorLandUse_1945-2012.csv");
-        
         // Assert the findAverageCroplandForPasturePacificMountain1964 method returns
         // 777.1
         assertEquals(777.1, LandUseData5QuestionAnalysis
@@ -445,10 +498,6 @@ public class LandUseDataAnalysisTest {
     @Test
     public void findMaxForestUseland13Colonies2012Test() throws IOException {
         
-        // Call processData method and get List of LandUseDataLineItem objects.
-        List<LandUseDataLineItem> processedData = LandUseDataProcessing
-                .processData("/Users/pulchrit/ada/C11_App_DataAnalysis/LandUse_DataAnalysis/src/USDA_MajorLandUse_1945-2012.csv");
-    
         // Assert the findMaxForestUseland13Colonies2012 method returns Georgia.
         assertEquals("Georgia", LandUseData5QuestionAnalysis
                 .findMaxForestUseland13Colonies2012(processedData));
@@ -465,10 +514,7 @@ public class LandUseDataAnalysisTest {
      */
     @Test
     public void findRegionMaxShiftLandUse1945To2012Test() throws IOException {
-        // Call processData method and get List of LandUseDataLineItem objects.
-        List<LandUseDataLineItem> processedData = LandUseDataProcessing
-                .processData("/Users/pulchrit/ada/C11_App_DataAnalysis/LandUse_DataAnalysis/src/USDA_MajorLandUse_1945-2012.csv");
-    
+        
         // Assert the findRegionMaxShiftLandUse1945To2012 method returns 
         // a RegionMaxLandUseDelta object with a maxRegion of Southeast total, maxLandUseType 
         // of Forest Use Land Not Grazed, and maxLandUseValue of 54100.
@@ -478,4 +524,49 @@ public class LandUseDataAnalysisTest {
         assertEquals("Forest Use Land Not Grazed", RegionMaxLandUseDeltaInstance.getMaxLandType());
         assertEquals(54100, RegionMaxLandUseDeltaInstance.getMaxLandValue());
     }
+    
+    /**
+     * Test LandUseDataProcessing.java's streamData() and processData() with a 
+     * consumer, which read rows without building a list.
+     * 
+     * Each of the five questions is answered from its own Stream of the csv file,
+     * and should give the same answer as the List version. The consumer version 
+     * should see the same rows in the same order as processData().
+     * @throws IOException
+     */
+    @Test
+    public void LandUseDataProcessingStreamDataTest() throws IOException {
+        
+        String filePath = "/Users/pulchrit/ada/C11_App_DataAnalysis/LandUse_DataAnalysis/src/USDA_MajorLandUse_1945-2012.csv";
+        
+        try (Stream<LandUseDataLineItem> data = LandUseDataProcessing.streamData(filePath)) {
+            assertEquals("Mountain total", LandUseData5QuestionAnalysis.findRegionMaxGrasslandPasture1974(data));
+        }
+        try (Stream<LandUseDataLineItem> data = LandUseDataProcessing.streamData(filePath)) {
+            assertEquals(4, LandUseData5QuestionAnalysis.findRegionsUrbanLand2000Prior1987(data));
+        }
+        try (Stream<LandUseDataLineItem> data = LandUseDataProcessing.streamData(filePath)) {
+            assertEquals(777.1, LandUseData5QuestionAnalysis
+                    .findAverageCroplandForPasturePacificMountain1964(data), .5);
+        }
+        try (Stream<LandUseDataLineItem> data = LandUseDataProcessing.streamData(filePath)) {
+            assertEquals("Georgia", LandUseData5QuestionAnalysis.findMaxForestUseland13Colonies2012(data));
+        }
+        try (Stream<LandUseDataLineItem> data = LandUseDataProcessing.streamData(filePath)) {
+            assertEquals(54100, LandUseData5QuestionAnalysis
+                    .findRegionMaxShiftLandUse1945To2012(data).getMaxLandValue());
+        }
+        
+        List<LandUseDataLineItem> processedData = LandUseDataProcessing.processData(filePath);
+        List<String> consumed = new ArrayList<>();
+        long count = LandUseDataProcessing.processData(filePath, dataInstance -> consumed.add(dataInstance.toString()));
+        assertEquals(processedData.size(), count);
+        assertEquals(processedData.stream().map(dataInstance -> dataInstance.toString())
+                .collect(Collectors.toList()), consumed);
+        
+        // A missing file should still throw an IOException when the Stream is opened.
+        assertThrows(IOException.class, () -> {
+            LandUseDataProcessing.streamData(filePath + ".missing");
+        });
+    }
 }
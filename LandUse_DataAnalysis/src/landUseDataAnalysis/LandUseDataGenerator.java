@@ -0,0 +1,380 @@
+package landUseDataAnalysis;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic land use survey data for scale testing, in the same
+ * 20 column csv format as USDA_MajorLandUse_1945-2012.csv.
+ *
+ * The output looks like the shipped file:
+ *
+ * - The same header line, with its quoted "Farmsteads, roads, and
+ *   miscellaneous farmland" field, and lines ending in \r.
+ * - Regions in blocks: the region total rows for every year, then the rows
+ *   of each state in the region for every year. The ten shipped regions
+ *   come first with their real states (including District of Columbia),
+ *   then as many made up regions as the row count needs. Some made up
+ *   region names contain a comma, so they are quoted.
+ * - Years start with the fifteen shipped survey years (1945 to 2012) and
+ *   continue every five years after 2012.
+ * - Land use values add up the way the survey's do (cropland is crops plus
+ *   pasture plus idled, and so on), drift a little from survey to survey,
+ *   and region totals are the sums of their states.
+ * - "N.A." for Cropland idled in 1949, as in the shipped file, and at a
+ *   configurable rate elsewhere. A region total is "N.A." when any of its
+ *   states is.
+ * - If there is room, the file ends with 48 States, AK and HI and U.S. total
+ *   rows, which LandUseDataProcessing excludes.
+ *
+ * The same seed and settings always give the same file. SortOrder counts up
+ * from 1, starting again at 1 after Integer.MAX_VALUE so it always parses.
+ *
+ * Usage: LandUseDataGenerator outputFile rows [seed [years [statesPerRegion [missingRate]]]]
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public class LandUseDataGenerator {
+
+    private static final String HEADER = header();
+
+    private static final byte LINE_END = '\r';
+    private static final byte[] NOT_AVAILABLE = "N.A.".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int[] SHIPPED_YEARS = {
+            1945, 1949, 1954, 1959, 1964, 1969, 1974, 1978, 1982, 1987, 1992, 1997, 2002, 2007, 2012};
+
+    // The shipped regions and their states, in file order.
+    private static final String[][] SHIPPED_REGIONS = {
+            {"Northeast", "Maine", "New Hampshire", "Vermont", "Massachusetts", "Rhode Island",
+                    "Connecticut", "New York", "New Jersey", "Pennsylvania", "Delaware", "Maryland",
+                    "District of Columbia"},
+            {"Lake States", "Michigan", "Wisconsin", "Minnesota"},
+            {"Corn Belt", "Ohio", "Indiana", "Illinois", "Iowa", "Missouri"},
+            {"Northern Plains", "North Dakota", "South Dakota", "Nebraska", "Kansas"},
+            {"Appalachian", "Virginia", "West Virginia", "North Carolina", "Kentucky", "Tennessee"},
+            {"Southeast", "South Carolina", "Georgia", "Florida", "Alabama"},
+            {"Delta States", "Mississippi", "Arkansas", "Louisiana"},
+            {"Southern Plains", "Oklahoma", "Texas"},
+            {"Mountain", "Montana", "Idaho", "Wyoming", "Colorado", "New Mexico", "Arizona", "Utah", "Nevada"},
+            {"Pacific", "Washington", "Oregon", "California"}};
+
+    // The excluded rows at the end of the shipped file, as Region and Region or State.
+    private static final String[][] TRAILER_ROWS = {
+            {"48 States", "48 States"}, {"AK and HI", "Alaska"}, {"AK and HI", "Hawaii"},
+            {"U.S. total", "U.S. total"}};
+
+    private static final int COLUMNS = LandUseDataset.LAND_USE_COLUMN_COUNT;
+
+    private final long seed;
+    private final int[] years;
+    private final int statesPerRegion;
+    private final double missingRate;
+
+    // Output buffer for one line, and a scratch buffer for number digits.
+    private final byte[] line = new byte[512];
+    private final byte[] digits = new byte[20];
+    private int lineLength;
+    private long sortOrder;
+
+    /**
+     * Creates a generator.
+     *
+     * @param seed, long, seed for the random values.
+     * @param yearCount, int, number of survey years for each state.
+     * @param statesPerRegion, int, number of states in each made up region.
+     * @param missingRate, double, chance of a value being "N.A." (0 to 1).
+     */
+    public LandUseDataGenerator(long seed, int yearCount, int statesPerRegion, double missingRate) {
+        if (yearCount < 1 || statesPerRegion < 1 || missingRate < 0 || missingRate > 1) {
+            throw new IllegalArgumentException("Need at least one year and one state per region, "
+                    + "and a missing rate from 0 to 1");
+        }
+        this.seed = seed;
+        this.statesPerRegion = statesPerRegion;
+        this.missingRate = missingRate;
+        years = new int[yearCount];
+        for (int i = 0; i < yearCount; i++) {
+            years[i] = i < SHIPPED_YEARS.length ? SHIPPED_YEARS[i]
+                    : SHIPPED_YEARS[SHIPPED_YEARS.length - 1] + 5 * (i - SHIPPED_YEARS.length + 1);
+        }
+    }
+
+    /**
+     * Writes a csv file with a header line and the given number of rows.
+     *
+     * @param out, OutputStream to write to. It is buffered here and flushed,
+     * but not closed.
+     * @param rows, long, number of rows after the header.
+     * @throws IOException
+     */
+    public void write(OutputStream out, long rows) throws IOException {
+        BufferedOutputStream buffered = new BufferedOutputStream(out, 1 << 16);
+        buffered.write(HEADER.getBytes(StandardCharsets.US_ASCII));
+        sortOrder = 0;
+
+        // Leave room for the excluded rows at the end when there is plenty.
+        long trailerRows = rows >= 4L * TRAILER_ROWS.length * years.length ? TRAILER_ROWS.length * years.length : 0;
+        long remaining = rows - trailerRows;
+
+        // Each region gets its own random stream, so regions don't depend on
+        // how many rows came before them.
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int region = 0; remaining > 0; region++) {
+            String[] names = regionNames(region);
+            remaining -= writeRegion(buffered, random.split(), names, remaining);
+        }
+        if (trailerRows > 0) {
+            writeTrailer(buffered, random.split());
+        }
+        buffered.flush();
+    }
+
+    /**
+     * Gets the Region and state names of a region: the shipped ones first,
+     * then made up ones.
+     *
+     * @param region, int, position of the region in the file.
+     * @return String[], the Region followed by its states.
+     */
+    private String[] regionNames(int region) {
+        if (region < SHIPPED_REGIONS.length) {
+            return SHIPPED_REGIONS[region];
+        }
+        int number = region + 1;
+        String name = number % 4 == 0 ? "Region " + number + ", West" : "Region " + number;
+        String[] names = new String[statesPerRegion + 1];
+        names[0] = name;
+        for (int state = 1; state <= statesPerRegion; state++) {
+            names[state] = "State " + number + "-" + state;
+        }
+        return names;
+    }
+
+    /**
+     * Writes the total rows and state rows of one region.
+     *
+     * @param out, OutputStream to write to.
+     * @param random, SplittableRandom for this region.
+     * @param names, String[], the Region followed by its states.
+     * @param maxRows, long, most rows to write.
+     * @return long, number of rows written.
+     * @throws IOException
+     */
+    private long writeRegion(OutputStream out, SplittableRandom random, String[] names, long maxRows)
+            throws IOException {
+
+        // Work out every state's values first, since the region totals come
+        // before the states in the file. values[state][year][column], with
+        // -1 for "N.A.".
+        int stateCount = names.length - 1;
+        int[][][] values = new int[stateCount][][];
+        for (int state = 0; state < stateCount; state++) {
+            values[state] = stateValues(random);
+        }
+        int[][] totals = new int[years.length][COLUMNS];
+        for (int year = 0; year < years.length; year++) {
+            for (int column = 0; column < COLUMNS; column++) {
+                int total = 0;
+                for (int state = 0; state < stateCount && total != -1; state++) {
+                    int value = values[state][year][column];
+                    total = value == -1 ? -1 : total + value;
+                }
+                totals[year][column] = total;
+            }
+        }
+
+        long written = 0;
+        String totalName = names[0] + " total";
+        for (int year = 0; year < years.length && written < maxRows; year++, written++) {
+            writeRow(out, totalName, names[0], years[year], totals[year]);
+        }
+        for (int state = 0; state < stateCount; state++) {
+            for (int year = 0; year < years.length && written < maxRows; year++, written++) {
+                writeRow(out, names[0], names[state + 1], years[year], values[state][year]);
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Writes the 48 States, AK and HI and U.S. total rows.
+     *
+     * @param out, OutputStream to write to.
+     * @param random, SplittableRandom for these rows.
+     * @throws IOException
+     */
+    private void writeTrailer(OutputStream out, SplittableRandom random) throws IOException {
+        for (String[] names : TRAILER_ROWS) {
+            int[][] values = stateValues(random);
+            for (int year = 0; year < years.length; year++) {
+                writeRow(out, names[0], names[1], years[year], values[year]);
+            }
+        }
+    }
+
+    // Builds the header line from the LandUseCategory headers, quoting the
+    // ones that contain a comma.
+    private static String header() {
+        StringBuilder header = new StringBuilder("SortOrder,Region,Region or State,Year");
+        for (LandUseCategory category : LandUseCategory.values()) {
+            String name = category.getHeader();
+            header.append(',').append(name.indexOf(',') == -1 ? name : '"' + name + '"');
+        }
+        return header.toString();
+    }
+
+    /**
+     * Makes the land use values of one state for every year. The values
+     * start from a random split of a random total and drift by up to 5% a
+     * survey, keeping the subtotals equal to the sums of their parts.
+     *
+     * @param random, SplittableRandom to draw from.
+     * @return int[][], values[year][column], with -1 for "N.A.".
+     */
+    private int[][] stateValues(SplittableRandom random) {
+
+        // Parts that the subtotals and Total land are made of.
+        int[] parts = {
+                LandUseDataset.CROPLAND_USED_FOR_CROPS, LandUseDataset.CROPLAND_USED_FOR_PASTURE,
+                LandUseDataset.CROPLAND_IDLED, LandUseDataset.GRASSLAND_PASTURE_AND_RANGE,
+                LandUseDataset.FOREST_USE_LAND_GRAZED, LandUseDataset.FOREST_USE_LAND_NOT_GRAZED,
+                LandUseDataset.LAND_IN_RURAL_TRANSPORTATION_FACILITIES,
+                LandUseDataset.LAND_IN_RURAL_PARKS_AND_WILDLIFE_AREAS,
+                LandUseDataset.LAND_IN_DEFENSE_AND_INDUSTRIAL_AREAS,
+                LandUseDataset.FARMSTEADS_ROADS_AND_MISCELLANEOUS_FARMLAND,
+                LandUseDataset.LAND_IN_URBAN_AREAS, LandUseDataset.OTHER_LAND};
+        int totalLand = 1000 + random.nextInt(99000);
+        double[] shares = new double[parts.length];
+        double shareSum = 0;
+        for (int i = 0; i < parts.length; i++) {
+            shares[i] = random.nextDouble();
+            shareSum += shares[i];
+        }
+
+        int[][] values = new int[years.length][COLUMNS];
+        for (int year = 0; year < years.length; year++) {
+            int[] row = values[year];
+            for (int i = 0; i < parts.length; i++) {
+                if (year > 0) {
+                    shares[i] *= 0.95 + random.nextDouble() * 0.1;
+                }
+                row[parts[i]] = (int) (totalLand * shares[i] / shareSum);
+            }
+            row[LandUseDataset.TOTAL_CROPLAND] = row[LandUseDataset.CROPLAND_USED_FOR_CROPS]
+                    + row[LandUseDataset.CROPLAND_USED_FOR_PASTURE] + row[LandUseDataset.CROPLAND_IDLED];
+            row[LandUseDataset.FOREST_USE_LAND] = row[LandUseDataset.FOREST_USE_LAND_GRAZED]
+                    + row[LandUseDataset.FOREST_USE_LAND_NOT_GRAZED];
+            row[LandUseDataset.ALL_SPECIAL_USES_OF_LAND] = row[LandUseDataset.LAND_IN_RURAL_TRANSPORTATION_FACILITIES]
+                    + row[LandUseDataset.LAND_IN_RURAL_PARKS_AND_WILDLIFE_AREAS]
+                    + row[LandUseDataset.LAND_IN_DEFENSE_AND_INDUSTRIAL_AREAS]
+                    + row[LandUseDataset.FARMSTEADS_ROADS_AND_MISCELLANEOUS_FARMLAND];
+            row[LandUseDataset.TOTAL_LAND] = row[LandUseDataset.TOTAL_CROPLAND]
+                    + row[LandUseDataset.GRASSLAND_PASTURE_AND_RANGE] + row[LandUseDataset.FOREST_USE_LAND]
+                    + row[LandUseDataset.ALL_SPECIAL_USES_OF_LAND] + row[LandUseDataset.LAND_IN_URBAN_AREAS]
+                    + row[LandUseDataset.OTHER_LAND];
+
+            // Cropland idled wasn't surveyed in 1949.
+            if (years[year] == 1949) {
+                row[LandUseDataset.CROPLAND_IDLED] = -1;
+            }
+            if (missingRate > 0) {
+                for (int column = 0; column < COLUMNS; column++) {
+                    if (random.nextDouble() < missingRate) {
+                        row[column] = -1;
+                    }
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Writes one csv line, starting with the line end of the line before.
+     *
+     * @param out, OutputStream to write to.
+     * @param region, String, Region field.
+     * @param regionOrState, String, Region or State field.
+     * @param year, int, Year field.
+     * @param values, int[], land use values, with -1 for "N.A.".
+     * @throws IOException
+     */
+    private void writeRow(OutputStream out, String region, String regionOrState, int year, int[] values)
+            throws IOException {
+        sortOrder = sortOrder == Integer.MAX_VALUE ? 1 : sortOrder + 1;
+        lineLength = 0;
+        line[lineLength++] = LINE_END;
+        appendNumber(sortOrder);
+        appendText(region);
+        appendText(regionOrState);
+        line[lineLength++] = ',';
+        appendNumber(year);
+        for (int value : values) {
+            line[lineLength++] = ',';
+            if (value == -1) {
+                System.arraycopy(NOT_AVAILABLE, 0, line, lineLength, NOT_AVAILABLE.length);
+                lineLength += NOT_AVAILABLE.length;
+            } else {
+                appendNumber(value);
+            }
+        }
+        out.write(line, 0, lineLength);
+    }
+
+    // Appends a comma and a text field, quoted if it contains a comma.
+    private void appendText(String text) {
+        line[lineLength++] = ',';
+        boolean quoted = text.indexOf(',') >= 0;
+        if (quoted) {
+            line[lineLength++] = '"';
+        }
+        for (int i = 0; i < text.length(); i++) {
+            line[lineLength++] = (byte) text.charAt(i);
+        }
+        if (quoted) {
+            line[lineLength++] = '"';
+        }
+    }
+
+    // Appends the digits of a number that is 0 or more.
+    private void appendNumber(long number) {
+        int count = 0;
+        do {
+            digits[count++] = (byte) ('0' + number % 10);
+            number /= 10;
+        } while (number > 0);
+        while (count > 0) {
+            line[lineLength++] = digits[--count];
+        }
+    }
+
+    /**
+     * Writes a synthetic csv file.
+     *
+     * @param args, outputFile rows [seed [years [statesPerRegion [missingRate]]]]
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: LandUseDataGenerator outputFile rows "
+                    + "[seed [years [statesPerRegion [missingRate]]]]");
+            return;
+        }
+        long rows = Long.parseLong(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1945;
+        int yearCount = args.length > 3 ? Integer.parseInt(args[3]) : SHIPPED_YEARS.length;
+        int statesPerRegion = args.length > 4 ? Integer.parseInt(args[4]) : 5;
+        double missingRate = args.length > 5 ? Double.parseDouble(args[5]) : 0.001;
+
+        try (OutputStream out = Files.newOutputStream(Paths.get(args[0]))) {
+            new LandUseDataGenerator(seed, yearCount, statesPerRegion, missingRate).write(out, rows);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package landUseDataAnalysis;
 
+import java.util.Comparator;
 
 /**
  * United States (U.S.) Land Use Survey Data (1945-2012) from
@@ -36,35 +37,55 @@ package landUseDataAnalysis;
  * @param otherLand: int, miscellaneous land used for cemeteries, gold courses,
  * quarries, mines, etc.
  * 
+ * Land totals are stored as primitive ints. Cells that are "N.A." in the csv
+ * are stored as 0 and recorded in a bitmask (one bit per land use column, 
+ * using the LandUseDataset column indexes) so that analysis can tell them 
+ * apart from a real 0. 
+ * 
  * @author M Lafranchise
  * @email pulchrit@gmail.com
  */
 public class LandUseDataLineItem {
 	
+	// Comparators on primitive land totals. Comparator.comparingInt() reads
+	// the int getters directly, so nothing is boxed on each comparison.
+	public static final Comparator<LandUseDataLineItem> BY_GRASSLAND_PASTURE_AND_RANGE = 
+			Comparator.comparingInt(LandUseDataLineItem::getGrasslandPastureAndRange);
+	public static final Comparator<LandUseDataLineItem> BY_FOREST_USE_LAND = 
+			Comparator.comparingInt(LandUseDataLineItem::getForestUseLand);
+	
 	// Creating fields for each column of the csv data file.
 	// Please note: All fields designated as ints below will be
 	// converted from Strings using a helper method in the 
 	// constructor.
-	private Integer sortOrder;
+	private int sortOrder;
 	private String region;
 	private String regionOrState;
 	private String year;
-	private Integer totalLand;
-	private Integer totalCropland;
-	private Integer croplandUsedForCrops;
-	private Integer croplandUsedForPasture;
-	private Integer croplandIdled;
-	private Integer grasslandPastureAndRange;
-	private Integer forestUseLand;
-	private Integer forestUseLandGrazed;
-	private Integer forestUseLandNotGrazed;
-	private Integer allSpecialUsesOfLand;
-	private Integer landInRuralTransportationFacilities;
-	private Integer landInRuralParksAndWildlifeAreas;
-	private Integer landInDefenseAndIndustrialAreas;
-	private Integer farmsteadsRoadsAndMiscellaneousFarmland;
-	private Integer landInUrbanAreas;
-	private Integer otherLand;
+	private int totalLand;
+	private int totalCropland;
+	private int croplandUsedForCrops;
+	private int croplandUsedForPasture;
+	private int croplandIdled;
+	private int grasslandPastureAndRange;
+	private int forestUseLand;
+	private int forestUseLandGrazed;
+	private int forestUseLandNotGrazed;
+	private int allSpecialUsesOfLand;
+	private int landInRuralTransportationFacilities;
+	private int landInRuralParksAndWildlifeAreas;
+	private int landInDefenseAndIndustrialAreas;
+	private int farmsteadsRoadsAndMiscellaneousFarmland;
+	private int landInUrbanAreas;
+	private int otherLand;
+	
+	// Bit n is set when land use column n (see LandUseDataset) was "N.A."
+	private int missingValues;
+	
+	// Year as a number and whether Region is a regional total, worked out 
+	// once here so filters compare primitives instead of Strings.
+	private short yearNumber;
+	private boolean regionTotal;
 	
 	// Constructor assigns values to fields.
 	// Number Strings will be converted to ints here. I'm not 
@@ -85,66 +106,153 @@ public class LandUseDataLineItem {
 		this.region = region;
 		this.regionOrState = regionOrState;
 		this.year = year;
-		this.totalLand = convertStringToInt(totalLand);
-		this.totalCropland = convertStringToInt(totalCropland);
-		this.croplandUsedForCrops = convertStringToInt(croplandUsedForCrops);
-		this.croplandUsedForPasture = convertStringToInt(croplandUsedForPasture);
-		this.croplandIdled = convertStringToInt(croplandIdled);
-		this.grasslandPastureAndRange = convertStringToInt(grasslandPastureAndRange);
-		this.forestUseLand = convertStringToInt(forestUseLand);
-		this.forestUseLandGrazed = convertStringToInt(forestUseLandGrazed);
-		this.forestUseLandNotGrazed = convertStringToInt(forestUseLandNotGrazed);
-		this.allSpecialUsesOfLand = convertStringToInt(allSpecialUsesOfLand);
-		this.landInRuralTransportationFacilities = convertStringToInt(landInRuralTransportationFacilities);
-		this.landInRuralParksAndWildlifeAreas = convertStringToInt(landInRuralParksAndWildlifeAreas);
-		this.landInDefenseAndIndustrialAreas = convertStringToInt(landInDefenseAndIndustrialAreas);
-		this.farmsteadsRoadsAndMiscellaneousFarmland = convertStringToInt(farmsteadsRoadsAndMiscellaneousFarmland);
-		this.landInUrbanAreas = convertStringToInt(landInUrbanAreas);
-		this.otherLand = convertStringToInt(otherLand);
+		this.yearNumber = LandUseDataset.parseYear(year);
+		this.regionTotal = LandUseDataset.isRegionTotal(region);
+		this.totalLand = convertLandUse(totalLand, LandUseDataset.TOTAL_LAND);
+		this.totalCropland = convertLandUse(totalCropland, LandUseDataset.TOTAL_CROPLAND);
+		this.croplandUsedForCrops = convertLandUse(croplandUsedForCrops, 
+				LandUseDataset.CROPLAND_USED_FOR_CROPS);
+		this.croplandUsedForPasture = convertLandUse(croplandUsedForPasture, 
+				LandUseDataset.CROPLAND_USED_FOR_PASTURE);
+		this.croplandIdled = convertLandUse(croplandIdled, LandUseDataset.CROPLAND_IDLED);
+		this.grasslandPastureAndRange = convertLandUse(grasslandPastureAndRange, 
+				LandUseDataset.GRASSLAND_PASTURE_AND_RANGE);
+		this.forestUseLand = convertLandUse(forestUseLand, LandUseDataset.FOREST_USE_LAND);
+		this.forestUseLandGrazed = convertLandUse(forestUseLandGrazed, 
+				LandUseDataset.FOREST_USE_LAND_GRAZED);
+		this.forestUseLandNotGrazed = convertLandUse(forestUseLandNotGrazed, 
+				LandUseDataset.FOREST_USE_LAND_NOT_GRAZED);
+		this.allSpecialUsesOfLand = convertLandUse(allSpecialUsesOfLand, 
+				LandUseDataset.ALL_SPECIAL_USES_OF_LAND);
+		this.landInRuralTransportationFacilities = convertLandUse(landInRuralTransportationFacilities, 
+				LandUseDataset.LAND_IN_RURAL_TRANSPORTATION_FACILITIES);
+		this.landInRuralParksAndWildlifeAreas = convertLandUse(landInRuralParksAndWildlifeAreas, 
+				LandUseDataset.LAND_IN_RURAL_PARKS_AND_WILDLIFE_AREAS);
+		this.landInDefenseAndIndustrialAreas = convertLandUse(landInDefenseAndIndustrialAreas, 
+				LandUseDataset.LAND_IN_DEFENSE_AND_INDUSTRIAL_AREAS);
+		this.farmsteadsRoadsAndMiscellaneousFarmland = convertLandUse(farmsteadsRoadsAndMiscellaneousFarmland, 
+				LandUseDataset.FARMSTEADS_ROADS_AND_MISCELLANEOUS_FARMLAND);
+		this.landInUrbanAreas = convertLandUse(landInUrbanAreas, LandUseDataset.LAND_IN_URBAN_AREAS);
+		this.otherLand = convertLandUse(otherLand, LandUseDataset.OTHER_LAND);
 		
 	}
 	
+	/**
+	 * Constructor for values that have already been converted to ints, such 
+	 * as rows read back from a LandUseDataset.
+	 * 
+	 * @param sortOrder, int, order in which line items were sorted by source.
+	 * @param region, String, geographic region of the U.S.
+	 * @param regionOrState, String, geographic region or state of the U.S.
+	 * @param year, String, year during which survey data was taken.
+	 * @param landUse, int[], the sixteen land totals indexed by LandUseDataset column.
+	 * @param missingValues, int, bitmask of land use columns that were "N.A."
+	 */
+	public LandUseDataLineItem(int sortOrder, String region, String regionOrState, 
+								String year, int[] landUse, int missingValues) {
+		this.sortOrder = sortOrder;
+		this.region = region;
+		this.regionOrState = regionOrState;
+		this.year = year;
+		this.yearNumber = LandUseDataset.parseYear(year);
+		this.regionTotal = LandUseDataset.isRegionTotal(region);
+		this.totalLand = landUse[LandUseDataset.TOTAL_LAND];
+		this.totalCropland = landUse[LandUseDataset.TOTAL_CROPLAND];
+		this.croplandUsedForCrops = landUse[LandUseDataset.CROPLAND_USED_FOR_CROPS];
+		this.croplandUsedForPasture = landUse[LandUseDataset.CROPLAND_USED_FOR_PASTURE];
+		this.croplandIdled = landUse[LandUseDataset.CROPLAND_IDLED];
+		this.grasslandPastureAndRange = landUse[LandUseDataset.GRASSLAND_PASTURE_AND_RANGE];
+		this.forestUseLand = landUse[LandUseDataset.FOREST_USE_LAND];
+		this.forestUseLandGrazed = landUse[LandUseDataset.FOREST_USE_LAND_GRAZED];
+		this.forestUseLandNotGrazed = landUse[LandUseDataset.FOREST_USE_LAND_NOT_GRAZED];
+		this.allSpecialUsesOfLand = landUse[LandUseDataset.ALL_SPECIAL_USES_OF_LAND];
+		this.landInRuralTransportationFacilities = landUse[LandUseDataset.LAND_IN_RURAL_TRANSPORTATION_FACILITIES];
+		this.landInRuralParksAndWildlifeAreas = landUse[LandUseDataset.LAND_IN_RURAL_PARKS_AND_WILDLIFE_AREAS];
+		this.landInDefenseAndIndustrialAreas = landUse[LandUseDataset.LAND_IN_DEFENSE_AND_INDUSTRIAL_AREAS];
+		this.farmsteadsRoadsAndMiscellaneousFarmland = landUse[LandUseDataset.FARMSTEADS_ROADS_AND_MISCELLANEOUS_FARMLAND];
+		this.landInUrbanAreas = landUse[LandUseDataset.LAND_IN_URBAN_AREAS];
+		this.otherLand = landUse[LandUseDataset.OTHER_LAND];
+		this.missingValues = missingValues;
+	}
+	
+	/**
+	 * Converts a land total String to an int and records "N.A." values in 
+	 * the missingValues bitmask. Helper method for the constructor.
+	 * 
+	 * @param stringNumber, number of type String
+	 * @param column, int, LandUseDataset column index of the value
+	 * @return int, String number converted to int, or 0 for "N.A."
+	 */
+	private int convertLandUse(String stringNumber, int column) {
+		
+		// Same conversion as convertStringToInt(), but a value that isn't a 
+		// number also sets the bit for this column so the 0 is known to be "N.A."
+		if (isWholeNumber(stringNumber)) {
+			return Integer.parseInt(stringNumber);
+		}
+		missingValues |= 1 << column;
+		return 0;
+	}
+	
 	/** 
-	 * Converts String numbers to Integers. Helper method.
+	 * Converts String numbers to ints. Helper method.
 	 * 
-	 * It is necessary to convert these strings to Integer
+	 * It is necessary to convert these strings to int
 	 * for future calculations in LandUseDataAnalysis class.
 	 * 
-	 * Using try/catch block as some String entries are "N.A."
-	 * These entries will trigger NumberFormatExceptions when 
-	 * attempting to ParseInt() on the String. The exception  
-	 * will be handled by returning Integer 0 in place of "N.A."
-	 * It is assumed that, for data analysis purposes, "N.A." 
-	 * will be equivalent to 0. THIS MAY BE AN INCORRECT 
-	 * ASSUMPTION. 
+	 * Some String entries are "N.A." These entries, and any 
+	 * other String that is not a whole number, are returned as 
+	 * int 0. It is assumed that, for data analysis purposes, 
+	 * "N.A." will be equivalent to 0. THIS MAY BE AN INCORRECT 
+	 * ASSUMPTION, which is why the constructor also records 
+	 * "N.A." values in the missingValues bitmask.
+	 * 
+	 * The String is checked before it is converted, so "N.A." 
+	 * does not cost a NumberFormatException being thrown 
+	 * and caught.
 	 * 
 	 * @param stringNumber, number of type String
-	 * @return Integer, String number converted to Integer
+	 * @return int, String number converted to int
 	 */
 	public static int convertStringToInt(String stringNumber) {
-		
-		// Try to convert String number to Integer.
-		// If successful, return Integer.
-		try {
-			Integer convertedInt = Integer.valueOf(stringNumber);
-			return convertedInt;
-		
-		// Catch NumberFormatException errors that will occur
-		// when "N.A." is encountered. In these cases, return the int 0.
-		// Again, the assumption is that 0 is equivalent to "N.A."
-		// and will allow for calculation/data analysis where 
-		// "N.A." will not.
-		} catch (NumberFormatException nfe) {
-			Integer zero = 0;
-		    return zero; 
+		return isWholeNumber(stringNumber) ? Integer.parseInt(stringNumber) : 0;
+	}
+	
+	/**
+	 * Checks that a String can be converted by Integer.parseInt(): an 
+	 * optional sign followed by digits, within the range of an int. 
+	 * Helper method.
+	 * 
+	 * @param stringNumber, number of type String
+	 * @return boolean, true if the String is a whole number
+	 */
+	private static boolean isWholeNumber(String stringNumber) {
+		if (stringNumber == null || stringNumber.isEmpty()) {
+			return false;
+		}
+		int start = stringNumber.charAt(0) == '-' || stringNumber.charAt(0) == '+' ? 1 : 0;
+		if (start == stringNumber.length()) {
+			return false;
+		}
+		long value = 0;
+		for (int i = start; i < stringNumber.length(); i++) {
+			char digit = stringNumber.charAt(i);
+			if (digit < '0' || digit > '9') {
+				return false;
+			}
+			value = value * 10 + (digit - '0');
+			if (value > 1L + Integer.MAX_VALUE) {
+				return false;
+			}
 		}
+		return stringNumber.charAt(0) == '-' ? value <= 1L + Integer.MAX_VALUE : value <= Integer.MAX_VALUE;
 	}
 	
 	/**
 	 * Gets Sort Order for line item.
-	 * @return Integer, Sort Order
+	 * @return int, Sort Order
 	 */
-	public Integer getSortOrder() {
+	public int getSortOrder() {
 		return sortOrder;
 	}
 	
@@ -172,137 +280,227 @@ public class LandUseDataLineItem {
 		return year;
 	}
 	
+	/**
+	 * Gets Year for line item as a number.
+	 * @return short, survey year, or LandUseDataset.NO_YEAR if Year is not 
+	 * a whole number
+	 */
+	public short getYearNumber() {
+		return yearNumber;
+	}
+	
+	/**
+	 * Checks if the line item is a regional total (Region contains "total").
+	 * @return boolean, true for regional totals, false for states
+	 */
+	public boolean isRegionTotal() {
+		return regionTotal;
+	}
+	
 	/**
 	 * Gets Total Land for line item.
-	 * @return Integer, Acres of Total Land
+	 * @return int, Acres of Total Land
 	 */
-	public Integer getTotalLand() {
+	public int getTotalLand() {
 		return totalLand;
 	}
 	
 	/** 
 	 * Gets Total Cropland for line item.
-	 * @return Integer, Acres of Total Cropland
+	 * @return int, Acres of Total Cropland
 	 */
-	public Integer getTotalCropland() {
+	public int getTotalCropland() {
 		return totalCropland;
 	}
 	
 	/** 
 	 * Gets Cropland Used for Crops for line item.
-	 * @return Integer, Acres of Cropland Used for Crops
+	 * @return int, Acres of Cropland Used for Crops
 	 */
-	public Integer getCroplandUsedForCrops() {
+	public int getCroplandUsedForCrops() {
 		return croplandUsedForCrops;
 	}
 	
 	/**
 	 * Gets Cropland Use for Pasture for line item.
-	 * @return Integer, Acres of Cropland Used for Pasture
+	 * @return int, Acres of Cropland Used for Pasture
 	 */
-	public Integer getCroplandUsedForPasture() {
+	public int getCroplandUsedForPasture() {
 		return croplandUsedForPasture;
 	}
 	
 	/** 
 	 * Gets Cropland Idled for line item.
-	 * @return Integer, Acres of Cropland Idled
+	 * @return int, Acres of Cropland Idled
 	 */
-	public Integer getCroplandIdled() {
+	public int getCroplandIdled() {
 		return croplandIdled;
 	}
 	
 	/** 
 	 * Gets Grassland Pasture and Range for line item.
-	 * @return Integer, Acres of Grassland Pasture and Range
+	 * @return int, Acres of Grassland Pasture and Range
 	 */
-	public Integer getGrasslandPastureAndRange() {
+	public int getGrasslandPastureAndRange() {
 		return grasslandPastureAndRange;
 	}
 	
 	/** 
 	 * Gets Forest Use Land for line item.
-	 * @return Integer, Acres of Forest Use Land
+	 * @return int, Acres of Forest Use Land
 	 */
-	public Integer getForestUseLand() {
+	public int getForestUseLand() {
 		return forestUseLand;
 	}
 	
 	/** 
 	 * Gets Forest Use Land Grazed for line item.
-	 * @return Integer, Acres of Forest Use Land Grazed 
+	 * @return int, Acres of Forest Use Land Grazed 
 	 */
-	public Integer getForestUseLandGrazed() {
+	public int getForestUseLandGrazed() {
 		return forestUseLandGrazed;
 	}
 	
 	/** 
 	 * Gets Forest Use Land Not Grazed for line item.
-	 * @return Integer, Acres of Forest Use Land Not Grazed.
+	 * @return int, Acres of Forest Use Land Not Grazed.
 	 */
-	public Integer getForestUseLandNotGrazed() {
+	public int getForestUseLandNotGrazed() {
 		return forestUseLandNotGrazed;
 	}
 	
 	/** 
 	 * Gets All Special Uses of Land for line item.
-	 * @return Integer, Acres of Special Uses of Land
+	 * @return int, Acres of Special Uses of Land
 	 */
-	public Integer getAllSpecialUsesOfLand() {
+	public int getAllSpecialUsesOfLand() {
 		return allSpecialUsesOfLand;
 	}
 	
 	/** 
 	 * Gets Land in Rural Transportation Facilities for line item.
-	 * @return Integer, Acres of Rural Transportation Facilities
+	 * @return int, Acres of Rural Transportation Facilities
 	 */
-	public Integer getLandInRuralTransportationFacilities() {
+	public int getLandInRuralTransportationFacilities() {
 		return landInRuralTransportationFacilities;
 	}
 	
 	/** 
 	 * Gets Land in Rural Parks and Wildlife Areas for line item.
-	 * @return Integer, Acres of Land in Rural Parks and Wildlife Areas
+	 * @return int, Acres of Land in Rural Parks and Wildlife Areas
 	 */
-	public Integer getLandInRuralParksAndWildlifeAreas() {
+	public int getLandInRuralParksAndWildlifeAreas() {
 		return landInRuralParksAndWildlifeAreas;
 	}
 	
 	/** 
 	 * Gets Land in Defence and Industrial Areas for line item.
-	 * @return Integer, Acres of Land in Defense and Industrial Areas
+	 * @return int, Acres of Land in Defense and Industrial Areas
 	 */
-	public Integer getLandInDefenseAndIndustrialAreas() {
+	public int getLandInDefenseAndIndustrialAreas() {
 		return landInDefenseAndIndustrialAreas;
 	}
 	
 	/** 
 	 * Gets Farmsteads Roads and Miscelleaneous Farmland for line item.
-	 * @return Integer, Acres of Farmsteads, Roads, Miscellaneous Farmland
+	 * @return int, Acres of Farmsteads, Roads, Miscellaneous Farmland
 	 */
-	public Integer getFarmsteadsRoadsAndMiscellaneousFarmland() {
+	public int getFarmsteadsRoadsAndMiscellaneousFarmland() {
 		return farmsteadsRoadsAndMiscellaneousFarmland;
 	}
 	
 	/** 
 	 * Gets Land In Urban Areas for line item.
-	 * @return Integer, Acres of Land in Urband Areas
+	 * @return int, Acres of Land in Urband Areas
 	 */
-	public Integer getLandInUrbanAreas() {
+	public int getLandInUrbanAreas() {
 		return landInUrbanAreas;
 	}
 	
 	/** 
 	 * Gets Other Land for line item.
-	 * @return Integer, Acres of Other Land
+	 * @return int, Acres of Other Land
 	 */
-	public Integer getOtherLand() {
+	public int getOtherLand() {
 		return otherLand;
 	}
 	
+	/**
+	 * Gets a land total by LandUseDataset column index.
+	 * @param column, int, column index such as LandUseDataset.TOTAL_LAND
+	 * @return int, Acres for that column
+	 */
+	public int getLandUse(int column) {
+		switch (column) {
+			case LandUseDataset.TOTAL_LAND: return totalLand;
+			case LandUseDataset.TOTAL_CROPLAND: return totalCropland;
+			case LandUseDataset.CROPLAND_USED_FOR_CROPS: return croplandUsedForCrops;
+			case LandUseDataset.CROPLAND_USED_FOR_PASTURE: return croplandUsedForPasture;
+			case LandUseDataset.CROPLAND_IDLED: return croplandIdled;
+			case LandUseDataset.GRASSLAND_PASTURE_AND_RANGE: return grasslandPastureAndRange;
+			case LandUseDataset.FOREST_USE_LAND: return forestUseLand;
+			case LandUseDataset.FOREST_USE_LAND_GRAZED: return forestUseLandGrazed;
+			case LandUseDataset.FOREST_USE_LAND_NOT_GRAZED: return forestUseLandNotGrazed;
+			case LandUseDataset.ALL_SPECIAL_USES_OF_LAND: return allSpecialUsesOfLand;
+			case LandUseDataset.LAND_IN_RURAL_TRANSPORTATION_FACILITIES: return landInRuralTransportationFacilities;
+			case LandUseDataset.LAND_IN_RURAL_PARKS_AND_WILDLIFE_AREAS: return landInRuralParksAndWildlifeAreas;
+			case LandUseDataset.LAND_IN_DEFENSE_AND_INDUSTRIAL_AREAS: return landInDefenseAndIndustrialAreas;
+			case LandUseDataset.FARMSTEADS_ROADS_AND_MISCELLANEOUS_FARMLAND: return farmsteadsRoadsAndMiscellaneousFarmland;
+			case LandUseDataset.LAND_IN_URBAN_AREAS: return landInUrbanAreas;
+			case LandUseDataset.OTHER_LAND: return otherLand;
+			default: throw new IllegalArgumentException("Unknown land use column: " + column);
+		}
+	}
+	
+	/**
+	 * Gets a land total by LandUseCategory.
+	 * @param category, LandUseCategory such as LandUseCategory.TOTAL_LAND
+	 * @return int, Acres for that category
+	 */
+	public int getLandUse(LandUseCategory category) {
+		return getLandUse(category.getColumn());
+	}
+	
+	/**
+	 * Gets the bitmask of land use columns that were "N.A." in the csv file.
+	 * @return int, bit n set when LandUseDataset column n is missing
+	 */
+	public int getMissingValues() {
+		return missingValues;
+	}
+	
+	/**
+	 * Checks if a land total was "N.A." in the csv file.
+	 * @param column, int, column index such as LandUseDataset.CROPLAND_IDLED
+	 * @return boolean, true if the value is missing and stored as 0
+	 */
+	public boolean isMissing(int column) {
+		return (missingValues & (1 << column)) != 0;
+	}
+	
+	/**
+	 * Checks if a land total was "N.A." in the csv file.
+	 * @param category, LandUseCategory such as LandUseCategory.CROPLAND_IDLED
+	 * @return boolean, true if the value is missing and stored as 0
+	 */
+	public boolean isMissing(LandUseCategory category) {
+		return isMissing(category.getColumn());
+	}
+	
+	/**
+	 * Gets a Comparator on one land total, such as for finding the line 
+	 * item with the most of a category.
+	 * @param category, LandUseCategory to compare
+	 * @return Comparator, ordering line items by that land total
+	 */
+	public static Comparator<LandUseDataLineItem> comparing(LandUseCategory category) {
+		int column = category.getColumn();
+		return Comparator.comparingInt(lineItem -> lineItem.getLandUse(column));
+	}
+	
 	/**
 	 * Formats and prints content of LandUseDataLineItem instance.
-	 * Overrides toString() method.
+	 * Overrides toString() method. Missing land totals print as "N.A."
 	 * 
 	 * Instructions from:
 	 * https://www.geeksforgeeks.org/overriding-tostring-method-in-java/
@@ -315,35 +513,51 @@ public class LandUseDataLineItem {
 											"Region: %s \n" +
 											"Region or State: %s \n" +
 											"Year: %s \n" +
-											"Total Land: %d \n" +
-											"Total Cropland: %d \n" +
-											"Cropland Used for Crops: %d \n" +
-											"Cropland Used for Pasture: %d \n" +
-											"Cropland Idled: %d \n" +
-											"Grassland Pasture and Range: %d \n" +
-											"Forest Use Land: %d \n" +
-											"Forest Use Land Grazed: %d \n" +
-											"Forest Use Land Not Grazed: %d \n" +
-											"All Special Uses of Land: %d \n" +
-											"Land in Rural Transportation Facilities: %d \n" +
-											"Land in Rural Park and Wildlife Areas: %d \n" +
-											"Land in Defense and Industrial Areas: %d \n" +
-											"Farmsteads, Roads, and Miscellaneous Farmland: %d \n" +
-											"Land in Urban Areas: %d \n" +
-											"Otherland: %d \n",
+											"Total Land: %s \n" +
+											"Total Cropland: %s \n" +
+											"Cropland Used for Crops: %s \n" +
+											"Cropland Used for Pasture: %s \n" +
+											"Cropland Idled: %s \n" +
+											"Grassland Pasture and Range: %s \n" +
+											"Forest Use Land: %s \n" +
+											"Forest Use Land Grazed: %s \n" +
+											"Forest Use Land Not Grazed: %s \n" +
+											"All Special Uses of Land: %s \n" +
+											"Land in Rural Transportation Facilities: %s \n" +
+											"Land in Rural Park and Wildlife Areas: %s \n" +
+											"Land in Defense and Industrial Areas: %s \n" +
+											"Farmsteads, Roads, and Miscellaneous Farmland: %s \n" +
+											"Land in Urban Areas: %s \n" +
+											"Otherland: %s \n",
 											this.getSortOrder(), this.getRegion(), this.getRegionOrState(), this.getYear(),
-											this.getTotalLand(), this.getTotalCropland(), this.getCroplandUsedForCrops(),
-											this.getCroplandUsedForPasture(), this.getCroplandIdled(), 
-											this.getGrasslandPastureAndRange(), this.getForestUseLand(), 
-											this.getForestUseLandGrazed(), this.getForestUseLandNotGrazed(),
-											this.getAllSpecialUsesOfLand(), this.getLandInRuralTransportationFacilities(),
-											this.getLandInRuralParksAndWildlifeAreas(), this.getLandInDefenseAndIndustrialAreas(),
-											this.getFarmsteadsRoadsAndMiscellaneousFarmland(), this.getLandInUrbanAreas(),
-											this.getOtherLand()
+											formatLandUse(LandUseDataset.TOTAL_LAND), 
+											formatLandUse(LandUseDataset.TOTAL_CROPLAND), 
+											formatLandUse(LandUseDataset.CROPLAND_USED_FOR_CROPS),
+											formatLandUse(LandUseDataset.CROPLAND_USED_FOR_PASTURE), 
+											formatLandUse(LandUseDataset.CROPLAND_IDLED), 
+											formatLandUse(LandUseDataset.GRASSLAND_PASTURE_AND_RANGE), 
+											formatLandUse(LandUseDataset.FOREST_USE_LAND), 
+											formatLandUse(LandUseDataset.FOREST_USE_LAND_GRAZED), 
+											formatLandUse(LandUseDataset.FOREST_USE_LAND_NOT_GRAZED),
+											formatLandUse(LandUseDataset.ALL_SPECIAL_USES_OF_LAND), 
+											formatLandUse(LandUseDataset.LAND_IN_RURAL_TRANSPORTATION_FACILITIES),
+											formatLandUse(LandUseDataset.LAND_IN_RURAL_PARKS_AND_WILDLIFE_AREAS), 
+											formatLandUse(LandUseDataset.LAND_IN_DEFENSE_AND_INDUSTRIAL_AREAS),
+											formatLandUse(LandUseDataset.FARMSTEADS_ROADS_AND_MISCELLANEOUS_FARMLAND), 
+											formatLandUse(LandUseDataset.LAND_IN_URBAN_AREAS),
+											formatLandUse(LandUseDataset.OTHER_LAND)
 											);		
 	
 		return landUseOutput;
 	}
 	
+	/**
+	 * Formats one land total for toString(). Helper method.
+	 * @param column, int, LandUseDataset column index
+	 * @return String, the value, or "N.A." if it was missing
+	 */
+	private String formatLandUse(int column) {
+		return isMissing(column) ? "N.A." : String.valueOf(getLandUse(column));
+	}
+	
 }
-
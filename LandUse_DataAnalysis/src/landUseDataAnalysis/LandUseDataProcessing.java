@@ -2,21 +2,40 @@ package landUseDataAnalysis;
 
 import java.util.List;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.stream.Collectors;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /** 
- * Processes land use data from csv file using Streams instead of 
- * FileReader and BufferedReader. Streams allow data to be filtered 
- * and mapped multiple time without interim data structures being created,
- * meaning Streams should save space and a bit of time in comparison.
+ * Processes land use data from csv file using LandUseCsvTokenizer, which 
+ * reads the file as bytes and parses each line in place instead of 
+ * splitting it into Strings. Parsing is most of the cost of processing, 
+ * and this avoids creating a String[] and twenty Strings for every line.
  * 
  * The land use data is filtered to exclude the line items specified in 
  * the instructions. Then LandUseDataLineItem object instances are created
- * and stored in a list which is then returned. The resulting list will be 
+ * and stored in a list which is then returned, or the rows are written 
+ * straight into a column based LandUseDataset. The result will be 
  * analyzed in the LandUseDataAnalysis class to answer five questions. 
  * 
  * @author M Lafranchise
@@ -24,6 +43,13 @@ import java.util.stream.Stream;
  *
  */
 public class LandUseDataProcessing {
+	
+	// Largest chunk of the file parsed by one task in processDatasetParallel().
+	// Chunks are memory mapped, so each one must also stay under 2 GB.
+	private static final long MAX_CHUNK_SIZE = 64L * 1024 * 1024;
+	
+	// Chunks per thread, so a thread that finishes early can pick up more work.
+	private static final int CHUNKS_PER_THREAD = 4;
 
 	/**
 	 * Processes data from United States Department of Agriculture
@@ -49,55 +75,18 @@ public class LandUseDataProcessing {
 		// Create list to hold landUseDataLineItem objects.
 		List<LandUseDataLineItem> landUseData = new ArrayList<LandUseDataLineItem>();
 		
-		// Use try/catch block and Files.lines to get a stream of data 
-		// from the csv file.
-		try (Stream<String> initialDataStream = Files.lines(Paths.get(filePath))) {
+		// Use try/catch block and LandUseCsvTokenizer to read rows from the 
+		// csv file. The tokenizer skips the header row and applies the 
+		// exclusions listed above: "AK and HI", "48 States", "U.S. total" 
+		// and "District of Columbia" anywhere in the line, and any state 
+		// that contains the letter y/Y in the "Region or State" field.
+		try (LandUseCsvTokenizer tokenizer = LandUseCsvTokenizer.open(filePath)) {
 			
-			landUseData = initialDataStream
-							
-							// Skips the first row/header row of csv file.
-							.skip(1)
-							
-							// Filter out lines that contain "AK and HI", "48 States"
-							// and "U.S. total" and "District of Columbia". This filter
-							// should catch these specific strings in the Region and States
-							// columns of the csv file. Meaning, it should work even
-							// though I'm not specifically looking at the Region or 
-							// State data fields.
-							.filter(line -> !line.contains("AK and HI") 
-									&& !line.contains("48 States")
-									&& !line.contains("U.S. total")
-									&& !line.contains("District of Columbia"))
-							
-							// Use map to split each line at commas, save 
-							// resulting elements to array of Strings.
-							// Still using map, create new LandUseDataLineItem
-							// instances from each array. 
-							// Return each instance to map Stream.
-							.map(line -> {
-								String[] lineSplit = line.split(",");
-								LandUseDataLineItem landUseInstance = new LandUseDataLineItem(lineSplit[0],
-													lineSplit[1], lineSplit[2], lineSplit[3], lineSplit[4],
-													lineSplit[5], lineSplit[6], lineSplit[7], lineSplit[8],
-													lineSplit[9], lineSplit[10], lineSplit[11], lineSplit[12],
-													lineSplit[13], lineSplit[14], lineSplit[15], lineSplit[16],
-													lineSplit[17], lineSplit[18], lineSplit[19]);
-								return landUseInstance;
-							})
-							
-							// Filter the stream again to remove any state that contains the letter y/Y.
-							// I'm filtering separately so that I can restrict the filter to only the
-							// "Region or State" field and not to the entire line from the csv file (as
-							// is the case in the above filters).
-							// State is included in the "Region or State" column. So, technically, 
-							// we should only check for y's in states, not regions. However, I manually
-							// reviewed the data and none of the region's present contain the letter y.
-							// So, by default, we are only filtering out states that contain y.
-							.filter(instance -> !instance.getRegionOrState().contains("Y")
-									&& !instance.getRegionOrState().contains("y"))
-							
-							// Collect the filtered LandUseDataLineItem instances to the list.
-							.collect(Collectors.toList());
+			// Create a LandUseDataLineItem instance for each row that is kept
+			// and add it to the list.
+			while (tokenizer.nextRow()) {
+				landUseData.add(tokenizer.toLineItem());
+			}
 		
 		// Catch any IO Exceptions, print the stack trace, and rethrow the IOException
 		// for testing purposes.
@@ -110,4 +99,466 @@ public class LandUseDataProcessing {
 		return landUseData;
 	}
 	
+	/**
+	 * Processes data from the csv file one row at a time, without building 
+	 * a list. Each LandUseDataLineItem is passed to the consumer as soon as 
+	 * its line has been read, so memory use stays the same however large 
+	 * the file is.
+	 * 
+	 * The same line items are excluded as in processData(), and rows are 
+	 * passed on in the same order.
+	 * 
+	 * @param filePath, path to csv file of land use data
+	 * @param consumer, Consumer that receives each LandUseDataLineItem
+	 * @return long, number of line items passed to the consumer
+	 * @throws IOException 
+	 */
+	public static long processData(String filePath, Consumer<LandUseDataLineItem> consumer) throws IOException {
+		
+		long count = 0;
+		try (LandUseCsvTokenizer tokenizer = LandUseCsvTokenizer.open(filePath)) {
+			while (tokenizer.nextRow()) {
+				consumer.accept(tokenizer.toLineItem());
+				count++;
+			}
+		} catch (IOException ioe) {
+		    ioe.printStackTrace();
+		    throw new IOException(ioe);
+		}
+		return count;
+	}
+	
+	/**
+	 * Processes data from the csv file as a Stream of LandUseDataLineItem 
+	 * instances. Lines are read as the Stream is used, so nothing is kept 
+	 * in memory unless the Stream's own operations keep it.
+	 * 
+	 * The Stream holds the file open and must be closed, for example with 
+	 * try-with-resources:
+	 * 
+	 * try (Stream<LandUseDataLineItem> data = LandUseDataProcessing.streamData(filePath)) {
+	 *     LandUseData5QuestionAnalysis.findRegionMaxGrasslandPasture1974(data);
+	 * }
+	 * 
+	 * The same line items are excluded as in processData(). An IOException 
+	 * while the Stream is being read is thrown as an UncheckedIOException.
+	 * 
+	 * @param filePath, path to csv file of land use data
+	 * @return Stream, LandUseDataLineItem instances in file order
+	 * @throws IOException if the file can't be opened
+	 */
+	public static Stream<LandUseDataLineItem> streamData(String filePath) throws IOException {
+		
+		LandUseCsvTokenizer tokenizer;
+		try {
+			tokenizer = LandUseCsvTokenizer.open(filePath);
+		} catch (IOException ioe) {
+		    ioe.printStackTrace();
+		    throw new IOException(ioe);
+		}
+		
+		// Each call to tryAdvance() reads lines until the next row that is kept.
+		Spliterator<LandUseDataLineItem> rows = new Spliterators.AbstractSpliterator<LandUseDataLineItem>(
+				Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+			@Override
+			public boolean tryAdvance(Consumer<? super LandUseDataLineItem> action) {
+				try {
+					if (!tokenizer.nextRow()) {
+						return false;
+					}
+				} catch (IOException ioe) {
+					throw new UncheckedIOException(ioe);
+				}
+				action.accept(tokenizer.toLineItem());
+				return true;
+			}
+		};
+		
+		return StreamSupport.stream(rows, false).onClose(() -> {
+			try {
+				tokenizer.close();
+			} catch (IOException ioe) {
+				throw new UncheckedIOException(ioe);
+			}
+		});
+	}
+	
+	/**
+	 * Processes data from the csv file into a column based LandUseDataset 
+	 * instead of a list of LandUseDataLineItem objects.
+	 * 
+	 * The same line items are excluded as in processData(), and rows are 
+	 * kept in the same order.
+	 * 
+	 * @param filePath, path to csv file of land use data
+	 * @return LandUseDataset, processed land use data stored by column
+	 * @throws IOException 
+	 */
+	public static LandUseDataset processDataset(String filePath) throws IOException {
+		
+		LandUseFlightEvents.DatasetBuild buildEvent = LandUseFlightEvents.beginDatasetBuild();
+		LandUseDataset dataset = new LandUseDataset();
+		
+		// The tokenizer encodes text fields straight into the dataset's 
+		// dictionaries, so each row is appended without creating any objects.
+		Path path = Paths.get(filePath);
+		LandUseFlightEvents.FileOpen openEvent = LandUseFlightEvents.beginFileOpen();
+		try (InputStream in = Files.newInputStream(path);
+				LandUseCsvTokenizer tokenizer = new LandUseCsvTokenizer(in, dataset.getRegions(), 
+						dataset.getRegionsOrStates(), dataset.getYears(), true)) {
+			LandUseFlightEvents.commitFileOpen(openEvent, path);
+			tokenizer.setSource(filePath);
+			while (tokenizer.nextRow()) {
+				tokenizer.appendTo(dataset);
+			}
+		} catch (IOException ioe) {
+		    ioe.printStackTrace();
+		    throw new IOException(ioe);
+		}
+		LandUseFlightEvents.commitDatasetBuild(buildEvent, filePath, 1, 1, dataset);
+		return dataset;
+	}
+	
+	/**
+	 * Processes data from the csv file on several threads into a column based 
+	 * LandUseDataset. Intended for very large files.
+	 * 
+	 * The file is memory mapped with FileChannel.map() in chunks that start 
+	 * and end on line breaks. Each chunk is parsed by its own task into a 
+	 * partial LandUseDataset, and the partial datasets are then appended in 
+	 * file order. The result is the same as processDataset(), including the 
+	 * exclusions, row order and dictionary ids.
+	 * 
+	 * Chunks are split at line breaks without looking at quotes, so quoted 
+	 * fields must not contain line breaks (the USDA files don't).
+	 * 
+	 * @param filePath, path to csv file of land use data
+	 * @param threads, int, number of worker threads to parse chunks on
+	 * @return LandUseDataset, processed land use data stored by column
+	 * @throws IOException 
+	 */
+	public static LandUseDataset processDatasetParallel(String filePath, int threads) throws IOException {
+		
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads must be at least 1: " + threads);
+		}
+		
+		LandUseFlightEvents.DatasetBuild buildEvent = LandUseFlightEvents.beginDatasetBuild();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		Path path = Paths.get(filePath);
+		LandUseFlightEvents.FileOpen openEvent = LandUseFlightEvents.beginFileOpen();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			LandUseFlightEvents.commitFileOpen(openEvent, path);
+			
+			// Submit one task per chunk. The first chunk holds the header row.
+			long[] boundaries = findChunkBoundaries(channel, threads);
+			List<Future<LandUseDataset>> partialDatasets = new ArrayList<>();
+			for (int chunk = 0; chunk < boundaries.length - 1; chunk++) {
+				long start = boundaries[chunk];
+				long size = boundaries[chunk + 1] - start;
+				boolean skipHeader = chunk == 0;
+				partialDatasets.add(executor.submit(() -> parseChunk(channel, filePath, start, size, skipHeader)));
+			}
+			
+			// Append the partial datasets in file order.
+			LandUseDataset dataset = new LandUseDataset();
+			for (Future<LandUseDataset> partialDataset : partialDatasets) {
+				dataset.appendDataset(partialDataset.get());
+			}
+			LandUseFlightEvents.commitDatasetBuild(buildEvent, filePath, partialDatasets.size(), threads, dataset);
+			return dataset;
+		
+		// Unwrap exceptions from the tasks so callers see the IOException.
+		} catch (ExecutionException ee) {
+			Throwable cause = ee.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IOException(cause);
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while processing " + filePath);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Processes data from several csv files, such as per-state extracts or 
+	 * more than one USDA release, into one column based LandUseDataset. 
+	 * 
+	 * Each file is read by processDataset() on a pool of threads, so no more 
+	 * than threads files are parsed at once, and a thread waiting on a slow 
+	 * read doesn't hold up the others. The parsed files are appended in the 
+	 * order given, each as soon as it and the files before it are done, 
+	 * and a file's own dataset is released once its rows are appended.
+	 * 
+	 * A row with the same SortOrder, Region or State and Year as a row 
+	 * already kept, from the same file or an earlier one, is a duplicate 
+	 * and is left out. The first copy is kept, so the result doesn't depend 
+	 * on which file finished first.
+	 * 
+	 * @param filePaths, List of paths to csv files of land use data
+	 * @param threads, int, largest number of files to parse at once
+	 * @return LandUseDataset, processed land use data from every file
+	 * @throws IOException 
+	 */
+	public static LandUseDataset processDatasets(List<String> filePaths, int threads) throws IOException {
+		
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads must be at least 1: " + threads);
+		}
+		
+		LandUseFlightEvents.DatasetBuild buildEvent = LandUseFlightEvents.beginDatasetBuild();
+		LandUseDataset dataset = new LandUseDataset();
+		if (filePaths.isEmpty()) {
+			LandUseFlightEvents.commitDatasetBuild(buildEvent, "", 0, threads, dataset);
+			return dataset;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, filePaths.size()));
+		String filePath = null;
+		try {
+			List<Future<LandUseDataset>> fileDatasets = new ArrayList<>();
+			for (String path : filePaths) {
+				fileDatasets.add(executor.submit(() -> processDataset(path)));
+			}
+			
+			// Append each file's rows in the order given, leaving out duplicates.
+			// A file's future is dropped once its rows are appended, so its
+			// dataset can be collected rather than held until every file is done.
+			LandUseRowKeys keptRows = new LandUseRowKeys();
+			for (int file = 0; file < fileDatasets.size(); file++) {
+				filePath = filePaths.get(file);
+				LandUseDataset fileDataset = fileDatasets.get(file).get();
+				dataset.appendRows(fileDataset, distinctRows(fileDataset, dataset, keptRows));
+				fileDatasets.set(file, null);
+			}
+			LandUseFlightEvents.commitDatasetBuild(buildEvent, String.join(", ", filePaths), filePaths.size(), 
+					threads, dataset);
+			return dataset;
+		
+		// Unwrap exceptions from the tasks so callers see the IOException.
+		} catch (ExecutionException ee) {
+			Throwable cause = ee.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IOException(cause);
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while processing " + filePath);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Processes data from every csv file in a directory whose name matches a 
+	 * glob, such as "*.csv" or "USDA_MajorLandUse_*.csv", as processDatasets() 
+	 * does for a list. Files are read in order of their names, so the same 
+	 * files always give the same dataset.
+	 * 
+	 * @param directory, path to the directory holding the csv files
+	 * @param glob, String, pattern for the file names, as used by 
+	 * Files.newDirectoryStream()
+	 * @param threads, int, largest number of files to parse at once
+	 * @return LandUseDataset, processed land use data from every file
+	 * @throws IOException if no file matches, or a file can't be read
+	 */
+	public static LandUseDataset processDatasets(String directory, String glob, int threads) 
+			throws IOException {
+		
+		List<String> filePaths = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(directory), glob)) {
+			for (Path file : files) {
+				if (Files.isRegularFile(file)) {
+					filePaths.add(file.toString());
+				}
+			}
+		}
+		if (filePaths.isEmpty()) {
+			throw new NoSuchFileException(Paths.get(directory, glob).toString(), null, "No files match");
+		}
+		Collections.sort(filePaths);
+		return processDatasets(filePaths, threads);
+	}
+	
+	/**
+	 * Finds the rows of a dataset whose SortOrder, Region or State and Year 
+	 * haven't been kept yet, and adds their keys to the kept rows. Helper 
+	 * method for processDatasets().
+	 * 
+	 * Keys use the merged dataset's Region or State and Year ids, which are 
+	 * looked up once for each value in the file's dictionaries rather than 
+	 * once for each row. 
+	 * 
+	 * @param dataset, LandUseDataset parsed from one file
+	 * @param merged, LandUseDataset the kept rows will be appended to
+	 * @param keptRows, LandUseRowKeys of the rows kept so far
+	 * @return int[], row numbers to keep, in ascending order
+	 */
+	private static int[] distinctRows(LandUseDataset dataset, LandUseDataset merged, LandUseRowKeys keptRows) {
+		
+		int[] regionOrStateIds = mergedIds(dataset.getRegionsOrStates(), merged.getRegionsOrStates());
+		int[] yearIds = mergedIds(dataset.getYears(), merged.getYears());
+		int[] sortOrder = dataset.getSortOrderColumn();
+		int[] regionOrState = dataset.getRegionOrStateColumn();
+		int[] year = dataset.getYearColumn();
+		int[] rows = new int[dataset.getRowCount()];
+		int rowCount = 0;
+		for (int row = 0; row < dataset.getRowCount(); row++) {
+			if (keptRows.putIfAbsent(sortOrder[row], regionOrStateIds[regionOrState[row]], yearIds[year[row]], 
+					merged.getRowCount() + rowCount) == -1) {
+				rows[rowCount++] = row;
+			}
+		}
+		return Arrays.copyOf(rows, rowCount);
+	}
+	
+	/**
+	 * Adds the values of a file's dictionary to the merged dataset's, as 
+	 * appending its rows would. Helper method for distinctRows().
+	 * 
+	 * @param from, LandUseDictionary of one file
+	 * @param to, LandUseDictionary of the merged dataset
+	 * @return int[], merged ids indexed by the file's ids
+	 */
+	private static int[] mergedIds(LandUseDictionary from, LandUseDictionary to) {
+		int[] ids = new int[from.size()];
+		for (int id = 0; id < ids.length; id++) {
+			ids[id] = to.add(from.valueOf(id));
+		}
+		return ids;
+	}
+	
+	/**
+	 * Splits a file into chunks that start at the beginning of a line. 
+	 * Helper method for processDatasetParallel().
+	 * 
+	 * @param channel, FileChannel of the csv file
+	 * @param threads, int, number of worker threads
+	 * @return long[], chunk start offsets followed by the file size
+	 * @throws IOException
+	 */
+	private static long[] findChunkBoundaries(FileChannel channel, int threads) throws IOException {
+		
+		long fileSize = channel.size();
+		long chunkCount = Math.max((long) threads * CHUNKS_PER_THREAD, 
+				(fileSize + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+		chunkCount = Math.max(1, Math.min(chunkCount, fileSize));
+		
+		// Move each evenly spaced offset forward to the start of the next line.
+		// Offsets that land in the same line collapse into one boundary.
+		List<Long> boundaries = new ArrayList<>();
+		boundaries.add(0L);
+		for (long chunk = 1; chunk < chunkCount; chunk++) {
+			long offset = Math.max(fileSize / chunkCount * chunk, boundaries.get(boundaries.size() - 1));
+			long lineStart = findNextLineStart(channel, offset, fileSize);
+			if (lineStart > boundaries.get(boundaries.size() - 1) && lineStart < fileSize) {
+				boundaries.add(lineStart);
+			}
+		}
+		boundaries.add(fileSize);
+		
+		long[] result = new long[boundaries.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = boundaries.get(i);
+		}
+		return result;
+	}
+	
+	/**
+	 * Finds the first byte after the line break at or after offset. A \r\n 
+	 * pair counts as one line break. Helper method.
+	 * 
+	 * @param channel, FileChannel of the csv file
+	 * @param offset, long, position to start looking from
+	 * @param fileSize, long, size of the file
+	 * @return long, offset of the start of the next line, or fileSize
+	 * @throws IOException
+	 */
+	private static long findNextLineStart(FileChannel channel, long offset, long fileSize) throws IOException {
+		
+		ByteBuffer window = ByteBuffer.allocate(8192);
+		boolean carriageReturn = false;
+		while (offset < fileSize) {
+			window.clear();
+			int read = channel.read(window, offset);
+			if (read <= 0) {
+				break;
+			}
+			for (int i = 0; i < read; i++) {
+				byte b = window.get(i);
+				if (carriageReturn) {
+					return b == '\n' ? offset + i + 1 : offset + i;
+				}
+				if (b == '\n') {
+					return offset + i + 1;
+				}
+				carriageReturn = b == '\r';
+			}
+			offset += read;
+		}
+		return fileSize;
+	}
+	
+	/**
+	 * Memory maps one chunk of the file and parses it into a partial dataset. 
+	 * Helper method for processDatasetParallel().
+	 * 
+	 * @param channel, FileChannel of the csv file
+	 * @param filePath, path to the csv file, naming the chunk in its flight 
+	 * recorder event
+	 * @param start, long, offset of the first byte of the chunk
+	 * @param size, long, number of bytes in the chunk
+	 * @param skipHeader, boolean, true for the chunk holding the header row
+	 * @return LandUseDataset, rows of this chunk with their own dictionaries
+	 * @throws IOException
+	 */
+	private static LandUseDataset parseChunk(FileChannel channel, String filePath, long start, long size, 
+			boolean skipHeader) throws IOException {
+		
+		LandUseDataset dataset = new LandUseDataset();
+		ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+		try (LandUseCsvTokenizer tokenizer = new LandUseCsvTokenizer(new ByteBufferInputStream(chunk), 
+				dataset.getRegions(), dataset.getRegionsOrStates(), dataset.getYears(), skipHeader)) {
+			tokenizer.setSource(filePath + " bytes " + start + "-" + (start + size));
+			while (tokenizer.nextRow()) {
+				tokenizer.appendTo(dataset);
+			}
+		}
+		return dataset;
+	}
+	
+	/**
+	 * InputStream over a ByteBuffer, so LandUseCsvTokenizer can read a 
+	 * memory mapped chunk with bulk copies.
+	 */
+	private static class ByteBufferInputStream extends InputStream {
+		
+		private final ByteBuffer buffer;
+		
+		ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+		
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+		
+		@Override
+		public int read(byte[] bytes, int offset, int length) {
+			if (length == 0) {
+				return 0;
+			}
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+			int count = Math.min(length, buffer.remaining());
+			buffer.get(bytes, offset, count);
+			return count;
+		}
+	}
+	
 }
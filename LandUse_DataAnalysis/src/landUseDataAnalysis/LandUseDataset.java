@@ -0,0 +1,578 @@
+package landUseDataAnalysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * United States (U.S.) Land Use Survey Data (1945-2012) from
+ * the U.S. Department of Agriculture, stored by column.
+ *
+ * Instead of one LandUseDataLineItem object per csv line, each land use
+ * column is held in its own primitive int[] and the Region, Region or State
+ * and Year columns are dictionary encoded (see LandUseDictionary). A question
+ * that only needs the Year, Region and Grassland Pasture and Range columns
+ * only has to read those three arrays.
+ *
+ * Row i of every column belongs to the same csv line, and rows are kept in
+ * the order they were read. Only the first getRowCount() entries of each
+ * column array are valid; the arrays may be longer so rows can be appended
+ * without copying on every row.
+ *
+ * "N.A." land totals are stored as 0 and flagged in a per-row bitmask, as in
+ * LandUseDataLineItem.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public class LandUseDataset {
+
+    // Indexes of the sixteen land use columns passed to getLandUseColumn().
+    // These follow the column order of the csv file, and match the ordinals
+    // of LandUseCategory.
+    public static final int TOTAL_LAND = 0;
+    public static final int TOTAL_CROPLAND = 1;
+    public static final int CROPLAND_USED_FOR_CROPS = 2;
+    public static final int CROPLAND_USED_FOR_PASTURE = 3;
+    public static final int CROPLAND_IDLED = 4;
+    public static final int GRASSLAND_PASTURE_AND_RANGE = 5;
+    public static final int FOREST_USE_LAND = 6;
+    public static final int FOREST_USE_LAND_GRAZED = 7;
+    public static final int FOREST_USE_LAND_NOT_GRAZED = 8;
+    public static final int ALL_SPECIAL_USES_OF_LAND = 9;
+    public static final int LAND_IN_RURAL_TRANSPORTATION_FACILITIES = 10;
+    public static final int LAND_IN_RURAL_PARKS_AND_WILDLIFE_AREAS = 11;
+    public static final int LAND_IN_DEFENSE_AND_INDUSTRIAL_AREAS = 12;
+    public static final int FARMSTEADS_ROADS_AND_MISCELLANEOUS_FARMLAND = 13;
+    public static final int LAND_IN_URBAN_AREAS = 14;
+    public static final int OTHER_LAND = 15;
+    public static final int LAND_USE_COLUMN_COUNT = 16;
+
+    // Year number given to Year values that are not a whole number that
+    // fits in a short (see getYearNumbers()).
+    public static final short NO_YEAR = -1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Dictionaries for the text columns.
+    private final LandUseDictionary regions = new LandUseDictionary();
+    private final LandUseDictionary regionsOrStates = new LandUseDictionary();
+    private final LandUseDictionary years = new LandUseDictionary();
+
+    // Columns. landUse is indexed [column][row].
+    private int rowCount;
+    private int[] sortOrder;
+    private int[] region;
+    private int[] regionOrState;
+    private int[] year;
+    private int[] missing;
+    private final int[][] landUse = new int[LAND_USE_COLUMN_COUNT][];
+
+    // Secondary indexes and block statistics, built on first use and dropped
+    // when rows are appended.
+    private LandUseDatasetIndex index;
+    private LandUseZoneMap zoneMap;
+
+    // Year values as numbers, indexed by year id. Parsed once per distinct
+    // year and extended when new years are appended.
+    private short[] yearNumbers = new short[0];
+
+    // Counts changes to the rows, so cached results can tell they are stale.
+    private long version;
+
+    // Creates an empty dataset. Rows are added with appendRow().
+    public LandUseDataset() {
+        this(INITIAL_CAPACITY);
+    }
+
+    // Creates an empty dataset with room for capacity rows.
+    public LandUseDataset(int capacity) {
+        capacity = Math.max(capacity, 1);
+        sortOrder = new int[capacity];
+        region = new int[capacity];
+        regionOrState = new int[capacity];
+        year = new int[capacity];
+        missing = new int[capacity];
+        for (int column = 0; column < LAND_USE_COLUMN_COUNT; column++) {
+            landUse[column] = new int[capacity];
+        }
+    }
+
+    // Creates a dataset that takes over columns already holding rowCount
+    // rows, as read from a snapshot file. Each column must have room for at
+    // least one row, and the caller adds the dictionary values in id order.
+    LandUseDataset(int rowCount, int[] sortOrder, int[] region, int[] regionOrState, int[] year,
+            int[] missing, int[][] landUse) {
+        this.rowCount = rowCount;
+        this.sortOrder = sortOrder;
+        this.region = region;
+        this.regionOrState = regionOrState;
+        this.year = year;
+        this.missing = missing;
+        System.arraycopy(landUse, 0, this.landUse, 0, LAND_USE_COLUMN_COUNT);
+    }
+
+    /**
+     * Builds a dataset from LandUseDataLineItem instances, keeping their order.
+     *
+     * @param lineItems, List of processed LandUseDataLineItem objects.
+     * @return LandUseDataset, the same data stored by column.
+     */
+    public static LandUseDataset fromLineItems(List<LandUseDataLineItem> lineItems) {
+        LandUseDataset dataset = new LandUseDataset(lineItems.size());
+        int[] values = new int[LAND_USE_COLUMN_COUNT];
+        for (LandUseDataLineItem lineItem : lineItems) {
+            for (int column = 0; column < LAND_USE_COLUMN_COUNT; column++) {
+                values[column] = lineItem.getLandUse(column);
+            }
+            dataset.appendRow(lineItem.getSortOrder(), lineItem.getRegion(),
+                    lineItem.getRegionOrState(), lineItem.getYear(), values,
+                    lineItem.getMissingValues());
+        }
+        return dataset;
+    }
+
+    /**
+     * Appends one row to the end of the dataset.
+     *
+     * @param sortOrder, int, order in which line item was sorted by source.
+     * @param regionName, String, geographic region of the U.S.
+     * @param regionOrStateName, String, geographic region or state of the U.S.
+     * @param yearName, String, year during which survey data was taken.
+     * @param values, int[], the sixteen land use values indexed by column.
+     * @param missingValues, int, bitmask of columns that were "N.A."
+     */
+    public void appendRow(int sortOrder, String regionName, String regionOrStateName,
+            String yearName, int[] values, int missingValues) {
+        appendRow(sortOrder, regions.add(regionName), regionsOrStates.add(regionOrStateName),
+                years.add(yearName), values, missingValues);
+    }
+
+    // Appends one row using ids that are already in this dataset's dictionaries.
+    void appendRow(int sortOrder, int regionId, int regionOrStateId, int yearId, int[] values,
+            int missingValues) {
+        if (rowCount == this.sortOrder.length) {
+            grow();
+        }
+        this.sortOrder[rowCount] = sortOrder;
+        this.region[rowCount] = regionId;
+        this.regionOrState[rowCount] = regionOrStateId;
+        this.year[rowCount] = yearId;
+        this.missing[rowCount] = missingValues;
+        for (int column = 0; column < LAND_USE_COLUMN_COUNT; column++) {
+            landUse[column][rowCount] = values[column];
+        }
+        rowCount++;
+        index = null;
+        zoneMap = null;
+        version++;
+    }
+
+    /**
+     * Appends every row of another dataset to the end of this one. Text
+     * values are re-encoded into this dataset's dictionaries, so ids are the
+     * same as if the rows had been appended one at a time.
+     *
+     * @param other, LandUseDataset whose rows are copied.
+     */
+    public void appendDataset(LandUseDataset other) {
+
+        // Map the other dataset's ids to ids in this dataset, in id order,
+        // which is the order the values were first seen.
+        int[] regionIds = remap(other.regions, regions);
+        int[] regionOrStateIds = remap(other.regionsOrStates, regionsOrStates);
+        int[] yearIds = remap(other.years, years);
+
+        ensureCapacity(rowCount + other.rowCount);
+        for (int row = 0; row < other.rowCount; row++) {
+            region[rowCount + row] = regionIds[other.region[row]];
+            regionOrState[rowCount + row] = regionOrStateIds[other.regionOrState[row]];
+            year[rowCount + row] = yearIds[other.year[row]];
+        }
+        System.arraycopy(other.sortOrder, 0, sortOrder, rowCount, other.rowCount);
+        System.arraycopy(other.missing, 0, missing, rowCount, other.rowCount);
+        for (int column = 0; column < LAND_USE_COLUMN_COUNT; column++) {
+            System.arraycopy(other.landUse[column], 0, landUse[column], rowCount, other.rowCount);
+        }
+        rowCount += other.rowCount;
+        index = null;
+        zoneMap = null;
+        version++;
+    }
+
+    /**
+     * Appends some of the rows of another dataset to the end of this one, in
+     * the order given, such as the rows left after removing duplicates.
+     * Text values are re-encoded into this dataset's dictionaries.
+     *
+     * @param other, LandUseDataset whose rows are copied.
+     * @param rows, int[], row numbers in the other dataset.
+     */
+    public void appendRows(LandUseDataset other, int[] rows) {
+        int[] regionIds = remap(other.regions, regions);
+        int[] regionOrStateIds = remap(other.regionsOrStates, regionsOrStates);
+        int[] yearIds = remap(other.years, years);
+
+        ensureCapacity(rowCount + rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            int row = rows[i];
+            if (row < 0 || row >= other.rowCount) {
+                throw new IllegalArgumentException("No row " + row + " in a dataset of " + other.rowCount);
+            }
+            sortOrder[rowCount + i] = other.sortOrder[row];
+            region[rowCount + i] = regionIds[other.region[row]];
+            regionOrState[rowCount + i] = regionOrStateIds[other.regionOrState[row]];
+            year[rowCount + i] = yearIds[other.year[row]];
+            missing[rowCount + i] = other.missing[row];
+            for (int column = 0; column < LAND_USE_COLUMN_COUNT; column++) {
+                landUse[column][rowCount + i] = other.landUse[column][row];
+            }
+        }
+        rowCount += rows.length;
+        index = null;
+        zoneMap = null;
+        version++;
+    }
+
+    /**
+     * Replaces rows of this dataset with rows of another dataset, such as
+     * corrected rows read from a later release. Text values are re-encoded
+     * into this dataset's dictionaries.
+     *
+     * @param rows, int[], row numbers in this dataset to replace.
+     * @param other, LandUseDataset whose rows are copied.
+     * @param otherRows, int[], row numbers in the other dataset, one for
+     * each row replaced.
+     */
+    public void replaceRows(int[] rows, LandUseDataset other, int[] otherRows) {
+        if (rows.length != otherRows.length) {
+            throw new IllegalArgumentException(rows.length + " rows to replace but " + otherRows.length
+                    + " rows to replace them with");
+        }
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] < 0 || rows[i] >= rowCount) {
+                throw new IllegalArgumentException("No row " + rows[i] + " in a dataset of " + rowCount);
+            }
+            if (otherRows[i] < 0 || otherRows[i] >= other.rowCount) {
+                throw new IllegalArgumentException("No row " + otherRows[i] + " in a dataset of " + other.rowCount);
+            }
+        }
+        int[] regionIds = remap(other.regions, regions);
+        int[] regionOrStateIds = remap(other.regionsOrStates, regionsOrStates);
+        int[] yearIds = remap(other.years, years);
+
+        for (int i = 0; i < rows.length; i++) {
+            int row = rows[i];
+            int otherRow = otherRows[i];
+            sortOrder[row] = other.sortOrder[otherRow];
+            region[row] = regionIds[other.region[otherRow]];
+            regionOrState[row] = regionOrStateIds[other.regionOrState[otherRow]];
+            year[row] = yearIds[other.year[otherRow]];
+            missing[row] = other.missing[otherRow];
+            for (int column = 0; column < LAND_USE_COLUMN_COUNT; column++) {
+                landUse[column][row] = other.landUse[column][otherRow];
+            }
+        }
+        index = null;
+        zoneMap = null;
+        version++;
+    }
+
+    // Adds every value of one dictionary to another, returning the new ids
+    // indexed by the old ids.
+    private static int[] remap(LandUseDictionary from, LandUseDictionary to) {
+        int[] ids = new int[from.size()];
+        for (int id = 0; id < ids.length; id++) {
+            ids[id] = to.add(from.valueOf(id));
+        }
+        return ids;
+    }
+
+    // Grows the columns, if needed, so they can hold at least capacity rows.
+    private void ensureCapacity(int capacity) {
+        while (sortOrder.length < capacity) {
+            grow();
+        }
+    }
+
+    // Doubles the capacity of every column.
+    private void grow() {
+        int capacity = sortOrder.length * 2;
+        sortOrder = Arrays.copyOf(sortOrder, capacity);
+        region = Arrays.copyOf(region, capacity);
+        regionOrState = Arrays.copyOf(regionOrState, capacity);
+        year = Arrays.copyOf(year, capacity);
+        missing = Arrays.copyOf(missing, capacity);
+        for (int column = 0; column < LAND_USE_COLUMN_COUNT; column++) {
+            landUse[column] = Arrays.copyOf(landUse[column], capacity);
+        }
+    }
+
+    /**
+     * Gets the number of rows in the dataset.
+     * @return int, row count
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Gets the version of the rows, which changes every time rows are
+     * appended. Results worked out for one version are stale at any other.
+     * @return long, version number
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the Year, Region and Region or State indexes, building them the
+     * first time they are needed after rows have been appended.
+     * @return LandUseDatasetIndex, indexes over the current rows
+     */
+    public synchronized LandUseDatasetIndex getIndex() {
+        if (index == null) {
+            index = new LandUseDatasetIndex(this);
+        }
+        return index;
+    }
+
+    /**
+     * Gets the block statistics used to skip blocks of rows, building them
+     * the first time they are needed after rows have been appended.
+     * @return LandUseZoneMap, block statistics over the current rows
+     */
+    public synchronized LandUseZoneMap getZoneMap() {
+        if (zoneMap == null) {
+            zoneMap = new LandUseZoneMap(this);
+        }
+        return zoneMap;
+    }
+
+    /**
+     * Gets the Year values as numbers, so year ranges are integer
+     * comparisons instead of a parse per row.
+     * @return short[], year number by year id, or NO_YEAR for a Year value
+     * that is not a whole number.
+     */
+    public synchronized short[] getYearNumbers() {
+        if (yearNumbers.length < years.size()) {
+            int parsed = yearNumbers.length;
+            yearNumbers = Arrays.copyOf(yearNumbers, years.size());
+            for (int yearId = parsed; yearId < yearNumbers.length; yearId++) {
+                yearNumbers[yearId] = parseYear(years.valueOf(yearId));
+            }
+        }
+        return yearNumbers;
+    }
+
+    /**
+     * Gets the survey year of a row as a number.
+     * @param row, int, row number.
+     * @return short, year such as 1974, or NO_YEAR.
+     */
+    public short getYearNumber(int row) {
+        return getYearNumbers()[year[row]];
+    }
+
+    /**
+     * Parses a Year value.
+     * @param yearName, String, survey year such as "1974".
+     * @return short, year number, or NO_YEAR if it is not a whole number
+     * from 0 to Short.MAX_VALUE.
+     */
+    public static short parseYear(String yearName) {
+        if (yearName == null || yearName.isEmpty() || yearName.length() > 5) {
+            return NO_YEAR;
+        }
+        int value = 0;
+        for (int i = 0; i < yearName.length(); i++) {
+            char digit = yearName.charAt(i);
+            if (digit < '0' || digit > '9') {
+                return NO_YEAR;
+            }
+            value = value * 10 + (digit - '0');
+        }
+        return value <= Short.MAX_VALUE ? (short) value : NO_YEAR;
+    }
+
+    /**
+     * Checks if a Region value is a regional total, such as "Mountain total".
+     * This is the one rule for region totals, used by LandUseDatasetIndex,
+     * LandUseCube and LandUseDataLineItem.
+     * @param regionName, String, Region value.
+     * @return boolean, true if it contains "total".
+     */
+    public static boolean isRegionTotal(String regionName) {
+        return regionName.contains("total");
+    }
+
+    /**
+     * Gets the Sort Order column.
+     * @return int[], Sort Order by row
+     */
+    public int[] getSortOrderColumn() {
+        return sortOrder;
+    }
+
+    /**
+     * Gets the Region column as ids into getRegions().
+     * @return int[], Region id by row
+     */
+    public int[] getRegionColumn() {
+        return region;
+    }
+
+    /**
+     * Gets the Region or State column as ids into getRegionsOrStates().
+     * @return int[], Region or State id by row
+     */
+    public int[] getRegionOrStateColumn() {
+        return regionOrState;
+    }
+
+    /**
+     * Gets the Year column as ids into getYears().
+     * @return int[], Year id by row
+     */
+    public int[] getYearColumn() {
+        return year;
+    }
+
+    /**
+     * Gets the missing value bitmask column. Bit n is set when land use
+     * column n was "N.A." for that row.
+     * @return int[], missing value bitmask by row
+     */
+    public int[] getMissingColumn() {
+        return missing;
+    }
+
+    /**
+     * Checks if a land use value was "N.A." in the csv file.
+     * @param row, int, row number.
+     * @param column, int, column index such as CROPLAND_IDLED.
+     * @return boolean, true if the value is missing and stored as 0
+     */
+    public boolean isMissing(int row, int column) {
+        return (missing[row] & (1 << column)) != 0;
+    }
+
+    /**
+     * Gets one of the sixteen land use columns.
+     * @param column, int, column index such as GRASSLAND_PASTURE_AND_RANGE.
+     * @return int[], Acres by row
+     */
+    public int[] getLandUseColumn(int column) {
+        return landUse[column];
+    }
+
+    /**
+     * Gets one of the sixteen land use columns.
+     * @param category, LandUseCategory such as GRASSLAND_PASTURE_AND_RANGE.
+     * @return int[], Acres by row
+     */
+    public int[] getLandUseColumn(LandUseCategory category) {
+        return landUse[category.ordinal()];
+    }
+
+    /**
+     * Gets one land use value.
+     * @param row, int, row number.
+     * @param category, LandUseCategory such as GRASSLAND_PASTURE_AND_RANGE.
+     * @return int, Acres, 0 if the value was "N.A." (see isMissing()).
+     */
+    public int getValue(int row, LandUseCategory category) {
+        return landUse[category.ordinal()][row];
+    }
+
+    /**
+     * Checks if a land use value was "N.A." in the csv file.
+     * @param row, int, row number.
+     * @param category, LandUseCategory such as CROPLAND_IDLED.
+     * @return boolean, true if the value is missing and stored as 0
+     */
+    public boolean isMissing(int row, LandUseCategory category) {
+        return isMissing(row, category.ordinal());
+    }
+
+    /**
+     * Gets the dictionary of Region names.
+     * @return LandUseDictionary, Regions
+     */
+    public LandUseDictionary getRegions() {
+        return regions;
+    }
+
+    /**
+     * Gets the dictionary of Region or State names.
+     * @return LandUseDictionary, Regions or States
+     */
+    public LandUseDictionary getRegionsOrStates() {
+        return regionsOrStates;
+    }
+
+    /**
+     * Gets the dictionary of survey Years.
+     * @return LandUseDictionary, Years
+     */
+    public LandUseDictionary getYears() {
+        return years;
+    }
+
+    /**
+     * Gets Region for a row.
+     * @param row, int, row number.
+     * @return String, Region surveyed
+     */
+    public String getRegion(int row) {
+        return regions.valueOf(region[row]);
+    }
+
+    /**
+     * Gets Region or State for a row.
+     * @param row, int, row number.
+     * @return String, Region or State surveyed
+     */
+    public String getRegionOrState(int row) {
+        return regionsOrStates.valueOf(regionOrState[row]);
+    }
+
+    /**
+     * Gets Year for a row.
+     * @param row, int, row number.
+     * @return String, survey year
+     */
+    public String getYear(int row) {
+        return years.valueOf(year[row]);
+    }
+
+    /**
+     * Creates LandUseDataLineItem objects for every row, in row order.
+     *
+     * @return List, LandUseDataLineItem instances matching processData().
+     */
+    public List<LandUseDataLineItem> toLineItems() {
+        List<LandUseDataLineItem> lineItems = new ArrayList<>(rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            lineItems.add(toLineItem(row));
+        }
+        return lineItems;
+    }
+
+    /**
+     * Creates a LandUseDataLineItem holding the values of one row.
+     *
+     * @param row, int, row number.
+     * @return LandUseDataLineItem, the row as a line item object.
+     */
+    public LandUseDataLineItem toLineItem(int row) {
+        int[] values = new int[LAND_USE_COLUMN_COUNT];
+        for (int column = 0; column < LAND_USE_COLUMN_COUNT; column++) {
+            values[column] = landUse[column][row];
+        }
+        return new LandUseDataLineItem(sortOrder[row], getRegion(row), getRegionOrState(row),
+                getYear(row), values, missing[row]);
+    }
+}
@@ -0,0 +1,289 @@
+package landUseDataAnalysis;
+
+import java.util.Arrays;
+
+/**
+ * Secondary indexes over a LandUseDataset.
+ *
+ * For every Year, Region and Region or State value the index keeps a posting
+ * list: the row numbers that have that value, in ascending order. Because the
+ * dataset's dictionaries give each value a dense id, the posting lists are
+ * kept in arrays indexed by id rather than in a hash map.
+ *
+ * The index also records which regions are regional totals (the Region
+ * contains the word "total"), with posting lists of the region total rows
+ * and of the state rows.
+ *
+ * A query such as "region totals in 1974" can then intersect two posting
+ * lists and read only the rows that match, instead of scanning every row.
+ *
+ * An index describes the dataset at the time it was built. Use
+ * LandUseDataset.getIndex(), which rebuilds the index after rows are appended.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public class LandUseDatasetIndex {
+
+    private static final int[] NO_ROWS = new int[0];
+
+    private final LandUseDataset dataset;
+    private final int[] allRows;
+    private final int[][] yearRows;
+    private final int[][] regionRows;
+    private final int[][] regionOrStateRows;
+    private final boolean[] regionTotals;
+    private final int[] regionTotalRows;
+    private final int[] stateRows;
+
+    /**
+     * Builds the indexes for every row currently in the dataset.
+     *
+     * @param dataset, LandUseDataset to index.
+     */
+    public LandUseDatasetIndex(LandUseDataset dataset) {
+        this.dataset = dataset;
+        int rowCount = dataset.getRowCount();
+        allRows = new int[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            allRows[row] = row;
+        }
+        yearRows = buildPostingLists(dataset.getYearColumn(), rowCount, dataset.getYears().size());
+        regionRows = buildPostingLists(dataset.getRegionColumn(), rowCount, dataset.getRegions().size());
+        regionOrStateRows = buildPostingLists(dataset.getRegionOrStateColumn(), rowCount,
+                dataset.getRegionsOrStates().size());
+
+        // Check each distinct region for "total" once, then split the rows.
+        regionTotals = new boolean[dataset.getRegions().size()];
+        int totalCount = 0;
+        for (int regionId = 0; regionId < regionTotals.length; regionId++) {
+            regionTotals[regionId] = LandUseDataset.isRegionTotal(dataset.getRegions().valueOf(regionId));
+            if (regionTotals[regionId]) {
+                totalCount += regionRows[regionId].length;
+            }
+        }
+        regionTotalRows = new int[totalCount];
+        stateRows = new int[rowCount - totalCount];
+        int[] regions = dataset.getRegionColumn();
+        int totalIndex = 0;
+        int stateIndex = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (regionTotals[regions[row]]) {
+                regionTotalRows[totalIndex++] = row;
+            } else {
+                stateRows[stateIndex++] = row;
+            }
+        }
+    }
+
+    /**
+     * Groups row numbers by the id in a column, with a counting sort so each
+     * posting list is allocated at its exact size and stays in row order.
+     *
+     * @param column, int[], dictionary id by row.
+     * @param rowCount, int, number of rows in use.
+     * @param idCount, int, number of ids in the dictionary.
+     * @return int[][], row numbers indexed by id.
+     */
+    private static int[][] buildPostingLists(int[] column, int rowCount, int idCount) {
+        int[] counts = new int[idCount];
+        for (int row = 0; row < rowCount; row++) {
+            counts[column[row]]++;
+        }
+        int[][] postingLists = new int[idCount][];
+        for (int id = 0; id < idCount; id++) {
+            postingLists[id] = new int[counts[id]];
+            counts[id] = 0;
+        }
+        for (int row = 0; row < rowCount; row++) {
+            int id = column[row];
+            postingLists[id][counts[id]++] = row;
+        }
+        return postingLists;
+    }
+
+    /**
+     * Gets the rows for a survey year.
+     * @param year, String, survey year such as "1974".
+     * @return int[], row numbers in ascending order (empty if none).
+     */
+    public int[] getYearRows(String year) {
+        return lookUp(yearRows, dataset.getYears().idOf(year));
+    }
+
+    /**
+     * Gets the rows for a Region.
+     * @param region, String, region such as "Pacific" or "Mountain total".
+     * @return int[], row numbers in ascending order (empty if none).
+     */
+    public int[] getRegionRows(String region) {
+        return lookUp(regionRows, dataset.getRegions().idOf(region));
+    }
+
+    /**
+     * Gets the rows for a Region or State.
+     * @param regionOrState, String, region or state such as "Georgia".
+     * @return int[], row numbers in ascending order (empty if none).
+     */
+    public int[] getRegionOrStateRows(String regionOrState) {
+        return lookUp(regionOrStateRows, dataset.getRegionsOrStates().idOf(regionOrState));
+    }
+
+    /**
+     * Gets the rows for a year id.
+     * @param yearId, int, id in the dataset's years dictionary.
+     * @return int[], row numbers in ascending order (empty if none).
+     */
+    public int[] getYearRows(int yearId) {
+        return lookUp(yearRows, yearId);
+    }
+
+    /**
+     * Gets the rows for a region id.
+     * @param regionId, int, id in the dataset's regions dictionary.
+     * @return int[], row numbers in ascending order (empty if none).
+     */
+    public int[] getRegionRows(int regionId) {
+        return lookUp(regionRows, regionId);
+    }
+
+    /**
+     * Gets the rows for a region or state id.
+     * @param regionOrStateId, int, id in the dataset's regions or states dictionary.
+     * @return int[], row numbers in ascending order (empty if none).
+     */
+    public int[] getRegionOrStateRows(int regionOrStateId) {
+        return lookUp(regionOrStateRows, regionOrStateId);
+    }
+
+    /**
+     * Gets the rows for an id of a text column.
+     * @param dimension, LandUseDimension, the text column.
+     * @param id, int, id in that column's dictionary.
+     * @return int[], row numbers in ascending order (empty if none).
+     */
+    public int[] getRows(LandUseDimension dimension, int id) {
+        switch (dimension) {
+            case REGION:
+                return getRegionRows(id);
+            case REGION_OR_STATE:
+                return getRegionOrStateRows(id);
+            default:
+                return getYearRows(id);
+        }
+    }
+
+    /**
+     * Gets every row, for queries that start from the whole dataset.
+     * @return int[], row numbers 0 to row count - 1.
+     */
+    public int[] getAllRows() {
+        return allRows;
+    }
+
+    /**
+     * Gets the rows that are regional totals.
+     * @return int[], row numbers in ascending order.
+     */
+    public int[] getRegionTotalRows() {
+        return regionTotalRows;
+    }
+
+    /**
+     * Gets the rows that are states, not regional totals.
+     * @return int[], row numbers in ascending order.
+     */
+    public int[] getStateRows() {
+        return stateRows;
+    }
+
+    /**
+     * Checks if a region is a regional total.
+     * @param regionId, int, id in the dataset's regions dictionary.
+     * @return boolean, true if the Region contains "total".
+     */
+    public boolean isRegionTotal(int regionId) {
+        return regionTotals[regionId];
+    }
+
+    /**
+     * Gets the region total flag for every region id. The array is shared,
+     * so don't change it.
+     * @return boolean[], true for regional totals, indexed by region id.
+     */
+    public boolean[] getRegionTotals() {
+        return regionTotals;
+    }
+
+    // Gets a posting list, treating unknown ids as having no rows.
+    private static int[] lookUp(int[][] postingLists, int id) {
+        return id >= 0 && id < postingLists.length ? postingLists[id] : NO_ROWS;
+    }
+
+    /**
+     * Finds the rows that are in both posting lists.
+     *
+     * @param first, int[], row numbers in ascending order.
+     * @param second, int[], row numbers in ascending order.
+     * @return int[], row numbers in both lists, in ascending order.
+     */
+    public static int[] intersect(int[] first, int[] second) {
+        int[] result = new int[Math.min(first.length, second.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                result[count++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Finds the rows that are in any of the posting lists.
+     *
+     * @param lists, int[]... row numbers in ascending order.
+     * @return int[], row numbers in any list, in ascending order.
+     */
+    public static int[] union(int[]... lists) {
+        int[] result = NO_ROWS;
+        for (int[] list : lists) {
+            result = merge(result, list);
+        }
+        return result;
+    }
+
+    // Merges two ascending posting lists, keeping each row once.
+    private static int[] merge(int[] first, int[] second) {
+        if (first.length == 0) {
+            return second;
+        }
+        if (second.length == 0) {
+            return first;
+        }
+        int[] result = new int[first.length + second.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length || j < second.length) {
+            if (j == second.length || (i < first.length && first[i] < second[j])) {
+                result[count++] = first[i++];
+            } else if (i == first.length || second[j] < first[i]) {
+                result[count++] = second[j++];
+            } else {
+                result[count++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+}
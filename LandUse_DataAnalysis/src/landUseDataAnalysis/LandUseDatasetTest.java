@@ -0,0 +1,744 @@
+package landUseDataAnalysis;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+/**
+ * Tests for LandUseDataset.java and the LandUseDataset versions of the
+ * LandUseData5QuestionAnalysis.java methods.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public class LandUseDatasetTest {
+
+    private static final String FILE_PATH =
+            "/Users/pulchrit/ada/C11_App_DataAnalysis/LandUse_DataAnalysis/src/USDA_MajorLandUse_1945-2012.csv";
+
+    /**
+     * Tests that LandUseDataset holds the same rows, in the same order, as the
+     * List of LandUseDataLineItem objects returned by processData().
+     * @throws IOException
+     */
+    @Test
+    public void LandUseDatasetMatchesLineItemsTest() throws IOException {
+
+        List<LandUseDataLineItem> processedData = LandUseDataProcessing.processData(FILE_PATH);
+        LandUseDataset dataset = LandUseDataProcessing.processDataset(FILE_PATH);
+
+        // Compare every row using toString(), which prints every field.
+        assertEquals(processedData.size(), dataset.getRowCount());
+        for (int row = 0; row < dataset.getRowCount(); row++) {
+            assertEquals(processedData.get(row).toString(), dataset.toLineItem(row).toString());
+        }
+    }
+
+    /**
+     * Tests that text columns are dictionary encoded, so repeated values share
+     * one id.
+     * @throws IOException
+     */
+    @Test
+    public void LandUseDatasetDictionaryTest() throws IOException {
+
+        LandUseDataset dataset = LandUseDataProcessing.processDataset(FILE_PATH);
+
+        // 15 survey years from 1945 to 2012.
+        assertEquals(15, dataset.getYears().size());
+
+        // The first row is the Northeast total for 1945.
+        assertEquals(dataset.getRegions().idOf("Northeast total"), dataset.getRegionColumn()[0]);
+        assertEquals(dataset.getYears().idOf("1945"), dataset.getYearColumn()[0]);
+        assertEquals("Northeast", dataset.getRegionOrState(0));
+        assertEquals(LandUseDictionary.NOT_FOUND, dataset.getRegions().idOf("AK and HI"));
+    }
+
+    /**
+     * Tests the LandUseDataset versions of the five questions return the same
+     * answers as the List versions.
+     * @throws IOException
+     */
+    @Test
+    public void LandUseDatasetFiveQuestionsTest() throws IOException {
+
+        LandUseDataset dataset = LandUseDataProcessing.processDataset(FILE_PATH);
+
+        assertEquals("Mountain total",
+                LandUseData5QuestionAnalysis.findRegionMaxGrasslandPasture1974(dataset));
+        assertEquals(4, LandUseData5QuestionAnalysis.findRegionsUrbanLand2000Prior1987(dataset));
+        assertEquals(777.1, LandUseData5QuestionAnalysis
+                .findAverageCroplandForPasturePacificMountain1964(dataset), .5);
+        assertEquals("Georgia", LandUseData5QuestionAnalysis.findMaxForestUseland13Colonies2012(dataset));
+
+        RegionMaxLandUseDelta regionMaxLandUseDelta =
+                LandUseData5QuestionAnalysis.findRegionMaxShiftLandUse1945To2012(dataset);
+        assertEquals("Southeast total", regionMaxLandUseDelta.getMaxRegion());
+        assertEquals("Forest Use Land Not Grazed", regionMaxLandUseDelta.getMaxLandType());
+        assertEquals(54100, regionMaxLandUseDelta.getMaxLandValue());
+
+        // answerAll() runs the same queries together in one pass.
+        LandUseFiveAnswers answers = LandUseData5QuestionAnalysis.answerAll(dataset);
+        assertEquals("Mountain total", answers.getRegionMaxGrasslandPasture1974());
+        assertEquals(4, answers.getRegionsUrbanLand2000Prior1987());
+        assertEquals(777.1, answers.getAverageCroplandForPasturePacificMountain1964(), .5);
+        assertEquals("Georgia", answers.getMaxForestUseland13Colonies2012());
+        assertEquals("Southeast total", answers.getRegionMaxShiftLandUse1945To2012().getMaxRegion());
+        assertEquals("Forest Use Land Not Grazed", answers.getRegionMaxShiftLandUse1945To2012().getMaxLandType());
+        assertEquals(54100, answers.getRegionMaxShiftLandUse1945To2012().getMaxLandValue());
+    }
+
+    /**
+     * Tests that the index posting lists hold the same rows as a scan of the
+     * columns, and that the index is rebuilt after rows are appended.
+     * @throws IOException
+     */
+    @Test
+    public void LandUseDatasetIndexTest() throws IOException {
+
+        LandUseDataset dataset = LandUseDataProcessing.processDataset(FILE_PATH);
+        LandUseDatasetIndex index = dataset.getIndex();
+
+        // Every year's posting list matches a scan of the Year column.
+        int indexedRows = 0;
+        for (int yearId = 0; yearId < dataset.getYears().size(); yearId++) {
+            int[] rows = index.getYearRows(yearId);
+            int previous = -1;
+            for (int row : rows) {
+                assertEquals(yearId, dataset.getYearColumn()[row]);
+                assertTrue(row > previous);
+                previous = row;
+            }
+            indexedRows += rows.length;
+        }
+        assertEquals(dataset.getRowCount(), indexedRows);
+        assertEquals(dataset.getRowCount(), index.getRegionTotalRows().length + index.getStateRows().length);
+        assertEquals(0, index.getYearRows("1066").length);
+
+        // Region total rows for 1974 are one row for each region total.
+        int[] totals1974 = LandUseDatasetIndex.intersect(index.getYearRows("1974"), index.getRegionTotalRows());
+        assertEquals(10, totals1974.length);
+        for (int row : totals1974) {
+            assertTrue(dataset.getRegion(row).contains("total"));
+            assertEquals("1974", dataset.getYear(row));
+        }
+
+        assertArrayEquals(new int[] {1, 3}, LandUseDatasetIndex.intersect(new int[] {0, 1, 3, 5}, new int[] {1, 2, 3}));
+        assertArrayEquals(new int[] {0, 1, 2, 3, 5},
+                LandUseDatasetIndex.union(new int[] {0, 1, 3}, new int[] {1, 2, 3, 5}, new int[0]));
+
+        // Appending a row drops the old index.
+        dataset.appendRow(9999, "Pacific", "Hawaii", "1974", new int[LandUseDataset.LAND_USE_COLUMN_COUNT], 0);
+        assertNotSame(index, dataset.getIndex());
+        int[] hawaii = dataset.getIndex().getRegionOrStateRows("Hawaii");
+        assertEquals(dataset.getRowCount() - 1, hawaii[hawaii.length - 1]);
+    }
+
+    /**
+     * Tests that processDatasetParallel() gives the same rows, in the same
+     * order and with the same dictionary ids, as processData() for different
+     * numbers of threads, and for a copy of the file with \r\n line endings.
+     * @throws IOException
+     */
+    @Test
+    public void processDatasetParallelTest() throws IOException {
+
+        List<LandUseDataLineItem> processedData = LandUseDataProcessing.processData(FILE_PATH);
+        LandUseDataset sequential = LandUseDataProcessing.processDataset(FILE_PATH);
+
+        // Write a copy of the csv file with \r\n line endings.
+        String csv = new String(Files.readAllBytes(Paths.get(FILE_PATH)), StandardCharsets.UTF_8);
+        Path crlfFile = Files.createTempFile("landUseCrlf", ".csv");
+        Files.write(crlfFile, csv.replace("\r", "\r\n").getBytes(StandardCharsets.UTF_8));
+
+        try {
+            for (String filePath : new String[] {FILE_PATH, crlfFile.toString()}) {
+                for (int threads : new int[] {1, 3, 8}) {
+                    LandUseDataset parallel = LandUseDataProcessing.processDatasetParallel(filePath, threads);
+                    assertEquals(processedData.size(), parallel.getRowCount());
+                    for (int row = 0; row < parallel.getRowCount(); row++) {
+                        assertEquals(processedData.get(row).toString(), parallel.toLineItem(row).toString());
+                        assertEquals(sequential.getRegionColumn()[row], parallel.getRegionColumn()[row]);
+                        assertEquals(sequential.getYearColumn()[row], parallel.getYearColumn()[row]);
+                    }
+                }
+            }
+        } finally {
+            Files.delete(crlfFile);
+        }
+    }
+
+    /**
+     * Tests that a snapshot file loads back the same rows and dictionary ids,
+     * that a damaged snapshot is rejected, and that readOrProcess() rebuilds
+     * a snapshot it can't read or that was written for another csv file or
+     * version of it, even one with an older time stamp.
+     * @throws IOException
+     */
+    @Test
+    public void LandUseSnapshotTest() throws IOException {
+
+        LandUseDataset dataset = LandUseDataProcessing.processDataset(FILE_PATH);
+        Path snapshot = Files.createTempFile("landUseSnapshot", ".snapshot");
+        try {
+            LandUseSnapshot.write(dataset, snapshot.toString());
+            LandUseDataset loaded = LandUseSnapshot.read(snapshot.toString());
+
+            assertEquals(dataset.getRowCount(), loaded.getRowCount());
+            assertEquals(dataset.getRegions().size(), loaded.getRegions().size());
+            for (int row = 0; row < dataset.getRowCount(); row++) {
+                assertEquals(dataset.toLineItem(row).toString(), loaded.toLineItem(row).toString());
+                assertEquals(dataset.getRegionColumn()[row], loaded.getRegionColumn()[row]);
+                assertEquals(dataset.getMissingColumn()[row], loaded.getMissingColumn()[row]);
+            }
+            assertEquals("Mountain total", LandUseData5QuestionAnalysis.findRegionMaxGrasslandPasture1974(loaded));
+
+            // A loaded dataset can still have rows appended.
+            loaded.appendRow(9999, "Pacific", "Hawaii", "2017", new int[LandUseDataset.LAND_USE_COLUMN_COUNT], 0);
+            assertEquals("2017", loaded.getYear(loaded.getRowCount() - 1));
+
+            // Change one byte in the last column.
+            try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(new byte[] {1}), channel.size() - 1);
+            }
+            try {
+                LandUseSnapshot.read(snapshot.toString());
+                fail("A damaged snapshot was read");
+            } catch (IOException expected) {
+                assertTrue(expected.getMessage().contains("checksum"));
+            }
+
+            // readOrProcess() falls back to the csv file and rewrites the snapshot.
+            assertEquals(dataset.getRowCount(), LandUseSnapshot.readOrProcess(FILE_PATH, snapshot.toString()).getRowCount());
+            assertEquals(dataset.getRowCount(), LandUseSnapshot.read(snapshot.toString(), FILE_PATH).getRowCount());
+
+            // An empty dataset round trips too.
+            LandUseSnapshot.write(new LandUseDataset(), snapshot.toString());
+            assertEquals(0, LandUseSnapshot.read(snapshot.toString()).getRowCount());
+        } finally {
+            Files.deleteIfExists(snapshot);
+        }
+
+        // Each csv path gets its own snapshot, which is only used while the
+        // csv file has the size and modified time it records.
+        Path csv = Files.createTempFile("landUseSnapshot", ".csv");
+        String csvSnapshot = LandUseSnapshot.snapshotPath(csv.toString(), csv.getParent().toString());
+        assertEquals(csvSnapshot, LandUseSnapshot.snapshotPath(csv.toString(), csv.getParent().toString()));
+        assertFalse(csvSnapshot.equals(LandUseSnapshot.snapshotPath(FILE_PATH, csv.getParent().toString())));
+        try {
+            Files.write(csv, Files.readAllBytes(Paths.get(FILE_PATH)));
+            FileTime modified = Files.getLastModifiedTime(csv);
+            assertEquals(dataset.getRowCount(),
+                    LandUseSnapshot.readOrProcess(csv.toString(), csvSnapshot).getRowCount());
+            assertEquals(dataset.getRowCount(), LandUseSnapshot.read(csvSnapshot, csv.toString()).getRowCount());
+            try {
+                LandUseSnapshot.read(csvSnapshot, FILE_PATH);
+                fail("A snapshot of another csv file was read");
+            } catch (IOException expected) {
+                assertTrue(expected.getMessage().contains("written for"));
+            }
+
+            // Replace the csv file with the first rows only, stamped earlier
+            // than the snapshot, as a restored backup or cp -p would be.
+            String text = new String(Files.readAllBytes(Paths.get(FILE_PATH)), StandardCharsets.UTF_8);
+            int end = 0;
+            for (int line = 0; line < 20; line++) {
+                end = text.indexOf('\r', end) + 1;
+            }
+            Files.write(csv, text.substring(0, end).getBytes(StandardCharsets.UTF_8));
+            Files.setLastModifiedTime(csv, FileTime.fromMillis(modified.toMillis() - 60000));
+            int shortRowCount = LandUseDataProcessing.processDataset(csv.toString()).getRowCount();
+            assertTrue(shortRowCount < dataset.getRowCount());
+            assertEquals(shortRowCount, LandUseSnapshot.readOrProcess(csv.toString(), csvSnapshot).getRowCount());
+            assertEquals(shortRowCount, LandUseSnapshot.read(csvSnapshot, csv.toString()).getRowCount());
+        } finally {
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(Paths.get(csvSnapshot));
+        }
+    }
+
+    /**
+     * Tests that LandUseIncrementalIngest reads a file written in pieces,
+     * including a line cut in half, into the same rows as processDataset(),
+     * and that a LandUseMaintainedQuery kept up to date from the new rows
+     * matches running the query over all of them, including after a
+     * correction replaces a row.
+     * @throws IOException
+     */
+    @Test
+    public void LandUseIncrementalIngestTest() throws IOException {
+
+        byte[] csv = Files.readAllBytes(Paths.get(FILE_PATH));
+        LandUseDataset expected = LandUseDataProcessing.processDataset(FILE_PATH);
+        LandUseQuery query = new LandUseQuery(LandUseFilter.states(), LandUseDimension.YEAR,
+                LandUseAggregate.sum(LandUseDataset.LAND_IN_URBAN_AREAS),
+                LandUseAggregate.argmax(LandUseDataset.FOREST_USE_LAND),
+                LandUseAggregate.countDistinct(LandUseDimension.REGION));
+
+        Path file = Files.createTempFile("landUseIngest", ".csv");
+        try (LandUseIncrementalIngest ingest = new LandUseIncrementalIngest(file.toString())) {
+
+            // The first piece ends part way through a line.
+            int firstPiece = csv.length / 3;
+            Files.write(file, Arrays.copyOf(csv, firstPiece));
+            ingest.poll();
+            LandUseMaintainedQuery maintained = new LandUseMaintainedQuery(ingest.getDataset(), query);
+            ingest.addListener(maintained);
+            LandUseCube cube = new LandUseCube(ingest.getDataset());
+            ingest.addListener(cube);
+            int firstRows = ingest.getDataset().getRowCount();
+            assertTrue(firstRows > 0);
+            assertTrue(ingest.getOffset() < firstPiece);
+
+            // The rest of the file. It has no line ending after its last
+            // line (an excluded U.S. total row), so that line is read once
+            // the file has been left alone for the quiet period.
+            Files.write(file, Arrays.copyOfRange(csv, firstPiece, csv.length), StandardOpenOption.APPEND);
+            assertEquals(expected.getRowCount() - firstRows, ingest.poll());
+            assertTrue(ingest.getOffset() < csv.length);
+            assertEquals(0, ingest.poll());
+            assertTrue(ingest.getOffset() < csv.length);
+            setQuiet(file);
+            assertEquals(0, ingest.poll());
+            assertEquals(csv.length, ingest.getOffset());
+
+            LandUseDataset dataset = ingest.getDataset();
+            assertEquals(expected.getRowCount(), dataset.getRowCount());
+            for (int row = 0; row < dataset.getRowCount(); row++) {
+                assertEquals(expected.toLineItem(row).toString(), dataset.toLineItem(row).toString());
+            }
+
+            // A new survey year adds a new group to the maintained query.
+            String maine1945 = null;
+            for (String line : new String(csv, StandardCharsets.UTF_8).split("\r")) {
+                if (maine1945 == null && line.contains(",Maine,1945,")) {
+                    maine1945 = line;
+                }
+            }
+            String newYear = "\r" + maine1945.replace(",1945,", ",2017,");
+            Files.write(file, newYear.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+            assertEquals(0, ingest.poll());
+            setQuiet(file);
+            assertEquals(1, ingest.poll());
+            assertEquals("2017", dataset.getYear(dataset.getRowCount() - 1));
+
+            assertEquals(16, maintained.getResult().getGroupCount());
+            assertSameResult(query, LandUseQueryEngine.execute(dataset, query), maintained.getResult());
+
+            // A correction to Maine's 1945 row replaces it rather than being
+            // added to it, with a land in urban area value of 500 in place
+            // of 97 and more forest-use land than any other 1945 state.
+            int maineRow = -1;
+            for (int row = 0; row < dataset.getRowCount(); row++) {
+                if (dataset.getRegionOrState(row).equals("Maine") && dataset.getYear(row).equals("1945")) {
+                    maineRow = row;
+                }
+            }
+            String[] fields = maine1945.split(",");
+            fields[4 + LandUseDataset.LAND_IN_URBAN_AREAS] = "500";
+            fields[4 + LandUseDataset.FOREST_USE_LAND] = "9999999";
+            double urban1945 = LandUseQueryEngine.execute(dataset, query).getValue(0, 0);
+            int rowCount = dataset.getRowCount();
+            Files.write(file, ("\r" + String.join(",", fields) + "\r").getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.APPEND);
+            assertEquals(1, ingest.poll());
+            assertEquals(rowCount, dataset.getRowCount());
+            assertEquals(500, dataset.getLandUseColumn(LandUseDataset.LAND_IN_URBAN_AREAS)[maineRow]);
+
+            LandUseQueryResult corrected = maintained.getResult();
+            assertSameResult(query, LandUseQueryEngine.execute(dataset, query), corrected);
+            assertEquals("1945", corrected.getGroup(0));
+            assertEquals(urban1945 - 97 + 500, corrected.getValue(0, 0), 0);
+            assertEquals(9999999, corrected.getValue(0, 1), 0);
+            assertEquals(maineRow, corrected.getRow(0, 1));
+
+            // The cube is rebuilt the same way.
+            String[] maine = {"Maine"};
+            String[] only1945 = {"1945"};
+            LandUseCubeCell maineUrban = cube.rollUp(LandUseCube.Level.STATE, maine, only1945,
+                    LandUseDataset.LAND_IN_URBAN_AREAS);
+            assertEquals(500, maineUrban.getSum());
+            assertEquals(1, maineUrban.getCount());
+            assertEquals(9999999, cube.rollUp(LandUseCube.Level.STATE, null, only1945,
+                    LandUseDataset.FOREST_USE_LAND).getMax());
+            LandUseCube rebuilt = new LandUseCube(dataset);
+            for (int column = 0; column < LandUseDataset.LAND_USE_COLUMN_COUNT; column++) {
+                for (LandUseCube.Level level : LandUseCube.Level.values()) {
+                    assertEquals(rebuilt.rollUp(level, null, null, column).toString(),
+                            cube.rollUp(level, null, null, column).toString());
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests that processDatasets() reads several files, from a list or a
+     * glob, into one dataset in file order, leaving out rows with the same
+     * SortOrder, Region or State and Year as a row already kept.
+     * @throws IOException
+     */
+    @Test
+    public void processDatasetsTest() throws IOException {
+
+        String csv = new String(Files.readAllBytes(Paths.get(FILE_PATH)), StandardCharsets.UTF_8);
+        LandUseDataset single = LandUseDataProcessing.processDataset(FILE_PATH);
+
+        // A second release with the 1945 rows again as 1940, and a repeat of
+        // one of its own rows.
+        StringBuilder release = new StringBuilder(csv.substring(0, csv.indexOf('\r')));
+        String maine1945 = null;
+        for (String line : csv.split("\r")) {
+            if (line.matches("[^,]*,[^,]*,[^,]*,1945,.*")) {
+                release.append('\r').append(line.replaceFirst(",1945,", ",1940,"));
+                if (line.contains(",Maine,")) {
+                    maine1945 = line;
+                }
+            }
+        }
+        release.append('\r').append(maine1945.replaceFirst(",1945,", ",1940,"));
+
+        Path directory = Files.createTempDirectory("landUseFiles");
+        Path first = directory.resolve("release1.csv");
+        Path copy = directory.resolve("release1_copy.csv");
+        Path second = directory.resolve("release2.csv");
+        Path notes = directory.resolve("notes.txt");
+        try {
+            Files.write(first, csv.getBytes(StandardCharsets.UTF_8));
+            Files.write(copy, csv.getBytes(StandardCharsets.UTF_8));
+            Files.write(second, release.toString().getBytes(StandardCharsets.UTF_8));
+            Files.write(notes, "not a csv file".getBytes(StandardCharsets.UTF_8));
+            LandUseDataset newRows = LandUseDataProcessing.processDataset(second.toString());
+            LandUseDataset expected = new LandUseDataset();
+            expected.appendDataset(single);
+            expected.appendRows(newRows, Arrays.copyOf(
+                    LandUseQueryEngine.selectRows(newRows, LandUseFilter.all()), newRows.getRowCount() - 1));
+
+            for (int threads : new int[] {1, 2, 8}) {
+                LandUseDataset fromList = LandUseDataProcessing.processDatasets(
+                        Arrays.asList(first.toString(), copy.toString(), second.toString()), threads);
+                LandUseDataset fromGlob = LandUseDataProcessing.processDatasets(
+                        directory.toString(), "*.csv", threads);
+                for (LandUseDataset dataset : new LandUseDataset[] {fromList, fromGlob}) {
+                    assertEquals(expected.getRowCount(), dataset.getRowCount());
+                    for (int row = 0; row < dataset.getRowCount(); row++) {
+                        assertEquals(expected.toLineItem(row).toString(), dataset.toLineItem(row).toString());
+                    }
+                }
+            }
+            assertEquals(single.getRowCount(), LandUseDataProcessing.processDatasets(
+                    Arrays.asList(copy.toString(), first.toString()), 4).getRowCount());
+            assertEquals(0, LandUseDataProcessing.processDatasets(Arrays.<String>asList(), 4).getRowCount());
+
+            try {
+                LandUseDataProcessing.processDatasets(directory.toString(), "*.json", 2);
+                fail("No files match, so an IOException is expected");
+            } catch (IOException expectedException) {
+                // expected
+            }
+            try {
+                LandUseDataProcessing.processDatasets(
+                        Arrays.asList(first.toString(), directory.resolve("missing.csv").toString()), 2);
+                fail("A missing file should give an IOException");
+            } catch (IOException expectedException) {
+                // expected
+            }
+        } finally {
+            for (Path file : new Path[] {first, copy, second, notes}) {
+                Files.deleteIfExists(file);
+            }
+            Files.delete(directory);
+        }
+    }
+
+    /**
+     * Tests the LandUsePipelineMetrics counts for reading the shipped file,
+     * the query metrics, the text summary, and the JMX MBeans.
+     * @throws Exception
+     */
+    @Test
+    public void LandUsePipelineMetricsTest() throws Exception {
+
+        LandUsePipelineMetrics metrics = LandUsePipelineMetrics.getGlobal();
+        boolean timingEnabled = metrics.isTimingEnabled();
+        metrics.reset();
+        metrics.setTimingEnabled(true);
+        try {
+            List<LandUseDataLineItem> lineItems = LandUseDataProcessing.processData(FILE_PATH);
+            assertEquals(Files.size(Paths.get(FILE_PATH)), metrics.getBytesRead());
+            assertEquals(1, metrics.getHeaderLines());
+            assertEquals(lineItems.size(), metrics.getRowsKept());
+            assertEquals(30, metrics.getExcludedAkAndHi());
+            assertEquals(15, metrics.getExcluded48States());
+            assertEquals(15, metrics.getExcludedUsTotal());
+            assertEquals(15, metrics.getExcludedDistrictOfColumbia());
+            assertEquals(90, metrics.getExcludedLetterY());
+            assertEquals(metrics.getLinesRead(), metrics.getHeaderLines() + metrics.getBlankLines()
+                    + metrics.getRowsKept() + 30 + 15 + 15 + 15 + 90);
+            long notAvailable = 0;
+            for (LandUseDataLineItem lineItem : lineItems) {
+                for (LandUseCategory category : LandUseCategory.values()) {
+                    notAvailable += lineItem.isMissing(category) ? 1 : 0;
+                }
+            }
+            assertEquals(notAvailable, metrics.getNotAvailableValues());
+            assertTrue(metrics.getTokenizeMillis() > 0);
+            assertTrue(metrics.getConversionMillis() > 0);
+            assertTrue(metrics.getConstructionMillis() > 0);
+
+            // Reading the file into a dataset counts the same rows again.
+            LandUseDataset dataset = LandUseDataProcessing.processDataset(FILE_PATH);
+            assertEquals(2 * lineItems.size(), metrics.getRowsKept());
+            assertEquals(60, metrics.getExcludedAkAndHi());
+
+            LandUseQueryResult result = LandUseQueryEngine.execute(dataset, new LandUseQuery(
+                    LandUseFilter.year("1974"), LandUseAggregate.sum(LandUseCategory.TOTAL_LAND)));
+            LandUseData5QuestionAnalysis.answerAll(dataset);
+            LandUseQueryMetrics single = metrics.getQueryMetrics(LandUsePipelineMetrics.SINGLE_ENGINE);
+            LandUseQueryMetrics batch = metrics.getQueryMetrics(LandUsePipelineMetrics.BATCH_ENGINE);
+            assertEquals(1, single.getScans());
+            assertEquals(result.getMatchedRows(), single.getRowsMatched());
+            assertEquals(result.getMatchedRows(), single.getRowsScanned());
+            assertEquals(1, batch.getScans());
+            assertEquals(6, batch.getQueries());
+            assertTrue(batch.getRowsScanned() >= batch.getRowsMatched());
+            assertTrue(batch.getP99Micros() >= batch.getP50Micros());
+
+            String summary = metrics.getSummary();
+            assertTrue(summary.contains("AK and HI 60, 48 States 30, U.S. total 30, District of Columbia 30, "
+                    + "letter y 180"));
+            assertTrue(summary.contains("Queries (batch): 1 scans, 6 queries"));
+
+            LandUsePipelineMetrics.registerMBeans();
+            LandUsePipelineMetrics.registerMBeans();
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(2L * lineItems.size(), server.getAttribute(
+                    new ObjectName(LandUsePipelineMetrics.OBJECT_NAME), "RowsKept"));
+            assertEquals(6L, server.getAttribute(new ObjectName(LandUsePipelineMetrics.QUERY_OBJECT_NAME
+                    + LandUsePipelineMetrics.BATCH_ENGINE), "Queries"));
+
+            metrics.reset();
+            assertEquals(0, metrics.getRowsKept());
+            assertEquals(0, batch.getScans());
+        } finally {
+            metrics.setTimingEnabled(timingEnabled);
+        }
+    }
+
+    /**
+     * Tests that LandUseDataGenerator gives the same bytes for the same seed,
+     * writes the number of rows asked for, makes region totals the sums of
+     * their states, quotes region names with a comma, and writes "N.A." at
+     * about the rate asked for.
+     * @throws IOException
+     */
+    @Test
+    public void LandUseDataGeneratorTest() throws IOException {
+
+        double missingRate = 0.05;
+        int statesPerRegion = 4;
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        ByteArrayOutputStream otherSeed = new ByteArrayOutputStream();
+        new LandUseDataGenerator(7, 5, statesPerRegion, missingRate).write(first, 3000);
+        new LandUseDataGenerator(7, 5, statesPerRegion, missingRate).write(second, 3000);
+        new LandUseDataGenerator(8, 5, statesPerRegion, missingRate).write(otherSeed, 3000);
+        byte[] bytes = first.toByteArray();
+        assertArrayEquals(bytes, second.toByteArray());
+        assertFalse(Arrays.equals(bytes, otherSeed.toByteArray()));
+
+        // Every line, the header included, ends with \r before the next one,
+        // so each data line starts with one.
+        int dataLines = 0;
+        for (byte b : bytes) {
+            dataLines += b == '\r' ? 1 : 0;
+        }
+        assertEquals(3000, dataLines);
+
+        Path file = Files.createTempFile("landUseGenerated", ".csv");
+        try {
+            Files.write(file, bytes);
+            LandUseDataset dataset = LandUseDataProcessing.processDataset(file.toString());
+
+            // Sum the states of each made up region by year. The shipped
+            // regions lose the states with a "y" to the exclusions, and the
+            // last region may be cut off, so only whole made up regions are
+            // checked.
+            Map<String, long[]> stateSums = new HashMap<>();
+            Map<String, Integer> stateCounts = new HashMap<>();
+            long stateValues = 0;
+            long missingValues = 0;
+            for (int row = 0; row < dataset.getRowCount(); row++) {
+                String region = dataset.getRegion(row);
+                if (!region.startsWith("Region ") || region.contains("total")) {
+                    continue;
+                }
+                String key = region + "|" + dataset.getYear(row);
+                long[] sums = stateSums.computeIfAbsent(key, k -> new long[LandUseDataset.LAND_USE_COLUMN_COUNT]);
+                stateCounts.merge(key, 1, Integer::sum);
+                for (int column = 0; column < LandUseDataset.LAND_USE_COLUMN_COUNT; column++) {
+                    if (dataset.isMissing(row, column)) {
+                        sums[column] = -1;
+                    } else if (sums[column] != -1) {
+                        sums[column] += dataset.getLandUseColumn(column)[row];
+                    }
+
+                    // Cropland idled is always "N.A." in 1949.
+                    if (!dataset.getYear(row).equals("1949")) {
+                        stateValues++;
+                        missingValues += dataset.isMissing(row, column) ? 1 : 0;
+                    }
+                }
+            }
+            int regionsChecked = 0;
+            boolean quotedRegion = false;
+            for (int row = 0; row < dataset.getRowCount(); row++) {
+                String region = dataset.getRegionOrState(row);
+                String key = region + "|" + dataset.getYear(row);
+                if (!dataset.getRegion(row).endsWith(" total") || !region.startsWith("Region ")
+                        || stateCounts.getOrDefault(key, 0) != statesPerRegion) {
+                    continue;
+                }
+                regionsChecked++;
+                quotedRegion |= region.contains(", West");
+                long[] sums = stateSums.get(key);
+                for (int column = 0; column < LandUseDataset.LAND_USE_COLUMN_COUNT; column++) {
+                    assertEquals(sums[column] == -1, dataset.isMissing(row, column));
+                    if (sums[column] != -1) {
+                        assertEquals(sums[column], dataset.getLandUseColumn(column)[row]);
+                    }
+                }
+            }
+            assertTrue(regionsChecked > 100);
+            assertTrue(quotedRegion);
+
+            // The quoted comma stays in the Region, and the fields after it
+            // line up.
+            int row = firstRow(dataset, "Region 12, West");
+            assertEquals("State 12-1", dataset.getRegionOrState(row));
+            assertEquals("1945", dataset.getYear(row));
+
+            double rate = (double) missingValues / stateValues;
+            assertTrue("N.A. rate " + rate, rate > missingRate * 0.8 && rate < missingRate * 1.2);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // Finds the first row of a Region.
+    private static int firstRow(LandUseDataset dataset, String region) {
+        for (int row = 0; row < dataset.getRowCount(); row++) {
+            if (dataset.getRegion(row).equals(region)) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Tests that LandUseCategory matches the csv header and the LandUseDataset
+     * column indexes, and that values read by category match the line items.
+     * @throws IOException
+     */
+    @Test
+    public void LandUseCategoryTest() throws IOException {
+
+        String csv = new String(Files.readAllBytes(Paths.get(FILE_PATH)), StandardCharsets.UTF_8);
+        String header = csv.substring(0, csv.indexOf('\r'));
+        ByteArrayOutputStream generated = new ByteArrayOutputStream();
+        new LandUseDataGenerator(1, 15, 5, 0).write(generated, 1);
+        String generatedCsv = new String(generated.toByteArray(), StandardCharsets.UTF_8);
+        assertEquals(header, generatedCsv.substring(0, generatedCsv.indexOf('\r')));
+
+        assertEquals(LandUseDataset.LAND_USE_COLUMN_COUNT, LandUseCategory.values().length);
+        assertEquals(LandUseDataset.FOREST_USE_LAND, LandUseCategory.FOREST_USE_LAND.getColumn());
+        assertEquals(LandUseDataset.OTHER_LAND, LandUseCategory.OTHER_LAND.getColumn());
+        assertEquals(LandUseCategory.FARMSTEADS_ROADS_AND_MISCELLANEOUS_FARMLAND,
+                LandUseCategory.fromHeader("Farmsteads, roads, and miscellaneous farmland"));
+        assertEquals(LandUseCategory.CROPLAND_IDLED, LandUseCategory.fromColumn(LandUseDataset.CROPLAND_IDLED));
+        assertEquals("Forest Use Land Not Grazed", LandUseCategory.FOREST_USE_LAND_NOT_GRAZED.getDisplayName());
+
+        List<LandUseDataLineItem> lineItems = LandUseDataProcessing.processData(FILE_PATH);
+        LandUseDataset dataset = LandUseDataset.fromLineItems(lineItems);
+        for (int row = 0; row < lineItems.size(); row++) {
+            for (LandUseCategory category : LandUseCategory.values()) {
+                assertEquals(lineItems.get(row).getLandUse(category), dataset.getValue(row, category));
+                assertEquals(lineItems.get(row).isMissing(category), dataset.isMissing(row, category));
+            }
+        }
+        assertEquals(lineItems.stream().max(LandUseDataLineItem.BY_FOREST_USE_LAND).get(),
+                lineItems.stream().max(LandUseDataLineItem.comparing(LandUseCategory.FOREST_USE_LAND)).get());
+    }
+
+    /**
+     * Tests the numeric year column, yearBetween(), and the year number and
+     * region total flags on LandUseDataLineItem.
+     * @throws IOException
+     */
+    @Test
+    public void LandUseYearNumbersTest() throws IOException {
+
+        assertEquals(1945, LandUseDataset.parseYear("1945"));
+        assertEquals(LandUseDataset.NO_YEAR, LandUseDataset.parseYear("N.A."));
+        assertEquals(LandUseDataset.NO_YEAR, LandUseDataset.parseYear(""));
+        assertEquals(LandUseDataset.NO_YEAR, LandUseDataset.parseYear("99999"));
+
+        List<LandUseDataLineItem> lineItems = LandUseDataProcessing.processData(FILE_PATH);
+        LandUseDataset dataset = LandUseDataset.fromLineItems(lineItems);
+        short[] yearNumbers = dataset.getYearNumbers();
+        assertEquals(dataset.getYears().size(), yearNumbers.length);
+        for (int row = 0; row < lineItems.size(); row++) {
+            LandUseDataLineItem lineItem = lineItems.get(row);
+            assertEquals(Integer.parseInt(lineItem.getYear()), dataset.getYearNumber(row));
+            assertEquals(dataset.getYearNumber(row), lineItem.getYearNumber());
+            assertEquals(lineItem.getRegion().contains("total"), lineItem.isRegionTotal());
+        }
+
+        assertArrayEquals(LandUseQueryEngine.selectRows(dataset, LandUseFilter.year("1954", "1959", "1964")),
+                LandUseQueryEngine.selectRows(dataset, LandUseFilter.yearBetween(1950, 1964)));
+        assertArrayEquals(LandUseQueryEngine.selectRows(dataset, LandUseFilter.yearBefore(1954)),
+                LandUseQueryEngine.selectRows(dataset, LandUseFilter.yearBetween(Integer.MIN_VALUE, 1953)));
+        assertEquals(0, LandUseQueryEngine.selectRows(dataset, LandUseFilter.yearBetween(2013, 2020)).length);
+    }
+
+    // Checks a maintained query result against running the query in full.
+    private static void assertSameResult(LandUseQuery query, LandUseQueryResult full,
+            LandUseQueryResult incremental) {
+        assertEquals(full.getGroupCount(), incremental.getGroupCount());
+        assertEquals(full.getMatchedRows(), incremental.getMatchedRows());
+        for (int group = 0; group < full.getGroupCount(); group++) {
+            assertEquals(full.getGroup(group), incremental.getGroup(group));
+            for (int aggregate = 0; aggregate < query.getAggregateCount(); aggregate++) {
+                assertEquals(full.getValue(group, aggregate), incremental.getValue(group, aggregate), 0);
+                assertEquals(full.getRow(group, aggregate), incremental.getRow(group, aggregate));
+            }
+        }
+    }
+
+    // Moves a file's modified time back past LandUseIncrementalIngest's quiet period.
+    private static void setQuiet(Path file) throws IOException {
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()
+                - 2 * LandUseIncrementalIngest.QUIET_PERIOD_MILLIS));
+    }
+}
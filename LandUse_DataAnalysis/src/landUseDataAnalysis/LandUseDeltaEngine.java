@@ -0,0 +1,237 @@
+package landUseDataAnalysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Works out how land use changed between survey years for every region or
+ * state (see LandUseDeltaMatrix).
+ *
+ * The rows that match a filter in any of the years asked for are read once.
+ * Each land use column is summed into a flat array indexed by year, entity
+ * and column, then the differences for every year pair are taken in one
+ * LandUseColumnKernels.difference() pass each. Asking for every consecutive year pair costs one pass
+ * over the rows, not one pass per pair.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public final class LandUseDeltaEngine {
+
+    private LandUseDeltaEngine() {
+    }
+
+    /**
+     * Works out the change between two years.
+     *
+     * @param dataset, LandUseDataset to read.
+     * @param filter, LandUseFilter for the rows to include, such as
+     * LandUseFilter.regionTotals().
+     * @param entities, LandUseDimension, REGION or REGION_OR_STATE.
+     * @param fromYear, String, earlier survey year.
+     * @param toYear, String, later survey year.
+     * @param columns, int..., land use columns to compare.
+     * @return LandUseDeltaMatrix, the change for every entity with matching rows.
+     */
+    public static LandUseDeltaMatrix compute(LandUseDataset dataset, LandUseFilter filter,
+            LandUseDimension entities, String fromYear, String toYear, int... columns) {
+        return compute(dataset, filter, entities, new String[] {fromYear}, new String[] {toYear}, columns).get(0);
+    }
+
+    /**
+     * Works out the change between every pair of consecutive survey years in
+     * the rows that match the filter, in year order.
+     *
+     * @param dataset, LandUseDataset to read.
+     * @param filter, LandUseFilter for the rows to include.
+     * @param entities, LandUseDimension, REGION or REGION_OR_STATE.
+     * @param columns, int..., land use columns to compare.
+     * @return List<LandUseDeltaMatrix>, one for each consecutive year pair.
+     */
+    public static List<LandUseDeltaMatrix> computeConsecutive(LandUseDataset dataset, LandUseFilter filter,
+            LandUseDimension entities, int... columns) {
+
+        // The years that matching rows have, in numeric order.
+        LandUseDictionary yearDictionary = dataset.getYears();
+        short[] yearNumbers = dataset.getYearNumbers();
+        boolean[] present = new boolean[yearDictionary.size()];
+        int[] yearColumn = dataset.getYearColumn();
+        for (int row : LandUseQueryEngine.selectRows(dataset, filter)) {
+            present[yearColumn[row]] = true;
+        }
+        List<Integer> yearIds = new ArrayList<>();
+        for (int yearId = 0; yearId < present.length; yearId++) {
+            if (present[yearId]) {
+                yearIds.add(yearId);
+            }
+        }
+        yearIds.sort((first, second) -> Short.compare(yearNumbers[first], yearNumbers[second]));
+        List<String> years = new ArrayList<>();
+        for (int yearId : yearIds) {
+            years.add(yearDictionary.valueOf(yearId));
+        }
+        if (years.size() < 2) {
+            return new ArrayList<>();
+        }
+        return compute(dataset, filter, entities, years.subList(0, years.size() - 1).toArray(new String[0]),
+                years.subList(1, years.size()).toArray(new String[0]), columns);
+    }
+
+    /**
+     * Works out the change for several year pairs in one pass over the rows.
+     *
+     * @param dataset, LandUseDataset to read.
+     * @param filter, LandUseFilter for the rows to include.
+     * @param entities, LandUseDimension, REGION or REGION_OR_STATE.
+     * @param fromYears, String[], earlier survey year of each pair.
+     * @param toYears, String[], later survey year of each pair.
+     * @param columns, int..., land use columns to compare.
+     * @return List<LandUseDeltaMatrix>, one for each pair, in the same order.
+     */
+    public static List<LandUseDeltaMatrix> compute(LandUseDataset dataset, LandUseFilter filter,
+            LandUseDimension entities, String[] fromYears, String[] toYears, int... columns) {
+        if (entities == LandUseDimension.YEAR) {
+            throw new IllegalArgumentException("Deltas are between years, so entities can't be YEAR");
+        }
+        if (fromYears.length != toYears.length) {
+            throw new IllegalArgumentException(
+                    "Got " + fromYears.length + " earlier years but " + toYears.length + " later years");
+        }
+        for (int column : columns) {
+            if (column < 0 || column >= LandUseDataset.LAND_USE_COLUMN_COUNT) {
+                throw new IllegalArgumentException("No land use column " + column);
+            }
+        }
+        int[] columnsCopy = columns.clone();
+        int columnCount = columnsCopy.length;
+
+        // Give each year asked for a slot. Years that aren't in the dataset
+        // keep a slot with no values.
+        LandUseDictionary yearDictionary = dataset.getYears();
+        int[] slotOfYearId = new int[yearDictionary.size()];
+        Arrays.fill(slotOfYearId, -1);
+        List<String> slotYears = new ArrayList<>();
+        int[] fromSlots = new int[fromYears.length];
+        int[] toSlots = new int[toYears.length];
+        for (int pair = 0; pair < fromYears.length; pair++) {
+            fromSlots[pair] = slotOf(fromYears[pair], yearDictionary, slotOfYearId, slotYears);
+            toSlots[pair] = slotOf(toYears[pair], yearDictionary, slotOfYearId, slotYears);
+        }
+
+        // The matching rows in any of the years, and the entities they have.
+        String[] years = slotYears.toArray(new String[0]);
+        int[] rows = LandUseQueryEngine.selectRows(dataset, LandUseFilter.and(filter, LandUseFilter.year(years)));
+        int[] entityColumn = entities.getColumn(dataset);
+        LandUseDictionary entityDictionary = entities.getDictionary(dataset);
+        int[] positionOfId = new int[entityDictionary.size()];
+        Arrays.fill(positionOfId, -1);
+        for (int row : rows) {
+            positionOfId[entityColumn[row]] = 0;
+        }
+        List<String> entityValues = new ArrayList<>();
+        for (int id = 0; id < positionOfId.length; id++) {
+            if (positionOfId[id] == 0) {
+                positionOfId[id] = entityValues.size();
+                entityValues.add(entityDictionary.valueOf(id));
+            }
+        }
+        int entityCount = entityValues.size();
+
+        // Sums and counts indexed [(slot * entityCount + entity) * columnCount + position],
+        // read one column at a time.
+        int cells = entityCount * columnCount;
+        long[] sums = new long[years.length * cells];
+        int[] counts = new int[years.length * cells];
+        int[] yearColumn = dataset.getYearColumn();
+        int[] missing = dataset.getMissingColumn();
+        for (int position = 0; position < columnCount; position++) {
+            int column = columnsCopy[position];
+            int[] values = dataset.getLandUseColumn(column);
+            for (int row : rows) {
+                int cell = (slotOfYearId[yearColumn[row]] * entityCount + positionOfId[entityColumn[row]])
+                        * columnCount + position;
+                int hasValue = ~missing[row] >>> column & 1;
+                sums[cell] += values[row] & -hasValue;
+                counts[cell] += hasValue;
+            }
+        }
+
+        String[] entityArray = entityValues.toArray(new String[0]);
+        List<LandUseDeltaMatrix> matrices = new ArrayList<>(fromYears.length);
+        for (int pair = 0; pair < fromYears.length; pair++) {
+            int from = fromSlots[pair] * cells;
+            int to = toSlots[pair] * cells;
+            long[] fromValues = Arrays.copyOfRange(sums, from, from + cells);
+            long[] toValues = Arrays.copyOfRange(sums, to, to + cells);
+            byte[] hasDeltas = new byte[cells];
+            for (int cell = 0; cell < cells; cell++) {
+                hasDeltas[cell] = (byte) (counts[from + cell] > 0 && counts[to + cell] > 0 ? 1 : 0);
+            }
+            matrices.add(new LandUseDeltaMatrix(fromYears[pair], toYears[pair], entityArray, columnsCopy,
+                    fromValues, toValues, hasDeltas));
+        }
+        return matrices;
+    }
+
+    /**
+     * Builds the change between two years from query results that sum each 
+     * column by entity, such as results read in a LandUseBatchQueryEngine 
+     * pass with other queries.
+     *
+     * @param fromYear, String, earlier survey year.
+     * @param toYear, String, later survey year.
+     * @param from, LandUseQueryResult for the earlier year, with one sum 
+     * aggregate for each column, in the same order.
+     * @param to, LandUseQueryResult for the later year, the same as from.
+     * @param columns, int[], land use columns the sums are of.
+     * @return LandUseDeltaMatrix, the change for every group in either result.
+     */
+    static LandUseDeltaMatrix fromSums(String fromYear, String toYear, LandUseQueryResult from, 
+            LandUseQueryResult to, int[] columns) {
+        List<String> entityValues = new ArrayList<>();
+        for (int group = 0; group < from.getGroupCount(); group++) {
+            entityValues.add(from.getGroup(group));
+        }
+        for (int group = 0; group < to.getGroupCount(); group++) {
+            if (from.indexOfGroup(to.getGroup(group)) == -1) {
+                entityValues.add(to.getGroup(group));
+            }
+        }
+
+        int columnCount = columns.length;
+        int cells = entityValues.size() * columnCount;
+        long[] fromValues = new long[cells];
+        long[] toValues = new long[cells];
+        byte[] hasDeltas = new byte[cells];
+        for (int entity = 0; entity < entityValues.size(); entity++) {
+            int fromGroup = from.indexOfGroup(entityValues.get(entity));
+            int toGroup = to.indexOfGroup(entityValues.get(entity));
+            for (int position = 0; position < columnCount; position++) {
+                int cell = entity * columnCount + position;
+                fromValues[cell] = fromGroup == -1 ? 0 : (long) from.getValue(fromGroup, position);
+                toValues[cell] = toGroup == -1 ? 0 : (long) to.getValue(toGroup, position);
+                hasDeltas[cell] = (byte) (fromGroup != -1 && toGroup != -1
+                        && from.getCount(fromGroup, position) > 0 && to.getCount(toGroup, position) > 0 ? 1 : 0);
+            }
+        }
+        return new LandUseDeltaMatrix(fromYear, toYear, entityValues.toArray(new String[0]), columns.clone(),
+                fromValues, toValues, hasDeltas);
+    }
+
+    // Finds the slot of a year, giving it a new one the first time it is seen.
+    private static int slotOf(String year, LandUseDictionary yearDictionary, int[] slotOfYearId,
+            List<String> slotYears) {
+        int slot = slotYears.indexOf(year);
+        if (slot == -1) {
+            slot = slotYears.size();
+            slotYears.add(year);
+            int yearId = yearDictionary.idOf(year);
+            if (yearId != LandUseDictionary.NOT_FOUND) {
+                slotOfYearId[yearId] = slot;
+            }
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,259 @@
+package landUseDataAnalysis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The change in a set of land use columns for every region or state between
+ * two survey years, as worked out by LandUseDeltaEngine.
+ *
+ * Values are held in flat arrays indexed [entity * getColumnCount() + column
+ * position]. An entity's value for a year is the sum over its matching rows,
+ * leaving out "N.A." values. A delta is only counted when both years have a
+ * value, since a change against "N.A." is not a real change.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public class LandUseDeltaMatrix {
+
+    /**
+     * How shifts are compared.
+     */
+    public enum Change {
+
+        // Later value minus earlier value.
+        ABSOLUTE,
+
+        // Change as a share of the earlier value. Shifts from 0 are left out.
+        RELATIVE
+    }
+
+    private final String fromYear;
+    private final String toYear;
+    private final String[] entities;
+    private final int[] columns;
+    private final long[] fromValues;
+    private final long[] toValues;
+    private final long[] deltas;
+    private final byte[] hasDeltas;
+
+    // Created by LandUseDeltaEngine or LandUseCube, which fill in the values
+    // and mark the cells with a value in both years with a 1 in hasDeltas.
+    // The deltas are taken here in one LandUseColumnKernels pass.
+    LandUseDeltaMatrix(String fromYear, String toYear, String[] entities, int[] columns, long[] fromValues,
+            long[] toValues, byte[] hasDeltas) {
+        this.fromYear = fromYear;
+        this.toYear = toYear;
+        this.entities = entities;
+        this.columns = columns;
+        this.fromValues = fromValues;
+        this.toValues = toValues;
+        this.hasDeltas = hasDeltas;
+        deltas = new long[hasDeltas.length];
+        LandUseColumnKernels.difference(toValues, fromValues, hasDeltas, deltas, deltas.length);
+    }
+
+    /**
+     * Gets the earlier survey year.
+     * @return String
+     */
+    public String getFromYear() {
+        return fromYear;
+    }
+
+    /**
+     * Gets the later survey year.
+     * @return String
+     */
+    public String getToYear() {
+        return toYear;
+    }
+
+    /**
+     * Gets the number of regions or states.
+     * @return int
+     */
+    public int getEntityCount() {
+        return entities.length;
+    }
+
+    /**
+     * Gets a region or state, in dictionary id order.
+     * @param entity, int, position of the entity.
+     * @return String, Region or State.
+     */
+    public String getEntity(int entity) {
+        return entities[entity];
+    }
+
+    /**
+     * Finds the position of a region or state.
+     * @param value, String, Region or State.
+     * @return int, position, or -1 if it had no matching rows.
+     */
+    public int indexOfEntity(String value) {
+        for (int entity = 0; entity < entities.length; entity++) {
+            if (entities[entity].equals(value)) {
+                return entity;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the number of land use columns compared.
+     * @return int
+     */
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    /**
+     * Gets a land use column.
+     * @param position, int, position of the column in the matrix.
+     * @return int, column such as LandUseDataset.FOREST_USE_LAND.
+     */
+    public int getColumn(int position) {
+        return columns[position];
+    }
+
+    /**
+     * Gets an entity's value in the earlier year.
+     * @param entity, int, position of the entity.
+     * @param position, int, position of the column.
+     * @return long, sum of the entity's values, 0 if there were none.
+     */
+    public long getFromValue(int entity, int position) {
+        return fromValues[entity * columns.length + position];
+    }
+
+    /**
+     * Gets an entity's value in the later year.
+     * @param entity, int, position of the entity.
+     * @param position, int, position of the column.
+     * @return long, sum of the entity's values, 0 if there were none.
+     */
+    public long getToValue(int entity, int position) {
+        return toValues[entity * columns.length + position];
+    }
+
+    /**
+     * Gets an entity's change, later minus earlier.
+     * @param entity, int, position of the entity.
+     * @param position, int, position of the column.
+     * @return long, change, 0 if either year had no value (see hasDelta()).
+     */
+    public long getDelta(int entity, int position) {
+        return deltas[entity * columns.length + position];
+    }
+
+    /**
+     * Checks if both years have a value, so the delta is a real change.
+     * @param entity, int, position of the entity.
+     * @param position, int, position of the column.
+     * @return boolean
+     */
+    public boolean hasDelta(int entity, int position) {
+        return hasDeltas[entity * columns.length + position] != 0;
+    }
+
+    /**
+     * Gets an entity's change as a share of its earlier value.
+     * @param entity, int, position of the entity.
+     * @param position, int, position of the column.
+     * @return double, relative change, or NaN if there is no delta or the
+     * earlier value is 0.
+     */
+    public double getRelativeChange(int entity, int position) {
+        int cell = entity * columns.length + position;
+        return hasDeltas[cell] != 0 && fromValues[cell] != 0
+                ? (double) deltas[cell] / Math.abs(fromValues[cell]) : Double.NaN;
+    }
+
+    /**
+     * Finds the column in which an entity shifted most, keeping the first
+     * column on ties.
+     *
+     * @param entity, int, position of the entity.
+     * @param change, Change, ABSOLUTE or RELATIVE.
+     * @return int, position of the column, or -1 if the entity has no deltas.
+     */
+    public int largestShift(int entity, Change change) {
+        if (change == Change.ABSOLUTE) {
+            int cell = LandUseColumnKernels.argmaxAbs(deltas, hasDeltas, entity * columns.length, columns.length);
+            return cell == -1 ? -1 : cell - entity * columns.length;
+        }
+        int best = -1;
+        double bestSize = 0;
+        for (int position = 0; position < columns.length; position++) {
+            double size = size(entity * columns.length + position, change);
+            if (!Double.isNaN(size) && (best == -1 || size > bestSize)) {
+                best = position;
+                bestSize = size;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gets the largest shifts of any entity in any column, largest first.
+     * Ties are kept in entity order, then column order.
+     *
+     * @param limit, int, largest number of shifts to return.
+     * @param change, Change, ABSOLUTE or RELATIVE.
+     * @return List<LandUseShift>, up to limit shifts.
+     */
+    public List<LandUseShift> topShifts(int limit, Change change) {
+        return topShifts(Collections.singletonList(this), limit, change);
+    }
+
+    /**
+     * Gets the largest shifts in several matrices, such as every consecutive
+     * year pair, largest first. Ties are kept in matrix order, then entity
+     * order, then column order.
+     *
+     * @param matrices, List<LandUseDeltaMatrix> to compare.
+     * @param limit, int, largest number of shifts to return.
+     * @param change, Change, ABSOLUTE or RELATIVE.
+     * @return List<LandUseShift>, up to limit shifts.
+     */
+    public static List<LandUseShift> topShifts(List<LandUseDeltaMatrix> matrices, int limit, Change change) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative: " + limit);
+        }
+        List<LandUseShift> shifts = new ArrayList<>();
+        for (LandUseDeltaMatrix matrix : matrices) {
+            for (int cell = 0; cell < matrix.deltas.length; cell++) {
+                if (!Double.isNaN(matrix.size(cell, change))) {
+                    shifts.add(matrix.toShift(cell));
+                }
+            }
+        }
+
+        // List.sort() is stable, so equal shifts keep the order they were added in.
+        shifts.sort(Comparator.comparingDouble((LandUseShift shift) -> change == Change.ABSOLUTE
+                ? Math.abs(shift.getDelta()) : Math.abs(shift.getRelativeChange())).reversed());
+        return new ArrayList<>(shifts.subList(0, Math.min(limit, shifts.size())));
+    }
+
+    // Gets the size of a cell's shift, or NaN if it doesn't have one.
+    private double size(int cell, Change change) {
+        if (hasDeltas[cell] == 0) {
+            return Double.NaN;
+        }
+        if (change == Change.ABSOLUTE) {
+            return Math.abs(deltas[cell]);
+        }
+        return fromValues[cell] == 0 ? Double.NaN : Math.abs((double) deltas[cell] / fromValues[cell]);
+    }
+
+    // Turns a cell into a LandUseShift.
+    private LandUseShift toShift(int cell) {
+        return new LandUseShift(entities[cell / columns.length], fromYear, toYear, columns[cell % columns.length],
+                fromValues[cell], toValues[cell]);
+    }
+}
@@ -0,0 +1,153 @@
+package landUseDataAnalysis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary encoding for the text columns of the land use data (Region,
+ * Region or State and Year).
+ *
+ * Each distinct String is stored once and given a dense int id (0, 1, 2, ...)
+ * in the order it is first seen. Columns then hold these small ids instead of
+ * one String reference per row, and filters can compare ids instead of
+ * calling String.equals() on every row.
+ *
+ * Values can also be looked up by their UTF-8 bytes, so LandUseCsvTokenizer
+ * can encode a field straight from its read buffer without creating a String
+ * for values that are already in the dictionary.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public class LandUseDictionary {
+
+    // Id returned by idOf() when a value has never been added.
+    public static final int NOT_FOUND = -1;
+
+    // Values in id order, and the reverse lookup from value to id.
+    private final List<String> values = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    // UTF-8 bytes of each value in id order, and an open addressing hash
+    // table over those bytes. Table slots hold id + 1 so that 0 means empty.
+    private byte[][] encodedValues = new byte[16][];
+    private int[] byteTable = new int[32];
+
+    /**
+     * Gets the id for a value, adding the value to the dictionary if it
+     * has not been seen before.
+     *
+     * @param value, String to encode.
+     * @return int, id of the value.
+     */
+    public int add(String value) {
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = values.size();
+            values.add(value);
+            ids.put(value, id);
+            addEncoded(value.getBytes(StandardCharsets.UTF_8), id);
+        }
+        return id;
+    }
+
+    /**
+     * Gets the id for a value without adding it.
+     *
+     * @param value, String to look up.
+     * @return int, id of the value or NOT_FOUND.
+     */
+    public int idOf(String value) {
+        Integer id = ids.get(value);
+        return id == null ? NOT_FOUND : id;
+    }
+
+    /**
+     * Gets the id for a value given as UTF-8 bytes, without adding it.
+     *
+     * @param bytes, byte[] holding the value.
+     * @param offset, int, index of the first byte of the value.
+     * @param length, int, number of bytes in the value.
+     * @return int, id of the value or NOT_FOUND.
+     */
+    public int idOf(byte[] bytes, int offset, int length) {
+        int mask = byteTable.length - 1;
+        for (int slot = hash(bytes, offset, length) & mask; byteTable[slot] != 0; slot = (slot + 1) & mask) {
+            int id = byteTable[slot] - 1;
+            byte[] encoded = encodedValues[id];
+            if (encoded.length == length && rangeEquals(encoded, bytes, offset, length)) {
+                return id;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Gets the value for an id.
+     *
+     * @param id, int id previously returned by add().
+     * @return String, the encoded value.
+     */
+    public String valueOf(int id) {
+        return values.get(id);
+    }
+
+    /**
+     * Gets the number of distinct values in the dictionary.
+     *
+     * @return int, number of values.
+     */
+    public int size() {
+        return values.size();
+    }
+
+    // Stores the bytes of a new value and adds them to the byte hash table,
+    // doubling the table when it becomes half full.
+    private void addEncoded(byte[] encoded, int id) {
+        if (id == encodedValues.length) {
+            encodedValues = Arrays.copyOf(encodedValues, id * 2);
+        }
+        encodedValues[id] = encoded;
+        if ((id + 1) * 2 > byteTable.length) {
+            byteTable = new int[byteTable.length * 2];
+            for (int existing = 0; existing < id; existing++) {
+                insert(encodedValues[existing], existing);
+            }
+        }
+        insert(encoded, id);
+    }
+
+    // Puts an id in the first free slot for its bytes.
+    private void insert(byte[] encoded, int id) {
+        int mask = byteTable.length - 1;
+        int slot = hash(encoded, 0, encoded.length) & mask;
+        while (byteTable[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        byteTable[slot] = id + 1;
+    }
+
+    // Hashes a byte range, spreading the bits so nearby values use different slots.
+    private static int hash(byte[] bytes, int offset, int length) {
+        int hash = 1;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    // Compares a stored value with a byte range of the same length.
+    private static boolean rangeEquals(byte[] encoded, byte[] bytes, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            if (encoded[i] != bytes[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,48 @@
+package landUseDataAnalysis;
+
+/**
+ * The text columns of a LandUseDataset that a query can group by or count
+ * the distinct values of.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public enum LandUseDimension {
+
+    REGION,
+    REGION_OR_STATE,
+    YEAR;
+
+    /**
+     * Gets the dictionary id column for this dimension.
+     * @param dataset, LandUseDataset to read.
+     * @return int[], dictionary id by row.
+     */
+    public int[] getColumn(LandUseDataset dataset) {
+        switch (this) {
+            case REGION:
+                return dataset.getRegionColumn();
+            case REGION_OR_STATE:
+                return dataset.getRegionOrStateColumn();
+            default:
+                return dataset.getYearColumn();
+        }
+    }
+
+    /**
+     * Gets the dictionary for this dimension.
+     * @param dataset, LandUseDataset to read.
+     * @return LandUseDictionary, values of this dimension.
+     */
+    public LandUseDictionary getDictionary(LandUseDataset dataset) {
+        switch (this) {
+            case REGION:
+                return dataset.getRegions();
+            case REGION_OR_STATE:
+                return dataset.getRegionsOrStates();
+            default:
+                return dataset.getYears();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package landUseDataAnalysis;
+
+import java.util.Arrays;
+
+/**
+ * The distinct (group, value id) pairs seen by a COUNT_DISTINCT aggregate,
+ * for LandUseAccumulator.
+ *
+ * Each pair is packed into a long, group in the high 32 bits and value id
+ * in the low 32 bits, and kept in an open addressing hash table of longs.
+ * Memory grows with the number of distinct pairs actually seen rather than
+ * with the number of groups times the number of values, so counting
+ * distinct states by region stays small when both dictionaries are large.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+final class LandUseDistinctPairs {
+
+    // Group and value ids are never negative, so no pair is -1.
+    private static final long EMPTY = -1L;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] table = newTable(INITIAL_CAPACITY);
+    private int size;
+
+    /**
+     * Adds a pair.
+     *
+     * @param group, int, group id.
+     * @param value, int, value id.
+     * @return boolean, true if the pair had not been added before.
+     */
+    boolean add(int group, int value) {
+        long pair = (long) group << 32 | value;
+        int mask = table.length - 1;
+        for (int slot = hash(pair) & mask; ; slot = (slot + 1) & mask) {
+            long current = table[slot];
+            if (current == pair) {
+                return false;
+            }
+            if (current == EMPTY) {
+                table[slot] = pair;
+                if (++size * 2 > table.length) {
+                    rehash();
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Adds every pair of another set, counting the new pairs by group.
+     *
+     * @param other, LandUseDistinctPairs to add.
+     * @param counts, int[], distinct count by group, incremented for each
+     * pair that had not been added before.
+     */
+    void addAll(LandUseDistinctPairs other, int[] counts) {
+        for (long pair : other.table) {
+            if (pair != EMPTY && add((int) (pair >>> 32), (int) pair)) {
+                counts[(int) (pair >>> 32)]++;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of distinct pairs.
+     * @return int
+     */
+    int size() {
+        return size;
+    }
+
+    // Doubles the table, keeping it at most half full.
+    private void rehash() {
+        long[] old = table;
+        table = newTable(Math.multiplyExact(old.length, 2));
+        int mask = table.length - 1;
+        for (long pair : old) {
+            if (pair != EMPTY) {
+                int slot = hash(pair) & mask;
+                while (table[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = pair;
+            }
+        }
+    }
+
+    private static long[] newTable(int capacity) {
+        long[] table = new long[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+
+    // Spreads the bits of a pair, so pairs of one group don't cluster.
+    private static int hash(long pair) {
+        long h = pair * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
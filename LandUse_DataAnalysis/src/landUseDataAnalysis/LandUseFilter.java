@@ -0,0 +1,609 @@
+package landUseDataAnalysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+
+/**
+ * A filter expression for a LandUseQuery.
+ *
+ * Filters are built with the static methods of this class, for example
+ *
+ *     LandUseFilter.and(LandUseFilter.year("1974"), LandUseFilter.regionTotals())
+ *
+ * A filter works on sorted lists of row numbers rather than on one row at a
+ * time. Filters on Year, Region and Region or State intersect the rows with
+ * posting lists from the dataset's LandUseDatasetIndex, so they never read a
+ * column. Filters on land use values read only the one land use column, and
+ * only for the rows that are left. and() runs its index filters first so the
+ * value filters read as few rows as possible.
+ *
+ * A filter can also test one row at a time (see matcher()), which is how
+ * LandUseBatchQueryEngine checks many queries in a single pass over the rows,
+ * and whole blocks of rows against the dataset's LandUseZoneMap (see
+ * blockMatcher()), so scans can skip blocks where no row can match.
+ *
+ * Rows with "N.A." in a land use column never match a filter on that column.
+ *
+ * Each filter has a normalized key, which is also its toString(). Values
+ * and the filters inside and() and or() are sorted and repeats dropped, so
+ * filters that always match the same rows, such as year("1974", "1954") and
+ * year("1954", "1974"), are equal. LandUseQueryCache relies on this.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public abstract class LandUseFilter {
+
+    private final String key;
+
+    private LandUseFilter(String key) {
+        this.key = key;
+    }
+
+    /**
+     * Selects the rows that match this filter.
+     *
+     * @param dataset, LandUseDataset to read.
+     * @param rows, int[], candidate row numbers in ascending order.
+     * @return int[], the candidate rows that match, in ascending order.
+     */
+    public abstract int[] select(LandUseDataset dataset, int[] rows);
+
+    /**
+     * Makes a test for one row at a time, for scans that check every row
+     * such as LandUseBatchQueryEngine. Any lookups are done once here, not
+     * once per row.
+     *
+     * @param dataset, LandUseDataset to read.
+     * @return IntPredicate, true for row numbers that match.
+     */
+    abstract IntPredicate matcher(LandUseDataset dataset);
+
+    /**
+     * Makes a test for blocks of rows from the statistics in the dataset's
+     * LandUseZoneMap. A block that fails has no rows that match, so it can
+     * be skipped. A block that passes may or may not have rows that match.
+     *
+     * @param dataset, LandUseDataset to read.
+     * @return IntPredicate, false for block numbers with no matching rows.
+     */
+    IntPredicate blockMatcher(LandUseDataset dataset) {
+        return block -> true;
+    }
+
+    // True when select() only uses index posting lists, which is cheaper than
+    // reading column values.
+    boolean usesIndex() {
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof LandUseFilter && key.equals(((LandUseFilter) other).key);
+    }
+
+    @Override
+    public int hashCode() {
+        return key.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+
+    /**
+     * Matches every row.
+     * @return LandUseFilter
+     */
+    public static LandUseFilter all() {
+        return new AllFilter();
+    }
+
+    /**
+     * Matches rows for any of the given survey years.
+     * @param years, String... survey years such as "1974".
+     * @return LandUseFilter
+     */
+    public static LandUseFilter year(String... years) {
+        String[] values = years.clone();
+        return new IndexFilter(key("year", values), LandUseDimension.YEAR,
+                dataset -> markIds(dataset.getYears(), values), null);
+    }
+
+    /**
+     * Matches rows for survey years before the given year.
+     * @param year, int, first year that does not match.
+     * @return LandUseFilter
+     */
+    public static LandUseFilter yearBefore(int year) {
+        return new IndexFilter("yearBefore(" + year + ")", LandUseDimension.YEAR,
+                dataset -> markYears(dataset, Integer.MIN_VALUE, year - 1L), null);
+    }
+
+    /**
+     * Matches rows for survey years from first to last, inclusive.
+     * @param first, int, first year that matches.
+     * @param last, int, last year that matches.
+     * @return LandUseFilter
+     */
+    public static LandUseFilter yearBetween(int first, int last) {
+        return new IndexFilter("yearBetween(" + first + ", " + last + ")", LandUseDimension.YEAR,
+                dataset -> markYears(dataset, first, last), null);
+    }
+
+    /**
+     * Matches rows for any of the given Regions.
+     * @param regions, String... regions such as "Pacific" or "Mountain total".
+     * @return LandUseFilter
+     */
+    public static LandUseFilter region(String... regions) {
+        String[] values = regions.clone();
+        return new IndexFilter(key("region", values), LandUseDimension.REGION,
+                dataset -> markIds(dataset.getRegions(), values), null);
+    }
+
+    /**
+     * Matches rows for any of the given Regions or States.
+     * @param regionsOrStates, String... regions or states such as "Georgia".
+     * @return LandUseFilter
+     */
+    public static LandUseFilter regionOrState(String... regionsOrStates) {
+        String[] values = regionsOrStates.clone();
+        return new IndexFilter(key("regionOrState", values), LandUseDimension.REGION_OR_STATE,
+                dataset -> markIds(dataset.getRegionsOrStates(), values), null);
+    }
+
+    /**
+     * Matches regional total rows (the Region contains "total").
+     * @return LandUseFilter
+     */
+    public static LandUseFilter regionTotals() {
+        return new IndexFilter("regionTotals", LandUseDimension.REGION, dataset -> dataset.getIndex().getRegionTotals(),
+                dataset -> dataset.getIndex().getRegionTotalRows());
+    }
+
+    /**
+     * Matches state rows, that is rows that are not regional totals.
+     * @return LandUseFilter
+     */
+    public static LandUseFilter states() {
+        return new IndexFilter("states", LandUseDimension.REGION, dataset -> {
+            boolean[] regionTotals = dataset.getIndex().getRegionTotals();
+            boolean[] ids = new boolean[regionTotals.length];
+            for (int regionId = 0; regionId < ids.length; regionId++) {
+                ids[regionId] = !regionTotals[regionId];
+            }
+            return ids;
+        }, dataset -> dataset.getIndex().getStateRows());
+    }
+
+    /**
+     * Matches rows where a land use column is at least a value.
+     * @param column, int, land use column, such as LandUseDataset.LAND_IN_URBAN_AREAS.
+     * @param value, int, smallest value that matches.
+     * @return LandUseFilter
+     */
+    public static LandUseFilter atLeast(int column, int value) {
+        return new RangeFilter(column, value, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Matches rows where a land use category is at least a value.
+     * @param category, LandUseCategory, such as LandUseCategory.LAND_IN_URBAN_AREAS.
+     * @param value, int, smallest value that matches.
+     * @return LandUseFilter
+     */
+    public static LandUseFilter atLeast(LandUseCategory category, int value) {
+        return atLeast(category.getColumn(), value);
+    }
+
+    /**
+     * Matches rows where a land use column is at most a value.
+     * @param column, int, land use column, such as LandUseDataset.LAND_IN_URBAN_AREAS.
+     * @param value, int, largest value that matches.
+     * @return LandUseFilter
+     */
+    public static LandUseFilter atMost(int column, int value) {
+        return new RangeFilter(column, Integer.MIN_VALUE, value);
+    }
+
+    /**
+     * Matches rows where a land use category is at most a value.
+     * @param category, LandUseCategory, such as LandUseCategory.LAND_IN_URBAN_AREAS.
+     * @param value, int, largest value that matches.
+     * @return LandUseFilter
+     */
+    public static LandUseFilter atMost(LandUseCategory category, int value) {
+        return atMost(category.getColumn(), value);
+    }
+
+    /**
+     * Matches rows where a land use column is between two values.
+     * @param column, int, land use column, such as LandUseDataset.LAND_IN_URBAN_AREAS.
+     * @param min, int, smallest value that matches.
+     * @param max, int, largest value that matches.
+     * @return LandUseFilter
+     */
+    public static LandUseFilter between(int column, int min, int max) {
+        return new RangeFilter(column, min, max);
+    }
+
+    /**
+     * Matches rows where a land use category is between two values.
+     * @param category, LandUseCategory, such as LandUseCategory.LAND_IN_URBAN_AREAS.
+     * @param min, int, smallest value that matches.
+     * @param max, int, largest value that matches.
+     * @return LandUseFilter
+     */
+    public static LandUseFilter between(LandUseCategory category, int min, int max) {
+        return between(category.getColumn(), min, max);
+    }
+
+    /**
+     * Matches rows where a land use column is not "N.A.".
+     * @param column, int, land use column, such as LandUseDataset.LAND_IN_URBAN_AREAS.
+     * @return LandUseFilter
+     */
+    public static LandUseFilter notMissing(int column) {
+        return new RangeFilter(column, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Matches rows where a land use category is not "N.A.".
+     * @param category, LandUseCategory, such as LandUseCategory.LAND_IN_URBAN_AREAS.
+     * @return LandUseFilter
+     */
+    public static LandUseFilter notMissing(LandUseCategory category) {
+        return notMissing(category.getColumn());
+    }
+
+    /**
+     * Matches rows that match every one of the given filters.
+     * @param filters, LandUseFilter...
+     * @return LandUseFilter
+     */
+    public static LandUseFilter and(LandUseFilter... filters) {
+        return new AndFilter(filters);
+    }
+
+    /**
+     * Matches rows that match any of the given filters.
+     * @param filters, LandUseFilter...
+     * @return LandUseFilter
+     */
+    public static LandUseFilter or(LandUseFilter... filters) {
+        return new OrFilter(filters);
+    }
+
+    // Makes the key of a filter from its name and its values or inner
+    // filters, sorted with repeats dropped. Values are quoted so a value
+    // holding a comma, such as "Region 4, West", stays one value. One inner
+    // filter of and() or or() is the same as that filter on its own.
+    private static String key(String name, Object[] values) {
+        TreeSet<String> sorted = new TreeSet<>();
+        for (Object value : values) {
+            sorted.add(value instanceof String ? '"' + ((String) value).replace("\"", "\"\"") + '"'
+                    : value.toString());
+        }
+        if ((name.equals("and") || name.equals("or")) && sorted.size() == 1) {
+            return sorted.first();
+        }
+        return name + "(" + String.join(", ", sorted) + ")";
+    }
+
+    // Marks the dictionary ids of the given values. Values that are not in
+    // the dictionary match no rows.
+    private static boolean[] markIds(LandUseDictionary dictionary, String[] values) {
+        boolean[] ids = new boolean[dictionary.size()];
+        for (String value : values) {
+            int id = dictionary.idOf(value);
+            if (id != LandUseDictionary.NOT_FOUND) {
+                ids[id] = true;
+            }
+        }
+        return ids;
+    }
+
+    // Marks the ids of the years from first to last, comparing the year
+    // numbers parsed once per distinct year. Years that are not numbers
+    // match no range.
+    private static boolean[] markYears(LandUseDataset dataset, long first, long last) {
+        short[] yearNumbers = dataset.getYearNumbers();
+        boolean[] ids = new boolean[yearNumbers.length];
+        for (int yearId = 0; yearId < ids.length; yearId++) {
+            ids[yearId] = yearNumbers[yearId] != LandUseDataset.NO_YEAR
+                    && yearNumbers[yearId] >= first && yearNumbers[yearId] <= last;
+        }
+        return ids;
+    }
+
+    // Makes the row tests for a list of filters.
+    private static IntPredicate[] matchers(LandUseFilter[] filters, LandUseDataset dataset) {
+        IntPredicate[] matchers = new IntPredicate[filters.length];
+        for (int i = 0; i < filters.length; i++) {
+            matchers[i] = filters[i].matcher(dataset);
+        }
+        return matchers;
+    }
+
+    // Makes the block tests for a list of filters.
+    private static IntPredicate[] blockMatchers(LandUseFilter[] filters, LandUseDataset dataset) {
+        IntPredicate[] blockMatchers = new IntPredicate[filters.length];
+        for (int i = 0; i < filters.length; i++) {
+            blockMatchers[i] = filters[i].blockMatcher(dataset);
+        }
+        return blockMatchers;
+    }
+
+    // Matches every row.
+    private static final class AllFilter extends LandUseFilter {
+
+        private AllFilter() {
+            super("all");
+        }
+
+        @Override
+        public int[] select(LandUseDataset dataset, int[] rows) {
+            return rows;
+        }
+
+        @Override
+        IntPredicate matcher(LandUseDataset dataset) {
+            return row -> true;
+        }
+
+        @Override
+        boolean usesIndex() {
+            return true;
+        }
+    }
+
+    // Matches rows whose Year, Region or Region or State id is marked, by
+    // intersecting the rows with the posting lists of the marked ids.
+    private static final class IndexFilter extends LandUseFilter {
+
+        private final LandUseDimension dimension;
+        private final Function<LandUseDataset, boolean[]> ids;
+        private final Function<LandUseDataset, int[]> postingList;
+
+        // postingList may be null, in which case the posting lists of the
+        // marked ids are joined.
+        private IndexFilter(String key, LandUseDimension dimension, Function<LandUseDataset, boolean[]> ids,
+                Function<LandUseDataset, int[]> postingList) {
+            super(key);
+            this.dimension = dimension;
+            this.ids = ids;
+            this.postingList = postingList;
+        }
+
+        @Override
+        public int[] select(LandUseDataset dataset, int[] rows) {
+            int[] matching;
+            if (postingList != null) {
+                matching = postingList.apply(dataset);
+            } else {
+                LandUseDatasetIndex index = dataset.getIndex();
+                boolean[] marked = ids.apply(dataset);
+                List<int[]> postingLists = new ArrayList<>();
+                for (int id = 0; id < marked.length; id++) {
+                    if (marked[id]) {
+                        postingLists.add(index.getRows(dimension, id));
+                    }
+                }
+                matching = LandUseDatasetIndex.union(postingLists.toArray(new int[0][]));
+            }
+
+            // Ascending rows with one entry per row in the dataset are every
+            // row, so the posting list is already the answer.
+            if (rows.length == dataset.getRowCount()) {
+                return matching;
+            }
+            return LandUseDatasetIndex.intersect(rows, matching);
+        }
+
+        @Override
+        IntPredicate matcher(LandUseDataset dataset) {
+            boolean[] marked = ids.apply(dataset);
+            int[] column = dimension.getColumn(dataset);
+            return row -> marked[column[row]];
+        }
+
+        @Override
+        IntPredicate blockMatcher(LandUseDataset dataset) {
+
+            // markedBelow[id] counts the marked ids below id, so a block can
+            // be checked for any marked id between its min and max id
+            // without looping over the range.
+            boolean[] marked = ids.apply(dataset);
+            int[] markedBelow = new int[marked.length + 1];
+            for (int id = 0; id < marked.length; id++) {
+                markedBelow[id + 1] = markedBelow[id] + (marked[id] ? 1 : 0);
+            }
+            LandUseZoneMap zoneMap = dataset.getZoneMap();
+            return block -> markedBelow[zoneMap.getMaxId(dimension, block) + 1]
+                    > markedBelow[zoneMap.getMinId(dimension, block)];
+        }
+
+        @Override
+        boolean usesIndex() {
+            return true;
+        }
+    }
+
+    // Keeps the rows whose land use value is in a range and is not "N.A.".
+    private static final class RangeFilter extends LandUseFilter {
+
+        private final int column;
+        private final int min;
+        private final int max;
+
+        private RangeFilter(int column, int min, int max) {
+            super("range(" + column + ", " + (min == Integer.MIN_VALUE ? "" : Integer.toString(min)) + ".."
+                    + (max == Integer.MAX_VALUE ? "" : Integer.toString(max)) + ")");
+            this.column = column;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public int[] select(LandUseDataset dataset, int[] rows) {
+            int[] values = dataset.getLandUseColumn(column);
+            int[] missing = dataset.getMissingColumn();
+            int missingBit = 1 << column;
+            int[] selected = new int[rows.length];
+            int count = 0;
+            for (int row : rows) {
+                int value = values[row];
+                if ((missing[row] & missingBit) == 0 && value >= min && value <= max) {
+                    selected[count++] = row;
+                }
+            }
+            return count == selected.length ? selected : Arrays.copyOf(selected, count);
+        }
+
+        @Override
+        IntPredicate matcher(LandUseDataset dataset) {
+            int[] values = dataset.getLandUseColumn(column);
+            int[] missing = dataset.getMissingColumn();
+            int missingBit = 1 << column;
+            return row -> (missing[row] & missingBit) == 0 && values[row] >= min && values[row] <= max;
+        }
+
+        @Override
+        IntPredicate blockMatcher(LandUseDataset dataset) {
+            LandUseZoneMap zoneMap = dataset.getZoneMap();
+            return block -> zoneMap.mayContain(column, block, min, max);
+        }
+    }
+
+    // Runs each filter on the rows left by the one before, index filters first.
+    private static final class AndFilter extends LandUseFilter {
+
+        private final LandUseFilter[] filters;
+
+        private AndFilter(LandUseFilter[] filters) {
+            super(key("and", filters));
+            List<LandUseFilter> ordered = new ArrayList<>();
+            for (LandUseFilter filter : filters) {
+                if (filter.usesIndex()) {
+                    ordered.add(filter);
+                }
+            }
+            for (LandUseFilter filter : filters) {
+                if (!filter.usesIndex()) {
+                    ordered.add(filter);
+                }
+            }
+            this.filters = ordered.toArray(new LandUseFilter[0]);
+        }
+
+        @Override
+        public int[] select(LandUseDataset dataset, int[] rows) {
+            for (LandUseFilter filter : filters) {
+                if (rows.length == 0) {
+                    break;
+                }
+                rows = filter.select(dataset, rows);
+            }
+            return rows;
+        }
+
+        @Override
+        IntPredicate matcher(LandUseDataset dataset) {
+            IntPredicate[] matchers = matchers(filters, dataset);
+            return row -> {
+                for (IntPredicate matcher : matchers) {
+                    if (!matcher.test(row)) {
+                        return false;
+                    }
+                }
+                return true;
+            };
+        }
+
+        @Override
+        IntPredicate blockMatcher(LandUseDataset dataset) {
+            IntPredicate[] blockMatchers = blockMatchers(filters, dataset);
+            return block -> {
+                for (IntPredicate blockMatcher : blockMatchers) {
+                    if (!blockMatcher.test(block)) {
+                        return false;
+                    }
+                }
+                return true;
+            };
+        }
+
+        @Override
+        boolean usesIndex() {
+            for (LandUseFilter filter : filters) {
+                if (!filter.usesIndex()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // Joins the rows selected by each filter.
+    private static final class OrFilter extends LandUseFilter {
+
+        private final LandUseFilter[] filters;
+
+        private OrFilter(LandUseFilter[] filters) {
+            super(key("or", filters));
+            this.filters = filters.clone();
+        }
+
+        @Override
+        public int[] select(LandUseDataset dataset, int[] rows) {
+            int[][] selected = new int[filters.length][];
+            for (int i = 0; i < filters.length; i++) {
+                selected[i] = filters[i].select(dataset, rows);
+            }
+            return LandUseDatasetIndex.union(selected);
+        }
+
+        @Override
+        IntPredicate matcher(LandUseDataset dataset) {
+            IntPredicate[] matchers = matchers(filters, dataset);
+            return row -> {
+                for (IntPredicate matcher : matchers) {
+                    if (matcher.test(row)) {
+                        return true;
+                    }
+                }
+                return false;
+            };
+        }
+
+        @Override
+        IntPredicate blockMatcher(LandUseDataset dataset) {
+            IntPredicate[] blockMatchers = blockMatchers(filters, dataset);
+            return block -> {
+                for (IntPredicate blockMatcher : blockMatchers) {
+                    if (blockMatcher.test(block)) {
+                        return true;
+                    }
+                }
+                return false;
+            };
+        }
+
+        @Override
+        boolean usesIndex() {
+            for (LandUseFilter filter : filters) {
+                if (!filter.usesIndex()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
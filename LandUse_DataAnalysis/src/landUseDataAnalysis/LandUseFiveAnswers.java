@@ -0,0 +1,78 @@
+package landUseDataAnalysis;
+
+/**
+ *
+ * United States (U.S.) Land Use Survey Data (1945-2012) from
+ * the U.S. Department of Agriculture.
+ *
+ * Object instances hold the answers to all five questions of
+ * LandUseData5QuestionAnalysis, as worked out together by answerAll().
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public class LandUseFiveAnswers {
+
+    // Creating private fields for each answer.
+    private String regionMaxGrasslandPasture1974;
+    private int regionsUrbanLand2000Prior1987;
+    private double averageCroplandForPasturePacificMountain1964;
+    private String maxForestUseland13Colonies2012;
+    private RegionMaxLandUseDelta regionMaxShiftLandUse1945To2012;
+
+    // Constructor assigns values to fields.
+    public LandUseFiveAnswers(String regionMaxGrasslandPasture1974, int regionsUrbanLand2000Prior1987,
+            double averageCroplandForPasturePacificMountain1964, String maxForestUseland13Colonies2012,
+            RegionMaxLandUseDelta regionMaxShiftLandUse1945To2012) {
+        this.regionMaxGrasslandPasture1974 = regionMaxGrasslandPasture1974;
+        this.regionsUrbanLand2000Prior1987 = regionsUrbanLand2000Prior1987;
+        this.averageCroplandForPasturePacificMountain1964 = averageCroplandForPasturePacificMountain1964;
+        this.maxForestUseland13Colonies2012 = maxForestUseland13Colonies2012;
+        this.regionMaxShiftLandUse1945To2012 = regionMaxShiftLandUse1945To2012;
+    }
+
+    /**
+     * Gets the answer to question 1.
+     * @return String, region with most Grassland pasture and range in 1974.
+     */
+    public String getRegionMaxGrasslandPasture1974() {
+        return regionMaxGrasslandPasture1974;
+    }
+
+    /**
+     * Gets the answer to question 2.
+     * @return int, number of states with at least 2000 in Land in Urban areas
+     * prior to 1987.
+     */
+    public int getRegionsUrbanLand2000Prior1987() {
+        return regionsUrbanLand2000Prior1987;
+    }
+
+    /**
+     * Gets the answer to question 3.
+     * @return double, average acres of Cropland used for pasture in the
+     * Pacific and Mountain regions in 1964.
+     */
+    public double getAverageCroplandForPasturePacificMountain1964() {
+        return averageCroplandForPasturePacificMountain1964;
+    }
+
+    /**
+     * Gets the answer to question 4.
+     * @return String, state in territory of original 13 colonies with most
+     * Forest Use Land in 2012.
+     */
+    public String getMaxForestUseland13Colonies2012() {
+        return maxForestUseland13Colonies2012;
+    }
+
+    /**
+     * Gets the answer to question 5.
+     * @return RegionMaxLandUseDelta, region with largest shift in land use
+     * between 1945 and 2012.
+     */
+    public RegionMaxLandUseDelta getRegionMaxShiftLandUse1945To2012() {
+        return regionMaxShiftLandUse1945To2012;
+    }
+}
@@ -0,0 +1,356 @@
+package landUseDataAnalysis;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Java Flight Recorder events for reading land use data and running
+ * queries, so a recording shows which file, chunk or question the program
+ * was working on next to the GC pauses and CPU samples.
+ *
+ * FILE_OPEN          a csv file opened for reading, with its size.
+ * CHUNK_PARSE        one LandUseCsvTokenizer from creation to close: a file,
+ *                    a memory mapped chunk of one or the bytes read by a
+ *                    LandUseIncrementalIngest poll, with the lines, rows
+ *                    kept, lines excluded and bytes read.
+ * DATASET_BUILD      one LandUseDataProcessing.processDataset...() call,
+ *                    with the files or chunks read, threads and rows.
+ * QUERY_EXECUTION    one query run by LandUseQueryEngine,
+ *                    LandUseBatchQueryEngine or LandUseParallelQueryEngine,
+ *                    with the rows scanned and matched and the result. The
+ *                    queries of a batch share one pass over the dataset,
+ *                    so each has the duration of the whole pass.
+ *
+ * The events are written without stack traces, which are most of the cost
+ * of a committed event, and their fields are only filled in once JFR has
+ * said it wants the event, so they are cheap enough to leave enabled. When
+ * JFR isn't recording, or the events are disabled in its settings, each
+ * begin method creates an event that never escapes and the commit methods
+ * do nothing else.
+ *
+ * This class doesn't use jdk.jfr, so it compiles and runs on any Java 8.
+ * The events themselves are LandUseJfrEvents in the jfr source folder,
+ * which needs a JDK with the jdk.jfr module (8u262 or later, or 11 and
+ * later) and is loaded by name when this class is first used. When that
+ * module or folder is missing the begin methods return null and no event
+ * class is loaded. FileOpen, ChunkParse, DatasetBuild and QueryExecution
+ * are the parts of each event this class uses.
+ *
+ * The events are enabled in a recording by name, for example with
+ * -XX:StartFlightRecording and a .jfc file, or Recording.enable(FILE_OPEN).
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+final class LandUseFlightEvents {
+
+    static final String FILE_OPEN = "landUseDataAnalysis.FileOpen";
+    static final String CHUNK_PARSE = "landUseDataAnalysis.ChunkParse";
+    static final String DATASET_BUILD = "landUseDataAnalysis.DatasetBuild";
+    static final String QUERY_EXECUTION = "landUseDataAnalysis.QueryExecution";
+
+    // Groups shown in a query's result field, so a query grouped by state
+    // doesn't write every state.
+    static final int RESULT_GROUPS = 3;
+
+    // Class that creates the events, in the jfr source folder.
+    static final String EVENTS_CLASS = "landUseDataAnalysis.LandUseJfrEvents";
+
+    private static final Factory FACTORY = loadFactory();
+
+    private LandUseFlightEvents() {
+    }
+
+    // Loads the events, or gives null without the jdk.jfr module or the
+    // jfr source folder. jdk.jfr.Event is looked for first so that a JVM
+    // without it doesn't try to link the event classes.
+    private static Factory loadFactory() {
+        try {
+            ClassLoader loader = LandUseFlightEvents.class.getClassLoader();
+            Class.forName("jdk.jfr.Event", false, loader);
+            return (Factory) Class.forName(EVENTS_CLASS, true, loader).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Starts timing a file open.
+     * @return FileOpen, event to pass to commitFileOpen(), or null without JFR.
+     */
+    static FileOpen beginFileOpen() {
+        if (FACTORY == null) {
+            return null;
+        }
+        FileOpen event = FACTORY.fileOpen();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends a file open event and commits it if JFR is recording it.
+     *
+     * @param event, FileOpen from beginFileOpen(), may be null.
+     * @param path, Path of the file opened.
+     */
+    static void commitFileOpen(FileOpen event, Path path) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.set(path.toString(), path.toFile().length());
+            event.commit();
+        }
+    }
+
+    /**
+     * Starts timing a chunk parse.
+     * @return ChunkParse, event to pass to commitChunkParse(), or null without JFR.
+     */
+    static ChunkParse beginChunkParse() {
+        if (FACTORY == null) {
+            return null;
+        }
+        ChunkParse event = FACTORY.chunkParse();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends a chunk parse event and commits it if JFR is recording it.
+     *
+     * @param event, ChunkParse from beginChunkParse(), may be null.
+     * @param source, String, the file or chunk parsed.
+     * @param counts, IngestCounts of the tokenizer that parsed it.
+     */
+    static void commitChunkParse(ChunkParse event, String source, LandUsePipelineMetrics.IngestCounts counts) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            long excludedLines = 0;
+            for (long lines : counts.excludedLines) {
+                excludedLines += lines;
+            }
+            event.set(source, counts.linesRead, counts.rowsKept, excludedLines, counts.bytesRead);
+            event.commit();
+        }
+    }
+
+    /**
+     * Starts timing a dataset build.
+     * @return DatasetBuild, event to pass to commitDatasetBuild(), or null without JFR.
+     */
+    static DatasetBuild beginDatasetBuild() {
+        if (FACTORY == null) {
+            return null;
+        }
+        DatasetBuild event = FACTORY.datasetBuild();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends a dataset build event and commits it if JFR is recording it.
+     *
+     * @param event, DatasetBuild from beginDatasetBuild(), may be null.
+     * @param source, String, the file, or files, read.
+     * @param parts, int, number of files or chunks parsed.
+     * @param threads, int, number of threads parsing them.
+     * @param dataset, LandUseDataset built.
+     */
+    static void commitDatasetBuild(DatasetBuild event, String source, int parts, int threads,
+            LandUseDataset dataset) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.set(source, parts, threads, dataset.getRowCount());
+            event.commit();
+        }
+    }
+
+    /**
+     * Starts timing a query.
+     * @return QueryExecution, event to pass to commitQuery(), or null without JFR.
+     */
+    static QueryExecution beginQuery() {
+        if (FACTORY == null) {
+            return null;
+        }
+        QueryExecution event = FACTORY.queryExecution();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends a query event and commits it if JFR is recording it.
+     *
+     * @param event, QueryExecution from beginQuery(), may be null.
+     * @param engine, String, LandUsePipelineMetrics engine name.
+     * @param result, LandUseQueryResult of the query.
+     * @param rowsScanned, long, rows the query tested.
+     */
+    static void commitQuery(QueryExecution event, String engine, LandUseQueryResult result, long rowsScanned) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            set(event, engine, 1, result, rowsScanned);
+            event.commit();
+        }
+    }
+
+    /**
+     * Starts timing a batch of queries run in one pass. One event is
+     * created for each query, and only when JFR is recording them.
+     *
+     * @param queryCount, int, number of queries in the batch.
+     * @return QueryExecution[], events to pass to commitQueries(), or null
+     * when none will be recorded.
+     */
+    static QueryExecution[] beginQueries(int queryCount) {
+        if (FACTORY == null) {
+            return null;
+        }
+        QueryExecution first = FACTORY.queryExecution();
+        if (!first.isEnabled() || queryCount == 0) {
+            return null;
+        }
+        QueryExecution[] events = new QueryExecution[queryCount];
+        events[0] = first;
+        for (int q = 1; q < queryCount; q++) {
+            events[q] = FACTORY.queryExecution();
+        }
+        for (QueryExecution event : events) {
+            event.begin();
+        }
+        return events;
+    }
+
+    /**
+     * Ends the events of a batch of queries and commits those JFR is
+     * recording.
+     *
+     * @param events, QueryExecution[] from beginQueries(), may be null.
+     * @param engine, String, LandUsePipelineMetrics engine name.
+     * @param results, List<LandUseQueryResult>, one for each event.
+     * @param rowsScanned, long[], rows each query tested.
+     */
+    static void commitQueries(QueryExecution[] events, String engine, List<LandUseQueryResult> results,
+            long[] rowsScanned) {
+        if (events == null) {
+            return;
+        }
+        for (int q = 0; q < events.length; q++) {
+            QueryExecution event = events[q];
+            event.end();
+            if (event.shouldCommit()) {
+                set(event, engine, events.length, results.get(q), rowsScanned[q]);
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Describes a query result in a line, such as
+     * "Mountain total: 777.1; ... (12 groups)".
+     *
+     * @param result, LandUseQueryResult to describe.
+     * @return String
+     */
+    static String describe(LandUseQueryResult result) {
+        StringBuilder description = new StringBuilder();
+        int aggregateCount = result.getQuery().getAggregateCount();
+        int shown = Math.min(result.getGroupCount(), RESULT_GROUPS);
+        for (int group = 0; group < shown; group++) {
+            if (group > 0) {
+                description.append("; ");
+            }
+            if (result.getGroup(group) != null) {
+                description.append(result.getGroup(group)).append(": ");
+            }
+            for (int aggregate = 0; aggregate < aggregateCount; aggregate++) {
+                description.append(aggregate == 0 ? "" : ", ").append(result.getValue(group, aggregate));
+            }
+        }
+        if (result.getGroupCount() > shown) {
+            description.append("; ... (").append(result.getGroupCount()).append(" groups)");
+        }
+        return description.toString();
+    }
+
+    // Fills in a query event, once JFR has said it will record it.
+    private static void set(QueryExecution event, String engine, int batchSize, LandUseQueryResult result,
+            long rowsScanned) {
+        event.set(engine, result.getQuery().toString(), batchSize, rowsScanned, result.getMatchedRows(),
+                describe(result));
+    }
+
+    /**
+     * The methods of jdk.jfr.Event used to time and commit an event.
+     */
+    interface TimedEvent {
+
+        void begin();
+
+        void end();
+
+        boolean isEnabled();
+
+        boolean shouldCommit();
+
+        void commit();
+    }
+
+    /**
+     * A FILE_OPEN event.
+     */
+    interface FileOpen extends TimedEvent {
+
+        void set(String path, long size);
+    }
+
+    /**
+     * A CHUNK_PARSE event.
+     */
+    interface ChunkParse extends TimedEvent {
+
+        void set(String source, long lines, long rows, long excludedLines, long bytes);
+    }
+
+    /**
+     * A DATASET_BUILD event.
+     */
+    interface DatasetBuild extends TimedEvent {
+
+        void set(String source, int parts, int threads, int rows);
+    }
+
+    /**
+     * A QUERY_EXECUTION event.
+     */
+    interface QueryExecution extends TimedEvent {
+
+        void set(String engine, String query, int batchSize, long rowsScanned, int rowsMatched, String result);
+    }
+
+    /**
+     * Creates the events. Implemented by LandUseJfrEvents.
+     */
+    interface Factory {
+
+        FileOpen fileOpen();
+
+        ChunkParse chunkParse();
+
+        DatasetBuild datasetBuild();
+
+        QueryExecution queryExecution();
+    }
+}
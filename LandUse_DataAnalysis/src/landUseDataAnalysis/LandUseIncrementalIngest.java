@@ -0,0 +1,316 @@
+package landUseDataAnalysis;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a land use csv file a piece at a time as lines are appended to it,
+ * adding only the new rows to a LandUseDataset.
+ *
+ * Each call to poll() reads from where the last call stopped to the end of
+ * the last complete line, parses those bytes with LandUseCsvTokenizer (the
+ * same exclusion rules as processDataset()) and appends the rows. The first
+ * poll() reads the whole file, header included. A last line without a
+ * line ending, such as the last line of the shipped file, is only read once
+ * the file has not been modified for QUIET_PERIOD_MILLIS, so a line that is
+ * still being written is not read in halves. A new release or correction is
+ * added by appending its rows to the file.
+ *
+ * A row is identified by its SortOrder, Region or State and Year. A row
+ * with the same key as a row already read is a correction: it replaces that
+ * row in place rather than being appended, and of several rows with one key
+ * in the same poll() the last is kept.
+ *
+ * After each poll() that appended rows, every LandUseAppendListener is told
+ * which rows are new, so maintained results such as LandUseMaintainedQuery
+ * are updated from those rows alone. Replaced rows are passed to
+ * rowsReplaced() first.
+ *
+ * watch() runs poll() whenever the file system reports a change to the file,
+ * and at least once per interval in case it doesn't (some file systems only
+ * report changes every few seconds). Stop it with close().
+ *
+ * LandUseDataset is not safe to read while rows are being appended. When
+ * watch() runs on its own thread, read the data through listeners, or
+ * through the results of a LandUseMaintainedQuery, which are replaced
+ * rather than changed.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public class LandUseIncrementalIngest implements Closeable {
+
+    // Time a file must be left unmodified before a last line without a line
+    // ending is taken to be complete.
+    public static final long QUIET_PERIOD_MILLIS = 2000;
+
+    private final Path file;
+    private final LandUseDataset dataset;
+    private final List<LandUseAppendListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Bytes of the file read so far.
+    private long offset;
+
+    // Rows of the dataset by key, and the dataset version they were keyed
+    // at, so they are keyed again if the dataset was changed elsewhere.
+    private LandUseRowKeys keys;
+    private long keysVersion;
+
+    private volatile boolean closed;
+    private volatile WatchService watchService;
+
+    /**
+     * Creates an ingest for a csv file with a header row. Nothing is read
+     * until poll() or watch() is called.
+     *
+     * @param filePath, path to csv file of land use data.
+     */
+    public LandUseIncrementalIngest(String filePath) {
+        this(filePath, new LandUseDataset());
+    }
+
+    /**
+     * Creates an ingest that appends the rows of a csv file to a dataset.
+     *
+     * @param filePath, path to csv file of land use data.
+     * @param dataset, LandUseDataset to append to.
+     */
+    public LandUseIncrementalIngest(String filePath, LandUseDataset dataset) {
+        this.file = Paths.get(filePath).toAbsolutePath();
+        this.dataset = dataset;
+    }
+
+    /**
+     * Adds a listener to be told about appended rows.
+     * @param listener, LandUseAppendListener
+     */
+    public void addListener(LandUseAppendListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     * @param listener, LandUseAppendListener
+     */
+    public void removeListener(LandUseAppendListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Gets the dataset the rows are appended to.
+     * @return LandUseDataset
+     */
+    public LandUseDataset getDataset() {
+        return dataset;
+    }
+
+    /**
+     * Gets the number of bytes of the file that have been read.
+     * @return long
+     */
+    public synchronized long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Reads the lines appended to the file since the last call, replaces
+     * the rows they correct and appends the rest of their rows to the
+     * dataset.
+     *
+     * @return int, number of rows appended or replaced (excluded lines are
+     * not counted).
+     * @throws IOException if the file can't be read, has a bad line, or has
+     * become shorter than the part already read.
+     */
+    public synchronized int poll() throws IOException {
+
+        byte[] bytes;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < offset) {
+                throw new IOException(file + " is shorter than the " + offset
+                        + " bytes already read. It was replaced or truncated, so it needs to be read again in full.");
+            }
+            if (size - offset > Integer.MAX_VALUE - 8) {
+                throw new IOException("Too many new bytes to read at once: " + (size - offset));
+            }
+            if (size == offset) {
+                return 0;
+            }
+
+            bytes = new byte[(int) (size - offset)];
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining() && channel.read(buffer, offset + buffer.position()) >= 0) {
+                // Keep reading until the buffer is full.
+            }
+
+            // Stop after the last complete line, unless the file has been
+            // left alone long enough that its last line is as complete as
+            // it is going to get.
+            boolean quiet = Files.getLastModifiedTime(file).toMillis()
+                    < System.currentTimeMillis() - QUIET_PERIOD_MILLIS;
+            int length = quiet ? buffer.position() : completeLinesLength(bytes, buffer.position());
+            if (length == 0) {
+                return 0;
+            }
+            bytes = length == bytes.length ? bytes : Arrays.copyOf(bytes, length);
+        }
+
+        // The new rows are parsed on their own first, so a bad line leaves
+        // the dataset as it was and the same bytes are read again next time.
+        LandUseDataset newRows = new LandUseDataset();
+        try (LandUseCsvTokenizer tokenizer = new LandUseCsvTokenizer(new ByteArrayInputStream(bytes),
+                newRows.getRegions(), newRows.getRegionsOrStates(), newRows.getYears(), offset == 0)) {
+            tokenizer.setSource(file + " bytes " + offset + "-" + (offset + bytes.length));
+            while (tokenizer.nextRow()) {
+                tokenizer.appendTo(newRows);
+            }
+        }
+        int firstRow = dataset.getRowCount();
+        if (keys == null || keysVersion != dataset.getVersion()) {
+            keys = new LandUseRowKeys(dataset);
+        }
+
+        // Sort the new rows into corrections of rows already read and rows
+        // to append. Keys use the dataset's ids, which the new values get
+        // here rather than when their rows are copied.
+        int[] regionOrStateIds = datasetIds(newRows.getRegionsOrStates(), dataset.getRegionsOrStates());
+        int[] yearIds = datasetIds(newRows.getYears(), dataset.getYears());
+        int[] sortOrder = newRows.getSortOrderColumn();
+        int[] regionOrState = newRows.getRegionOrStateColumn();
+        int[] year = newRows.getYearColumn();
+        int[] appended = new int[newRows.getRowCount()];
+        int appendedCount = 0;
+        int[] replaced = new int[newRows.getRowCount()];
+        int[] corrections = new int[newRows.getRowCount()];
+        int replacedCount = 0;
+        LandUseRowKeys correctedKeys = new LandUseRowKeys();
+        for (int row = 0; row < newRows.getRowCount(); row++) {
+            int rowSortOrder = sortOrder[row];
+            int rowRegionOrState = regionOrStateIds[regionOrState[row]];
+            int rowYear = yearIds[year[row]];
+            int existing = keys.get(rowSortOrder, rowRegionOrState, rowYear);
+            if (existing == -1) {
+                keys.put(rowSortOrder, rowRegionOrState, rowYear, firstRow + appendedCount);
+                appended[appendedCount++] = row;
+            } else if (existing >= firstRow) {
+                appended[existing - firstRow] = row;
+            } else {
+                int pending = correctedKeys.putIfAbsent(rowSortOrder, rowRegionOrState, rowYear, replacedCount);
+                if (pending == -1) {
+                    replaced[replacedCount] = existing;
+                    corrections[replacedCount++] = row;
+                } else {
+                    corrections[pending] = row;
+                }
+            }
+        }
+        replaced = Arrays.copyOf(replaced, replacedCount);
+        if (replacedCount > 0) {
+            dataset.replaceRows(replaced, newRows, Arrays.copyOf(corrections, replacedCount));
+        }
+        dataset.appendRows(newRows, Arrays.copyOf(appended, appendedCount));
+        keysVersion = dataset.getVersion();
+        offset += bytes.length;
+
+        int endRow = dataset.getRowCount();
+        for (LandUseAppendListener listener : listeners) {
+            if (replacedCount > 0) {
+                listener.rowsReplaced(dataset, replaced);
+            }
+            if (endRow > firstRow) {
+                listener.rowsAppended(dataset, firstRow, endRow);
+            }
+        }
+        return appendedCount + replacedCount;
+    }
+
+    /**
+     * Polls the file whenever it changes, and at least once per interval,
+     * until close() is called. Runs on the calling thread.
+     *
+     * @param interval, long, longest time between polls.
+     * @param unit, TimeUnit of the interval.
+     * @throws IOException if a poll fails.
+     * @throws InterruptedException if the thread is interrupted.
+     */
+    public void watch(long interval, TimeUnit unit) throws IOException, InterruptedException {
+        try (WatchService service = FileSystems.getDefault().newWatchService()) {
+            watchService = service;
+            file.getParent().register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            while (!closed) {
+                poll();
+
+                // Any event in the directory, or none before the interval is
+                // up, leads to another poll. poll() is cheap when nothing changed.
+                WatchKey key = service.poll(interval, unit);
+                if (key != null) {
+                    key.pollEvents();
+                    key.reset();
+                }
+            }
+        } catch (ClosedWatchServiceException cwse) {
+
+            // close() was called while waiting.
+        } finally {
+            watchService = null;
+        }
+    }
+
+    /**
+     * Stops watch(). Rows already read stay in the dataset.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        WatchService service = watchService;
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    // Adds the values of the new rows' dictionary to the dataset's, as
+    // copying the rows would, returning the dataset's ids indexed by the
+    // new rows' ids.
+    private static int[] datasetIds(LandUseDictionary from, LandUseDictionary to) {
+        int[] ids = new int[from.size()];
+        for (int id = 0; id < ids.length; id++) {
+            ids[id] = to.add(from.valueOf(id));
+        }
+        return ids;
+    }
+
+    // Finds the length of the bytes up to and including the last line
+    // ending that is not inside quotes.
+    private static int completeLinesLength(byte[] bytes, int length) {
+        int end = 0;
+        boolean quoted = false;
+        for (int i = 0; i < length; i++) {
+            byte b = bytes[i];
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (!quoted && (b == '\n' || b == '\r')) {
+                end = i + 1;
+            }
+        }
+        return end;
+    }
+}
@@ -0,0 +1,127 @@
+package landUseDataAnalysis;
+
+import java.util.Arrays;
+
+/**
+ * Latencies of recent requests, for reporting percentiles such as p50 and
+ * p99 (see LandUseQueryServer).
+ *
+ * The latest SAMPLE_COUNT latencies are kept in a ring of longs, so
+ * recording a request is an array store with no allocation, and the
+ * percentiles follow what the service is doing now rather than since it
+ * started. Percentiles are worked out when they are asked for, by sorting a
+ * copy of the ring.
+ *
+ * The stats are safe to share between threads.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public class LandUseLatencyStats {
+
+    public static final int DEFAULT_SAMPLE_COUNT = 8192;
+
+    private final long[] samples;
+    private long count;
+    private long maxNanos;
+
+    // Creates stats keeping the latest DEFAULT_SAMPLE_COUNT latencies.
+    public LandUseLatencyStats() {
+        this(DEFAULT_SAMPLE_COUNT);
+    }
+
+    /**
+     * Creates stats keeping the latest sampleCount latencies.
+     *
+     * @param sampleCount, int, number of latencies percentiles are worked out from.
+     */
+    public LandUseLatencyStats(int sampleCount) {
+        if (sampleCount < 1) {
+            throw new IllegalArgumentException("sampleCount must be at least 1: " + sampleCount);
+        }
+        samples = new long[sampleCount];
+    }
+
+    /**
+     * Records the latency of one request.
+     * @param nanos, long, time taken in nanoseconds.
+     */
+    public synchronized void record(long nanos) {
+        samples[(int) (count % samples.length)] = nanos;
+        count++;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    /**
+     * Forgets every latency recorded so far.
+     */
+    public synchronized void reset() {
+        count = 0;
+        maxNanos = 0;
+    }
+
+    /**
+     * Gets the number of latencies recorded since the stats were created or reset.
+     * @return long
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the largest latency recorded since the stats were created or reset.
+     * @return long, nanoseconds, 0 if nothing has been recorded.
+     */
+    public synchronized long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * Gets a percentile of the latest latencies, using the nearest rank.
+     *
+     * @param percentile, double, between 0 and 100, such as 50 or 99.
+     * @return long, nanoseconds, 0 if nothing has been recorded.
+     */
+    public long getPercentileNanos(double percentile) {
+        return getPercentilesNanos(percentile)[0];
+    }
+
+    /**
+     * Gets several percentiles of the same latest latencies, sorting them
+     * once.
+     *
+     * @param percentiles, double..., each between 0 and 100.
+     * @return long[], nanoseconds for each percentile, in the same order, 0
+     * if nothing has been recorded.
+     */
+    public long[] getPercentilesNanos(double... percentiles) {
+        for (double percentile : percentiles) {
+            if (!(percentile >= 0 && percentile <= 100)) {
+                throw new IllegalArgumentException("percentile must be between 0 and 100: " + percentile);
+            }
+        }
+        long[] sorted;
+        synchronized (this) {
+            sorted = Arrays.copyOf(samples, (int) Math.min(count, samples.length));
+        }
+        Arrays.sort(sorted);
+
+        long[] values = new long[percentiles.length];
+        if (sorted.length == 0) {
+            return values;
+        }
+        for (int i = 0; i < percentiles.length; i++) {
+            int rank = (int) Math.ceil(percentiles[i] / 100 * sorted.length);
+            values[i] = sorted[Math.max(0, rank - 1)];
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        long[] percentiles = getPercentilesNanos(50, 99);
+        return "LandUseLatencyStats [count=" + getCount() + ", p50Nanos=" + percentiles[0] + ", p99Nanos="
+                + percentiles[1] + ", maxNanos=" + getMaxNanos() + "]";
+    }
+}
@@ -0,0 +1,138 @@
+package landUseDataAnalysis;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * The result of a LandUseQuery kept up to date as rows are appended to a
+ * LandUseDataset, by adding only the new rows to the query's running state.
+ *
+ * Register it with LandUseIncrementalIngest.addListener(). New Region,
+ * Region or State and Year values that turn up in the new rows become new
+ * groups without the older rows being read again. When rows are replaced by
+ * corrections the query is run again over every row.
+ *
+ * getResult() returns a LandUseQueryResult that is replaced, not changed,
+ * after each append, so it can be read from another thread while rows are
+ * being appended.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public class LandUseMaintainedQuery implements LandUseAppendListener {
+
+    private final LandUseQuery query;
+    private final LandUseAccumulator[] accumulators;
+    private boolean[] present;
+    private int matchedRows;
+    private int rowCount;
+    private volatile LandUseQueryResult result;
+
+    /**
+     * Creates a maintained query, running it over the rows already in the
+     * dataset.
+     *
+     * @param dataset, LandUseDataset the query is kept up to date for.
+     * @param query, LandUseQuery to run.
+     */
+    public LandUseMaintainedQuery(LandUseDataset dataset, LandUseQuery query) {
+        this.query = query;
+        accumulators = new LandUseAccumulator[query.getAggregateCount()];
+        reset(dataset);
+        rowsAppended(dataset, 0, dataset.getRowCount());
+    }
+
+    /**
+     * Gets the query.
+     * @return LandUseQuery
+     */
+    public LandUseQuery getQuery() {
+        return query;
+    }
+
+    /**
+     * Gets the result over every row added so far.
+     * @return LandUseQueryResult
+     */
+    public LandUseQueryResult getResult() {
+        return result;
+    }
+
+    /**
+     * Adds the new rows to the query's state and replaces the result.
+     *
+     * @param dataset, LandUseDataset the rows were appended to.
+     * @param firstRow, int, first new row.
+     * @param endRow, int, row after the last new row.
+     */
+    @Override
+    public synchronized void rowsAppended(LandUseDataset dataset, int firstRow, int endRow) {
+        if (firstRow != rowCount) {
+            throw new IllegalStateException("Expected rows from " + rowCount + " but got rows from " + firstRow);
+        }
+
+        // Make room for any new groups or distinct values.
+        int groupCount = getGroupCount(dataset);
+        for (LandUseAccumulator accumulator : accumulators) {
+            accumulator.grow(groupCount);
+        }
+        present = Arrays.copyOf(present, groupCount);
+
+        // The row test is made again for each batch so that it knows about
+        // any new dictionary values, and the new rows are added a block at
+        // a time as in LandUseBatchQueryEngine.
+        IntPredicate matcher = query.getFilter().matcher(dataset);
+        int[] groups = query.getGroupBy() == null ? null : query.getGroupBy().getColumn(dataset);
+        int[] selected = new int[LandUseBatchQueryEngine.BLOCK_SIZE];
+        for (int blockStart = firstRow; blockStart < endRow; blockStart += selected.length) {
+            int blockEnd = Math.min(blockStart + selected.length, endRow);
+            int selectedCount = 0;
+            for (int row = blockStart; row < blockEnd; row++) {
+                if (matcher.test(row)) {
+                    selected[selectedCount++] = row;
+                }
+            }
+            matchedRows += selectedCount;
+            LandUseQueryEngine.markGroups(groups, groupCount, selected, selectedCount, present);
+            for (LandUseAccumulator accumulator : accumulators) {
+                accumulator.add(dataset, selected, selectedCount, groups);
+            }
+        }
+        rowCount = endRow;
+        result = LandUseQueryEngine.toResult(dataset, query, matchedRows, present, accumulators);
+    }
+
+    /**
+     * Runs the query again over the rows added so far, as rows that were
+     * already added can't be taken back out of a MAX, ARGMAX or
+     * COUNT_DISTINCT. Corrections are rare, so this is cheaper overall than
+     * keeping enough state to retract a row.
+     *
+     * @param dataset, LandUseDataset whose rows were replaced.
+     * @param rows, int[], row numbers replaced.
+     */
+    @Override
+    public synchronized void rowsReplaced(LandUseDataset dataset, int[] rows) {
+        int endRow = rowCount;
+        reset(dataset);
+        rowsAppended(dataset, 0, endRow);
+    }
+
+    // Starts the query's state over with no rows added.
+    private void reset(LandUseDataset dataset) {
+        int groupCount = getGroupCount(dataset);
+        for (int aggregate = 0; aggregate < accumulators.length; aggregate++) {
+            accumulators[aggregate] = new LandUseAccumulator(query.getAggregate(aggregate), groupCount);
+        }
+        present = LandUseQueryEngine.markGroups(
+                query.getGroupBy() == null ? null : query.getGroupBy().getColumn(dataset), groupCount, null, 0, null);
+        matchedRows = 0;
+        rowCount = 0;
+    }
+
+    // Gets the number of groups for the dataset's current dictionaries.
+    private int getGroupCount(LandUseDataset dataset) {
+        return query.getGroupBy() == null ? 1 : query.getGroupBy().getDictionary(dataset).size();
+    }
+}
@@ -0,0 +1,334 @@
+package landUseDataAnalysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntPredicate;
+
+/**
+ * Runs LandUseQuery objects against a LandUseDataset on the threads of a
+ * ForkJoinPool.
+ *
+ * The rows are split into ranges of whole LandUseBatchQueryEngine blocks.
+ * Each range is scanned by a task the way LandUseBatchQueryEngine scans the
+ * dataset, testing every query's rows with its filter and adding the
+ * matching rows to partial accumulators. Ranges are split in half until
+ * they are small enough, and the later half is forked. A thread folds the
+ * earlier half into the partial state it is already filling, and if no
+ * other thread has stolen the later half, it folds that in too, in row
+ * order. Only a stolen half gets partial state of its own, which is merged
+ * after the earlier half is done (see LandUseAccumulator.merge()). So
+ * there is about one copy of the state for each thread rather than one for
+ * each range.
+ *
+ * The number of ranges is also capped so that, should every range be
+ * stolen, their state stays within STATE_BUDGET. Queries grouped by a large
+ * dictionary get fewer, larger ranges.
+ *
+ * Sums and counts are exact longs and ints, and a MIN, MAX or ARGMAX tie
+ * keeps the earlier row, so the results are the same as
+ * LandUseQueryEngine.execute() and LandUseBatchQueryEngine.executeAll(),
+ * whatever the number of threads.
+ *
+ * The pool is either made by the engine, with a given number of threads,
+ * or passed in, so several engines can share one. Only a pool the engine
+ * made is shut down by close().
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public class LandUseParallelQueryEngine implements AutoCloseable {
+
+    // Each thread gets about this many ranges, so a thread that finishes
+    // early can steal work from a slow one.
+    static final int RANGES_PER_THREAD = 4;
+
+    // Accumulator slots, summed over every range's partial state, that the
+    // ranges of one pass may hold at once.
+    static final long STATE_BUDGET = 1L << 22;
+
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+
+    /**
+     * Creates an engine with its own pool.
+     *
+     * @param parallelism, int, number of threads to run queries on.
+     */
+    public LandUseParallelQueryEngine(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+        }
+        this.pool = new ForkJoinPool(parallelism);
+        this.ownsPool = true;
+    }
+
+    /**
+     * Creates an engine that runs queries on a pool owned by the caller,
+     * such as ForkJoinPool.commonPool().
+     *
+     * @param pool, ForkJoinPool to run queries on.
+     */
+    public LandUseParallelQueryEngine(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("pool must not be null");
+        }
+        this.pool = pool;
+        this.ownsPool = false;
+    }
+
+    /**
+     * Gets the number of threads queries are split across.
+     * @return int
+     */
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Runs a query.
+     *
+     * @param dataset, LandUseDataset to query.
+     * @param query, LandUseQuery to run.
+     * @return LandUseQueryResult, aggregated values for each group.
+     */
+    public LandUseQueryResult execute(LandUseDataset dataset, LandUseQuery query) {
+        return executeAll(dataset, Arrays.asList(query)).get(0);
+    }
+
+    /**
+     * Runs queries in a single parallel pass over the dataset.
+     *
+     * @param dataset, LandUseDataset to query.
+     * @param queries, LandUseQuery... queries to run.
+     * @return List<LandUseQueryResult>, one result for each query, in the same order.
+     */
+    public List<LandUseQueryResult> executeAll(LandUseDataset dataset, LandUseQuery... queries) {
+        return executeAll(dataset, Arrays.asList(queries));
+    }
+
+    /**
+     * Runs queries in a single parallel pass over the dataset.
+     *
+     * @param dataset, LandUseDataset to query.
+     * @param queries, List<LandUseQuery> of queries to run.
+     * @return List<LandUseQueryResult>, one result for each query, in the same order.
+     */
+    public List<LandUseQueryResult> executeAll(LandUseDataset dataset, List<LandUseQuery> queries) {
+
+        LandUseFlightEvents.QueryExecution[] events = LandUseFlightEvents.beginQueries(queries.size());
+        long start = System.nanoTime();
+
+        // The row tests are made here, once, and shared by every task. They
+        // only read the dataset, and making them also builds the dataset's
+        // lazy index and zone map before any task needs them.
+        Scan scan = new Scan(dataset, queries);
+        int blockCount = (dataset.getRowCount() + LandUseBatchQueryEngine.BLOCK_SIZE - 1)
+                / LandUseBatchQueryEngine.BLOCK_SIZE;
+        int rangeBlocks = rangeBlocks(blockCount, pool.getParallelism(), scan.stateSize());
+        Partial partial = pool.invoke(new ScanTask(scan, 0, blockCount, rangeBlocks));
+
+        List<LandUseQueryResult> results = new ArrayList<>(queries.size());
+        long rowsScanned = 0;
+        long rowsMatched = 0;
+        for (int q = 0; q < queries.size(); q++) {
+            results.add(LandUseQueryEngine.toResult(dataset, queries.get(q), partial.matchedRows[q],
+                    partial.present[q], partial.accumulators[q]));
+            rowsScanned += partial.scannedRows[q];
+            rowsMatched += partial.matchedRows[q];
+        }
+        LandUsePipelineMetrics.getGlobal().getQueryMetrics(LandUsePipelineMetrics.PARALLEL_ENGINE)
+                .record(queries.size(), rowsScanned, rowsMatched, System.nanoTime() - start);
+        LandUseFlightEvents.commitQueries(events, LandUsePipelineMetrics.PARALLEL_ENGINE, results,
+                partial.scannedRows);
+        return results;
+    }
+
+    /**
+     * Works out how many blocks a range may have, giving each thread about
+     * RANGES_PER_THREAD ranges but no more ranges than STATE_BUDGET has room
+     * for.
+     *
+     * @param blockCount, int, number of blocks in the dataset.
+     * @param parallelism, int, number of threads.
+     * @param stateSize, long, accumulator slots in one partial state.
+     * @return int, at least 1.
+     */
+    static int rangeBlocks(int blockCount, int parallelism, long stateSize) {
+        long rangeCount = Math.min((long) parallelism * RANGES_PER_THREAD,
+                Math.max(1, STATE_BUDGET / Math.max(1, stateSize)));
+        return (int) Math.max(1, (blockCount + rangeCount - 1) / rangeCount);
+    }
+
+    /**
+     * Shuts down the engine's pool if the engine made it. A pool passed in
+     * is left running.
+     */
+    @Override
+    public void close() {
+        if (ownsPool) {
+            pool.shutdown();
+        }
+    }
+
+    // What every task needs to know about the queries, set up before the scan.
+    private static final class Scan {
+
+        private final LandUseDataset dataset;
+        private final List<LandUseQuery> queries;
+        private final IntPredicate[] matchers;
+        private final IntPredicate[] blockMatchers;
+        private final int[][] groups;
+        private final int[] groupCounts;
+
+        private Scan(LandUseDataset dataset, List<LandUseQuery> queries) {
+            this.dataset = dataset;
+            this.queries = queries;
+            int queryCount = queries.size();
+            matchers = new IntPredicate[queryCount];
+            blockMatchers = new IntPredicate[queryCount];
+            groups = new int[queryCount][];
+            groupCounts = new int[queryCount];
+            for (int q = 0; q < queryCount; q++) {
+                LandUseQuery query = queries.get(q);
+                LandUseDimension groupBy = query.getGroupBy();
+                matchers[q] = query.getFilter().matcher(dataset);
+                blockMatchers[q] = query.getFilter().blockMatcher(dataset);
+                groups[q] = groupBy == null ? null : groupBy.getColumn(dataset);
+                groupCounts[q] = groupBy == null ? 1 : groupBy.getDictionary(dataset).size();
+            }
+        }
+
+        // Estimates the slots in one partial state: a present flag and one
+        // value for each aggregate, for every group of every query.
+        private long stateSize() {
+            long size = 0;
+            for (int q = 0; q < groupCounts.length; q++) {
+                size += (long) groupCounts[q] * (queries.get(q).getAggregateCount() + 1);
+            }
+            return size;
+        }
+    }
+
+    // The state of every query for a run of consecutive rows.
+    private static final class Partial {
+
+        private final int[] matchedRows;
+        private final long[] scannedRows;
+        private final boolean[][] present;
+        private final LandUseAccumulator[][] accumulators;
+
+        private Partial(Scan scan) {
+            int queryCount = scan.queries.size();
+            matchedRows = new int[queryCount];
+            scannedRows = new long[queryCount];
+            present = new boolean[queryCount][];
+            accumulators = new LandUseAccumulator[queryCount][];
+            for (int q = 0; q < queryCount; q++) {
+                LandUseQuery query = scan.queries.get(q);
+                present[q] = LandUseQueryEngine.markGroups(scan.groups[q], scan.groupCounts[q], null, 0, null);
+                accumulators[q] = new LandUseAccumulator[query.getAggregateCount()];
+                for (int aggregate = 0; aggregate < accumulators[q].length; aggregate++) {
+                    accumulators[q][aggregate] = new LandUseAccumulator(query.getAggregate(aggregate),
+                            scan.groupCounts[q]);
+                }
+            }
+        }
+
+        // Adds the state of the range just after this one.
+        private void merge(LandUseDataset dataset, Partial later) {
+            for (int q = 0; q < matchedRows.length; q++) {
+                matchedRows[q] += later.matchedRows[q];
+                scannedRows[q] += later.scannedRows[q];
+                for (int group = 0; group < present[q].length; group++) {
+                    present[q][group] |= later.present[q][group];
+                }
+                for (int aggregate = 0; aggregate < accumulators[q].length; aggregate++) {
+                    accumulators[q][aggregate].merge(dataset, later.accumulators[q][aggregate]);
+                }
+            }
+        }
+    }
+
+    // Scans the blocks from firstBlock up to lastBlock, splitting them in
+    // half until there are no more than rangeBlocks. A task is only run as
+    // a whole at the start of a pass or when another thread steals it, so it
+    // fills partial state of its own.
+    private static final class ScanTask extends RecursiveTask<Partial> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Scan scan;
+        private final int firstBlock;
+        private final int lastBlock;
+        private final int rangeBlocks;
+
+        private ScanTask(Scan scan, int firstBlock, int lastBlock, int rangeBlocks) {
+            this.scan = scan;
+            this.firstBlock = firstBlock;
+            this.lastBlock = lastBlock;
+            this.rangeBlocks = rangeBlocks;
+        }
+
+        @Override
+        protected Partial compute() {
+            Partial partial = new Partial(scan);
+            scanRange(firstBlock, lastBlock, partial);
+            return partial;
+        }
+
+        // Adds the blocks from first up to last to partial, which holds the
+        // blocks just before first. The later half is forked, and folded in
+        // here after the earlier half unless another thread has taken it.
+        private void scanRange(int first, int last, Partial partial) {
+            if (last - first <= rangeBlocks) {
+                scanBlocks(first, last, partial);
+                return;
+            }
+            int middle = (first + last) >>> 1;
+            ScanTask later = new ScanTask(scan, middle, last, rangeBlocks);
+            later.fork();
+            scanRange(first, middle, partial);
+            if (later.tryUnfork()) {
+                scanRange(middle, last, partial);
+            } else {
+                partial.merge(scan.dataset, later.join());
+            }
+        }
+
+        // Scans the range the way LandUseBatchQueryEngine scans the dataset.
+        private void scanBlocks(int first, int last, Partial partial) {
+            int rowCount = scan.dataset.getRowCount();
+            int[] selected = new int[LandUseBatchQueryEngine.BLOCK_SIZE];
+            for (int block = first; block < last; block++) {
+                int blockStart = block * LandUseBatchQueryEngine.BLOCK_SIZE;
+                int blockEnd = Math.min(blockStart + LandUseBatchQueryEngine.BLOCK_SIZE, rowCount);
+                for (int q = 0; q < partial.matchedRows.length; q++) {
+                    if (!scan.blockMatchers[q].test(block)) {
+                        continue;
+                    }
+                    IntPredicate matcher = scan.matchers[q];
+                    partial.scannedRows[q] += blockEnd - blockStart;
+                    int selectedCount = 0;
+                    for (int row = blockStart; row < blockEnd; row++) {
+                        if (matcher.test(row)) {
+                            selected[selectedCount++] = row;
+                        }
+                    }
+                    if (selectedCount == 0) {
+                        continue;
+                    }
+                    partial.matchedRows[q] += selectedCount;
+                    LandUseQueryEngine.markGroups(scan.groups[q], scan.groupCounts[q], selected, selectedCount,
+                            partial.present[q]);
+                    for (LandUseAccumulator accumulator : partial.accumulators[q]) {
+                        accumulator.add(scan.dataset, selected, selectedCount, scan.groups[q]);
+                    }
+                }
+            }
+        }
+    }
+}
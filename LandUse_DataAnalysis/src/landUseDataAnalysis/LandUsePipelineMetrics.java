@@ -0,0 +1,334 @@
+package landUseDataAnalysis;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and timers for each stage of reading the land use csv file, and
+ * LandUseQueryMetrics for each query engine, kept for the whole process.
+ *
+ * Each LandUseCsvTokenizer counts into fields of its own while it reads and
+ * adds them here when it is closed, so counting costs a field update per row
+ * and there is no contention between threads parsing files or chunks at the
+ * same time. The stages counted are:
+ *
+ * read          reading bytes from the input.
+ * tokenize      finding line ends and splitting lines into fields.
+ * exclusions    looking up Region, Region or State and Year, and applying the
+ *               exclusion rules. Excluded lines are counted by rule (see
+ *               LandUseCsvTokenizer.Exclusion).
+ * conversion    parsing Sort Order and the land use values, counting "N.A."
+ *               and other values that aren't whole numbers.
+ * construction  creating LandUseDataLineItem objects or appending rows to a
+ *               LandUseDataset.
+ *
+ * Stage times need two System.nanoTime() calls per stage per line, which
+ * costs about as much as tokenizing, so timing is off unless it is enabled
+ * with setTimingEnabled() (also writable over JMX) or the
+ * landUse.metrics.timing system property. Counters are always kept.
+ *
+ * The metrics are published as JMX MBeans by registerMBeans(), and as text
+ * by getSummary(), which LandUseData5QuestionAnalysis prints when the
+ * landUse.metrics.summary or landUse.metrics.timing system property is set.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public class LandUsePipelineMetrics implements LandUsePipelineMetricsMBean {
+
+    public static final String OBJECT_NAME = "landUseDataAnalysis:type=PipelineMetrics";
+    public static final String QUERY_OBJECT_NAME = "landUseDataAnalysis:type=QueryMetrics,engine=";
+
+    // Query engines with metrics of their own.
+    public static final String SINGLE_ENGINE = "single";
+    public static final String BATCH_ENGINE = "batch";
+    public static final String PARALLEL_ENGINE = "parallel";
+
+    private static final LandUsePipelineMetrics GLOBAL = new LandUsePipelineMetrics();
+
+    private volatile boolean timingEnabled = Boolean.getBoolean("landUse.metrics.timing");
+
+    private long bytesRead;
+    private long linesRead;
+    private long headerLines;
+    private long blankLines;
+    private long rowsKept;
+    private long notAvailableValues;
+    private final long[] excludedLines = new long[LandUseCsvTokenizer.Exclusion.values().length];
+    private long readNanos;
+    private long tokenizeNanos;
+    private long exclusionNanos;
+    private long conversionNanos;
+    private long constructionNanos;
+
+    private final LandUseQueryMetrics singleQueries = new LandUseQueryMetrics(SINGLE_ENGINE);
+    private final LandUseQueryMetrics batchQueries = new LandUseQueryMetrics(BATCH_ENGINE);
+    private final LandUseQueryMetrics parallelQueries = new LandUseQueryMetrics(PARALLEL_ENGINE);
+
+    // There is one set of metrics for the process, see getGlobal().
+    private LandUsePipelineMetrics() {
+    }
+
+    /**
+     * Gets the metrics every tokenizer and query engine adds to.
+     * @return LandUsePipelineMetrics
+     */
+    public static LandUsePipelineMetrics getGlobal() {
+        return GLOBAL;
+    }
+
+    /**
+     * Registers the pipeline metrics and each engine's query metrics with the
+     * platform MBean server, under OBJECT_NAME and QUERY_OBJECT_NAME plus the
+     * engine name. Registering again does nothing.
+     */
+    public static synchronized void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            register(server, GLOBAL, new ObjectName(OBJECT_NAME));
+            for (String engine : new String[] {SINGLE_ENGINE, BATCH_ENGINE, PARALLEL_ENGINE}) {
+                register(server, GLOBAL.getQueryMetrics(engine), new ObjectName(QUERY_OBJECT_NAME + engine));
+            }
+        } catch (JMException jme) {
+            throw new IllegalStateException("Couldn't register the land use metrics MBeans", jme);
+        }
+    }
+
+    // Registers one MBean unless it already is.
+    private static void register(MBeanServer server, Object mbean, ObjectName name) throws JMException {
+        if (!server.isRegistered(name)) {
+            server.registerMBean(mbean, name);
+        }
+    }
+
+    /**
+     * Gets the metrics of one query engine.
+     * @param engine, String, SINGLE_ENGINE, BATCH_ENGINE or PARALLEL_ENGINE.
+     * @return LandUseQueryMetrics
+     */
+    public LandUseQueryMetrics getQueryMetrics(String engine) {
+        switch (engine) {
+            case SINGLE_ENGINE:
+                return singleQueries;
+            case BATCH_ENGINE:
+                return batchQueries;
+            case PARALLEL_ENGINE:
+                return parallelQueries;
+            default:
+                throw new IllegalArgumentException("No query engine " + engine);
+        }
+    }
+
+    /**
+     * Adds the counts of one tokenizer.
+     * @param counts, IngestCounts to add.
+     */
+    synchronized void add(IngestCounts counts) {
+        bytesRead += counts.bytesRead;
+        linesRead += counts.linesRead;
+        headerLines += counts.headerLines;
+        blankLines += counts.blankLines;
+        rowsKept += counts.rowsKept;
+        notAvailableValues += counts.notAvailableValues;
+        for (int rule = 0; rule < excludedLines.length; rule++) {
+            excludedLines[rule] += counts.excludedLines[rule];
+        }
+        readNanos += counts.readNanos;
+        tokenizeNanos += counts.tokenizeNanos;
+        exclusionNanos += counts.exclusionNanos;
+        conversionNanos += counts.conversionNanos;
+        constructionNanos += counts.constructionNanos;
+    }
+
+    @Override
+    public synchronized long getBytesRead() {
+        return bytesRead;
+    }
+
+    @Override
+    public synchronized long getLinesRead() {
+        return linesRead;
+    }
+
+    @Override
+    public synchronized long getHeaderLines() {
+        return headerLines;
+    }
+
+    @Override
+    public synchronized long getBlankLines() {
+        return blankLines;
+    }
+
+    @Override
+    public synchronized long getRowsKept() {
+        return rowsKept;
+    }
+
+    @Override
+    public synchronized long getNotAvailableValues() {
+        return notAvailableValues;
+    }
+
+    /**
+     * Gets the number of lines left out by one exclusion rule. A line that
+     * more than one rule would exclude is counted for the first, in field
+     * order.
+     *
+     * @param exclusion, LandUseCsvTokenizer.Exclusion rule.
+     * @return long
+     */
+    public synchronized long getExcludedLines(LandUseCsvTokenizer.Exclusion exclusion) {
+        return excludedLines[exclusion.ordinal()];
+    }
+
+    @Override
+    public long getExcludedAkAndHi() {
+        return getExcludedLines(LandUseCsvTokenizer.Exclusion.AK_AND_HI);
+    }
+
+    @Override
+    public long getExcluded48States() {
+        return getExcludedLines(LandUseCsvTokenizer.Exclusion.FORTY_EIGHT_STATES);
+    }
+
+    @Override
+    public long getExcludedUsTotal() {
+        return getExcludedLines(LandUseCsvTokenizer.Exclusion.US_TOTAL);
+    }
+
+    @Override
+    public long getExcludedDistrictOfColumbia() {
+        return getExcludedLines(LandUseCsvTokenizer.Exclusion.DISTRICT_OF_COLUMBIA);
+    }
+
+    @Override
+    public long getExcludedLetterY() {
+        return getExcludedLines(LandUseCsvTokenizer.Exclusion.LETTER_Y);
+    }
+
+    @Override
+    public synchronized double getReadMillis() {
+        return readNanos / 1e6;
+    }
+
+    @Override
+    public synchronized double getTokenizeMillis() {
+        return tokenizeNanos / 1e6;
+    }
+
+    @Override
+    public synchronized double getExclusionMillis() {
+        return exclusionNanos / 1e6;
+    }
+
+    @Override
+    public synchronized double getConversionMillis() {
+        return conversionNanos / 1e6;
+    }
+
+    @Override
+    public synchronized double getConstructionMillis() {
+        return constructionNanos / 1e6;
+    }
+
+    @Override
+    public boolean isTimingEnabled() {
+        return timingEnabled;
+    }
+
+    /**
+     * Turns stage timing on or off for tokenizers created from now on.
+     * @param timingEnabled, boolean
+     */
+    @Override
+    public void setTimingEnabled(boolean timingEnabled) {
+        this.timingEnabled = timingEnabled;
+    }
+
+    /**
+     * Sets every counter, timer and query metric back to 0.
+     */
+    @Override
+    public void reset() {
+        synchronized (this) {
+            bytesRead = 0;
+            linesRead = 0;
+            headerLines = 0;
+            blankLines = 0;
+            rowsKept = 0;
+            notAvailableValues = 0;
+            for (int rule = 0; rule < excludedLines.length; rule++) {
+                excludedLines[rule] = 0;
+            }
+            readNanos = 0;
+            tokenizeNanos = 0;
+            exclusionNanos = 0;
+            conversionNanos = 0;
+            constructionNanos = 0;
+        }
+        singleQueries.reset();
+        batchQueries.reset();
+        parallelQueries.reset();
+    }
+
+    /**
+     * Gets the metrics as text, one stage or engine per line.
+     * @return String
+     */
+    @Override
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        synchronized (this) {
+            summary.append(String.format("Read: %d bytes, %d lines (%d header, %d blank)%n",
+                    bytesRead, linesRead, headerLines, blankLines));
+            summary.append("Excluded:");
+            for (LandUseCsvTokenizer.Exclusion exclusion : LandUseCsvTokenizer.Exclusion.values()) {
+                summary.append(exclusion.ordinal() == 0 ? " " : ", ")
+                        .append(exclusion.getDescription()).append(' ')
+                        .append(excludedLines[exclusion.ordinal()]);
+            }
+            summary.append(String.format("%nKept: %d rows, %d \"N.A.\" values%n", rowsKept, notAvailableValues));
+            if (timingEnabled) {
+                summary.append(String.format("Time: read %.3f ms, tokenize %.3f ms, exclusions %.3f ms, "
+                        + "conversion %.3f ms, construction %.3f ms%n", readNanos / 1e6, tokenizeNanos / 1e6,
+                        exclusionNanos / 1e6, conversionNanos / 1e6, constructionNanos / 1e6));
+            } else {
+                summary.append(String.format("Time: not timed (see setTimingEnabled())%n"));
+            }
+        }
+        summary.append(singleQueries).append(String.format("%n"));
+        summary.append(batchQueries).append(String.format("%n"));
+        summary.append(parallelQueries).append(String.format("%n"));
+        return summary.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getSummary();
+    }
+
+    /**
+     * Counts kept by one LandUseCsvTokenizer while it reads, added to the
+     * global metrics when it is closed.
+     */
+    static final class IngestCounts {
+
+        long bytesRead;
+        long linesRead;
+        long headerLines;
+        long blankLines;
+        long rowsKept;
+        long notAvailableValues;
+        final long[] excludedLines = new long[LandUseCsvTokenizer.Exclusion.values().length];
+        long readNanos;
+        long tokenizeNanos;
+        long exclusionNanos;
+        long conversionNanos;
+        long constructionNanos;
+    }
+}
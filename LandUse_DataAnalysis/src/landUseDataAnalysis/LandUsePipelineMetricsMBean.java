@@ -0,0 +1,52 @@
+package landUseDataAnalysis;
+
+/**
+ * JMX view of LandUsePipelineMetrics. Times are totals in milliseconds and
+ * are only counted while timing is enabled.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public interface LandUsePipelineMetricsMBean {
+
+    long getBytesRead();
+
+    long getLinesRead();
+
+    long getHeaderLines();
+
+    long getBlankLines();
+
+    long getRowsKept();
+
+    long getNotAvailableValues();
+
+    long getExcludedAkAndHi();
+
+    long getExcluded48States();
+
+    long getExcludedUsTotal();
+
+    long getExcludedDistrictOfColumbia();
+
+    long getExcludedLetterY();
+
+    double getReadMillis();
+
+    double getTokenizeMillis();
+
+    double getExclusionMillis();
+
+    double getConversionMillis();
+
+    double getConstructionMillis();
+
+    boolean isTimingEnabled();
+
+    void setTimingEnabled(boolean timingEnabled);
+
+    String getSummary();
+
+    void reset();
+}
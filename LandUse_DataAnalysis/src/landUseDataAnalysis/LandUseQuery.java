@@ -0,0 +1,110 @@
+package landUseDataAnalysis;
+
+import java.util.Arrays;
+
+/**
+ * A declarative query over a LandUseDataset: a filter, an optional group by
+ * on Region, Region or State or Year, and one or more aggregates.
+ *
+ * For example, the average Cropland used for pasture of the Pacific and
+ * Mountain states in 1964 is
+ *
+ *     new LandUseQuery(
+ *             LandUseFilter.and(LandUseFilter.year("1964"), LandUseFilter.region("Pacific", "Mountain")),
+ *             LandUseAggregate.avg(LandUseDataset.CROPLAND_USED_FOR_PASTURE))
+ *
+ * Queries are run with LandUseQueryEngine.execute().
+ *
+ * Two queries are equal when they have equal filters (see LandUseFilter),
+ * the same group by and the same aggregates in the same order, so a query
+ * can be used as a key by LandUseQueryCache.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public final class LandUseQuery {
+
+    private final LandUseFilter filter;
+    private final LandUseDimension groupBy;
+    private final LandUseAggregate[] aggregates;
+
+    /**
+     * Creates a query with a single result group.
+     *
+     * @param filter, LandUseFilter, rows to aggregate.
+     * @param aggregates, LandUseAggregate... values to work out.
+     */
+    public LandUseQuery(LandUseFilter filter, LandUseAggregate... aggregates) {
+        this(filter, null, aggregates);
+    }
+
+    /**
+     * Creates a query with one result group for each value of a text column.
+     *
+     * @param filter, LandUseFilter, rows to aggregate.
+     * @param groupBy, LandUseDimension to group by, or null for a single group.
+     * @param aggregates, LandUseAggregate... values to work out for each group.
+     */
+    public LandUseQuery(LandUseFilter filter, LandUseDimension groupBy, LandUseAggregate... aggregates) {
+        if (aggregates.length == 0) {
+            throw new IllegalArgumentException("A query needs at least one aggregate");
+        }
+        this.filter = filter;
+        this.groupBy = groupBy;
+        this.aggregates = aggregates.clone();
+    }
+
+    /**
+     * Gets the filter.
+     * @return LandUseFilter
+     */
+    public LandUseFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * Gets the group by column.
+     * @return LandUseDimension, or null for a single group.
+     */
+    public LandUseDimension getGroupBy() {
+        return groupBy;
+    }
+
+    /**
+     * Gets the number of aggregates.
+     * @return int
+     */
+    public int getAggregateCount() {
+        return aggregates.length;
+    }
+
+    /**
+     * Gets an aggregate.
+     * @param aggregate, int, position of the aggregate in the query.
+     * @return LandUseAggregate
+     */
+    public LandUseAggregate getAggregate(int aggregate) {
+        return aggregates[aggregate];
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof LandUseQuery)) {
+            return false;
+        }
+        LandUseQuery query = (LandUseQuery) other;
+        return filter.equals(query.filter) && groupBy == query.groupBy && Arrays.equals(aggregates, query.aggregates);
+    }
+
+    @Override
+    public int hashCode() {
+        return (filter.hashCode() * 31 + (groupBy == null ? 0 : groupBy.hashCode())) * 31 + Arrays.hashCode(aggregates);
+    }
+
+    @Override
+    public String toString() {
+        return "where " + filter + (groupBy == null ? "" : " group by " + groupBy) + " select "
+                + Arrays.toString(aggregates);
+    }
+}
@@ -0,0 +1,236 @@
+package landUseDataAnalysis;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded cache of LandUseQueryResult objects, so a question asked again
+ * against unchanged data is a hash lookup instead of a scan.
+ *
+ * Results are keyed by the query, using the normalized equality of
+ * LandUseQuery and LandUseFilter, and belong to one dataset at one version
+ * (see LandUseDataset.getVersion()). When the cache is used with a different
+ * dataset, such as one reloaded from the csv file, or rows have been
+ * appended since the results were cached, every cached result is dropped.
+ *
+ * When the cache is full the least recently used result is evicted.
+ *
+ * The cache is safe to share between threads. Queries are run outside the
+ * lock, so a slow query doesn't hold up lookups of other queries.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public class LandUseQueryCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    private final int maxEntries;
+    private final LinkedHashMap<LandUseQuery, LandUseQueryResult> results;
+
+    // Dataset and version the cached results belong to.
+    private LandUseDataset dataset;
+    private long datasetVersion;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    // Creates a cache holding up to DEFAULT_MAX_ENTRIES results.
+    public LandUseQueryCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Creates a cache holding up to maxEntries results.
+     *
+     * @param maxEntries, int, largest number of results to keep.
+     */
+    public LandUseQueryCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+
+        // An access ordered LinkedHashMap keeps the least recently used
+        // entry first, ready to be evicted.
+        this.results = new LinkedHashMap<LandUseQuery, LandUseQueryResult>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LandUseQuery, LandUseQueryResult> eldest) {
+                if (size() > LandUseQueryCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Gets the result of a query from the cache, running it with
+     * LandUseQueryEngine.execute() if it isn't cached.
+     *
+     * @param dataset, LandUseDataset to query.
+     * @param query, LandUseQuery to run.
+     * @return LandUseQueryResult, the cached or new result.
+     */
+    public LandUseQueryResult execute(LandUseDataset dataset, LandUseQuery query) {
+        long version;
+        synchronized (this) {
+            version = useDataset(dataset);
+            LandUseQueryResult result = results.get(query);
+            if (result != null) {
+                hits++;
+                return result;
+            }
+            misses++;
+        }
+        LandUseQueryResult result = LandUseQueryEngine.execute(dataset, query);
+        put(dataset, version, query, result);
+        return result;
+    }
+
+    /**
+     * Gets the results of several queries from the cache, running the ones
+     * that aren't cached together with LandUseBatchQueryEngine.executeAll().
+     *
+     * @param dataset, LandUseDataset to query.
+     * @param queries, List<LandUseQuery> of queries to run.
+     * @return List<LandUseQueryResult>, one result for each query, in the same order.
+     */
+    public List<LandUseQueryResult> executeAll(LandUseDataset dataset, List<LandUseQuery> queries) {
+        List<LandUseQueryResult> found = new ArrayList<>(queries.size());
+        List<LandUseQuery> missing = new ArrayList<>();
+        long version;
+        synchronized (this) {
+            version = useDataset(dataset);
+            for (LandUseQuery query : queries) {
+                LandUseQueryResult result = results.get(query);
+                found.add(result);
+                if (result != null) {
+                    hits++;
+                } else {
+                    misses++;
+                    missing.add(query);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        // Fill the gaps in order. A query asked twice in the list is run
+        // twice, the same as executeAll() without a cache.
+        List<LandUseQueryResult> computed = LandUseBatchQueryEngine.executeAll(dataset, missing);
+        int next = 0;
+        for (int i = 0; i < found.size(); i++) {
+            if (found.get(i) == null) {
+                LandUseQueryResult result = computed.get(next++);
+                found.set(i, result);
+                put(dataset, version, result.getQuery(), result);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Drops every cached result. The statistics are kept.
+     */
+    public synchronized void clear() {
+        results.clear();
+    }
+
+    /**
+     * Gets the number of cached results.
+     * @return int
+     */
+    public synchronized int getSize() {
+        return results.size();
+    }
+
+    /**
+     * Gets the largest number of results the cache keeps.
+     * @return int
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Gets the number of lookups that found a cached result.
+     * @return long
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups that had to run the query.
+     * @return long
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of results evicted to make room for newer ones.
+     * @return long
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Gets the number of times the cached results were dropped because the
+     * dataset was replaced or changed.
+     * @return long
+     */
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * Gets the share of lookups that found a cached result.
+     * @return double, between 0 and 1, or 0 before any lookups.
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "LandUseQueryCache [size=" + results.size() + ", maxEntries=" + maxEntries + ", hits=" + hits
+                + ", misses=" + misses + ", evictions=" + evictions + ", invalidations=" + invalidations + "]";
+    }
+
+    // Drops the cached results if they belong to another dataset or an older
+    // version of this one. Must hold the lock. Returns the current version.
+    private long useDataset(LandUseDataset dataset) {
+        long version = dataset.getVersion();
+        if (this.dataset != dataset || datasetVersion != version) {
+            if (!results.isEmpty()) {
+                results.clear();
+                invalidations++;
+            }
+            this.dataset = dataset;
+            datasetVersion = version;
+        }
+        return version;
+    }
+
+    // Caches a result, unless the data changed while the query was running.
+    private synchronized void put(LandUseDataset dataset, long version, LandUseQuery query,
+            LandUseQueryResult result) {
+        if (this.dataset == dataset && datasetVersion == version && dataset.getVersion() == version) {
+            results.put(query, result);
+        }
+    }
+}
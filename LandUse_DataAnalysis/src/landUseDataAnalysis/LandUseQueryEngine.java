@@ -0,0 +1,172 @@
+package landUseDataAnalysis;
+
+/**
+ * Runs LandUseQuery objects against a LandUseDataset.
+ *
+ * Every query takes the same path:
+ *
+ * 1. The filter selects a sorted list of row numbers, using the dataset's
+ *    indexes for Year, Region and Region or State, and reading land use
+ *    columns only for the rows those leave (see LandUseFilter). A filter
+ *    that reads land use columns starts from the rows of the blocks its
+ *    blockMatcher() keeps, so blocks the LandUseZoneMap rules out are never
+ *    read.
+ *
+ * 2. Each aggregate reads its one column for the selected rows, keeping its
+ *    state in primitive arrays indexed by the group by dictionary id (see
+ *    LandUseAccumulator). No Strings are compared and nothing is boxed.
+ *    When a query has no group by and selects a large part of the rows, the
+ *    rows are turned into a selection mask for each column, shared by the
+ *    aggregates of that column, and the columns are reduced with
+ *    LandUseColumnKernels instead.
+ *
+ * 3. The groups that had matching rows are turned into a LandUseQueryResult.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public class LandUseQueryEngine {
+
+    // A query without a group by that selects at least 1 in DENSE_SELECTION
+    // rows is aggregated with LandUseColumnKernels over whole columns. Below
+    // that, reading only the selected rows is cheaper.
+    static final int DENSE_SELECTION = 4;
+
+    /**
+     * Runs a query.
+     *
+     * @param dataset, LandUseDataset to query.
+     * @param query, LandUseQuery to run.
+     * @return LandUseQueryResult, aggregated values for each group.
+     */
+    public static LandUseQueryResult execute(LandUseDataset dataset, LandUseQuery query) {
+
+        LandUseFlightEvents.QueryExecution event = LandUseFlightEvents.beginQuery();
+        long start = System.nanoTime();
+        int[] candidates = candidateRows(dataset, query.getFilter());
+        int[] rows = query.getFilter().select(dataset, candidates);
+
+        LandUseDimension groupBy = query.getGroupBy();
+        int[] groups = groupBy == null ? null : groupBy.getColumn(dataset);
+        int groupCount = groupBy == null ? 1 : groupBy.getDictionary(dataset).size();
+
+        // A selection mask, and the number of rows it selects, is built once
+        // for each column the aggregates read and shared by them.
+        boolean dense = groups == null && (long) rows.length * DENSE_SELECTION >= dataset.getRowCount();
+        byte[][] masks = dense ? new byte[LandUseDataset.LAND_USE_COLUMN_COUNT][] : null;
+        int[] maskCounts = dense ? new int[LandUseDataset.LAND_USE_COLUMN_COUNT] : null;
+        LandUseAccumulator[] accumulators = new LandUseAccumulator[query.getAggregateCount()];
+        for (int aggregate = 0; aggregate < accumulators.length; aggregate++) {
+            LandUseAccumulator accumulator = new LandUseAccumulator(query.getAggregate(aggregate), groupCount);
+            accumulators[aggregate] = accumulator;
+            if (dense && accumulator.hasKernel()) {
+                int column = query.getAggregate(aggregate).getColumn();
+                if (masks[column] == null) {
+                    masks[column] = LandUseColumnKernels.mask(rows, dataset.getMissingColumn(), column,
+                            dataset.getRowCount());
+                    maskCounts[column] = LandUseColumnKernels.count(masks[column], masks[column].length);
+                }
+                accumulator.addDense(dataset, masks[column], maskCounts[column]);
+            } else {
+                accumulator.add(dataset, rows, groups);
+            }
+        }
+        LandUseQueryResult result = toResult(dataset, query, rows.length,
+                markGroups(groups, groupCount, rows, rows.length, null), accumulators);
+        // A filter answered from posting lists only reads the rows it matches.
+        long rowsScanned = query.getFilter().usesIndex() ? rows.length : candidates.length;
+        LandUsePipelineMetrics.getGlobal().getQueryMetrics(LandUsePipelineMetrics.SINGLE_ENGINE).record(1,
+                rowsScanned, rows.length, System.nanoTime() - start);
+        LandUseFlightEvents.commitQuery(event, LandUsePipelineMetrics.SINGLE_ENGINE, result, rowsScanned);
+        return result;
+    }
+
+    /**
+     * Selects the rows that match a filter, the way execute() does.
+     *
+     * @param dataset, LandUseDataset to read.
+     * @param filter, LandUseFilter to apply.
+     * @return int[], matching row numbers in ascending order.
+     */
+    static int[] selectRows(LandUseDataset dataset, LandUseFilter filter) {
+        return filter.select(dataset, candidateRows(dataset, filter));
+    }
+
+    // Gets the rows a filter has to look at. Filters that only use posting
+    // lists never read the rows, so the zone map would not save them anything.
+    private static int[] candidateRows(LandUseDataset dataset, LandUseFilter filter) {
+        return filter.usesIndex() ? dataset.getIndex().getAllRows()
+                : dataset.getZoneMap().getRows(filter.blockMatcher(dataset));
+    }
+
+    /**
+     * Marks the groups that have at least one of the given rows.
+     *
+     * @param groups, int[], group by row, or null when every row is in group 0.
+     * @param groupCount, int, number of groups.
+     * @param rows, int[], row numbers.
+     * @param rowCount, int, number of rows in the array to mark.
+     * @param present, boolean[] to add marks to, or null to start a new one.
+     * @return boolean[], true for groups that have rows, indexed by group id.
+     */
+    static boolean[] markGroups(int[] groups, int groupCount, int[] rows, int rowCount, boolean[] present) {
+        if (present == null) {
+            present = new boolean[groupCount];
+        }
+        if (groups == null) {
+
+            // A query without a group by always has its one group.
+            present[0] = true;
+            return present;
+        }
+        for (int i = 0; i < rowCount; i++) {
+            present[groups[rows[i]]] = true;
+        }
+        return present;
+    }
+
+    /**
+     * Makes a result from the accumulated state of a query, keeping only the
+     * groups that had matching rows.
+     *
+     * @param dataset, LandUseDataset that was queried.
+     * @param query, LandUseQuery that was run.
+     * @param matchedRows, int, number of rows that matched the filter.
+     * @param present, boolean[], true for groups that had matching rows.
+     * @param accumulators, LandUseAccumulator[], state for each aggregate.
+     * @return LandUseQueryResult
+     */
+    static LandUseQueryResult toResult(LandUseDataset dataset, LandUseQuery query, int matchedRows,
+            boolean[] present, LandUseAccumulator[] accumulators) {
+
+        LandUseDimension groupBy = query.getGroupBy();
+        int presentCount = 0;
+        for (boolean groupPresent : present) {
+            if (groupPresent) {
+                presentCount++;
+            }
+        }
+
+        String[] groupValues = new String[presentCount];
+        double[][] values = new double[accumulators.length][presentCount];
+        int[][] bestRows = new int[accumulators.length][presentCount];
+        int[][] counts = new int[accumulators.length][presentCount];
+        int[][][] rankedRows = new int[accumulators.length][presentCount][];
+        int position = 0;
+        for (int group = 0; group < present.length; group++) {
+            if (!present[group]) {
+                continue;
+            }
+            groupValues[position] = groupBy == null ? null : groupBy.getDictionary(dataset).valueOf(group);
+            for (int aggregate = 0; aggregate < accumulators.length; aggregate++) {
+                values[aggregate][position] = accumulators[aggregate].getValue(dataset, group);
+                bestRows[aggregate][position] = accumulators[aggregate].getRow(group);
+                counts[aggregate][position] = accumulators[aggregate].getCount(group);
+                rankedRows[aggregate][position] = accumulators[aggregate].getRows(group);
+            }
+            position++;
+        }
+        return new LandUseQueryResult(query, groupValues, matchedRows, values, bestRows, counts, rankedRows);
+    }
+}
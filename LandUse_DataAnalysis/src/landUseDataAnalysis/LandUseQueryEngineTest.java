@@ -0,0 +1,861 @@
+package landUseDataAnalysis;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+/**
+ * Tests for LandUseQueryEngine.java, LandUseFilter.java and
+ * LandUseAggregate.java, checking query results against the List of
+ * LandUseDataLineItem objects from processData().
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public class LandUseQueryEngineTest {
+
+    private static final String FILE_PATH =
+            "/Users/pulchrit/ada/C11_App_DataAnalysis/LandUse_DataAnalysis/src/USDA_MajorLandUse_1945-2012.csv";
+
+    /**
+     * Tests a query grouped by year against sums and counts worked out from
+     * the List of LandUseDataLineItem objects.
+     * @throws IOException
+     */
+    @Test
+    public void groupByYearTest() throws IOException {
+
+        List<LandUseDataLineItem> processedData = LandUseDataProcessing.processData(FILE_PATH);
+        LandUseDataset dataset = LandUseDataProcessing.processDataset(FILE_PATH);
+
+        LandUseQueryResult result = LandUseQueryEngine.execute(dataset, new LandUseQuery(
+                LandUseFilter.states(), LandUseDimension.YEAR,
+                LandUseAggregate.sum(LandUseDataset.TOTAL_LAND),
+                LandUseAggregate.min(LandUseDataset.LAND_IN_URBAN_AREAS),
+                LandUseAggregate.max(LandUseDataset.LAND_IN_URBAN_AREAS),
+                LandUseAggregate.countDistinct(LandUseDimension.REGION)));
+
+        assertEquals(15, result.getGroupCount());
+        assertEquals("1945", result.getGroup(0));
+        for (int group = 0; group < result.getGroupCount(); group++) {
+            String year = result.getGroup(group);
+            List<LandUseDataLineItem> states = processedData.stream()
+                    .filter(item -> item.getYear().equals(year) && !item.getRegion().contains("total"))
+                    .collect(Collectors.toList());
+
+            long totalLand = 0;
+            int minUrban = Integer.MAX_VALUE;
+            int maxUrban = Integer.MIN_VALUE;
+            Set<String> regions = new HashSet<>();
+            for (LandUseDataLineItem item : states) {
+                totalLand += item.getTotalLand();
+                minUrban = Math.min(minUrban, item.getLandInUrbanAreas());
+                maxUrban = Math.max(maxUrban, item.getLandInUrbanAreas());
+                regions.add(item.getRegion());
+            }
+            assertEquals(totalLand, result.getValue(group, 0), 0);
+            assertEquals(minUrban, result.getValue(group, 1), 0);
+            assertEquals(maxUrban, result.getValue(group, 2), 0);
+            assertEquals(regions.size(), result.getCount(group, 3));
+            assertEquals(maxUrban, dataset.getLandUseColumn(LandUseDataset.LAND_IN_URBAN_AREAS)
+                    [result.getRow(group, 2)]);
+        }
+    }
+
+    /**
+     * Tests value filters, or(), a filter that matches nothing and an
+     * aggregate of a column that doesn't exist.
+     * @throws IOException
+     */
+    @Test
+    public void filterTest() throws IOException {
+
+        List<LandUseDataLineItem> processedData = LandUseDataProcessing.processData(FILE_PATH);
+        LandUseDataset dataset = LandUseDataProcessing.processDataset(FILE_PATH);
+
+        LandUseQueryResult result = LandUseQueryEngine.execute(dataset, new LandUseQuery(
+                LandUseFilter.and(LandUseFilter.between(LandUseDataset.LAND_IN_URBAN_AREAS, 1000, 3000),
+                        LandUseFilter.or(LandUseFilter.year("1954"), LandUseFilter.region("Pacific"))),
+                LandUseAggregate.countDistinct(LandUseDimension.REGION_OR_STATE)));
+        long expected = processedData.stream()
+                .filter(item -> item.getLandInUrbanAreas() >= 1000 && item.getLandInUrbanAreas() <= 3000)
+                .filter(item -> item.getYear().equals("1954") || item.getRegion().equals("Pacific"))
+                .map(LandUseDataLineItem::getRegionOrState)
+                .distinct()
+                .count();
+        assertEquals(expected, result.getCount(0, 0));
+
+        // No rows: one group for an ungrouped query, none for a grouped one.
+        LandUseFilter nothing = LandUseFilter.and(LandUseFilter.year("1066"),
+                LandUseFilter.notMissing(LandUseDataset.TOTAL_LAND));
+        LandUseQueryResult empty = LandUseQueryEngine.execute(dataset, new LandUseQuery(nothing,
+                LandUseAggregate.avg(LandUseDataset.TOTAL_LAND), LandUseAggregate.argmax(LandUseDataset.TOTAL_LAND)));
+        assertEquals(1, empty.getGroupCount());
+        assertEquals(0, empty.getMatchedRows());
+        assertEquals(0, empty.getValue(0, 0), 0);
+        assertEquals(-1, empty.getRow(0, 1));
+        assertEquals(0, LandUseQueryEngine.execute(dataset, new LandUseQuery(nothing,
+                LandUseDimension.REGION, LandUseAggregate.sum(LandUseDataset.TOTAL_LAND))).getGroupCount());
+
+        // A column that isn't a land use column is rejected by the factory.
+        for (int column : new int[] {-1, LandUseDataset.LAND_USE_COLUMN_COUNT}) {
+            try {
+                LandUseAggregate.sum(column);
+                fail("Expected IllegalArgumentException");
+            } catch (IllegalArgumentException iae) {
+                assertTrue(iae.getMessage().contains(Integer.toString(column)));
+            }
+        }
+    }
+
+    /**
+     * Tests COUNT_DISTINCT grouped by a column with tens of thousands of
+     * values, counting a column with as many, which would need billions of
+     * flags if every (group, value) pair had one.
+     * @throws IOException
+     */
+    @Test
+    public void countDistinctLargeDictionariesTest() throws IOException {
+
+        LandUseDataset dataset = new LandUseDataset();
+        int[] landUse = new int[LandUseDataset.LAND_USE_COLUMN_COUNT];
+        for (int row = 0; row < 120000; row++) {
+            dataset.appendRow(row, "Region " + row / 2, "State " + row, "2012", landUse, 0);
+            if (row % 3 == 0) {
+                dataset.appendRow(row, "Region " + row / 2, "State " + row, "2007", landUse, 0);
+            }
+        }
+        LandUseQuery query = new LandUseQuery(LandUseFilter.all(), LandUseDimension.REGION,
+                LandUseAggregate.countDistinct(LandUseDimension.REGION_OR_STATE));
+        LandUseQueryResult result = LandUseQueryEngine.execute(dataset, query);
+        assertEquals(60000, result.getGroupCount());
+        for (int group = 0; group < result.getGroupCount(); group++) {
+            assertEquals(2, result.getCount(group, 0));
+        }
+        try (LandUseParallelQueryEngine engine = new LandUseParallelQueryEngine(4)) {
+            assertSameResult(result, engine.execute(dataset, query));
+        }
+    }
+
+    /**
+     * Tests that LandUseBatchQueryEngine gives each query the same result as
+     * running it on its own, including for datasets larger than one block.
+     * @throws IOException
+     */
+    @Test
+    public void batchMatchesSingleQueriesTest() throws IOException {
+
+        LandUseDataset dataset = LandUseDataProcessing.processDataset(FILE_PATH);
+
+        // Append the dataset to itself so the scan covers several blocks.
+        LandUseDataset larger = new LandUseDataset();
+        while (larger.getRowCount() <= 2 * LandUseBatchQueryEngine.BLOCK_SIZE) {
+            larger.appendDataset(dataset);
+        }
+
+        LandUseQuery[] queries = {
+                new LandUseQuery(LandUseFilter.all(), LandUseDimension.REGION,
+                        LandUseAggregate.sum(LandUseDataset.CROPLAND_IDLED),
+                        LandUseAggregate.avg(LandUseDataset.OTHER_LAND)),
+                new LandUseQuery(LandUseFilter.and(LandUseFilter.states(),
+                        LandUseFilter.atMost(LandUseDataset.TOTAL_LAND, 20000)), LandUseDimension.YEAR,
+                        LandUseAggregate.argmax(LandUseDataset.FOREST_USE_LAND),
+                        LandUseAggregate.min(LandUseDataset.LAND_IN_URBAN_AREAS),
+                        LandUseAggregate.countDistinct(LandUseDimension.REGION_OR_STATE)),
+                new LandUseQuery(LandUseFilter.or(LandUseFilter.regionOrState("Iowa"), LandUseFilter.yearBefore(1950)),
+                        LandUseAggregate.max(LandUseDataset.TOTAL_CROPLAND)),
+                new LandUseQuery(LandUseFilter.year("1066"), LandUseDimension.REGION,
+                        LandUseAggregate.sum(LandUseDataset.TOTAL_LAND))};
+
+        for (LandUseDataset data : new LandUseDataset[] {dataset, larger}) {
+            List<LandUseQueryResult> batch = LandUseBatchQueryEngine.executeAll(data, queries);
+            assertEquals(queries.length, batch.size());
+            for (int q = 0; q < queries.length; q++) {
+                LandUseQueryResult single = LandUseQueryEngine.execute(data, queries[q]);
+                assertSame(queries[q], batch.get(q).getQuery());
+                assertEquals(single.getMatchedRows(), batch.get(q).getMatchedRows());
+                assertEquals(single.getGroupCount(), batch.get(q).getGroupCount());
+                for (int group = 0; group < single.getGroupCount(); group++) {
+                    assertEquals(single.getGroup(group), batch.get(q).getGroup(group));
+                    for (int aggregate = 0; aggregate < queries[q].getAggregateCount(); aggregate++) {
+                        assertEquals(single.getValue(group, aggregate), batch.get(q).getValue(group, aggregate), 0);
+                        assertEquals(single.getRow(group, aggregate), batch.get(q).getRow(group, aggregate));
+                        assertEquals(single.getCount(group, aggregate), batch.get(q).getCount(group, aggregate));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that LandUseParallelQueryEngine gives the same results as
+     * LandUseBatchQueryEngine for any number of threads, including the
+     * earliest row for ties, and the same answers to the five questions,
+     * and that large query state gets fewer ranges.
+     * @throws IOException
+     */
+    @Test
+    public void parallelMatchesBatchTest() throws IOException {
+
+        LandUseDataset dataset = LandUseDataProcessing.processDataset(FILE_PATH);
+
+        // Every row of the dataset appears many times, so every MIN, MAX and
+        // ARGMAX is tied across ranges scanned by different tasks.
+        LandUseDataset larger = new LandUseDataset();
+        while (larger.getRowCount() <= 40 * LandUseBatchQueryEngine.BLOCK_SIZE) {
+            larger.appendDataset(dataset);
+        }
+
+        LandUseQuery[] queries = {
+                new LandUseQuery(LandUseFilter.all(), LandUseDimension.REGION,
+                        LandUseAggregate.sum(LandUseDataset.CROPLAND_IDLED),
+                        LandUseAggregate.avg(LandUseDataset.OTHER_LAND),
+                        LandUseAggregate.argmax(LandUseDataset.TOTAL_LAND)),
+                new LandUseQuery(LandUseFilter.and(LandUseFilter.states(),
+                        LandUseFilter.atMost(LandUseDataset.TOTAL_LAND, 20000)), LandUseDimension.YEAR,
+                        LandUseAggregate.argmax(LandUseDataset.FOREST_USE_LAND),
+                        LandUseAggregate.min(LandUseDataset.LAND_IN_URBAN_AREAS),
+                        LandUseAggregate.countDistinct(LandUseDimension.REGION_OR_STATE)),
+                new LandUseQuery(LandUseFilter.yearBetween(1950, 1970),
+                        LandUseAggregate.max(LandUseDataset.TOTAL_CROPLAND),
+                        LandUseAggregate.min(LandUseDataset.CROPLAND_IDLED)),
+                new LandUseQuery(LandUseFilter.year("1066"), LandUseDimension.REGION,
+                        LandUseAggregate.sum(LandUseDataset.TOTAL_LAND)),
+                new LandUseQuery(LandUseFilter.states(), LandUseDimension.YEAR,
+                        LandUseAggregate.top(LandUseDataset.GRASSLAND_PASTURE_AND_RANGE, 7))};
+
+        LandUseFiveAnswers expected = LandUseData5QuestionAnalysis.answerAll(dataset);
+        ForkJoinPool sharedPool = new ForkJoinPool(2);
+        try {
+            LandUseParallelQueryEngine[] engines = {new LandUseParallelQueryEngine(1),
+                    new LandUseParallelQueryEngine(3), new LandUseParallelQueryEngine(16),
+                    new LandUseParallelQueryEngine(sharedPool)};
+            for (LandUseParallelQueryEngine engine : engines) {
+                try {
+                    for (LandUseDataset data : new LandUseDataset[] {new LandUseDataset(), dataset, larger}) {
+                        List<LandUseQueryResult> batch = LandUseBatchQueryEngine.executeAll(data, queries);
+                        List<LandUseQueryResult> parallel = engine.executeAll(data, queries);
+                        for (int q = 0; q < queries.length; q++) {
+                            assertSameResult(batch.get(q), parallel.get(q));
+                            assertSameResult(batch.get(q), engine.execute(data, queries[q]));
+                        }
+                    }
+
+                    LandUseFiveAnswers answers = LandUseData5QuestionAnalysis.answerAll(dataset, engine);
+                    assertEquals(expected.getRegionMaxGrasslandPasture1974(),
+                            answers.getRegionMaxGrasslandPasture1974());
+                    assertEquals(expected.getRegionsUrbanLand2000Prior1987(),
+                            answers.getRegionsUrbanLand2000Prior1987());
+                    assertEquals(expected.getAverageCroplandForPasturePacificMountain1964(),
+                            answers.getAverageCroplandForPasturePacificMountain1964(), 0);
+                    assertEquals(expected.getMaxForestUseland13Colonies2012(),
+                            answers.getMaxForestUseland13Colonies2012());
+                    assertEquals(expected.getRegionMaxShiftLandUse1945To2012().toString(),
+                            answers.getRegionMaxShiftLandUse1945To2012().toString());
+                } finally {
+                    engine.close();
+                }
+            }
+
+            // Closing an engine leaves a pool it was given running.
+            assertFalse(sharedPool.isShutdown());
+        } finally {
+            sharedPool.shutdown();
+        }
+
+        // Each thread gets about RANGES_PER_THREAD ranges, unless the state
+        // of that many ranges wouldn't fit in STATE_BUDGET.
+        assertEquals(1, LandUseParallelQueryEngine.rangeBlocks(0, 4, 10));
+        assertEquals(1, LandUseParallelQueryEngine.rangeBlocks(10, 4, 10));
+        assertEquals(7, LandUseParallelQueryEngine.rangeBlocks(100, 4, 10));
+        assertEquals(50, LandUseParallelQueryEngine.rangeBlocks(100, 4,
+                LandUseParallelQueryEngine.STATE_BUDGET / 2));
+        assertEquals(100, LandUseParallelQueryEngine.rangeBlocks(100, 4,
+                LandUseParallelQueryEngine.STATE_BUDGET * 2));
+    }
+
+    /**
+     * Tests TOP_K against sorting every row, including ties, a k larger than
+     * a group, merging heaps in any order, and the top k versions of
+     * questions 1 and 4.
+     * @throws IOException
+     */
+    @Test
+    public void topKTest() throws IOException {
+
+        LandUseDataset dataset = LandUseDataProcessing.processDataset(FILE_PATH);
+        LandUseCategory category = LandUseCategory.FOREST_USE_LAND;
+        LandUseQueryResult result = LandUseQueryEngine.execute(dataset, new LandUseQuery(LandUseFilter.states(),
+                LandUseDimension.REGION, LandUseAggregate.top(category, 3), LandUseAggregate.max(category)));
+        Set<String> regions = new HashSet<>();
+        for (int row = 0; row < dataset.getRowCount(); row++) {
+            if (!dataset.getRegion(row).contains("total")) {
+                regions.add(dataset.getRegion(row));
+            }
+        }
+        assertEquals(regions.size(), result.getGroupCount());
+        for (String region : regions) {
+            List<Integer> expected = new ArrayList<>();
+            for (int row = 0; row < dataset.getRowCount(); row++) {
+                if (dataset.getRegion(row).equals(region) && !dataset.isMissing(row, category)) {
+                    expected.add(row);
+                }
+            }
+            expected.sort((row, other) -> dataset.getValue(row, category) != dataset.getValue(other, category)
+                    ? Integer.compare(dataset.getValue(other, category), dataset.getValue(row, category))
+                    : Integer.compare(row, other));
+            int group = result.indexOfGroup(region);
+            int[] rows = result.getRows(group, 0);
+            assertEquals(3, rows.length);
+            for (int rank = 0; rank < rows.length; rank++) {
+                assertEquals((int) expected.get(rank), rows[rank]);
+            }
+            assertEquals(result.getRow(group, 1), result.getRow(group, 0));
+            assertEquals(result.getValue(group, 1), result.getValue(group, 0), 0);
+            assertEquals(expected.size(), result.getCount(group, 0));
+            assertArrayEquals(new int[] {result.getRow(group, 1)}, result.getRows(group, 1));
+        }
+
+        // Every row has the same value, so the rows are ranked in row order,
+        // and k is larger than the number of rows.
+        LandUseDataset tied = new LandUseDataset();
+        for (int row = 0; row < 5; row++) {
+            tied.appendRow(row, "Pacific", "State " + row, "1964", new int[LandUseDataset.LAND_USE_COLUMN_COUNT], 0);
+        }
+        LandUseQuery tiedQuery = new LandUseQuery(LandUseFilter.all(),
+                LandUseAggregate.top(LandUseDataset.TOTAL_LAND, 3), LandUseAggregate.top(LandUseDataset.TOTAL_LAND, 10));
+        LandUseQueryResult tiedResult = LandUseQueryEngine.execute(tied, tiedQuery);
+        assertArrayEquals(new int[] {0, 1, 2}, tiedResult.getRows(0, 0));
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4}, tiedResult.getRows(0, 1));
+        try (LandUseParallelQueryEngine engine = new LandUseParallelQueryEngine(4)) {
+            assertSameResult(tiedResult, engine.execute(tied, tiedQuery));
+        }
+
+        // Heaps filled in different orders and split differently merge to
+        // the same rows.
+        Random random = new Random(25);
+        int[] values = new int[500];
+        for (int row = 0; row < values.length; row++) {
+            values[row] = random.nextInt(50);
+        }
+        LandUseTopRows inOrder = new LandUseTopRows(1, 20);
+        LandUseTopRows firstRows = new LandUseTopRows(1, 20);
+        LandUseTopRows lastRowsReversed = new LandUseTopRows(1, 20);
+        for (int row = 0; row < values.length; row++) {
+            inOrder.offer(0, row, values[row]);
+            if (row < 137) {
+                firstRows.offer(0, row, values[row]);
+            } else {
+                int reversed = values.length - 1 - (row - 137);
+                lastRowsReversed.offer(0, reversed, values[reversed]);
+            }
+        }
+        lastRowsReversed.merge(firstRows);
+        assertArrayEquals(inOrder.getRows(0), lastRowsReversed.getRows(0));
+        assertEquals(20, inOrder.size(0));
+        assertEquals(inOrder.getRows(0)[0], inOrder.getBestRow(0));
+
+        assertEquals(LandUseData5QuestionAnalysis.findRegionMaxGrasslandPasture1974(dataset),
+                LandUseData5QuestionAnalysis.findTopRegionsGrasslandPasture1974(dataset, 1).get(0));
+        List<String> colonies = LandUseData5QuestionAnalysis.findTopForestUseland13Colonies2012(dataset, 3);
+        assertEquals(3, colonies.size());
+        assertEquals("Georgia", colonies.get(0));
+        assertTrue(LandUseData5QuestionAnalysis.findTopRegionsGrasslandPasture1974(new LandUseDataset(), 3).isEmpty());
+        try {
+            LandUseAggregate.top(LandUseDataset.TOTAL_LAND, 0);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException iae) {
+            assertTrue(iae.getMessage().contains("k"));
+        }
+    }
+
+    /**
+     * Tests the LandUseColumnKernels against simple loops over random
+     * columns and masks, and that a query taking the dense kernel path gives
+     * the same answer as the List of LandUseDataLineItem objects.
+     * @throws IOException
+     */
+    @Test
+    public void columnKernelsTest() throws IOException {
+
+        Random random = new Random(42);
+        for (int length : new int[] {0, 1, 7, 1000}) {
+            int[] values = new int[length];
+            byte[] mask = new byte[length];
+            for (int i = 0; i < length; i++) {
+                values[i] = random.nextInt(200) - 100;
+                mask[i] = (byte) random.nextInt(2);
+            }
+
+            long sum = 0;
+            int count = 0;
+            int maxRow = -1;
+            int minRow = -1;
+            for (int i = 0; i < length; i++) {
+                if (mask[i] == 1) {
+                    sum += values[i];
+                    count++;
+                    maxRow = maxRow == -1 || values[i] > values[maxRow] ? i : maxRow;
+                    minRow = minRow == -1 || values[i] < values[minRow] ? i : minRow;
+                }
+            }
+            assertEquals(sum, LandUseColumnKernels.sum(values, mask, length));
+            assertEquals(count, LandUseColumnKernels.count(mask, length));
+            assertEquals(maxRow, LandUseColumnKernels.argmax(values, mask, length));
+            assertEquals(minRow, LandUseColumnKernels.argmin(values, mask, length));
+
+            long[] later = new long[length];
+            long[] earlier = new long[length];
+            long[] expected = new long[length];
+            int furthest = -1;
+            for (int i = 0; i < length; i++) {
+                later[i] = values[i];
+                earlier[i] = length - i;
+                expected[i] = mask[i] == 1 ? later[i] - earlier[i] : 0;
+                if (mask[i] == 1 && (furthest == -1 || Math.abs(expected[i]) > Math.abs(expected[furthest]))) {
+                    furthest = i;
+                }
+            }
+            long[] differences = new long[length];
+            LandUseColumnKernels.difference(later, earlier, mask, differences, length);
+            assertArrayEquals(expected, differences);
+            assertEquals(furthest, LandUseColumnKernels.argmaxAbs(differences, mask, 0, length));
+        }
+
+        // argmaxAbs only reads its part of the array and keeps the first of
+        // values the same distance from 0.
+        assertEquals(2, LandUseColumnKernels.argmaxAbs(new long[] {-9, 1, -4, 4, 2}, new byte[] {1, 1, 1, 1, 1}, 1, 4));
+
+        // A selected value at the end of the int range is still found.
+        assertEquals(1, LandUseColumnKernels.argmax(new int[] {5, Integer.MIN_VALUE}, new byte[] {0, 1}, 2));
+        assertEquals(0, LandUseColumnKernels.argmin(new int[] {Integer.MAX_VALUE, 3}, new byte[] {1, 0}, 2));
+        assertEquals(-1, LandUseColumnKernels.argmax(new int[] {5, 6}, new byte[] {0, 0}, 2));
+
+        // "N.A." rows are left out of the mask.
+        assertArrayEquals(new byte[] {0, 1, 0, 0},
+                LandUseColumnKernels.mask(new int[] {0, 1}, new int[] {1 << 3, 0, 0, 0}, 3, 4));
+
+        List<LandUseDataLineItem> processedData = LandUseDataProcessing.processData(FILE_PATH);
+        LandUseDataset dataset = LandUseDataProcessing.processDataset(FILE_PATH);
+        LandUseQueryResult result = LandUseQueryEngine.execute(dataset, new LandUseQuery(LandUseFilter.all(),
+                LandUseAggregate.sum(LandUseDataset.LAND_IN_URBAN_AREAS),
+                LandUseAggregate.argmax(LandUseDataset.TOTAL_LAND)));
+        assertEquals(processedData.stream().mapToLong(LandUseDataLineItem::getLandInUrbanAreas).sum(),
+                result.getValue(0, 0), 0);
+        assertEquals(processedData.stream().mapToInt(LandUseDataLineItem::getTotalLand).max().getAsInt(),
+                result.getValue(0, 1), 0);
+    }
+
+    /**
+     * Tests the LandUseZoneMap statistics against a scan of each block, that
+     * blocks ruled out by a filter have no matching rows, and that queries
+     * that skip blocks give the same answers as the row by row matcher.
+     * @throws IOException
+     */
+    @Test
+    public void zoneMapTest() throws IOException {
+
+        // Data from several releases is appended one year at a time, which
+        // is the layout the zone map is built for.
+        LandUseDataset dataset = LandUseDataProcessing.processDataset(FILE_PATH);
+        LandUseDataset byYear = new LandUseDataset();
+        for (int copy = 0; copy < 4; copy++) {
+            for (int yearId = 0; yearId < dataset.getYears().size(); yearId++) {
+                for (int row : dataset.getIndex().getYearRows(yearId)) {
+                    LandUseDataLineItem item = dataset.toLineItem(row);
+                    int[] values = new int[LandUseDataset.LAND_USE_COLUMN_COUNT];
+                    for (int column = 0; column < values.length; column++) {
+                        values[column] = item.getLandUse(column);
+                    }
+                    byYear.appendRow(item.getSortOrder(), item.getRegion(), item.getRegionOrState(),
+                            item.getYear(), values, item.getMissingValues());
+                }
+            }
+        }
+
+        LandUseZoneMap zoneMap = byYear.getZoneMap();
+        assertEquals((byYear.getRowCount() + LandUseZoneMap.BLOCK_SIZE - 1) / LandUseZoneMap.BLOCK_SIZE,
+                zoneMap.getBlockCount());
+        for (int block = 0; block < zoneMap.getBlockCount(); block++) {
+            int nulls = 0;
+            int max = Integer.MIN_VALUE;
+            for (int row = zoneMap.getBlockStart(block); row < zoneMap.getBlockEnd(block); row++) {
+                if (byYear.isMissing(row, LandUseDataset.CROPLAND_IDLED)) {
+                    nulls++;
+                } else {
+                    max = Math.max(max, byYear.getLandUseColumn(LandUseDataset.CROPLAND_IDLED)[row]);
+                }
+                assertTrue(byYear.getYearColumn()[row] >= zoneMap.getMinId(LandUseDimension.YEAR, block));
+                assertTrue(byYear.getYearColumn()[row] <= zoneMap.getMaxId(LandUseDimension.YEAR, block));
+            }
+            assertEquals(nulls, zoneMap.getNullCount(LandUseDataset.CROPLAND_IDLED, block));
+            assertEquals(max, zoneMap.getMax(LandUseDataset.CROPLAND_IDLED, block));
+        }
+
+        LandUseFilter[] filters = {
+                LandUseFilter.and(LandUseFilter.yearBefore(1987), LandUseFilter.atLeast(LandUseDataset.LAND_IN_URBAN_AREAS, 2000)),
+                LandUseFilter.and(LandUseFilter.year("2012"), LandUseFilter.atMost(LandUseDataset.TOTAL_LAND, 10000)),
+                LandUseFilter.or(LandUseFilter.year("1974"), LandUseFilter.atLeast(LandUseDataset.OTHER_LAND, 100000)),
+                LandUseFilter.and(LandUseFilter.year("1949"), LandUseFilter.notMissing(LandUseDataset.CROPLAND_IDLED))};
+        int skipped = 0;
+        for (LandUseFilter filter : filters) {
+            IntPredicate matcher = filter.matcher(byYear);
+            IntPredicate blockMatcher = filter.blockMatcher(byYear);
+            int matching = 0;
+            for (int block = 0; block < zoneMap.getBlockCount(); block++) {
+                boolean mayMatch = blockMatcher.test(block);
+                skipped += mayMatch ? 0 : 1;
+                for (int row = zoneMap.getBlockStart(block); row < zoneMap.getBlockEnd(block); row++) {
+                    if (matcher.test(row)) {
+                        assertTrue(mayMatch);
+                        matching++;
+                    }
+                }
+            }
+            LandUseQuery query = new LandUseQuery(filter, LandUseAggregate.sum(LandUseDataset.TOTAL_LAND));
+            assertEquals(matching, LandUseQueryEngine.execute(byYear, query).getMatchedRows());
+            assertEquals(matching, LandUseBatchQueryEngine.executeAll(byYear, query).get(0).getMatchedRows());
+        }
+        assertTrue(skipped > 0);
+    }
+
+    /**
+     * Tests that equal queries share a cached result, that the cache evicts
+     * the least recently used result when full, and that appending rows or
+     * using another dataset drops the cached results.
+     * @throws IOException
+     */
+    @Test
+    public void queryCacheTest() throws IOException {
+
+        LandUseDataset dataset = LandUseDataProcessing.processDataset(FILE_PATH);
+        LandUseQueryCache cache = new LandUseQueryCache(2);
+
+        // Filters are normalized, so value and filter order don't matter.
+        LandUseQuery pacificMountain = new LandUseQuery(
+                LandUseFilter.and(LandUseFilter.year("1964"), LandUseFilter.region("Pacific", "Mountain")),
+                LandUseAggregate.avg(LandUseDataset.CROPLAND_USED_FOR_PASTURE));
+        LandUseQuery mountainPacific = new LandUseQuery(
+                LandUseFilter.and(LandUseFilter.region("Mountain", "Pacific", "Mountain"), LandUseFilter.year("1964")),
+                LandUseAggregate.avg(LandUseDataset.CROPLAND_USED_FOR_PASTURE));
+        assertEquals(pacificMountain, mountainPacific);
+        assertEquals(pacificMountain.hashCode(), mountainPacific.hashCode());
+        assertFalse(LandUseFilter.region("Region 4, West").equals(LandUseFilter.region("Region 4", " West")));
+        assertEquals(LandUseFilter.notMissing(LandUseDataset.TOTAL_LAND),
+                LandUseFilter.between(LandUseDataset.TOTAL_LAND, Integer.MIN_VALUE, Integer.MAX_VALUE));
+
+        LandUseQueryResult first = cache.execute(dataset, pacificMountain);
+        assertSame(first, cache.execute(dataset, mountainPacific));
+        assertEquals(777.1, first.getValue(0, 0), .5);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        // A third query evicts the least recently used one.
+        LandUseQuery urban = new LandUseQuery(LandUseFilter.states(), LandUseAggregate.sum(LandUseDataset.LAND_IN_URBAN_AREAS));
+        LandUseQuery forest = new LandUseQuery(LandUseFilter.states(), LandUseAggregate.sum(LandUseDataset.FOREST_USE_LAND));
+        cache.execute(dataset, urban);
+        cache.execute(dataset, pacificMountain);
+        cache.execute(dataset, forest);
+        assertEquals(2, cache.getSize());
+        assertEquals(1, cache.getEvictions());
+        assertSame(first, cache.execute(dataset, pacificMountain));
+
+        // The five answers from the cache match the ones without it, and a
+        // second call is answered from the cache.
+        LandUseQueryCache answerCache = new LandUseQueryCache();
+        LandUseFiveAnswers answers = LandUseData5QuestionAnalysis.answerAll(dataset, answerCache);
+        assertEquals("Mountain total", answers.getRegionMaxGrasslandPasture1974());
+        assertEquals(4, answers.getRegionsUrbanLand2000Prior1987());
+        assertEquals("Georgia", answers.getMaxForestUseland13Colonies2012());
+        assertEquals(54100, answers.getRegionMaxShiftLandUse1945To2012().getMaxLandValue());
+        LandUseData5QuestionAnalysis.answerAll(dataset, answerCache);
+        assertEquals(answerCache.getMisses(), answerCache.getHits());
+
+        // Appending a row or switching datasets drops the results.
+        dataset.appendRow(9999, "Pacific", "Hawaii", "1964", new int[LandUseDataset.LAND_USE_COLUMN_COUNT], 0);
+        LandUseQueryResult appended = cache.execute(dataset, pacificMountain);
+        assertNotSame(first, appended);
+        assertEquals(1, cache.getInvalidations());
+        assertEquals(first.getMatchedRows() + 1, appended.getMatchedRows());
+        cache.execute(LandUseDataProcessing.processDataset(FILE_PATH), pacificMountain);
+        assertEquals(2, cache.getInvalidations());
+        assertEquals(1, cache.getSize());
+    }
+
+    /**
+     * Tests LandUseCube cells and roll-ups against queries, the five answers
+     * from the cube against the ones from the rows, and a cube kept up to
+     * date as rows are appended against one built from every row.
+     * @throws IOException
+     */
+    @Test
+    public void cubeTest() throws IOException {
+
+        LandUseDataset dataset = LandUseDataProcessing.processDataset(FILE_PATH);
+        LandUseCube cube = new LandUseCube(dataset);
+
+        LandUseCubeCell pacificMountain = cube.rollUp(LandUseCube.Level.REGION, new String[] {"Pacific", "Mountain"},
+                new String[] {"1964"}, LandUseDataset.CROPLAND_USED_FOR_PASTURE);
+        LandUseQueryResult expected = LandUseQueryEngine.execute(dataset, new LandUseQuery(
+                LandUseFilter.and(LandUseFilter.year("1964"), LandUseFilter.region("Pacific", "Mountain")),
+                LandUseAggregate.sum(LandUseDataset.CROPLAND_USED_FOR_PASTURE),
+                LandUseAggregate.avg(LandUseDataset.CROPLAND_USED_FOR_PASTURE),
+                LandUseAggregate.min(LandUseDataset.CROPLAND_USED_FOR_PASTURE),
+                LandUseAggregate.max(LandUseDataset.CROPLAND_USED_FOR_PASTURE)));
+        assertEquals(expected.getValue(0, 0), pacificMountain.getSum(), 0);
+        assertEquals(expected.getValue(0, 1), pacificMountain.getAverage(), 1e-9);
+        assertEquals(expected.getValue(0, 2), pacificMountain.getMin(), 0);
+        assertEquals(expected.getValue(0, 3), pacificMountain.getMax(), 0);
+
+        // Every state's urban land over all years.
+        LandUseQueryResult urban = LandUseQueryEngine.execute(dataset, new LandUseQuery(LandUseFilter.states(),
+                LandUseDimension.REGION_OR_STATE, LandUseAggregate.sum(LandUseDataset.LAND_IN_URBAN_AREAS)));
+        assertEquals(urban.getGroupCount(), cube.getValues(LandUseCube.Level.STATE).length);
+        for (int group = 0; group < urban.getGroupCount(); group++) {
+            assertEquals(urban.getValue(group, 0), cube.rollUp(LandUseCube.Level.STATE,
+                    new String[] {urban.getGroup(group)}, null, LandUseDataset.LAND_IN_URBAN_AREAS).getSum(), 0);
+        }
+        assertEquals(0, cube.getCell(LandUseCube.Level.STATE, "Atlantis", "1964", LandUseDataset.TOTAL_LAND).getCount());
+        assertTrue(cube.isRegionTotal("Mountain total"));
+        assertFalse(cube.isRegionTotal("Mountain"));
+
+        LandUseFiveAnswers answers = LandUseData5QuestionAnalysis.answerAll(cube);
+        LandUseFiveAnswers fromRows = LandUseData5QuestionAnalysis.answerAll(dataset);
+        assertEquals(fromRows.getRegionMaxGrasslandPasture1974(), answers.getRegionMaxGrasslandPasture1974());
+        assertEquals(fromRows.getRegionsUrbanLand2000Prior1987(), answers.getRegionsUrbanLand2000Prior1987());
+        assertEquals(fromRows.getAverageCroplandForPasturePacificMountain1964(),
+                answers.getAverageCroplandForPasturePacificMountain1964(), 1e-9);
+        assertEquals(fromRows.getMaxForestUseland13Colonies2012(), answers.getMaxForestUseland13Colonies2012());
+        assertEquals("Southeast total", answers.getRegionMaxShiftLandUse1945To2012().getMaxRegion());
+        assertEquals(fromRows.getRegionMaxShiftLandUse1945To2012().toString(),
+                answers.getRegionMaxShiftLandUse1945To2012().toString());
+
+        // Rows appended a few at a time, so the cells are laid out again as
+        // new regions, states and years turn up.
+        List<LandUseDataLineItem> lineItems = dataset.toLineItems();
+        LandUseDataset growing = new LandUseDataset();
+        LandUseCube growingCube = new LandUseCube(growing);
+        for (int first = 0; first < lineItems.size(); first += 97) {
+            int end = Math.min(first + 97, lineItems.size());
+            growing.appendDataset(LandUseDataset.fromLineItems(lineItems.subList(first, end)));
+            growingCube.rowsAppended(growing, first, end);
+        }
+        for (String region : cube.getValues(LandUseCube.Level.REGION)) {
+            for (int column = 0; column < LandUseDataset.LAND_USE_COLUMN_COUNT; column++) {
+                LandUseCubeCell all = cube.rollUp(LandUseCube.Level.REGION, new String[] {region}, null, column);
+                LandUseCubeCell grown = growingCube.rollUp(LandUseCube.Level.REGION, new String[] {region}, null, column);
+                assertEquals(all.toString(), grown.toString());
+            }
+        }
+    }
+
+    /**
+     * Tests LandUseDeltaEngine against per state queries for each year, the
+     * consecutive year pairs, the order of the top shifts, and the deltas
+     * from a LandUseCube against the ones from the rows.
+     * @throws IOException
+     */
+    @Test
+    public void deltaEngineTest() throws IOException {
+
+        LandUseDataset dataset = LandUseDataProcessing.processDataset(FILE_PATH);
+        int[] columns = {LandUseDataset.FOREST_USE_LAND, LandUseDataset.LAND_IN_URBAN_AREAS};
+        LandUseDeltaMatrix deltas = LandUseDeltaEngine.compute(dataset, LandUseFilter.states(),
+                LandUseDimension.REGION_OR_STATE, "1945", "2012", columns);
+        LandUseQueryResult from = LandUseQueryEngine.execute(dataset, new LandUseQuery(
+                LandUseFilter.and(LandUseFilter.states(), LandUseFilter.year("1945")), LandUseDimension.REGION_OR_STATE,
+                LandUseAggregate.sum(columns[0]), LandUseAggregate.sum(columns[1])));
+        LandUseQueryResult to = LandUseQueryEngine.execute(dataset, new LandUseQuery(
+                LandUseFilter.and(LandUseFilter.states(), LandUseFilter.year("2012")), LandUseDimension.REGION_OR_STATE,
+                LandUseAggregate.sum(columns[0]), LandUseAggregate.sum(columns[1])));
+        Set<String> states = new HashSet<>();
+        for (int group = 0; group < from.getGroupCount(); group++) {
+            states.add(from.getGroup(group));
+        }
+        for (int group = 0; group < to.getGroupCount(); group++) {
+            states.add(to.getGroup(group));
+        }
+        assertEquals(states.size(), deltas.getEntityCount());
+        for (int state = 0; state < deltas.getEntityCount(); state++) {
+            int fromGroup = from.indexOfGroup(deltas.getEntity(state));
+            int toGroup = to.indexOfGroup(deltas.getEntity(state));
+            for (int position = 0; position < columns.length; position++) {
+                assertEquals(to.getValue(toGroup, position) - from.getValue(fromGroup, position),
+                        deltas.getDelta(state, position), 0);
+            }
+        }
+        int georgia = deltas.indexOfEntity("Georgia");
+        assertEquals(deltas.getDelta(georgia, 1) / (double) deltas.getFromValue(georgia, 1),
+                deltas.getRelativeChange(georgia, 1), 1e-12);
+
+        // The top shifts come largest first, and match the largest single delta.
+        for (LandUseDeltaMatrix.Change change : LandUseDeltaMatrix.Change.values()) {
+            List<LandUseShift> top = deltas.topShifts(10, change);
+            assertEquals(10, top.size());
+            for (int i = 1; i < top.size(); i++) {
+                assertTrue(size(top.get(i - 1), change) >= size(top.get(i), change));
+            }
+            int state = deltas.indexOfEntity(top.get(0).getEntity());
+            int position = deltas.largestShift(state, change);
+            assertEquals(top.get(0).getColumn(), deltas.getColumn(position));
+        }
+
+        // Consecutive pairs, read in one pass, match the pairs one at a time.
+        List<LandUseDeltaMatrix> consecutive = LandUseDeltaEngine.computeConsecutive(dataset,
+                LandUseFilter.regionTotals(), LandUseDimension.REGION, columns);
+        assertEquals(dataset.getYears().size() - 1, consecutive.size());
+        for (LandUseDeltaMatrix pair : consecutive) {
+            assertTrue(Integer.parseInt(pair.getFromYear()) < Integer.parseInt(pair.getToYear()));
+            LandUseDeltaMatrix single = LandUseDeltaEngine.compute(dataset, LandUseFilter.regionTotals(),
+                    LandUseDimension.REGION, pair.getFromYear(), pair.getToYear(), columns);
+            assertEquals(single.topShifts(100, LandUseDeltaMatrix.Change.ABSOLUTE).toString(),
+                    pair.topShifts(100, LandUseDeltaMatrix.Change.ABSOLUTE).toString());
+        }
+        List<LandUseShift> topOfAll = LandUseDeltaMatrix.topShifts(consecutive, 3,
+                LandUseDeltaMatrix.Change.ABSOLUTE);
+        assertEquals(3, topOfAll.size());
+
+        // A year that isn't in the data gives no deltas.
+        LandUseDeltaMatrix noYear = LandUseDeltaEngine.compute(dataset, LandUseFilter.regionTotals(),
+                LandUseDimension.REGION, "1900", "2012", columns);
+        assertTrue(noYear.topShifts(10, LandUseDeltaMatrix.Change.ABSOLUTE).isEmpty());
+
+        LandUseCube cube = new LandUseCube(dataset);
+        LandUseDeltaMatrix fromCube = cube.getDeltas(LandUseCube.Level.STATE, null, "1945", "2012", columns);
+        assertEquals(deltas.topShifts(100, LandUseDeltaMatrix.Change.RELATIVE).toString(),
+                fromCube.topShifts(100, LandUseDeltaMatrix.Change.RELATIVE).toString());
+    }
+
+    // Gets the size of a shift the way LandUseDeltaMatrix compares them.
+    /**
+     * Tests the LandUseQueryServer endpoints against the answers to the five
+     * questions, and its error responses and latency stats.
+     * @throws IOException
+     */
+    @Test
+    public void queryServerTest() throws IOException {
+
+        LandUseDataset dataset = LandUseDataProcessing.processDataset(FILE_PATH);
+        LandUseFiveAnswers answers = LandUseData5QuestionAnalysis.answerAll(dataset);
+        try (LandUseQueryServer server = new LandUseQueryServer(dataset,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4)) {
+            server.start();
+            String base = "http://localhost:" + server.getPort();
+
+            assertEquals("{\"regionMaxGrasslandPasture1974\":\"Mountain total\","
+                    + "\"regionsUrbanLand2000Prior1987\":4,"
+                    + "\"averageCroplandForPasturePacificMountain1964\":"
+                    + answers.getAverageCroplandForPasturePacificMountain1964() + ","
+                    + "\"maxForestUseland13Colonies2012\":\"Georgia\","
+                    + "\"regionMaxShiftLandUse1945To2012\":{\"from\":\"1945\",\"to\":\"2012\","
+                    + "\"region\":\"Southeast total\",\"landType\":\"Forest Use Land Not Grazed\","
+                    + "\"delta\":54100}}", get(base + "/answers", 200));
+
+            // The parameterized endpoints give the same answers for the questions' parameters.
+            assertTrue(get(base + "/max?category=GRASSLAND_PASTURE_AND_RANGE&year=1974", 200)
+                    .contains("\"name\":\"Mountain total\""));
+            assertTrue(get(base + "/max?category=Forest-use+land+%28all%29&year=2012&level=state"
+                    + "&state=Delaware,Georgia,Connecticut,Massachusetts,South+Carolina,New+Hampshire,"
+                    + "Virginia,West+Virginia,North+Carolina,Rhode+Island", 200)
+                    .contains("\"name\":\"Georgia\""));
+            String top = get(base + "/top?category=GRASSLAND_PASTURE_AND_RANGE&year=1974&k=3", 200);
+            assertTrue(top.contains("\"k\":3,\"ranking\":[{\"name\":\"Mountain total\",\"value\":"));
+            assertEquals(3, top.split("\"name\"").length - 1);
+            assertTrue(get(base + "/top?category=OTHER_LAND&year=1974&k=0", 400).contains("k must be"));
+            assertTrue(get(base + "/count?category=land_in_urban_areas&atLeast=2000&before=1987", 200)
+                    .endsWith("\"states\":4}"));
+            assertTrue(get(base + "/average?category=CROPLAND_USED_FOR_PASTURE&year=1964&region=Pacific,Mountain",
+                    200).endsWith("\"average\":" + answers.getAverageCroplandForPasturePacificMountain1964() + "}"));
+            assertTrue(get(base + "/shift?from=1945&to=2012", 200).contains("\"region\":\"Southeast total\""));
+            assertTrue(get(base + "/shift?from=1949&to=1954", 200).contains("\"region\":\""
+                    + LandUseData5QuestionAnalysis.findRegionMaxShiftLandUse(dataset, "1949", "1954").getMaxRegion()));
+
+            assertTrue(get(base + "/max?category=NOT_A_COLUMN&year=1974", 400).contains("\"error\""));
+            assertTrue(get(base + "/max?year=1974", 400).contains("Missing parameter category"));
+            assertTrue(get(base + "/max?category=OTHER_LAND&year=1974&level=county", 400).contains("level"));
+            assertTrue(get(base + "/count?category=OTHER_LAND&atLeast=lots", 400).contains("atLeast"));
+            assertTrue(get(base + "/max?category=OTHER_LAND&year=1066", 404).contains("1066"));
+            assertTrue(get(base + "/average?category=CROPLAND_USED_FOR_PASTURE&year=1800", 404).contains("1800"));
+            assertTrue(get(base + "/average?category=CROPLAND_USED_FOR_PASTURE&year=1964&region=Nowhere", 404)
+                    .contains("\"error\""));
+            get(base + "/nothing", 404);
+            get(base + "/answersAndMore", 404);
+
+            assertEquals(16, server.getLatency().getCount());
+            assertEquals(1, server.getLatency("/answers").getCount());
+            String stats = get(base + "/stats", 200);
+            assertTrue(stats.contains("\"p50Micros\""));
+            assertTrue(stats.contains("\"p99Micros\""));
+            assertTrue(stats.contains("\"/max\":{\"requests\":6,"));
+        }
+
+        LandUseLatencyStats stats = new LandUseLatencyStats(4);
+        assertArrayEquals(new long[] {0, 0}, stats.getPercentilesNanos(50, 99));
+        for (long nanos = 1; nanos <= 10; nanos++) {
+            stats.record(nanos);
+        }
+
+        // Only the latest 4 latencies, 7 to 10, are kept.
+        assertEquals(10, stats.getCount());
+        assertEquals(10, stats.getMaxNanos());
+        assertArrayEquals(new long[] {7, 8, 10, 10}, stats.getPercentilesNanos(0, 50, 99, 100));
+    }
+
+    // Sends a GET request and returns the response body, checking the status.
+    private static String get(String url, int status) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            assertEquals(status, connection.getResponseCode());
+            assertEquals("application/json; charset=utf-8", connection.getContentType());
+            try (InputStream in = status == 200 ? connection.getInputStream() : connection.getErrorStream()) {
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                    body.write(buffer, 0, read);
+                }
+                return new String(body.toByteArray(), StandardCharsets.UTF_8);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    // Checks that two results have the same groups, values, rows and counts.
+    private static void assertSameResult(LandUseQueryResult expected, LandUseQueryResult actual) {
+        assertSame(expected.getQuery(), actual.getQuery());
+        assertEquals(expected.getMatchedRows(), actual.getMatchedRows());
+        assertEquals(expected.getGroupCount(), actual.getGroupCount());
+        for (int group = 0; group < expected.getGroupCount(); group++) {
+            assertEquals(expected.getGroup(group), actual.getGroup(group));
+            for (int aggregate = 0; aggregate < expected.getQuery().getAggregateCount(); aggregate++) {
+                assertEquals(expected.getValue(group, aggregate), actual.getValue(group, aggregate), 0);
+                assertEquals(expected.getRow(group, aggregate), actual.getRow(group, aggregate));
+                assertEquals(expected.getCount(group, aggregate), actual.getCount(group, aggregate));
+                assertArrayEquals(expected.getRows(group, aggregate), actual.getRows(group, aggregate));
+            }
+        }
+    }
+
+    private static double size(LandUseShift shift, LandUseDeltaMatrix.Change change) {
+        return change == LandUseDeltaMatrix.Change.ABSOLUTE ? Math.abs(shift.getDelta())
+                : Math.abs(shift.getRelativeChange());
+    }
+}
@@ -0,0 +1,121 @@
+package landUseDataAnalysis;
+
+/**
+ * Counts and times the scans run by one query engine (see
+ * LandUsePipelineMetrics.getQueryMetrics()). A scan is one call to the
+ * engine, which may run several queries.
+ *
+ * Rows scanned are the rows a scan tested against a filter, after the
+ * indexes and zone map ruled out the rest, counted once for each query that
+ * tested them. A filter that LandUseQueryEngine answers from the index
+ * posting lists only reads the rows it matches. Rows matched are the rows
+ * that passed.
+ *
+ * The metrics are safe to share between threads.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public class LandUseQueryMetrics implements LandUseQueryMetricsMBean {
+
+    private final String engine;
+    private final LandUseLatencyStats latency = new LandUseLatencyStats();
+    private long scans;
+    private long queries;
+    private long rowsScanned;
+    private long rowsMatched;
+    private long totalNanos;
+
+    // Created by LandUsePipelineMetrics, one for each engine.
+    LandUseQueryMetrics(String engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Records one scan.
+     *
+     * @param queryCount, int, number of queries the scan ran.
+     * @param scanned, long, rows tested against a filter.
+     * @param matched, long, rows that matched.
+     * @param nanos, long, time taken in nanoseconds.
+     */
+    synchronized void record(int queryCount, long scanned, long matched, long nanos) {
+        scans++;
+        queries += queryCount;
+        rowsScanned += scanned;
+        rowsMatched += matched;
+        totalNanos += nanos;
+        latency.record(nanos);
+    }
+
+    /**
+     * Gets the name of the engine, such as "batch".
+     * @return String
+     */
+    public String getEngine() {
+        return engine;
+    }
+
+    @Override
+    public synchronized long getScans() {
+        return scans;
+    }
+
+    @Override
+    public synchronized long getQueries() {
+        return queries;
+    }
+
+    @Override
+    public synchronized long getRowsScanned() {
+        return rowsScanned;
+    }
+
+    @Override
+    public synchronized long getRowsMatched() {
+        return rowsMatched;
+    }
+
+    @Override
+    public synchronized double getTotalMillis() {
+        return totalNanos / 1e6;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return latency.getPercentileNanos(50) / 1e3;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return latency.getPercentileNanos(99) / 1e3;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return latency.getMaxNanos() / 1e3;
+    }
+
+    /**
+     * Forgets every scan recorded so far.
+     */
+    public synchronized void reset() {
+        scans = 0;
+        queries = 0;
+        rowsScanned = 0;
+        rowsMatched = 0;
+        totalNanos = 0;
+        latency.reset();
+    }
+
+    @Override
+    public String toString() {
+        long[] percentiles = latency.getPercentilesNanos(50, 99);
+        synchronized (this) {
+            return String.format("Queries (%s): %d scans, %d queries, %d rows scanned, %d rows matched, "
+                    + "%.3f ms, p50 %.1f us, p99 %.1f us", engine, scans, queries, rowsScanned, rowsMatched,
+                    totalNanos / 1e6, percentiles[0] / 1e3, percentiles[1] / 1e3);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package landUseDataAnalysis;
+
+/**
+ * JMX view of LandUseQueryMetrics for one query engine.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public interface LandUseQueryMetricsMBean {
+
+    long getScans();
+
+    long getQueries();
+
+    long getRowsScanned();
+
+    long getRowsMatched();
+
+    double getTotalMillis();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getMaxMicros();
+}
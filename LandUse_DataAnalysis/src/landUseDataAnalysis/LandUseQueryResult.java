@@ -0,0 +1,130 @@
+package landUseDataAnalysis;
+
+/**
+ * The result of a LandUseQuery: one group for each group by value that had
+ * at least one matching row, in dictionary id order (the order the values
+ * first appear in the csv file), with a value for each of the query's
+ * aggregates. A query without a group by has exactly one group.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public final class LandUseQueryResult {
+
+    private final LandUseQuery query;
+    private final String[] groups;
+    private final int matchedRows;
+
+    // Indexed [aggregate][group].
+    private final double[][] values;
+    private final int[][] rows;
+    private final int[][] counts;
+    private final int[][][] rankedRows;
+
+    LandUseQueryResult(LandUseQuery query, String[] groups, int matchedRows,
+            double[][] values, int[][] rows, int[][] counts, int[][][] rankedRows) {
+        this.query = query;
+        this.groups = groups;
+        this.matchedRows = matchedRows;
+        this.values = values;
+        this.rows = rows;
+        this.counts = counts;
+        this.rankedRows = rankedRows;
+    }
+
+    /**
+     * Gets the query this is the result of.
+     * @return LandUseQuery
+     */
+    public LandUseQuery getQuery() {
+        return query;
+    }
+
+    /**
+     * Gets the number of rows that matched the filter.
+     * @return int
+     */
+    public int getMatchedRows() {
+        return matchedRows;
+    }
+
+    /**
+     * Gets the number of groups.
+     * @return int
+     */
+    public int getGroupCount() {
+        return groups.length;
+    }
+
+    /**
+     * Gets the group by value of a group.
+     * @param group, int, position of the group in the result.
+     * @return String, such as "Pacific" or "1974", or null when the query
+     * has no group by.
+     */
+    public String getGroup(int group) {
+        return groups[group];
+    }
+
+    /**
+     * Finds a group by its group by value.
+     * @param value, String, group by value such as "Pacific".
+     * @return int, position of the group in the result, or -1 if the value
+     * had no matching rows.
+     */
+    public int indexOfGroup(String value) {
+        for (int group = 0; group < groups.length; group++) {
+            if (value.equals(groups[group])) {
+                return group;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets an aggregated value. MIN, MAX, ARGMAX and TOP_K give NaN when the
+     * group had no values.
+     * @param group, int, position of the group in the result.
+     * @param aggregate, int, position of the aggregate in the query.
+     * @return double, aggregated value.
+     */
+    public double getValue(int group, int aggregate) {
+        return values[aggregate][group];
+    }
+
+    /**
+     * Gets the row picked by a MIN, MAX or ARGMAX aggregate, or the best row
+     * of a TOP_K aggregate.
+     * @param group, int, position of the group in the result.
+     * @param aggregate, int, position of the aggregate in the query.
+     * @return int, row number in the dataset, or -1 if there is none.
+     */
+    public int getRow(int group, int aggregate) {
+        return rows[aggregate][group];
+    }
+
+    /**
+     * Gets the rows picked by a TOP_K aggregate, largest value first and
+     * rows with the same value in row order. For MIN, MAX and ARGMAX it is
+     * the row getRow() gives.
+     * @param group, int, position of the group in the result.
+     * @param aggregate, int, position of the aggregate in the query.
+     * @return int[], row numbers in the dataset, up to k of them, empty if
+     * there are none.
+     */
+    public int[] getRows(int group, int aggregate) {
+        return rankedRows[aggregate][group].clone();
+    }
+
+    /**
+     * Gets the number of values (not "N.A.") that went into an aggregate, or
+     * the number of distinct values for COUNT_DISTINCT.
+     * @param group, int, position of the group in the result.
+     * @param aggregate, int, position of the aggregate in the query.
+     * @return int, count.
+     */
+    public int getCount(int group, int aggregate) {
+        return counts[aggregate][group];
+    }
+}
@@ -0,0 +1,556 @@
+package landUseDataAnalysis;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A long running HTTP service that answers land use questions as JSON from
+ * a LandUseDataset loaded once, so each question costs a query instead of
+ * starting a JVM and parsing the csv file.
+ *
+ * Every endpoint takes GET requests with parameters in the query string.
+ * Categories are LandUseCategory names, such as FOREST_USE_LAND, or csv
+ * headers. Lists of regions or states are separated by commas.
+ *
+ * /answers   the five questions, as LandUseData5QuestionAnalysis.answerAll().
+ * /max       the region or state with the largest value of a category in a
+ *            year: category, year, level (region or state, default region),
+ *            and optionally region and state to choose from (question 1 and 4).
+ * /top       the k regions or states with the largest values of a category
+ *            in a year, largest first: the /max parameters, and k (default
+ *            DEFAULT_TOP_K, at most MAX_TOP_K).
+ * /average   the average value of a category over the states in a year:
+ *            category, year, and optionally region and state (question 3).
+ * /count     the number of states with at least a value of a category in any
+ *            year: category, atLeast, and optionally before, a year, and
+ *            region (question 2).
+ * /shift     the region with the largest shift in land use between two years:
+ *            from and to (question 5).
+ * /stats     the number of requests and p50, p99 and largest latency, for
+ *            all requests and for each endpoint, and query cache counts.
+ *            Latency is the time taken to work out a response.
+ *
+ * Bad parameters get a 400 response and a question with no matching rows a
+ * 404 response, each with a JSON error message.
+ *
+ * Queries go through a LandUseQueryCache, so a question asked again is a
+ * lookup. Requests are handled on a fixed pool of threads.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public class LandUseQueryServer implements Closeable {
+
+    public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_TOP_K = 5;
+    public static final int MAX_TOP_K = 1000;
+
+    private final LandUseDataset dataset;
+    private final LandUseQueryCache cache = new LandUseQueryCache();
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final LandUseLatencyStats latency = new LandUseLatencyStats();
+
+    // Filled in by the constructor and only read after that.
+    private final Map<String, LandUseLatencyStats> endpointLatency = new LinkedHashMap<>();
+
+    /**
+     * Creates a server for a dataset. Requests are not handled until start()
+     * is called.
+     *
+     * @param dataset, LandUseDataset to answer from. It must not change while
+     * the server is running.
+     * @param address, InetSocketAddress to listen on. Port 0 picks a free port.
+     * @param threads, int, number of threads to handle requests on.
+     * @throws IOException if the address can't be bound.
+     */
+    public LandUseQueryServer(LandUseDataset dataset, InetSocketAddress address, int threads)
+            throws IOException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1: " + threads);
+        }
+        this.dataset = dataset;
+
+        // Build the lazy index and zone map now, not during the first requests.
+        dataset.getIndex();
+        dataset.getZoneMap();
+        dataset.getYearNumbers();
+
+        server = HttpServer.create(address, 0);
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        addEndpoint("/answers", this::answers);
+        addEndpoint("/max", this::max);
+        addEndpoint("/top", this::top);
+        addEndpoint("/average", this::average);
+        addEndpoint("/count", this::count);
+        addEndpoint("/shift", this::shift);
+        addEndpoint("/stats", parameters -> stats());
+        server.createContext("/", exchange -> send(exchange, 404, error("No endpoint "
+                + exchange.getRequestURI().getPath())));
+    }
+
+    /**
+     * Starts handling requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Gets the port the server listens on, such as the one picked for port 0.
+     * @return int
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Gets the latency of every request handled, whatever the endpoint.
+     * @return LandUseLatencyStats
+     */
+    public LandUseLatencyStats getLatency() {
+        return latency;
+    }
+
+    /**
+     * Gets the latency of the requests to one endpoint.
+     * @param path, String, endpoint such as "/max".
+     * @return LandUseLatencyStats
+     */
+    public LandUseLatencyStats getLatency(String path) {
+        LandUseLatencyStats stats = endpointLatency.get(path);
+        if (stats == null) {
+            throw new IllegalArgumentException("No endpoint " + path);
+        }
+        return stats;
+    }
+
+    /**
+     * Stops handling requests, letting requests in progress finish, and
+     * stops the threads.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    // Works out a JSON response body from the request's query parameters.
+    private interface Endpoint {
+        String answer(Map<String, String> parameters);
+    }
+
+    // Adds an endpoint, timing each request to it. The time is from the
+    // request being handled to its response being ready to send.
+    private void addEndpoint(String path, Endpoint endpoint) {
+        LandUseLatencyStats stats = new LandUseLatencyStats();
+        endpointLatency.put(path, stats);
+        server.createContext(path, exchange -> {
+            if (!exchange.getRequestURI().getPath().equals(path)) {
+                send(exchange, 404, error("No endpoint " + exchange.getRequestURI().getPath()));
+                return;
+            }
+            long start = System.nanoTime();
+            int status = 200;
+            String body;
+            try {
+                if (!exchange.getRequestMethod().equals("GET")) {
+                    exchange.getResponseHeaders().set("Allow", "GET");
+                    status = 405;
+                    body = error("Only GET is supported");
+                } else {
+                    body = endpoint.answer(parameters(exchange.getRequestURI().getRawQuery()));
+                }
+            } catch (IllegalArgumentException iae) {
+                status = 400;
+                body = error(iae.getMessage());
+            } catch (NoSuchElementException nsee) {
+                status = 404;
+                body = error(nsee.getMessage());
+            } catch (RuntimeException re) {
+                status = 500;
+                body = error(re.toString());
+            }
+            long nanos = System.nanoTime() - start;
+            stats.record(nanos);
+            latency.record(nanos);
+            send(exchange, status, body);
+        });
+    }
+
+    // The five questions.
+    private String answers(Map<String, String> parameters) {
+        LandUseFiveAnswers answers = LandUseData5QuestionAnalysis.answerAll(dataset, cache);
+        RegionMaxLandUseDelta shift = answers.getRegionMaxShiftLandUse1945To2012();
+        return new Json()
+                .add("regionMaxGrasslandPasture1974", answers.getRegionMaxGrasslandPasture1974())
+                .add("regionsUrbanLand2000Prior1987", answers.getRegionsUrbanLand2000Prior1987())
+                .add("averageCroplandForPasturePacificMountain1964",
+                        answers.getAverageCroplandForPasturePacificMountain1964())
+                .add("maxForestUseland13Colonies2012", answers.getMaxForestUseland13Colonies2012())
+                .add("regionMaxShiftLandUse1945To2012", shiftJson(shift, "1945", "2012"))
+                .toString();
+    }
+
+    // The region or state with the largest value of a category in a year.
+    private String max(Map<String, String> parameters) {
+        LandUseCategory category = category(parameters);
+        String year = year(parameters, "year");
+        String level = parameters.getOrDefault("level", "region");
+        LandUseQueryResult result = cache.execute(dataset, new LandUseQuery(
+                LandUseFilter.and(level(level), LandUseFilter.year(year), places(parameters)),
+                LandUseAggregate.argmax(category)));
+        int maxRow = result.getRow(0, 0);
+        if (maxRow == -1) {
+            throw new NoSuchElementException("No " + category.getDisplayName() + " values for " + year);
+        }
+        return new Json()
+                .add("category", category.name())
+                .add("year", year)
+                .add("level", level)
+                .add("name", level.equals("region") ? dataset.getRegion(maxRow) : dataset.getRegionOrState(maxRow))
+                .add("value", dataset.getValue(maxRow, category))
+                .toString();
+    }
+
+    // The k regions or states with the largest values of a category in a year.
+    private String top(Map<String, String> parameters) {
+        LandUseCategory category = category(parameters);
+        String year = year(parameters, "year");
+        String level = parameters.getOrDefault("level", "region");
+        int k = parameters.containsKey("k") ? number(parameters, "k") : DEFAULT_TOP_K;
+        if (k < 1 || k > MAX_TOP_K) {
+            throw new IllegalArgumentException("k must be from 1 to " + MAX_TOP_K + ": " + k);
+        }
+
+        LandUseQueryResult result = cache.execute(dataset, new LandUseQuery(
+                LandUseFilter.and(level(level), LandUseFilter.year(year), places(parameters)),
+                LandUseAggregate.top(category, k)));
+        int[] rows = result.getGroupCount() == 0 ? new int[0] : result.getRows(0, 0);
+        if (rows.length == 0) {
+            throw new NoSuchElementException("No " + category.getDisplayName() + " values for " + year);
+        }
+        List<Json> ranking = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            ranking.add(new Json()
+                    .add("name", level.equals("region") ? dataset.getRegion(row) : dataset.getRegionOrState(row))
+                    .add("value", dataset.getValue(row, category)));
+        }
+        return new Json()
+                .add("category", category.name())
+                .add("year", year)
+                .add("level", level)
+                .add("k", k)
+                .add("ranking", ranking)
+                .toString();
+    }
+
+    // Reads the level parameter of /max and /top as a filter.
+    private static LandUseFilter level(String level) {
+        if (level.equals("region")) {
+            return LandUseFilter.regionTotals();
+        } else if (level.equals("state")) {
+            return LandUseFilter.states();
+        }
+        throw new IllegalArgumentException("level must be region or state: " + level);
+    }
+
+    // The average value of a category over the states in a year.
+    private String average(Map<String, String> parameters) {
+        LandUseCategory category = category(parameters);
+        String year = year(parameters, "year");
+        LandUseQueryResult result = cache.execute(dataset, new LandUseQuery(
+                LandUseFilter.and(LandUseFilter.states(), LandUseFilter.year(year), places(parameters)),
+                LandUseAggregate.avg(category)));
+        if (result.getGroupCount() == 0 || result.getCount(0, 0) == 0) {
+            throw new NoSuchElementException("No " + category.getDisplayName() + " values for " + year);
+        }
+        return new Json()
+                .add("category", category.name())
+                .add("year", year)
+                .add("states", result.getMatchedRows())
+                .add("values", result.getCount(0, 0))
+                .add("average", result.getValue(0, 0))
+                .toString();
+    }
+
+    // The number of states with at least a value of a category in any year.
+    private String count(Map<String, String> parameters) {
+        LandUseCategory category = category(parameters);
+        int atLeast = number(parameters, "atLeast");
+        LandUseFilter years = LandUseFilter.all();
+        if (parameters.containsKey("before")) {
+            years = LandUseFilter.yearBefore(number(parameters, "before"));
+        }
+        LandUseQueryResult result = cache.execute(dataset, new LandUseQuery(
+                LandUseFilter.and(LandUseFilter.states(), years, places(parameters),
+                        LandUseFilter.atLeast(category, atLeast)),
+                LandUseAggregate.countDistinct(LandUseDimension.REGION_OR_STATE)));
+        Json json = new Json()
+                .add("category", category.name())
+                .add("atLeast", atLeast);
+        if (parameters.containsKey("before")) {
+            json.add("before", number(parameters, "before"));
+        }
+        return json.add("states", result.getCount(0, 0)).toString();
+    }
+
+    // The region with the largest shift in land use between two years.
+    private String shift(Map<String, String> parameters) {
+        String from = year(parameters, "from");
+        String to = year(parameters, "to");
+        return shiftJson(LandUseData5QuestionAnalysis.findRegionMaxShiftLandUse(dataset, from, to), from, to)
+                .toString();
+    }
+
+    // Request counts and latencies.
+    private String stats() {
+        Json endpoints = new Json();
+        for (Map.Entry<String, LandUseLatencyStats> entry : endpointLatency.entrySet()) {
+            endpoints.add(entry.getKey(), latencyJson(entry.getValue()));
+        }
+        return new Json()
+                .add("all", latencyJson(latency))
+                .add("endpoints", endpoints)
+                .add("cache", new Json()
+                        .add("size", cache.getSize())
+                        .add("hits", cache.getHits())
+                        .add("misses", cache.getMisses())
+                        .add("hitRate", cache.getHitRate()))
+                .toString();
+    }
+
+    // Turns an answer to question 5, or a variant of it, into JSON.
+    private static Json shiftJson(RegionMaxLandUseDelta shift, String from, String to) {
+        return new Json()
+                .add("from", from)
+                .add("to", to)
+                .add("region", shift.getMaxRegion())
+                .add("landType", shift.getMaxLandType())
+                .add("delta", shift.getMaxLandValue());
+    }
+
+    // Turns latency stats into JSON, in microseconds.
+    private static Json latencyJson(LandUseLatencyStats stats) {
+        long[] percentiles = stats.getPercentilesNanos(50, 99);
+        return new Json()
+                .add("requests", stats.getCount())
+                .add("p50Micros", percentiles[0] / 1000.0)
+                .add("p99Micros", percentiles[1] / 1000.0)
+                .add("maxMicros", stats.getMaxNanos() / 1000.0);
+    }
+
+    // Reads the category parameter, as a LandUseCategory name or csv header.
+    private static LandUseCategory category(Map<String, String> parameters) {
+        String value = required(parameters, "category");
+        try {
+            return LandUseCategory.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException iae) {
+            return LandUseCategory.fromHeader(value);
+        }
+    }
+
+    // Reads a survey year parameter.
+    private static String year(Map<String, String> parameters, String name) {
+        String value = required(parameters, name);
+        if (LandUseDataset.parseYear(value) == LandUseDataset.NO_YEAR) {
+            throw new IllegalArgumentException(name + " must be a year: " + value);
+        }
+        return value;
+    }
+
+    // Reads a whole number parameter.
+    private static int number(Map<String, String> parameters, String name) {
+        String value = required(parameters, name);
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException(name + " must be a whole number: " + value);
+        }
+    }
+
+    // Reads a parameter that must be given.
+    private static String required(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing parameter " + name);
+        }
+        return value;
+    }
+
+    // Makes a filter for the optional region and state lists.
+    private static LandUseFilter places(Map<String, String> parameters) {
+        LandUseFilter filter = LandUseFilter.all();
+        if (parameters.containsKey("region")) {
+            filter = LandUseFilter.and(filter, LandUseFilter.region(parameters.get("region").split(",")));
+        }
+        if (parameters.containsKey("state")) {
+            filter = LandUseFilter.and(filter, LandUseFilter.regionOrState(parameters.get("state").split(",")));
+        }
+        return filter;
+    }
+
+    // Splits a raw query string into decoded parameters. A parameter given
+    // more than once keeps its last value.
+    private static Map<String, String> parameters(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals == -1 ? pair : pair.substring(0, equals);
+            String value = equals == -1 ? "" : pair.substring(equals + 1);
+            parameters.put(decode(name), decode(value));
+        }
+        return parameters;
+    }
+
+    // Decodes one URL encoded name or value.
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException uee) {
+            throw new IllegalStateException(uee);
+        }
+    }
+
+    // Makes an error response body.
+    private static String error(String message) {
+        return new Json().add("error", message).toString();
+    }
+
+    // Sends a JSON response and closes the exchange.
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // Builds a JSON object one member at a time.
+    private static final class Json {
+
+        private final StringBuilder json = new StringBuilder("{");
+
+        private Json add(String name, String value) {
+            name(name);
+            if (value == null) {
+                json.append("null");
+            } else {
+                string(value);
+            }
+            return this;
+        }
+
+        private Json add(String name, long value) {
+            name(name);
+            json.append(value);
+            return this;
+        }
+
+        // NaN and infinity aren't JSON numbers, so they are written as null.
+        private Json add(String name, double value) {
+            name(name);
+            json.append(Double.isNaN(value) || Double.isInfinite(value) ? "null" : Double.toString(value));
+            return this;
+        }
+
+        private Json add(String name, Json value) {
+            name(name);
+            json.append(value);
+            return this;
+        }
+
+        private Json add(String name, List<Json> values) {
+            name(name);
+            json.append('[');
+            for (int i = 0; i < values.size(); i++) {
+                json.append(i == 0 ? "" : ",").append(values.get(i));
+            }
+            json.append(']');
+            return this;
+        }
+
+        private void name(String name) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            string(name);
+            json.append(':');
+        }
+
+        private void string(String value) {
+            json.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    json.append('\\').append(c);
+                } else if (c < 0x20) {
+                    json.append(String.format("\\u%04x", (int) c));
+                } else {
+                    json.append(c);
+                }
+            }
+            json.append('"');
+        }
+
+        @Override
+        public String toString() {
+            return json + "}";
+        }
+    }
+
+    /**
+     * Loads the data and serves it until the process is stopped.
+     *
+     * Arguments: a csv file, or a directory whose *.csv files are all loaded
+     * (see LandUseDataProcessing.processDatasets()), then optionally the port
+     * (default DEFAULT_PORT) and the number of threads (default one per
+     * processor). The server only listens on the loopback address. The
+     * LandUsePipelineMetrics MBeans are registered for JMX clients.
+     *
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: LandUseQueryServer <csv file or directory> [port] [threads]");
+            System.exit(2);
+        }
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        LandUsePipelineMetrics.registerMBeans();
+
+        LandUseDataset dataset = new File(args[0]).isDirectory()
+                ? LandUseDataProcessing.processDatasets(args[0], "*.csv", threads)
+                : LandUseDataProcessing.processDataset(args[0]);
+        LandUseQueryServer server = new LandUseQueryServer(dataset,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port), threads);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        server.start();
+        System.out.println("Serving " + dataset.getRowCount() + " rows on http://localhost:" + server.getPort());
+    }
+}
@@ -0,0 +1,154 @@
+package landUseDataAnalysis;
+
+import java.util.Arrays;
+
+/**
+ * The rows of a LandUseDataset by SortOrder, Region or State and Year, the
+ * key that identifies a row across files and releases, for removing
+ * duplicates in LandUseDataProcessing.processDatasets() and finding the row
+ * a correction replaces in LandUseIncrementalIngest.
+ *
+ * Region or State and Year are dictionary ids of one dataset, so keys are
+ * compared as three ints with no String lookups. Each key and its row take
+ * four ints of an open addressing hash table, with nothing allocated per
+ * row.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+final class LandUseRowKeys {
+
+    // Ints per slot: sort order, region or state id, year id and row. Rows
+    // are never negative, so a row of -1 marks an empty slot.
+    private static final int SLOT_INTS = 4;
+    private static final int EMPTY = -1;
+    private static final int INITIAL_SLOTS = 16;
+
+    private int[] table = newTable(INITIAL_SLOTS);
+    private int size;
+
+    /**
+     * Creates an empty set of keys.
+     */
+    LandUseRowKeys() {
+    }
+
+    /**
+     * Creates the keys of every row of a dataset. When rows share a key the
+     * later row is kept.
+     *
+     * @param dataset, LandUseDataset whose rows are keyed.
+     */
+    LandUseRowKeys(LandUseDataset dataset) {
+        int[] sortOrder = dataset.getSortOrderColumn();
+        int[] regionOrState = dataset.getRegionOrStateColumn();
+        int[] year = dataset.getYearColumn();
+        for (int row = 0; row < dataset.getRowCount(); row++) {
+            put(sortOrder[row], regionOrState[row], year[row], row);
+        }
+    }
+
+    /**
+     * Gets the row with a key.
+     *
+     * @param sortOrder, int, SortOrder of the row.
+     * @param regionOrState, int, Region or State id.
+     * @param year, int, Year id.
+     * @return int, row number, or -1 if no row has the key.
+     */
+    int get(int sortOrder, int regionOrState, int year) {
+        return table[find(sortOrder, regionOrState, year) + 3];
+    }
+
+    /**
+     * Sets the row with a key, replacing any row it had.
+     *
+     * @param sortOrder, int, SortOrder of the row.
+     * @param regionOrState, int, Region or State id.
+     * @param year, int, Year id.
+     * @param row, int, row number, not negative.
+     * @return int, the row the key had before, or -1 if it is new.
+     */
+    int put(int sortOrder, int regionOrState, int year, int row) {
+        int slot = find(sortOrder, regionOrState, year);
+        int previous = table[slot + 3];
+        set(slot, sortOrder, regionOrState, year, row);
+        return previous;
+    }
+
+    /**
+     * Sets the row with a key unless it already has one.
+     *
+     * @param sortOrder, int, SortOrder of the row.
+     * @param regionOrState, int, Region or State id.
+     * @param year, int, Year id.
+     * @param row, int, row number, not negative.
+     * @return int, the row the key already had, or -1 if row was added.
+     */
+    int putIfAbsent(int sortOrder, int regionOrState, int year, int row) {
+        int slot = find(sortOrder, regionOrState, year);
+        int existing = table[slot + 3];
+        if (existing == EMPTY) {
+            set(slot, sortOrder, regionOrState, year, row);
+        }
+        return existing;
+    }
+
+    /**
+     * Gets the number of keys.
+     * @return int
+     */
+    int size() {
+        return size;
+    }
+
+    // Fills a slot, growing the table once it is half full.
+    private void set(int slot, int sortOrder, int regionOrState, int year, int row) {
+        boolean added = table[slot + 3] == EMPTY;
+        table[slot] = sortOrder;
+        table[slot + 1] = regionOrState;
+        table[slot + 2] = year;
+        table[slot + 3] = row;
+        if (added && ++size * 2 > table.length / SLOT_INTS) {
+            rehash();
+        }
+    }
+
+    // Finds the slot holding a key, or the empty slot where it would go.
+    private int find(int sortOrder, int regionOrState, int year) {
+        int mask = table.length / SLOT_INTS - 1;
+        for (int index = hash(sortOrder, regionOrState, year) & mask; ; index = (index + 1) & mask) {
+            int slot = index * SLOT_INTS;
+            if (table[slot + 3] == EMPTY || (table[slot] == sortOrder && table[slot + 1] == regionOrState
+                    && table[slot + 2] == year)) {
+                return slot;
+            }
+        }
+    }
+
+    // Doubles the table, keeping it at most half full.
+    private void rehash() {
+        int[] old = table;
+        table = newTable(Math.multiplyExact(old.length / SLOT_INTS, 2));
+        for (int slot = 0; slot < old.length; slot += SLOT_INTS) {
+            if (old[slot + 3] != EMPTY) {
+                int newSlot = find(old[slot], old[slot + 1], old[slot + 2]);
+                System.arraycopy(old, slot, table, newSlot, SLOT_INTS);
+            }
+        }
+    }
+
+    private static int[] newTable(int slots) {
+        int[] table = new int[Math.multiplyExact(slots, SLOT_INTS)];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+
+    // Spreads the bits of a key, so keys of one state or year don't cluster.
+    private static int hash(int sortOrder, int regionOrState, int year) {
+        long h = ((long) sortOrder * 0x9E3779B97F4A7C15L + regionOrState) * 0x9E3779B97F4A7C15L + year;
+        h *= 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
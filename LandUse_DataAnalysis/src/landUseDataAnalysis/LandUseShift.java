@@ -0,0 +1,109 @@
+package landUseDataAnalysis;
+
+/**
+ * The change in one land use column for one region or state between two
+ * survey years, as found by LandUseDeltaMatrix.topShifts().
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public class LandUseShift {
+
+    private final String entity;
+    private final String fromYear;
+    private final String toYear;
+    private final int column;
+    private final long fromValue;
+    private final long toValue;
+
+    /**
+     * Creates a shift.
+     *
+     * @param entity, String, Region or State that changed.
+     * @param fromYear, String, earlier survey year.
+     * @param toYear, String, later survey year.
+     * @param column, int, land use column, such as LandUseDataset.FOREST_USE_LAND.
+     * @param fromValue, long, value in the earlier year.
+     * @param toValue, long, value in the later year.
+     */
+    public LandUseShift(String entity, String fromYear, String toYear, int column, long fromValue, long toValue) {
+        this.entity = entity;
+        this.fromYear = fromYear;
+        this.toYear = toYear;
+        this.column = column;
+        this.fromValue = fromValue;
+        this.toValue = toValue;
+    }
+
+    /**
+     * Gets the Region or State that changed.
+     * @return String
+     */
+    public String getEntity() {
+        return entity;
+    }
+
+    /**
+     * Gets the earlier survey year.
+     * @return String
+     */
+    public String getFromYear() {
+        return fromYear;
+    }
+
+    /**
+     * Gets the later survey year.
+     * @return String
+     */
+    public String getToYear() {
+        return toYear;
+    }
+
+    /**
+     * Gets the land use column that changed.
+     * @return int, column such as LandUseDataset.FOREST_USE_LAND.
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * Gets the value in the earlier year.
+     * @return long
+     */
+    public long getFromValue() {
+        return fromValue;
+    }
+
+    /**
+     * Gets the value in the later year.
+     * @return long
+     */
+    public long getToValue() {
+        return toValue;
+    }
+
+    /**
+     * Gets the change, later minus earlier, so a decrease is negative.
+     * @return long
+     */
+    public long getDelta() {
+        return toValue - fromValue;
+    }
+
+    /**
+     * Gets the change as a share of the earlier value.
+     * @return double, such as -0.25 for a quarter less, or NaN if the earlier
+     * value was 0.
+     */
+    public double getRelativeChange() {
+        return fromValue == 0 ? Double.NaN : (double) getDelta() / Math.abs(fromValue);
+    }
+
+    @Override
+    public String toString() {
+        return "LandUseShift [entity=" + entity + ", fromYear=" + fromYear + ", toYear=" + toYear + ", column="
+                + column + ", fromValue=" + fromValue + ", toValue=" + toValue + ", delta=" + getDelta() + "]";
+    }
+}
@@ -0,0 +1,462 @@
+package landUseDataAnalysis;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot files of a LandUseDataset, so data that has already been
+ * read from the csv file once can be loaded again without parsing any text.
+ *
+ * A snapshot holds the dataset exactly as it is stored in memory: the three
+ * dictionaries followed by the Sort Order, Region, Region or State, Year,
+ * missing value and sixteen land use columns, each as rowCount ints. Loading
+ * maps the file into memory and bulk copies each column into its int[].
+ *
+ * A snapshot written for a csv file records the file's absolute path, size
+ * and last modified time, and readOrProcess() only loads it when all three
+ * still match, so a csv file replaced by a copy with an older time stamp,
+ * or a snapshot written for another copy of the file, is never mistaken
+ * for the current data. snapshotPath() names snapshots after the csv path,
+ * so different csv files don't share one.
+ *
+ * File layout, all numbers little-endian:
+ *
+ *   header, 40 bytes:
+ *     int  MAGIC
+ *     int  VERSION
+ *     int  row count
+ *     int  land use column count (16)
+ *     long source section length in bytes
+ *     long dictionary section length in bytes
+ *     long CRC32 of everything after the header
+ *   source section, for the csv file the rows were read from:
+ *     long size in bytes, or -1 if no file was recorded
+ *     long last modified time in milliseconds, or -1
+ *     int  UTF-8 length and the UTF-8 bytes of the absolute path
+ *     zero padding to a multiple of 4 bytes
+ *   dictionary section, for Regions, Regions or States and Years:
+ *     int  value count, then for each value in id order:
+ *     int  UTF-8 length and the UTF-8 bytes
+ *     zero padding to a multiple of 4 bytes
+ *   column section:
+ *     21 columns of row count ints each
+ *
+ * A file with the wrong magic number, version or checksum, or the wrong
+ * length for its row count, is rejected with an IOException.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public final class LandUseSnapshot {
+
+    // The bytes "LUSN" read as a little-endian int, so the file starts with
+    // those letters.
+    public static final int MAGIC = 0x4E53554C;
+
+    // Bumped whenever the layout changes.
+    public static final int VERSION = 2;
+
+    static final int HEADER_LENGTH = 40;
+
+    // Sort Order, Region, Region or State, Year and missing value columns,
+    // then the land use columns.
+    private static final int COLUMN_COUNT = 5 + LandUseDataset.LAND_USE_COLUMN_COUNT;
+
+    // Number of ints written to the file at a time.
+    private static final int WRITE_BUFFER_INTS = 16 * 1024;
+
+    private LandUseSnapshot() {
+    }
+
+    /**
+     * Gets the path of the snapshot file for a csv file in a directory. The
+     * name is the csv file's name and a hash of its absolute path, such as
+     * "USDA_MajorLandUse_1945-2012.csv.3f2a9c1e.snapshot".
+     *
+     * @param csvPath, path to csv file of land use data.
+     * @param directory, path of the directory to keep snapshots in, such as
+     * the java.io.tmpdir system property.
+     * @return String, path of the snapshot file.
+     */
+    public static String snapshotPath(String csvPath, String directory) {
+        Path csv = Paths.get(csvPath).toAbsolutePath().normalize();
+        CRC32 crc = new CRC32();
+        crc.update(csv.toString().getBytes(StandardCharsets.UTF_8));
+        return Paths.get(directory, String.format("%s.%08x.snapshot", csv.getFileName(), crc.getValue()))
+                .toString();
+    }
+
+    /**
+     * Writes a dataset to a snapshot file that records no csv file. The
+     * file is written under a temporary name and then moved into place, so
+     * a reader never sees a partly written snapshot.
+     *
+     * @param dataset, LandUseDataset to save.
+     * @param filePath, path of the snapshot file to write.
+     * @throws IOException
+     */
+    public static void write(LandUseDataset dataset, String filePath) throws IOException {
+        write(dataset, filePath, Source.NONE);
+    }
+
+    /**
+     * Writes a dataset read from a csv file to a snapshot file, recording
+     * the csv file's path, size and last modified time as they are now.
+     *
+     * @param dataset, LandUseDataset to save.
+     * @param filePath, path of the snapshot file to write.
+     * @param csvPath, path to the csv file the dataset was read from.
+     * @throws IOException
+     */
+    public static void write(LandUseDataset dataset, String filePath, String csvPath) throws IOException {
+        write(dataset, filePath, Source.of(csvPath));
+    }
+
+    // Writes a snapshot recording a source.
+    private static void write(LandUseDataset dataset, String filePath, Source source) throws IOException {
+
+        Path target = Paths.get(filePath).toAbsolutePath();
+        Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                CRC32 crc = new CRC32();
+
+                // Leave room for the header, which needs the checksum.
+                channel.position(HEADER_LENGTH);
+                ByteBuffer sourceSection = source.encode();
+                crc.update(sourceSection.duplicate());
+                writeFully(channel, sourceSection);
+                ByteBuffer dictionaries = encodeDictionaries(dataset);
+                crc.update(dictionaries.duplicate());
+                writeFully(channel, dictionaries);
+
+                int rowCount = dataset.getRowCount();
+                ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_INTS * 4).order(ByteOrder.LITTLE_ENDIAN);
+                for (int column = 0; column < COLUMN_COUNT; column++) {
+                    int[] values = getColumn(dataset, column);
+                    for (int start = 0; start < rowCount; start += WRITE_BUFFER_INTS) {
+                        int length = Math.min(WRITE_BUFFER_INTS, rowCount - start);
+                        buffer.clear();
+                        buffer.asIntBuffer().put(values, start, length);
+                        buffer.limit(length * 4);
+                        crc.update(buffer.duplicate());
+                        writeFully(channel, buffer);
+                    }
+                }
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putInt(rowCount).putInt(LandUseDataset.LAND_USE_COLUMN_COUNT)
+                        .putLong(sourceSection.capacity()).putLong(dictionaries.capacity()).putLong(crc.getValue())
+                        .flip();
+                channel.position(0);
+                writeFully(channel, header);
+                channel.force(false);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Loads a dataset from a snapshot file written by write(), whatever csv
+     * file it records.
+     *
+     * @param filePath, path of the snapshot file to read.
+     * @return LandUseDataset, the saved rows with the same dictionary ids.
+     * @throws IOException if the file can't be read or isn't a valid snapshot
+     */
+    public static LandUseDataset read(String filePath) throws IOException {
+        return read(filePath, (Source) null);
+    }
+
+    /**
+     * Loads a dataset from a snapshot file written for a csv file, checking
+     * that the csv file still has the path, size and last modified time the
+     * snapshot recorded.
+     *
+     * @param filePath, path of the snapshot file to read.
+     * @param csvPath, path to the csv file the snapshot should be for.
+     * @return LandUseDataset, the saved rows with the same dictionary ids.
+     * @throws IOException if the file can't be read, isn't a valid snapshot
+     * or was written for another csv file or version of it
+     */
+    public static LandUseDataset read(String filePath, String csvPath) throws IOException {
+        return read(filePath, Source.of(csvPath));
+    }
+
+    // Loads a snapshot, checking its source unless expected is null.
+    private static LandUseDataset read(String filePath, Source expected) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_LENGTH) {
+                throw new IOException("Not a land use snapshot, too short: " + filePath);
+            }
+            ByteBuffer header = map(channel, 0, HEADER_LENGTH);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a land use snapshot: " + filePath);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported land use snapshot version " + version + ": " + filePath);
+            }
+            int rowCount = header.getInt();
+            int landUseColumnCount = header.getInt();
+            long sourceLength = header.getLong();
+            long dictionaryLength = header.getLong();
+            long expectedCrc = header.getLong();
+            long columnLength = rowCount * 4L;
+            if (rowCount < 0 || landUseColumnCount != LandUseDataset.LAND_USE_COLUMN_COUNT || sourceLength < 0
+                    || dictionaryLength < 0 || fileSize != HEADER_LENGTH + sourceLength + dictionaryLength
+                    + COLUMN_COUNT * columnLength) {
+                throw new IOException("Land use snapshot is truncated or damaged: " + filePath);
+            }
+
+            // The source is checked first, so a snapshot of other data is
+            // turned down before any column is read.
+            ByteBuffer sourceSection = map(channel, HEADER_LENGTH, sourceLength);
+            Source source = Source.decode(sourceSection, filePath);
+            if (expected != null && !expected.equals(source)) {
+                throw new IOException("Land use snapshot was written for " + source + ", not " + expected + ": "
+                        + filePath);
+            }
+
+            // Each section is mapped on its own so a column is never split
+            // across mappings, and the checksum is built up as they are read.
+            CRC32 crc = new CRC32();
+            sourceSection.rewind();
+            crc.update(sourceSection);
+            ByteBuffer dictionaries = map(channel, HEADER_LENGTH + sourceLength, dictionaryLength);
+            crc.update(dictionaries.duplicate());
+
+            // Columns always have room for one row so the dataset can grow.
+            int capacity = Math.max(rowCount, 1);
+            int[][] columns = new int[COLUMN_COUNT][];
+            long position = HEADER_LENGTH + sourceLength + dictionaryLength;
+            for (int column = 0; column < COLUMN_COUNT; column++) {
+                ByteBuffer mapped = map(channel, position, columnLength);
+                crc.update(mapped.duplicate());
+                columns[column] = new int[capacity];
+                mapped.asIntBuffer().get(columns[column], 0, rowCount);
+                position += columnLength;
+            }
+            if (crc.getValue() != expectedCrc) {
+                throw new IOException("Land use snapshot checksum does not match: " + filePath);
+            }
+
+            int[][] landUse = new int[LandUseDataset.LAND_USE_COLUMN_COUNT][];
+            System.arraycopy(columns, 5, landUse, 0, landUse.length);
+            LandUseDataset dataset = new LandUseDataset(rowCount, columns[0], columns[1], columns[2],
+                    columns[3], columns[4], landUse);
+            decodeDictionary(dictionaries, dataset.getRegions(), filePath);
+            decodeDictionary(dictionaries, dataset.getRegionsOrStates(), filePath);
+            decodeDictionary(dictionaries, dataset.getYears(), filePath);
+            checkIds(dataset.getRegionColumn(), rowCount, dataset.getRegions(), filePath);
+            checkIds(dataset.getRegionOrStateColumn(), rowCount, dataset.getRegionsOrStates(), filePath);
+            checkIds(dataset.getYearColumn(), rowCount, dataset.getYears(), filePath);
+            return dataset;
+        }
+    }
+
+    /**
+     * Loads the data for a csv file from its snapshot file, parsing the csv
+     * file with processDataset() and writing a new snapshot when the
+     * snapshot is missing, can't be read, or records a different path, size
+     * or last modified time for the csv file.
+     *
+     * @param csvPath, path to csv file of land use data.
+     * @param snapshotPath, path of the snapshot file for that csv file, such
+     * as one from snapshotPath().
+     * @return LandUseDataset, processed land use data stored by column.
+     * @throws IOException
+     */
+    public static LandUseDataset readOrProcess(String csvPath, String snapshotPath) throws IOException {
+
+        // The csv file is looked at before it is parsed, so a change made
+        // while it is being parsed makes the next run rebuild the snapshot.
+        Source source = Source.of(csvPath);
+        if (Files.exists(Paths.get(snapshotPath))) {
+            try {
+                return read(snapshotPath, source);
+            } catch (IOException ioe) {
+
+                // Fall through and rebuild the snapshot from the csv file.
+            }
+        }
+        LandUseDataset dataset = LandUseDataProcessing.processDataset(csvPath);
+        write(dataset, snapshotPath, source);
+        return dataset;
+    }
+
+    // Gets one of the columns in file order.
+    private static int[] getColumn(LandUseDataset dataset, int column) {
+        switch (column) {
+        case 0:
+            return dataset.getSortOrderColumn();
+        case 1:
+            return dataset.getRegionColumn();
+        case 2:
+            return dataset.getRegionOrStateColumn();
+        case 3:
+            return dataset.getYearColumn();
+        case 4:
+            return dataset.getMissingColumn();
+        default:
+            return dataset.getLandUseColumn(column - 5);
+        }
+    }
+
+    // Encodes the three dictionaries, padded to a whole number of ints.
+    private static ByteBuffer encodeDictionaries(LandUseDataset dataset) {
+        LandUseDictionary[] dictionaries = {dataset.getRegions(), dataset.getRegionsOrStates(), dataset.getYears()};
+        byte[][][] encoded = new byte[dictionaries.length][][];
+        int length = 0;
+        for (int d = 0; d < dictionaries.length; d++) {
+            encoded[d] = new byte[dictionaries[d].size()][];
+            length += 4;
+            for (int id = 0; id < encoded[d].length; id++) {
+                encoded[d][id] = dictionaries[d].valueOf(id).getBytes(StandardCharsets.UTF_8);
+                length += 4 + encoded[d][id].length;
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((length + 3) & ~3).order(ByteOrder.LITTLE_ENDIAN);
+        for (byte[][] values : encoded) {
+            buffer.putInt(values.length);
+            for (byte[] value : values) {
+                buffer.putInt(value.length).put(value);
+            }
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    // Adds the next dictionary in the section to an empty dictionary.
+    private static void decodeDictionary(ByteBuffer buffer, LandUseDictionary dictionary, String filePath)
+            throws IOException {
+        try {
+            int count = buffer.getInt();
+            byte[] value = new byte[0];
+            for (int id = 0; id < count; id++) {
+                int length = buffer.getInt();
+                if (length > value.length) {
+                    value = new byte[length];
+                }
+                buffer.get(value, 0, length);
+                if (dictionary.add(new String(value, 0, length, StandardCharsets.UTF_8)) != id) {
+                    throw new IOException("Land use snapshot has a repeated dictionary value: " + filePath);
+                }
+            }
+        } catch (RuntimeException re) {
+            throw new IOException("Land use snapshot dictionary is damaged: " + filePath, re);
+        }
+    }
+
+    // Checks every id in a column is in its dictionary, so a file that
+    // passed the checksum but was written wrongly can't cause errors later.
+    private static void checkIds(int[] column, int rowCount, LandUseDictionary dictionary, String filePath)
+            throws IOException {
+        int size = dictionary.size();
+        for (int row = 0; row < rowCount; row++) {
+            if (column[row] < 0 || column[row] >= size) {
+                throw new IOException("Land use snapshot has an unknown dictionary id in row " + row + ": " + filePath);
+            }
+        }
+    }
+
+    // Maps part of the file as little-endian bytes.
+    private static ByteBuffer map(FileChannel channel, long position, long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Land use snapshot section is too large to map: " + length + " bytes");
+        }
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+        return mapped;
+    }
+
+    // The csv file a snapshot was written from: its absolute path, size and
+    // last modified time.
+    private static final class Source {
+
+        private static final Source NONE = new Source("", -1, -1);
+
+        private final String path;
+        private final long size;
+        private final long lastModified;
+
+        private Source(String path, long size, long lastModified) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        // Looks at a csv file as it is now.
+        private static Source of(String csvPath) throws IOException {
+            Path csv = Paths.get(csvPath).toAbsolutePath().normalize();
+            return new Source(csv.toString(), Files.size(csv), Files.getLastModifiedTime(csv).toMillis());
+        }
+
+        // Encodes the source section, padded to a whole number of ints.
+        private ByteBuffer encode() {
+            byte[] encodedPath = path.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.allocate((20 + encodedPath.length + 3) & ~3).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putLong(size).putLong(lastModified).putInt(encodedPath.length).put(encodedPath);
+            buffer.clear();
+            return buffer;
+        }
+
+        // Reads a source section.
+        private static Source decode(ByteBuffer buffer, String filePath) throws IOException {
+            try {
+                long size = buffer.getLong();
+                long lastModified = buffer.getLong();
+                int length = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()) {
+                    throw new IOException("Land use snapshot source is damaged: " + filePath);
+                }
+                byte[] encodedPath = new byte[length];
+                buffer.get(encodedPath);
+                return new Source(new String(encodedPath, StandardCharsets.UTF_8), size, lastModified);
+            } catch (RuntimeException re) {
+                throw new IOException("Land use snapshot source is damaged: " + filePath, re);
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Source)) {
+                return false;
+            }
+            Source source = (Source) other;
+            return path.equals(source.path) && size == source.size && lastModified == source.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return (path.hashCode() * 31 + Long.hashCode(size)) * 31 + Long.hashCode(lastModified);
+        }
+
+        @Override
+        public String toString() {
+            return size == -1 ? "no csv file" : path + " (" + size + " bytes, modified " + lastModified + ")";
+        }
+    }
+
+    // Writes all remaining bytes of a buffer.
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package landUseDataAnalysis;
+
+import java.util.Arrays;
+
+/**
+ * The K rows with the largest values of a land use column in each group of
+ * a query, for LandUseAggregate.top().
+ *
+ * Each group has K slots in two flat int arrays, one for row numbers and one
+ * for their values, kept as a heap with the worst of the group's best rows
+ * at the top. A row only has to beat that one to get in, so adding a row is
+ * one comparison for most rows and log K swaps for the rest, with no
+ * boxing, no allocation and K slots of memory per group however many rows
+ * there are.
+ *
+ * Rows are ranked by value, largest first, and rows with the same value by
+ * row number, earlier first, as ARGMAX does. That is a total order, so the
+ * K best rows of a group don't depend on the order rows are offered in, and
+ * merging the rows of several parts of a dataset (see
+ * LandUseParallelQueryEngine) gives the same rows in the same order as one
+ * pass over all of it.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+final class LandUseTopRows {
+
+    private final int k;
+    private int groupCount;
+
+    // Slots group * k up to group * k + sizes[group] hold the group's heap.
+    // The arrays are replaced by grow() when new groups appear.
+    private int[] rows;
+    private int[] values;
+    private int[] sizes;
+
+    /**
+     * Creates empty heaps.
+     *
+     * @param groupCount, int, number of groups.
+     * @param k, int, number of rows to keep for each group.
+     */
+    LandUseTopRows(int groupCount, int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1: " + k);
+        }
+        this.k = k;
+        this.groupCount = groupCount;
+        rows = new int[Math.multiplyExact(groupCount, k)];
+        values = new int[rows.length];
+        sizes = new int[groupCount];
+    }
+
+    /**
+     * Makes room for groups added since the heaps were created.
+     * @param newGroupCount, int, number of groups, at least the current number.
+     */
+    void grow(int newGroupCount) {
+        if (newGroupCount == groupCount) {
+            return;
+        }
+        rows = Arrays.copyOf(rows, Math.multiplyExact(newGroupCount, k));
+        values = Arrays.copyOf(values, rows.length);
+        sizes = Arrays.copyOf(sizes, newGroupCount);
+        groupCount = newGroupCount;
+    }
+
+    /**
+     * Offers a row to a group's heap. It is kept if the group has fewer than
+     * K rows or it beats the worst of them.
+     *
+     * @param group, int, group id.
+     * @param row, int, row number.
+     * @param value, int, the row's value.
+     */
+    void offer(int group, int row, int value) {
+        int base = group * k;
+        int size = sizes[group];
+        if (size < k) {
+            rows[base + size] = row;
+            values[base + size] = value;
+            sizes[group] = size + 1;
+            siftUp(rows, values, base, size);
+        } else if (better(value, row, values[base], rows[base])) {
+            rows[base] = row;
+            values[base] = value;
+            siftDown(rows, values, base, 0, k);
+        }
+    }
+
+    /**
+     * Offers every row kept by other heaps for the same groups and K, such
+     * as heaps filled from another part of the rows. The order heaps are
+     * merged in doesn't change the result.
+     *
+     * @param other, LandUseTopRows to merge in.
+     */
+    void merge(LandUseTopRows other) {
+        if (other.k != k || other.groupCount != groupCount) {
+            throw new IllegalArgumentException("Can't merge the top " + other.k + " rows of " + other.groupCount
+                    + " groups into the top " + k + " rows of " + groupCount + " groups");
+        }
+        for (int group = 0; group < groupCount; group++) {
+            int base = group * k;
+            for (int slot = base; slot < base + other.sizes[group]; slot++) {
+                offer(group, other.rows[slot], other.values[slot]);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of rows kept for a group, at most K.
+     * @param group, int, group id.
+     * @return int
+     */
+    int size(int group) {
+        return sizes[group];
+    }
+
+    /**
+     * Gets the best row of a group.
+     * @param group, int, group id.
+     * @return int, row number, or -1 if the group has no rows.
+     */
+    int getBestRow(int group) {
+        int base = group * k;
+        int best = -1;
+        for (int slot = base; slot < base + sizes[group]; slot++) {
+            if (best == -1 || better(values[slot], rows[slot], values[best], rows[best])) {
+                best = slot;
+            }
+        }
+        return best == -1 ? -1 : rows[best];
+    }
+
+    /**
+     * Gets the rows kept for a group, best first.
+     * @param group, int, group id.
+     * @return int[], row numbers, empty if the group has no rows.
+     */
+    int[] getRows(int group) {
+
+        // Sort a copy of the heap by taking the worst row off the top until
+        // it is empty, filling the result from the end.
+        int size = sizes[group];
+        int[] heapRows = Arrays.copyOfRange(rows, group * k, group * k + size);
+        int[] heapValues = Arrays.copyOfRange(values, group * k, group * k + size);
+        int[] ranked = new int[size];
+        for (int last = size - 1; last >= 0; last--) {
+            ranked[last] = heapRows[0];
+            heapRows[0] = heapRows[last];
+            heapValues[0] = heapValues[last];
+            siftDown(heapRows, heapValues, 0, 0, last);
+        }
+        return ranked;
+    }
+
+    // Ranks rows by value, largest first, then by row number, earlier first.
+    private static boolean better(int value, int row, int otherValue, int otherRow) {
+        return value > otherValue || (value == otherValue && row < otherRow);
+    }
+
+    // Moves the entry at index up the heap starting at base until its parent
+    // is worse.
+    private static void siftUp(int[] rows, int[] values, int base, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!better(values[base + parent], rows[base + parent], values[base + index], rows[base + index])) {
+                return;
+            }
+            swap(rows, values, base + parent, base + index);
+            index = parent;
+        }
+    }
+
+    // Moves the entry at index down the heap of size entries starting at
+    // base until both of its children are better.
+    private static void siftDown(int[] rows, int[] values, int base, int index, int size) {
+        while (true) {
+            int worst = 2 * index + 1;
+            if (worst >= size) {
+                return;
+            }
+            int right = worst + 1;
+            if (right < size && better(values[base + worst], rows[base + worst], values[base + right],
+                    rows[base + right])) {
+                worst = right;
+            }
+            if (!better(values[base + index], rows[base + index], values[base + worst], rows[base + worst])) {
+                return;
+            }
+            swap(rows, values, base + index, base + worst);
+            index = worst;
+        }
+    }
+
+    private static void swap(int[] rows, int[] values, int slot, int otherSlot) {
+        int row = rows[slot];
+        rows[slot] = rows[otherSlot];
+        rows[otherSlot] = row;
+        int value = values[slot];
+        values[slot] = values[otherSlot];
+        values[otherSlot] = value;
+    }
+}
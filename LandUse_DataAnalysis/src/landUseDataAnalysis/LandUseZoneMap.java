@@ -0,0 +1,229 @@
+package landUseDataAnalysis;
+
+import java.util.function.IntPredicate;
+
+/**
+ * Block statistics (a zone map) over a LandUseDataset.
+ *
+ * The rows are split into blocks of BLOCK_SIZE rows. For every block the
+ * zone map keeps the smallest and largest dictionary id in the Year, Region
+ * and Region or State columns, and the smallest and largest value and the
+ * number of "N.A." values in each land use column.
+ *
+ * A filter can then rule out a whole block from its statistics alone (see
+ * LandUseFilter.blockMatcher()). For example, a block whose largest Land in
+ * Urban Areas value is 1500 has no rows with at least 2000 acres. USDA data
+ * is grouped by region and state, and datasets built from several releases
+ * are grouped by year, so the blocks of selective queries are mostly
+ * skipped without reading their rows.
+ *
+ * Like LandUseDatasetIndex, a zone map describes the dataset at the time it
+ * was built. Use LandUseDataset.getZoneMap(), which rebuilds it after rows
+ * are appended.
+ *
+ * @author M Lafranchise
+ * @email pulchrit@gmail.com
+ *
+ */
+public class LandUseZoneMap {
+
+    // Rows per block. The same block size is used by LandUseBatchQueryEngine.
+    public static final int BLOCK_SIZE = 1024;
+
+    private final LandUseDataset dataset;
+    private final int rowCount;
+    private final int blockCount;
+
+    // Statistics indexed [column][block]. A land use column whose values are
+    // all "N.A." in a block has min Integer.MAX_VALUE and max Integer.MIN_VALUE.
+    private final int[][] minIds = new int[LandUseDimension.values().length][];
+    private final int[][] maxIds = new int[LandUseDimension.values().length][];
+    private final int[][] minValues = new int[LandUseDataset.LAND_USE_COLUMN_COUNT][];
+    private final int[][] maxValues = new int[LandUseDataset.LAND_USE_COLUMN_COUNT][];
+    private final int[][] nullCounts = new int[LandUseDataset.LAND_USE_COLUMN_COUNT][];
+
+    /**
+     * Builds the block statistics for every row currently in the dataset.
+     *
+     * @param dataset, LandUseDataset to describe.
+     */
+    public LandUseZoneMap(LandUseDataset dataset) {
+        this.dataset = dataset;
+        rowCount = dataset.getRowCount();
+        blockCount = (rowCount + BLOCK_SIZE - 1) / BLOCK_SIZE;
+
+        for (LandUseDimension dimension : LandUseDimension.values()) {
+            int[] ids = dimension.getColumn(dataset);
+            int[] min = new int[blockCount];
+            int[] max = new int[blockCount];
+            for (int block = 0; block < blockCount; block++) {
+                int blockMin = Integer.MAX_VALUE;
+                int blockMax = Integer.MIN_VALUE;
+                for (int row = getBlockStart(block), end = getBlockEnd(block); row < end; row++) {
+                    blockMin = Math.min(blockMin, ids[row]);
+                    blockMax = Math.max(blockMax, ids[row]);
+                }
+                min[block] = blockMin;
+                max[block] = blockMax;
+            }
+            minIds[dimension.ordinal()] = min;
+            maxIds[dimension.ordinal()] = max;
+        }
+
+        int[] missing = dataset.getMissingColumn();
+        for (int column = 0; column < LandUseDataset.LAND_USE_COLUMN_COUNT; column++) {
+            int[] values = dataset.getLandUseColumn(column);
+            int[] min = new int[blockCount];
+            int[] max = new int[blockCount];
+            int[] nulls = new int[blockCount];
+            for (int block = 0; block < blockCount; block++) {
+
+                // "N.A." values are stored as 0, so they are swapped for
+                // values that can't change the min or max.
+                int blockMin = Integer.MAX_VALUE;
+                int blockMax = Integer.MIN_VALUE;
+                int blockNulls = 0;
+                for (int row = getBlockStart(block), end = getBlockEnd(block); row < end; row++) {
+                    int isMissing = missing[row] >>> column & 1;
+                    blockNulls += isMissing;
+                    blockMin = Math.min(blockMin, isMissing == 0 ? values[row] : Integer.MAX_VALUE);
+                    blockMax = Math.max(blockMax, isMissing == 0 ? values[row] : Integer.MIN_VALUE);
+                }
+                min[block] = blockMin;
+                max[block] = blockMax;
+                nulls[block] = blockNulls;
+            }
+            minValues[column] = min;
+            maxValues[column] = max;
+            nullCounts[column] = nulls;
+        }
+    }
+
+    /**
+     * Gets the number of blocks.
+     * @return int, number of blocks, the last of which may be partly full.
+     */
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * Gets the first row of a block.
+     * @param block, int, block number.
+     * @return int, row number.
+     */
+    public int getBlockStart(int block) {
+        return block * BLOCK_SIZE;
+    }
+
+    /**
+     * Gets the row after the last row of a block.
+     * @param block, int, block number.
+     * @return int, row number.
+     */
+    public int getBlockEnd(int block) {
+        return Math.min((block + 1) * BLOCK_SIZE, rowCount);
+    }
+
+    /**
+     * Gets the smallest dictionary id of a dimension in a block.
+     * @param dimension, LandUseDimension, column to read.
+     * @param block, int, block number.
+     * @return int, smallest id.
+     */
+    public int getMinId(LandUseDimension dimension, int block) {
+        return minIds[dimension.ordinal()][block];
+    }
+
+    /**
+     * Gets the largest dictionary id of a dimension in a block.
+     * @param dimension, LandUseDimension, column to read.
+     * @param block, int, block number.
+     * @return int, largest id.
+     */
+    public int getMaxId(LandUseDimension dimension, int block) {
+        return maxIds[dimension.ordinal()][block];
+    }
+
+    /**
+     * Gets the smallest value of a land use column in a block, leaving out
+     * "N.A." values.
+     * @param column, int, land use column, such as LandUseDataset.LAND_IN_URBAN_AREAS.
+     * @param block, int, block number.
+     * @return int, smallest value, or Integer.MAX_VALUE if every value is "N.A."
+     */
+    public int getMin(int column, int block) {
+        return minValues[column][block];
+    }
+
+    /**
+     * Gets the largest value of a land use column in a block, leaving out
+     * "N.A." values.
+     * @param column, int, land use column, such as LandUseDataset.LAND_IN_URBAN_AREAS.
+     * @param block, int, block number.
+     * @return int, largest value, or Integer.MIN_VALUE if every value is "N.A."
+     */
+    public int getMax(int column, int block) {
+        return maxValues[column][block];
+    }
+
+    /**
+     * Gets the number of "N.A." values of a land use column in a block.
+     * @param column, int, land use column, such as LandUseDataset.LAND_IN_URBAN_AREAS.
+     * @param block, int, block number.
+     * @return int, number of rows with "N.A."
+     */
+    public int getNullCount(int column, int block) {
+        return nullCounts[column][block];
+    }
+
+    /**
+     * Checks if a block may have rows whose land use value is in a range and
+     * is not "N.A.".
+     *
+     * @param column, int, land use column, such as LandUseDataset.LAND_IN_URBAN_AREAS.
+     * @param block, int, block number.
+     * @param min, int, smallest value in the range.
+     * @param max, int, largest value in the range.
+     * @return boolean, false if no row in the block can be in the range.
+     */
+    public boolean mayContain(int column, int block, int min, int max) {
+        int blockLength = getBlockEnd(block) - getBlockStart(block);
+        return nullCounts[column][block] < blockLength
+                && minValues[column][block] <= max && maxValues[column][block] >= min;
+    }
+
+    /**
+     * Gets the rows of the blocks that pass a block test, such as a filter's
+     * blockMatcher().
+     *
+     * @param blocks, IntPredicate, true for block numbers to keep.
+     * @return int[], row numbers of the kept blocks in ascending order.
+     */
+    public int[] getRows(IntPredicate blocks) {
+        boolean[] kept = new boolean[blockCount];
+        int keptRows = 0;
+        for (int block = 0; block < blockCount; block++) {
+            kept[block] = blocks.test(block);
+            if (kept[block]) {
+                keptRows += getBlockEnd(block) - getBlockStart(block);
+            }
+        }
+
+        // When nothing is skipped, share the index's list of every row so
+        // index filters can still use their posting lists as they are.
+        if (keptRows == rowCount) {
+            return dataset.getIndex().getAllRows();
+        }
+        int[] rows = new int[keptRows];
+        int position = 0;
+        for (int block = 0; block < blockCount; block++) {
+            if (kept[block]) {
+                for (int row = getBlockStart(block), end = getBlockEnd(block); row < end; row++) {
+                    rows[position++] = row;
+                }
+            }
+        }
+        return rows;
+    }
+}